@@ -39,6 +39,7 @@ public class ChessGamePanel extends JPanel {
     private JTextArea chatHistory;
     private JTextField chatInput;
     private ChatController chatController;
+    private String matchId;
 
     private final String player1Name;
     private final String player2Name;
@@ -51,7 +52,11 @@ public class ChessGamePanel extends JPanel {
     public ChessGamePanel(String player1Name, String player2Name, Runnable onExitCallback) {
         this.player1Name = player1Name; // WHITE
         this.player2Name = player2Name; // BLACK
-        this.onExitCallback = onExitCallback;
+        // Every way out of the game (result, resign, leave) ends its session
+        this.onExitCallback = () -> {
+            AppContext.getSessionRegistry().markFinished(matchId);
+            onExitCallback.run();
+        };
 
         // --- Chat & Session Setup ---
         setupChatSystem();
@@ -112,21 +117,20 @@ public class ChessGamePanel extends JPanel {
         startNewGame();
     }
 
+    /** The id this panel's session is registered under. */
+    String getMatchId() {
+        return matchId;
+    }
+
     private void setupChatSystem() {
         // Construct a match ID based on players and game type
-        String matchId = "CHESS-" + player1Name + "-" + player2Name;
+        matchId = "CHESS-" + player1Name + "-" + player2Name;
         
         // Use AppContext to get the shared ChatService
         ChatService service = AppContext.getChatService();
-        ChatChannel channel = service.openChannel(matchId);
-
-        // Reconstruct a Match object for the session (required by ChatController)
-        // Note: Ratings are placeholders here as we only passed names to the panel
-        matchmaking.Player p1 = new matchmaking.Player(player1Name, player1Name, 1200);
-        matchmaking.Player p2 = new matchmaking.Player(player2Name, player2Name, 1200);
-        Match match = new Match(GameType.CHESS, p1, p2);
 
-        GameSession session = new GameSession(match, channel);
+        // The registered session for this match (required by ChatController)
+        GameSession session = MainGui.openSession(matchId, GameType.CHESS, player1Name, player2Name);
         this.chatController = new ChatController(session, service);
 
         // Register listener to update UI
@@ -186,6 +190,7 @@ public class ChessGamePanel extends JPanel {
         if (boardView != null) {
             boardView.repaint();
         }
+        AppContext.getSessionRegistry().touch(matchId);
 
         String txt = "Turn: " + side;
 
@@ -30,6 +30,7 @@ public class GoGamePanel extends JPanel {
     private JTextArea chatHistory;
     private JTextField chatInput;
     private ChatController chatController;
+    private String matchId;
 
     private final String player1Name; // Plays Black
     private final String player2Name; // Plays White
@@ -38,7 +39,11 @@ public class GoGamePanel extends JPanel {
     public GoGamePanel(String player1Name, String player2Name, Runnable onExitCallback) {
         this.player1Name = player1Name;
         this.player2Name = player2Name;
-        this.onExitCallback = onExitCallback;
+        // Every way out of the game (result, resign, leave) ends its session
+        this.onExitCallback = () -> {
+            AppContext.getSessionRegistry().markFinished(matchId);
+            onExitCallback.run();
+        };
 
         // --- Chat & Session Setup ---
         setupChatSystem();
@@ -104,6 +109,13 @@ public class GoGamePanel extends JPanel {
             appendSystemMessage(current + " passed.");
 
             game.pass();
+            if (game.isGameOver()) {
+                // Pre-mark dead stones so the final board and score reflect them
+                OwnershipMap estimate = game.estimateOwnership();
+                appendSystemMessage("Estimated dead stones: " + game.getDeadStones().size()
+                        + " | Area: B=" + estimate.getAreaScore(StoneColor.BLACK)
+                        + " W=" + estimate.getAreaScore(StoneColor.WHITE));
+            }
             updateUIState();
             checkGameOver();
         });
@@ -151,16 +163,16 @@ public class GoGamePanel extends JPanel {
         startNewGame();
     }
 
+    /** The id this panel's session is registered under. */
+    String getMatchId() {
+        return matchId;
+    }
+
     private void setupChatSystem() {
-        String matchId = "GO-" + player1Name + "-" + player2Name;
+        matchId = "GO-" + player1Name + "-" + player2Name;
         ChatService service = AppContext.getChatService();
-        ChatChannel channel = service.openChannel(matchId);
-
-        matchmaking.Player p1 = new matchmaking.Player(player1Name, player1Name, 1200);
-        matchmaking.Player p2 = new matchmaking.Player(player2Name, player2Name, 1200);
-        Match match = new Match(GameType.GO, p1, p2);
 
-        GameSession session = new GameSession(match, channel);
+        GameSession session = MainGui.openSession(matchId, GameType.GO, player1Name, player2Name);
         this.chatController = new ChatController(session, service);
         this.chatController.addListener(this::onChatMessageReceived);
     }
@@ -289,6 +301,7 @@ public class GoGamePanel extends JPanel {
         if (scoreLabel != null) scoreLabel.setText("Captured: B=" + bCaps + " | W=" + wCaps);
 
         if (boardView != null) boardView.repaint();
+        AppContext.getSessionRegistry().touch(matchId);
     }
 
     private void checkGameOver() {
@@ -364,9 +377,26 @@ public class GoGamePanel extends JPanel {
     private class BoardView extends JPanel {
         private final int MARGIN = 30;
         private int cellSize;
+        private int hoverRow = -1;
+        private int hoverCol = -1;
 
         public BoardView() {
             setBackground(new Color(220, 179, 92));
+
+            // Hover preview: the legal-move bitmap makes this an O(1) lookup per mouse move
+            addMouseMotionListener(new MouseAdapter() {
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    if (cellSize <= 0) return;
+                    int r = Math.round((float)(e.getY() - MARGIN) / cellSize);
+                    int c = Math.round((float)(e.getX() - MARGIN) / cellSize);
+                    if (r != hoverRow || c != hoverCol) {
+                        hoverRow = r;
+                        hoverCol = c;
+                        repaint();
+                    }
+                }
+            });
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
@@ -409,6 +439,7 @@ public class GoGamePanel extends JPanel {
 
             GoBoard board = game.getBoard();
             int stoneRadius = (int)(cellSize * 0.4);
+            java.util.Set<go_logic.Point> deadStones = game.getDeadStones();
 
             for (int r = 0; r < boardSize; r++) {
                 for (int c = 0; c < boardSize; c++) {
@@ -427,10 +458,27 @@ public class GoGamePanel extends JPanel {
                                 g2.setColor(Color.BLACK);
                                 g2.drawOval(x - stoneRadius, y - stoneRadius, stoneRadius * 2, stoneRadius * 2);
                             }
+
+                            // Cross out stones the ownership estimate marked as dead
+                            if (deadStones.contains(new go_logic.Point(r, c))) {
+                                int d = stoneRadius / 2;
+                                g2.setColor(Color.RED);
+                                g2.drawLine(x - d, y - d, x + d, y + d);
+                                g2.drawLine(x - d, y + d, x + d, y - d);
+                            }
                         }
                     } catch (IndexOutOfBoundsException ignore) { }
                 }
             }
+
+            // Ghost stone for the current player where a move would be legal
+            if (game.isLegalMove(hoverRow, hoverCol)) {
+                int x = xOffset + hoverCol * cellSize;
+                int y = yOffset + hoverRow * cellSize;
+                boolean black = game.getCurrentPlayer() == StoneColor.BLACK;
+                g2.setColor(black ? new Color(0, 0, 0, 90) : new Color(255, 255, 255, 130));
+                g2.fillOval(x - stoneRadius, y - stoneRadius, stoneRadius * 2, stoneRadius * 2);
+            }
         }
     }
 }
\ No newline at end of file
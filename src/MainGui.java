@@ -1,6 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
 import matchmaking.*;
+import chat.ChatChannel;
 import auth_logic.PlayerData;
 
 public class MainGui {
@@ -9,6 +10,9 @@ public class MainGui {
     public static final Color T_COL = new Color(228, 228, 228);
     public static final Color BTN_COL = new Color(35, 35, 35);
 
+    /** How long the lobby waits for a queued match before giving up. */
+    private static final long MATCH_TIMEOUT_MILLIS = 60_000;
+
     private static JFrame frame;
     private static JPanel mainPanel;
     private static CardLayout cardLayout;
@@ -35,6 +39,7 @@ public class MainGui {
     }
 
     public static void main(String[] args) {
+        AppContext.startSessionSweep();
         SwingUtilities.invokeLater(MainGui::start);
     }
 
@@ -270,14 +275,47 @@ public class MainGui {
         return selected; // Returns null if user cancels
     }
 
+    /**
+     * The GameSession for a game panel between 'p1' and 'p2', registered in the
+     * shared SessionRegistry under 'matchId' and kept alive by its chat. The
+     * panel marks it finished when the game is left, and removeExistingGamePanel()
+     * removes it; a session still registered under the id is reused.
+     */
+    static GameSession openSession(String matchId, GameType gameType, String p1, String p2) {
+        SessionRegistry sessions = AppContext.getSessionRegistry();
+        GameSession session = sessions.get(matchId);
+        if (session != null) {
+            sessions.touch(matchId);
+            return session;
+        }
+        ChatChannel channel = AppContext.getChatService().openChannel(matchId);
+        // Ratings are placeholders here as the panels only get names
+        Match match = new Match(gameType, new Player(p1, p1, 1200), new Player(p2, p2, 1200));
+        session = new GameSession(match, channel);
+        try {
+            sessions.register(matchId, session);
+            channel.addListener(message -> sessions.touch(matchId));
+        } catch (IllegalStateException ex) {
+            // the game still works, it is just not tracked
+            ex.printStackTrace();
+        }
+        return session;
+    }
+
     /** Remove any existing game panel before adding a new one to prevent duplicate recordings. */
     private static void removeExistingGamePanel() {
         Component[] components = mainPanel.getComponents();
         boolean removed = false;
         for (Component comp : components) {
-            if (comp instanceof GoGamePanel || comp instanceof ChessGamePanel || comp instanceof TicTacToeGamePanel) {
+            String matchId = comp instanceof GoGamePanel ? ((GoGamePanel) comp).getMatchId()
+                    : comp instanceof ChessGamePanel ? ((ChessGamePanel) comp).getMatchId()
+                    : comp instanceof TicTacToeGamePanel ? ((TicTacToeGamePanel) comp).getMatchId()
+                    : null;
+            if (matchId != null) {
                 System.out.println("Removing existing game panel: " + comp.getClass().getSimpleName());
                 mainPanel.remove(comp);
+                // Frees its chat now, so a rematch between the same pair starts a fresh session
+                AppContext.getSessionRegistry().remove(matchId);
                 removed = true;
             }
         }
@@ -886,6 +924,9 @@ public class MainGui {
                     return;
                 }
 
+                // The game has started, so the lobby is no longer needed
+                lobbyManager.closeLobby(id);
+
                 // Navigate to the game
                 showCard("GAME");
 
@@ -940,52 +981,51 @@ public class MainGui {
                         return;
                     }
 
-                    // Enqueue both players
-                    matchmaker.enqueue(me, gameType);
+                    // Wait for our match instead of polling findMatch(); the
+                    // future completes on whichever thread makes the pairing
+                    matchmaker.enqueueAsync(me, gameType, MATCH_TIMEOUT_MILLIS)
+                        .whenComplete((match, error) -> SwingUtilities.invokeLater(() -> {
+                            queueBtn.setText("Find Match (Queue)");
+                            queueBtn.setEnabled(true);
+                            gameSelector.setEnabled(true);
+
+                            // Once a match has been setup
+                            if (match != null) {
+                                System.out.println("Match Created: " + match);
+
+                                String p1 = match.getPlayer1().getName();
+                                String p2 = match.getPlayer2().getName();
+
+                                // Remove any existing game panel to prevent duplicate recordings
+                                removeExistingGamePanel();
+
+                                // Launch the correct Game Panel with names
+                                if (gameType == GameType.GO) {
+                                    // Pass names to Go Panel
+                                    GoGamePanel goPanel = new GoGamePanel(p1, p2, () -> showCard("LOBBY"));
+                                    mainPanel.add(goPanel, "GAME");
+                                    goPanel.startNewGame();
+                                } else if (gameType == GameType.CHESS) {
+                                    // Pass names to Chess Panel
+                                    ChessGamePanel chessPanel = new ChessGamePanel(p1, p2, () -> showCard("LOBBY"));
+                                    mainPanel.add(chessPanel, "GAME");
+                                } else if (gameType == GameType.TIC_TAC_TOE) {
+                                    // Pass names to Tic-Tac-Toe Panel
+                                    TicTacToeGamePanel tttPanel = new TicTacToeGamePanel(p1, p2, () -> showCard("LOBBY"));
+                                    mainPanel.add(tttPanel, "GAME");
+                                }
+
+                                showCard("GAME");
+
+                            } else {
+                                // Timed out (or the search was cancelled)
+                                JOptionPane.showMessageDialog(panel, "No match found. Try again.");
+                            }
+                        }));
+
+                    // The opponent joins the queue and is paired with the closest waiting player
                     matchmaker.enqueue(opponent, gameType);
-                    
-                    // Find the match
-                    matchmaking.Match match = matchmaker.findMatch();
-
-                    // Once a match has been setup
-                    if (match != null) {
-                        System.out.println("Match Created: " + match);
-                        
-                        queueBtn.setText("Find Match (Queue)");
-                        queueBtn.setEnabled(true);
-                        gameSelector.setEnabled(true);
-
-                        String p1 = match.getPlayer1().getName();
-                        String p2 = match.getPlayer2().getName();
-
-                        // Remove any existing game panel to prevent duplicate recordings
-                        removeExistingGamePanel();
-
-                        // Launch the correct Game Panel with names
-                        if (gameType == GameType.GO) {
-                            // Pass names to Go Panel
-                            GoGamePanel goPanel = new GoGamePanel(p1, p2, () -> showCard("LOBBY"));
-                            mainPanel.add(goPanel, "GAME");
-                            goPanel.startNewGame();
-                        } else if (gameType == GameType.CHESS) {
-                            // Pass names to Chess Panel
-                            ChessGamePanel chessPanel = new ChessGamePanel(p1, p2, () -> showCard("LOBBY"));
-                            mainPanel.add(chessPanel, "GAME");
-                        } else if (gameType == GameType.TIC_TAC_TOE) {
-                            // Pass names to Tic-Tac-Toe Panel
-                            TicTacToeGamePanel tttPanel = new TicTacToeGamePanel(p1, p2, () -> showCard("LOBBY"));
-                            mainPanel.add(tttPanel, "GAME");
-                        }
-                        
-                        showCard("GAME"); 
-
-                    } else {
-                        // We shouldn't be able to reach this scenario but just in case
-                        queueBtn.setText("Find Match (Queue)");
-                        queueBtn.setEnabled(true);
-                        gameSelector.setEnabled(true);
-                        JOptionPane.showMessageDialog(panel, "No match found. Try again.");
-                    }
+                    matchmaker.findMatchFor(opponent, gameType);
 
                 } catch (Exception ex) {
                     ex.printStackTrace();
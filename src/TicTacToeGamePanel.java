@@ -30,6 +30,7 @@ public class TicTacToeGamePanel extends JPanel {
     private JTextArea chatHistory;
     private JTextField chatInput;
     private ChatController chatController;
+    private String matchId;
 
     private final String player1Name; // X player
     private final String player2Name; // O player
@@ -37,7 +38,11 @@ public class TicTacToeGamePanel extends JPanel {
     public TicTacToeGamePanel(String player1Name, String player2Name, Runnable onExitCallback) {
         this.player1Name = player1Name; // X
         this.player2Name = player2Name; // O
-        this.onExitCallback = onExitCallback;
+        // Every way out of the game (result, resign, leave) ends its session
+        this.onExitCallback = () -> {
+            AppContext.getSessionRegistry().markFinished(matchId);
+            onExitCallback.run();
+        };
 
         // --- Chat & Session Setup (controller only, no listener yet) ---
         setupChatSystem();
@@ -114,20 +119,20 @@ public class TicTacToeGamePanel extends JPanel {
         startNewGame();
     }
 
+    /** The id this panel's session is registered under. */
+    String getMatchId() {
+        return matchId;
+    }
+
     private void setupChatSystem() {
         // Construct a match ID based on players and game type
-        String matchId = "TTT-" + player1Name + "-" + player2Name;
+        matchId = "TTT-" + player1Name + "-" + player2Name;
         
         // Use AppContext to get the shared ChatService
         ChatService service = AppContext.getChatService();
-        ChatChannel channel = service.openChannel(matchId);
 
-        // Reconstruct a Match object for the session (required by ChatController)
-        matchmaking.Player p1 = new matchmaking.Player(player1Name, player1Name, 1200);
-        matchmaking.Player p2 = new matchmaking.Player(player2Name, player2Name, 1200);
-        Match match = new Match(GameType.TIC_TAC_TOE, p1, p2);
-
-        GameSession session = new GameSession(match, channel);
+        // The registered session for this match (required by ChatController)
+        GameSession session = MainGui.openSession(matchId, GameType.TIC_TAC_TOE, player1Name, player2Name);
         this.chatController = new ChatController(session, service);
         // Listener is attached later, after chatHistory exists
     }
@@ -151,6 +156,7 @@ public class TicTacToeGamePanel extends JPanel {
         if (boardView != null) {
             boardView.repaint();
         }
+        AppContext.getSessionRegistry().touch(matchId);
 
         TicTacToeGameResult result = game.getResult();
         TicTacToePlayer current = game.getCurrentPlayer();
@@ -399,7 +405,8 @@ public class TicTacToeGamePanel extends JPanel {
                     int x = (e.getX() - MARGIN) / cellSize;
                     int y = (e.getY() - MARGIN) / cellSize;
                     
-                    if (x < 0 || x >= 3 || y < 0 || y >= 3) return;
+                    TicTacToeBoard board = game.getBoard();
+                    if (x < 0 || x >= board.getWidth() || y < 0 || y >= board.getHeight()) return;
 
                     boolean moveMade = game.playMove(x, y);
                     if (moveMade) {
@@ -418,8 +425,12 @@ public class TicTacToeGamePanel extends JPanel {
             Graphics2D g2 = (Graphics2D) g;
             g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
+            TicTacToeBoard board = game.getBoard();
+            int cols = board.getWidth();
+            int rows = board.getHeight();
+
             int side = Math.min(getWidth(), getHeight());
-            cellSize = (side - 2 * MARGIN) / 3;
+            cellSize = (side - 2 * MARGIN) / Math.max(cols, rows);
 
             int xOffset = MARGIN;
             int yOffset = MARGIN;
@@ -429,19 +440,20 @@ public class TicTacToeGamePanel extends JPanel {
             g2.setStroke(new BasicStroke(3));
             
             // Vertical lines
-            g2.drawLine(xOffset + cellSize, yOffset, xOffset + cellSize, yOffset + 3 * cellSize);
-            g2.drawLine(xOffset + 2 * cellSize, yOffset, xOffset + 2 * cellSize, yOffset + 3 * cellSize);
+            for (int i = 1; i < cols; i++) {
+                g2.drawLine(xOffset + i * cellSize, yOffset, xOffset + i * cellSize, yOffset + rows * cellSize);
+            }
             
             // Horizontal lines
-            g2.drawLine(xOffset, yOffset + cellSize, xOffset + 3 * cellSize, yOffset + cellSize);
-            g2.drawLine(xOffset, yOffset + 2 * cellSize, xOffset + 3 * cellSize, yOffset + 2 * cellSize);
+            for (int i = 1; i < rows; i++) {
+                g2.drawLine(xOffset, yOffset + i * cellSize, xOffset + cols * cellSize, yOffset + i * cellSize);
+            }
 
             // Draw X's and O's
-            TicTacToeBoard board = game.getBoard();
             int padding = cellSize / 4;
             
-            for (int row = 0; row < 3; row++) {
-                for (int col = 0; col < 3; col++) {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
                     TicTacToePlayer player = board.getPlayerAt(row, col);
                     if (player != null) {
                         int x = xOffset + col * cellSize;
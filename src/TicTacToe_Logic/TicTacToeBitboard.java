@@ -0,0 +1,130 @@
+package TicTacToe_Logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bitboard geometry for m x n boards of up to 32 cells.
+ * A position is two int masks, one per player, with bit (row * width + col)
+ * set for each occupied cell. Every k-in-a-row line is precomputed as a mask,
+ * and the lines through each cell are indexed so a last-move win check only
+ * tests a handful of masks.
+ */
+public final class TicTacToeBitboard {
+
+    public static final int MAX_CELLS = 32;
+
+    private final int width;
+    private final int height;
+    private final int winLength;
+    private final int fullMask;
+    private final int[] winMasks;
+    private final int[][] winMasksByCell;
+
+    public TicTacToeBitboard(int width, int height, int winLength) {
+        if (width <= 0 || height <= 0 || width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Bitboard supports 1.." + MAX_CELLS + " cells");
+        }
+        if (winLength <= 0 || winLength > Math.max(width, height)) {
+            throw new IllegalArgumentException("Win length must be between 1 and the longest board side");
+        }
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        int cells = width * height;
+        this.fullMask = cells == MAX_CELLS ? -1 : (1 << cells) - 1;
+        this.winMasks = buildWinMasks();
+        this.winMasksByCell = indexByCell(cells);
+    }
+
+    /** Bitboard geometry matching an existing board; use maskOf() to read its stones. */
+    public static TicTacToeBitboard of(TicTacToeBoard board) {
+        return new TicTacToeBitboard(board.getWidth(), board.getHeight(), board.getWinLength());
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    public int getCellCount() {
+        return width * height;
+    }
+
+    /** Mask with every cell set; a position is full when (x | o) == fullMask(). */
+    public int fullMask() {
+        return fullMask;
+    }
+
+    public int cell(int row, int col) {
+        return row * width + col;
+    }
+
+    /** Does 'mask' contain any complete line? */
+    public boolean isWin(int mask) {
+        for (int line : winMasks) {
+            if ((mask & line) == line) return true;
+        }
+        return false;
+    }
+
+    /** Does 'mask' contain a complete line through 'cell'? Used right after a move. */
+    public boolean isWinAt(int mask, int cell) {
+        for (int line : winMasksByCell[cell]) {
+            if ((mask & line) == line) return true;
+        }
+        return false;
+    }
+
+    /** Mask of the cells that 'player' occupies on 'board'. */
+    public int maskOf(TicTacToeBoard board, TicTacToePlayer player) {
+        int mask = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (board.getPlayerAt(row, col) == player) {
+                    mask |= 1 << cell(row, col);
+                }
+            }
+        }
+        return mask;
+    }
+
+    // ------------- helpers -------------
+
+    private int[] buildWinMasks() {
+        int[][] directions = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+        List<Integer> lines = new ArrayList<>();
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                for (int[] d : directions) {
+                    int endRow = row + d[0] * (winLength - 1);
+                    int endCol = col + d[1] * (winLength - 1);
+                    if (endRow < 0 || endRow >= height || endCol < 0 || endCol >= width) continue;
+                    int mask = 0;
+                    for (int i = 0; i < winLength; i++) {
+                        mask |= 1 << cell(row + d[0] * i, col + d[1] * i);
+                    }
+                    if (!lines.contains(mask)) lines.add(mask); // k = 1 yields the same cell in every direction
+                }
+            }
+        }
+        return lines.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int[][] indexByCell(int cells) {
+        int[][] byCell = new int[cells][];
+        for (int c = 0; c < cells; c++) {
+            int bit = 1 << c;
+            byCell[c] = Arrays.stream(winMasks).filter(line -> (line & bit) != 0).toArray();
+        }
+        return byCell;
+    }
+}
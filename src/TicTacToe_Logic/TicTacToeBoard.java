@@ -1,13 +1,38 @@
 package TicTacToe_Logic;
 
+/**
+ * m x n board where k in a row wins ("m,n,k-game").
+ * The default constructor keeps the classic 3x3, 3-in-a-row setup;
+ * larger boards host Gomoku (15x15, k=5) and other connect-k variants.
+ */
 public class TicTacToeBoard {
-    private final int width = 3;
-    private final int height = 3;
+    public static final int DEFAULT_SIZE = 3;
 
-    private final TicTacToeMove[][] board;
+    /** Row/col steps for the four line directions through a cell: horizontal, vertical, both diagonals. */
+    private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+    private final int width;
+    private final int height;
+    private final int winLength;
+
+    private final TicTacToeMove[][] board; // [row][col]
+    private int movesTaken = 0;
 
     public TicTacToeBoard() {
-        this.board = new TicTacToeMove[width][height];
+        this(DEFAULT_SIZE, DEFAULT_SIZE, DEFAULT_SIZE);
+    }
+
+    public TicTacToeBoard(int width, int height, int winLength) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Board dimensions must be > 0");
+        }
+        if (winLength <= 0 || winLength > Math.max(width, height)) {
+            throw new IllegalArgumentException("Win length must be between 1 and the longest board side");
+        }
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+        this.board = new TicTacToeMove[height][width];
     }
 
     /**
@@ -19,6 +44,7 @@ public class TicTacToeBoard {
                 board[row][col] = null;
             }
         }
+        movesTaken = 0;
     }
 
     /**
@@ -41,9 +67,52 @@ public class TicTacToeBoard {
             return false;
         }
         board[row][col] = move;
+        movesTaken++;
         return true;
     }
 
+    /** Empties (row, col) again, for TicTacToeGame.undoMove(). */
+    void clearCell(int row, int col) {
+        if (inBound(row, col) && board[row][col] != null) {
+            board[row][col] = null;
+            movesTaken--;
+        }
+    }
+
+    /**
+     * True if the stone at (row, col) is part of a line of at least winLength.
+     * Only the four lines through that cell are scanned, at most k-1 cells each
+     * way, so the cost is O(k) whatever the board size.
+     */
+    public boolean completesLine(int row, int col) {
+        TicTacToePlayer player = getPlayerAt(row, col);
+        if (player == null) {
+            return false;
+        }
+        for (int[] d : DIRECTIONS) {
+            int count = 1
+                    + countFrom(row, col, d[0], d[1], player)
+                    + countFrom(row, col, -d[0], -d[1], player);
+            if (count >= winLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Consecutive cells owned by 'player' stepping away from (row, col), capped at k-1. */
+    private int countFrom(int row, int col, int dRow, int dCol, TicTacToePlayer player) {
+        int count = 0;
+        int r = row + dRow;
+        int c = col + dCol;
+        while (count < winLength - 1 && inBound(r, c) && getPlayerAt(r, c) == player) {
+            count++;
+            r += dRow;
+            c += dCol;
+        }
+        return count;
+    }
+
     /**
      * helper functions
      */
@@ -55,15 +124,12 @@ public class TicTacToeBoard {
         return height;
     }
 
+    public int getWinLength() {
+        return winLength;
+    }
+
     public boolean isFull() {
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if (board[row][col] == null) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return movesTaken == width * height;
     }
 
     public TicTacToePlayer getPlayerAt(int row, int col) {
@@ -75,10 +141,21 @@ public class TicTacToeBoard {
         }
     }
 
+    /** For GUI and network: copy of the board, [row][col], null for empty cells. */
+    public TicTacToePlayer[][] getSnapshot() {
+        TicTacToePlayer[][] copy = new TicTacToePlayer[height][width];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                copy[row][col] = getPlayerAt(row, col);
+            }
+        }
+        return copy;
+    }
+
     public TicTacToeMove getGridCell(int row, int col) {
         if (!inBound(row, col)) {
             return null;
         }
         return board[row][col];
     }
-}
\ No newline at end of file
+}
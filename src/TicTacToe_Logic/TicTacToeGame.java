@@ -1,13 +1,26 @@
 package TicTacToe_Logic;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 public class TicTacToeGame {
 
     private final TicTacToeBoard board;
     private TicTacToePlayer currentPlayer;
     private TicTacToeGameResult result;
+    private final Deque<TicTacToeMove> history = new ArrayDeque<>();
 
     public TicTacToeGame() {
-        this.board = new TicTacToeBoard();
+        this(new TicTacToeBoard());
+    }
+
+    /** m x n game with k in a row to win, e.g. (15, 15, 5) for Gomoku. */
+    public TicTacToeGame(int width, int height, int winLength) {
+        this(new TicTacToeBoard(width, height, winLength));
+    }
+
+    private TicTacToeGame(TicTacToeBoard board) {
+        this.board = board;
         this.currentPlayer = TicTacToePlayer.X; // x start
         this.result = TicTacToeGameResult.IN_PROGRESS;
     }
@@ -26,6 +39,7 @@ public class TicTacToeGame {
 
     public void reset() {
         board.reset();
+        history.clear();
         currentPlayer = TicTacToePlayer.X;
         result = TicTacToeGameResult.IN_PROGRESS;
     }
@@ -40,7 +54,8 @@ public class TicTacToeGame {
             return false; // illegal move
         }
 
-        updateResult(); // after move
+        history.push(move);
+        updateResult(move); // after move
 
         if (result == TicTacToeGameResult.IN_PROGRESS) {
             switchPlayer();
@@ -48,12 +63,29 @@ public class TicTacToeGame {
         return true;
     }
 
+    /** Moves played so far. */
+    public int getMoveCount() {
+        return history.size();
+    }
+
+    /** Takes back the last move, even one that ended the game; false if none was played. */
+    public boolean undoMove() {
+        if (history.isEmpty()) {
+            return false;
+        }
+        TicTacToeMove move = history.pop();
+        board.clearCell(move.getY(), move.getX());
+        currentPlayer = move.getPlayer();
+        result = TicTacToeGameResult.IN_PROGRESS;
+        return true;
+    }
+
     private void switchPlayer() {
         currentPlayer = currentPlayer.nextTurn();
     }
 
-    private void updateResult() {
-        TicTacToePlayer winner = getWinner();
+    private void updateResult(TicTacToeMove lastMove) {
+        TicTacToePlayer winner = getWinner(lastMove);
 
         if (winner == TicTacToePlayer.X) {
             result = TicTacToeGameResult.X_WINS;
@@ -73,45 +105,11 @@ public class TicTacToeGame {
         }
     }
 
-    private TicTacToePlayer getWinner() {
-        int height = board.getHeight();
-        int width = board.getWidth();
-
-        // cols
-        for (int col = 0; col < width; col++) {
-            TicTacToePlayer player = board.getPlayerAt(0, col);
-            if (player != null &&
-                    player == board.getPlayerAt(1, col) &&
-                    player == board.getPlayerAt(2, col)) {
-                return player;
-            }
+    /** Only lines through the last move can have just been completed. */
+    private TicTacToePlayer getWinner(TicTacToeMove lastMove) {
+        if (board.completesLine(lastMove.getY(), lastMove.getX())) {
+            return lastMove.getPlayer();
         }
-
-        // rows
-        for (int row = 0; row < height; row++) {
-            TicTacToePlayer player = board.getPlayerAt(row, 0);
-            if (player != null &&
-                    player == board.getPlayerAt(row, 1) &&
-                    player == board.getPlayerAt(row, 2)) {
-                return player;
-            }
-        }
-
-        // diagonals
-        TicTacToePlayer player = board.getPlayerAt(0, 0);
-        if (player != null &&
-                player == board.getPlayerAt(1, 1) &&
-                player == board.getPlayerAt(2, 2)) {
-            return player;
-        }
-
-        player = board.getPlayerAt(0, 2);
-        if (player != null &&
-                player == board.getPlayerAt(1, 1) &&
-                player == board.getPlayerAt(2, 0)) {
-            return player;
-        }
-
         return null;
     }
 }
@@ -0,0 +1,255 @@
+package TicTacToe_Logic;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Perfect-play solver over TicTacToeBitboard positions.
+ *
+ * Classic 3x3: the whole game tree is enumerated once when the class loads
+ * into a byte table indexed by the base-3 position number, so classicValue()
+ * and classicBestMove() are single table reads.
+ *
+ * Other sizes (e.g. 4x4): negamax with alpha-beta pruning and a fixed-size
+ * transposition table. Instances are not thread-safe; give each bot thread
+ * its own solver.
+ *
+ * Values are from the side to move's point of view: WIN, DRAW or LOSS.
+ */
+public class TicTacToeSolver {
+
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+
+    /** Returned by the best-move methods when the game is already over. */
+    public static final int NO_MOVE = -1;
+
+    // ---------------- classic 3x3 table ----------------
+
+    private static final TicTacToeBitboard CLASSIC = new TicTacToeBitboard(3, 3, 3);
+
+    /** BASE3[mask] = sum of 3^i over the set bits i; position index = BASE3[x] + 2 * BASE3[o]. */
+    private static final int[] BASE3 = new int[1 << 9];
+
+    /** Entry = (value + 2) | (bestMove + 1) << 2; zero means "not reachable / not solved". */
+    private static final byte[] CLASSIC_TABLE = new byte[19683];
+
+    static {
+        for (int mask = 1; mask < BASE3.length; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            BASE3[mask] = BASE3[mask & (mask - 1)] + pow3(low);
+        }
+        solveClassic(0, 0);
+    }
+
+    /** Number of positions in the precomputed 3x3 table that are reachable from the empty board. */
+    public static int classicPositionCount() {
+        int count = 0;
+        for (byte entry : CLASSIC_TABLE) {
+            if (entry != 0) count++;
+        }
+        return count;
+    }
+
+    /** O(1) perfect-play value of a reachable 3x3 position for the side to move. */
+    public static int classicValue(int xMask, int oMask) {
+        return (classicEntry(xMask, oMask) & 3) - 2;
+    }
+
+    /** O(1) perfect-play move (cell index) for the side to move, or NO_MOVE if the game is over. */
+    public static int classicBestMove(int xMask, int oMask) {
+        return (classicEntry(xMask, oMask) >> 2) - 1;
+    }
+
+    private static int classicEntry(int xMask, int oMask) {
+        int entry = CLASSIC_TABLE[BASE3[xMask] + 2 * BASE3[oMask]];
+        if (entry == 0) {
+            throw new IllegalArgumentException("Not a reachable 3x3 position");
+        }
+        return entry;
+    }
+
+    /** Fills the table for every position reachable from (x, o); returns the value for the side to move. */
+    private static int solveClassic(int x, int o) {
+        int index = BASE3[x] + 2 * BASE3[o];
+        if (CLASSIC_TABLE[index] != 0) {
+            return (CLASSIC_TABLE[index] & 3) - 2;
+        }
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        int mover = xToMove ? x : o;
+        int empty = ~(x | o) & CLASSIC.fullMask();
+
+        int best = LOSS - 1;
+        int bestMove = NO_MOVE;
+        // Terminal positions (last mover won, or board full) keep NO_MOVE
+        boolean over = CLASSIC.isWin(xToMove ? o : x) || empty == 0;
+        if (over) {
+            best = CLASSIC.isWin(xToMove ? o : x) ? LOSS : DRAW;
+        } else {
+            for (int rest = empty; rest != 0; rest &= rest - 1) {
+                int cell = Integer.numberOfTrailingZeros(rest);
+                int next = mover | (1 << cell);
+                int value = -(xToMove ? solveClassic(next, o) : solveClassic(x, next));
+                if (value > best) {
+                    best = value;
+                    bestMove = cell;
+                }
+            }
+        }
+        CLASSIC_TABLE[index] = (byte) ((best + 2) | (bestMove + 1) << 2);
+        return best;
+    }
+
+    private static int pow3(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) result *= 3;
+        return result;
+    }
+
+    // ---------------- alpha-beta with transposition table ----------------
+
+    private static final int TT_BITS = 20;
+    private static final int EXACT = 0;
+    private static final int LOWER = 1;
+    private static final int UPPER = 2;
+
+    private final TicTacToeBitboard layout;
+    private final int[] moveOrder;
+    private final long[] ttKeys = new long[1 << TT_BITS];
+    private final int[] ttData = new int[1 << TT_BITS];
+    private long nodes = 0;
+
+    public TicTacToeSolver(int width, int height, int winLength) {
+        this.layout = new TicTacToeBitboard(width, height, winLength);
+        this.moveOrder = centreFirst(layout);
+    }
+
+    public TicTacToeBitboard getLayout() {
+        return layout;
+    }
+
+    /** Nodes visited by search since this solver was created (for benchmarking). */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /** Perfect-play value of the position for the side to move. */
+    public int solve(int xMask, int oMask) {
+        return negamax(xMask, oMask, LOSS, WIN);
+    }
+
+    /** Perfect-play move (cell index) for the side to move, or NO_MOVE if the game is over. */
+    public int bestMove(int xMask, int oMask) {
+        boolean xToMove = Integer.bitCount(xMask) == Integer.bitCount(oMask);
+        if (isOver(xMask, oMask)) {
+            return NO_MOVE;
+        }
+        int empty = ~(xMask | oMask) & layout.fullMask();
+        int best = LOSS - 1;
+        int bestMove = NO_MOVE;
+        for (int cell : moveOrder) {
+            if ((empty & (1 << cell)) == 0) continue;
+            int value = xToMove
+                    ? -negamax(xMask | (1 << cell), oMask, LOSS, -best)
+                    : -negamax(xMask, oMask | (1 << cell), LOSS, -best);
+            if (value > best) {
+                best = value;
+                bestMove = cell;
+                if (best == WIN) break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Best move for the player to move in 'game', or null if the game is over
+     * or is not played on this solver's board (width, height and win length).
+     * Uses the precomputed table for classic 3x3 games and search otherwise.
+     */
+    public TicTacToeMove bestMove(TicTacToeGame game) {
+        TicTacToeBoard board = game.getBoard();
+        if (game.getResult() != TicTacToeGameResult.IN_PROGRESS
+                || board.getWidth() != layout.getWidth()
+                || board.getHeight() != layout.getHeight()
+                || board.getWinLength() != layout.getWinLength()) {
+            return null;
+        }
+        int x = layout.maskOf(board, TicTacToePlayer.X);
+        int o = layout.maskOf(board, TicTacToePlayer.O);
+        boolean classic = layout.getWidth() == 3 && layout.getHeight() == 3 && layout.getWinLength() == 3;
+        int cell = classic ? classicBestMove(x, o) : bestMove(x, o);
+        if (cell == NO_MOVE) {
+            return null;
+        }
+        return new TicTacToeMove(game.getCurrentPlayer(), cell % layout.getWidth(), cell / layout.getWidth());
+    }
+
+    private boolean isOver(int x, int o) {
+        return layout.isWin(x) || layout.isWin(o) || (x | o) == layout.fullMask();
+    }
+
+    private int negamax(int x, int o, int alpha, int beta) {
+        nodes++;
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        if (layout.isWin(xToMove ? o : x)) {
+            return LOSS;
+        }
+        int empty = ~(x | o) & layout.fullMask();
+        if (empty == 0) {
+            return DRAW;
+        }
+
+        long key = ((long) x << 32) | (o & 0xFFFFFFFFL);
+        int slot = slot(key);
+        if (ttData[slot] != 0 && ttKeys[slot] == key) {
+            int value = (ttData[slot] & 3) - 2;
+            int flag = ttData[slot] >> 2;
+            if (flag == EXACT) return value;
+            if (flag == LOWER && value >= beta) return value;
+            if (flag == UPPER && value <= alpha) return value;
+        }
+
+        int originalAlpha = alpha;
+        int best = LOSS - 1;
+        int mover = xToMove ? x : o;
+        for (int cell : moveOrder) {
+            int bit = 1 << cell;
+            if ((empty & bit) == 0) continue;
+            int next = mover | bit;
+            int value;
+            if (layout.isWinAt(next, cell)) {
+                value = WIN; // no need to recurse into a won position
+            } else {
+                value = xToMove ? -negamax(next, o, -beta, -alpha) : -negamax(x, next, -beta, -alpha);
+            }
+            if (value > best) best = value;
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+
+        int flag = best <= originalAlpha ? UPPER : (best >= beta ? LOWER : EXACT);
+        ttKeys[slot] = key;
+        ttData[slot] = (best + 2) | flag << 2;
+        return best;
+    }
+
+    private static int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> (64 - TT_BITS));
+    }
+
+    /** Cells sorted by distance from the centre; central cells sit on more lines and cut off earlier. */
+    private static int[] centreFirst(TicTacToeBitboard layout) {
+        int cells = layout.getCellCount();
+        Integer[] order = new Integer[cells];
+        for (int i = 0; i < cells; i++) order[i] = i;
+        double cr = (layout.getHeight() - 1) / 2.0;
+        double cc = (layout.getWidth() - 1) / 2.0;
+        Arrays.sort(order, Comparator.comparingDouble(
+                c -> Math.abs(c / layout.getWidth() - cr) + Math.abs(c % layout.getWidth() - cc)));
+        int[] result = new int[cells];
+        for (int i = 0; i < cells; i++) result[i] = order[i];
+        return result;
+    }
+}
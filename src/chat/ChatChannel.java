@@ -40,6 +40,11 @@ public class ChatChannel {
         return Collections.unmodifiableList(messages);
     }
 
+    /** Drops the message history, e.g. when the channel is closed; listeners stay. */
+    void clearHistory() {
+        messages.clear();
+    }
+
     public void addListener(ChatListener listener) {
         if (listener != null && !listeners.contains(listener)) {
             listeners.add(listener);
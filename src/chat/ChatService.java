@@ -39,4 +39,13 @@ public interface ChatService {
      * @return list of ChatMessage objects in chronological order
      */
     List<ChatMessage> getHistory(String matchId);
+
+    /**
+     * Closes the chat channel for the given match and frees its history,
+     * e.g. once its game session has ended. A later openChannel() or
+     * sendMessage() for the same id starts an empty channel.
+     *
+     * @param matchId id of the match
+     */
+    void closeChannel(String matchId);
 }
@@ -65,6 +65,15 @@ public class ChatServiceStub implements ChatService {
         return new ArrayList<>(channel.getHistory());
     }
 
+    @Override
+    public synchronized void closeChannel(String matchId) {
+        ChatChannel channel = channels.remove(matchId);
+        if (channel != null) {
+            // a GameSession may still hold the channel; its history goes now
+            channel.clearHistory();
+        }
+    }
+
     /**
      * Very simple sanitization: trim whitespace and collapse line breaks.
      * Can be extended later if needed.
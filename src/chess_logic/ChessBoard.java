@@ -108,6 +108,47 @@ public final class ChessBoard implements Cloneable {
         return moves;
     }
 
+    /**
+     * The legal move from (fromFile, fromRank) to (toFile, toRank), or null.
+     * Same answer as searching generateLegalMoves(), but only the matching
+     * move is tried for leaving the king in check.
+     */
+    public ChessMove findLegalMove(Color color, int fromFile, int fromRank, int toFile, int toRank) {
+        Piece p = getPiece(fromFile, fromRank);
+        if (p == null || p.getColor() != color) {
+            return null;
+        }
+        List<ChessMove> candidates = new ArrayList<>();
+        generatePieceMoves(color, fromFile, fromRank, p, candidates);
+        if (p.getType() == PieceType.KING) {
+            addCastlingMoves(color, candidates);
+        }
+        for (ChessMove m : candidates) {
+            if (m.getFromFile() == fromFile && m.getFromRank() == fromRank
+                    && m.getToFile() == toFile && m.getToRank() == toRank
+                    && isLegal(m, color)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /** True if 'color' has any legal move; stops at the first one found. */
+    public boolean hasLegalMove(Color color) {
+        for (ChessMove m : generatePseudoLegalMoves(color)) {
+            if (isLegal(m, color)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isLegal(ChessMove m, Color color) {
+        ChessBoard copy = this.clone();
+        copy.applyMoveNoValidation(m, color);
+        return !copy.isKingInCheck(color);
+    }
+
     private List<ChessMove> generatePseudoLegalMoves(Color color) {
         List<ChessMove> moves = new ArrayList<>();
         for (int f = 0; f < 8; f++) {
@@ -398,6 +439,30 @@ public final class ChessBoard implements Cloneable {
                 moving.getType() == PieceType.ROOK && fromR == ((movingColor == Color.WHITE) ? 0 : 7));
     }
 
+    /** Castling rights as bits: 1 white king side, 2 white queen side, 4 black king side, 8 black queen side. */
+    int getCastleRights() {
+        return (whiteCastleKingSide ? 1 : 0) | (whiteCastleQueenSide ? 2 : 0)
+                | (blackCastleKingSide ? 4 : 0) | (blackCastleQueenSide ? 8 : 0);
+    }
+
+    /**
+     * Reverses applyMoveNoValidation(move): 'moving', 'captured' and (for
+     * castling) 'rook' are the pieces that stood on the from, to and rook
+     * squares before the move, 'castleRights' the getCastleRights() from then.
+     */
+    void undoMove(ChessMove move, Piece moving, Piece captured, Piece rook, int castleRights) {
+        setPiece(move.getFromFile(), move.getFromRank(), moving);
+        setPiece(move.getToFile(), move.getToRank(), captured);
+        if (move.isCastleKingSide() || move.isCastleQueenSide()) {
+            setPiece(move.isCastleKingSide() ? 7 : 0, move.getFromRank(), rook);
+            setPiece(move.isCastleKingSide() ? 5 : 3, move.getFromRank(), null);
+        }
+        whiteCastleKingSide = (castleRights & 1) != 0;
+        whiteCastleQueenSide = (castleRights & 2) != 0;
+        blackCastleKingSide = (castleRights & 4) != 0;
+        blackCastleQueenSide = (castleRights & 8) != 0;
+    }
+
     private void updateCastleRightsAfterMove(Color color, boolean kingMoved, boolean rookMoved) {
         if (color == Color.WHITE) {
             if (kingMoved) {
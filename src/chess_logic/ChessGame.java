@@ -1,12 +1,16 @@
 package chess_logic;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 public final class ChessGame {
     private final ChessBoard board;
     private Color sideToMove;
     private GameStatus status;
+    // What undoMove() needs per move; pieces are immutable, so no board copies
+    private final Deque<Undo> history = new ArrayDeque<>();
 
     public ChessGame() {
         this.board = new ChessBoard();
@@ -39,6 +43,23 @@ public final class ChessGame {
         return result;
     }
 
+    /** All legal moves for the side to move; empty once the game is over. */
+    public List<ChessMove> getLegalMoves() {
+        if (status != GameStatus.RUNNING) return new ArrayList<>();
+        return board.generateLegalMoves(sideToMove);
+    }
+
+    /** True if makeMove() with these squares would be accepted. */
+    public boolean isLegalMove(int fromFile, int fromRank, int toFile, int toRank) {
+        return status == GameStatus.RUNNING
+                && board.findLegalMove(sideToMove, fromFile, fromRank, toFile, toRank) != null;
+    }
+
+    /** Moves played so far. */
+    public int getMoveCount() {
+        return history.size();
+    }
+
     /**
      * Main entry for the GUI.
      * Returns true if the move was legal and applied, false otherwise.
@@ -46,21 +67,15 @@ public final class ChessGame {
     public boolean makeMove(int fromFile, int fromRank, int toFile, int toRank) {
         if (status != GameStatus.RUNNING) return false;
 
-        List<ChessMove> legal = board.generateLegalMoves(sideToMove);
-        ChessMove chosen = null;
-        for (ChessMove m : legal) {
-            if (m.getFromFile() == fromFile &&
-                m.getFromRank() == fromRank &&
-                m.getToFile()   == toFile &&
-                m.getToRank()   == toRank) {
-                chosen = m;
-                break;
-            }
-        }
+        ChessMove chosen = board.findLegalMove(sideToMove, fromFile, fromRank, toFile, toRank);
         if (chosen == null) {
             return false; // illegal
         }
 
+        Piece rook = chosen.isCastleKingSide() || chosen.isCastleQueenSide()
+                ? board.getPiece(chosen.isCastleKingSide() ? 7 : 0, fromRank) : null;
+        history.push(new Undo(chosen, board.getPiece(fromFile, fromRank), board.getPiece(toFile, toRank),
+                rook, board.getCastleRights()));
         board.applyMoveNoValidation(chosen, sideToMove);
 
         // update game state
@@ -69,8 +84,34 @@ public final class ChessGame {
         return true;
     }
 
+    /** Takes back the last move; false if no move has been played. */
+    public boolean undoMove() {
+        if (history.isEmpty()) return false;
+        Undo undo = history.pop();
+        board.undoMove(undo.move, undo.moving, undo.captured, undo.rook, undo.castleRights);
+        sideToMove = sideToMove.opposite();
+        status = GameStatus.RUNNING; // moves are only made while running
+        return true;
+    }
+
+    private static final class Undo {
+        final ChessMove move;
+        final Piece moving;
+        final Piece captured;
+        final Piece rook;
+        final int castleRights;
+
+        Undo(ChessMove move, Piece moving, Piece captured, Piece rook, int castleRights) {
+            this.move = move;
+            this.moving = moving;
+            this.captured = captured;
+            this.rook = rook;
+            this.castleRights = castleRights;
+        }
+    }
+
     private void updateStatus() {
-        if (board.generateLegalMoves(sideToMove).isEmpty()) {
+        if (!board.hasLegalMove(sideToMove)) {
             if (board.isKingInCheck(sideToMove)) {
                 status = GameStatus.CHECKMATE;
             } else {
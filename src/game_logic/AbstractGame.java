@@ -0,0 +1,102 @@
+package game_logic;
+
+import matchmaking.GameType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Move list, ply count and serialization shared by the three adapters;
+ * they only translate moves for their engine.
+ */
+abstract class AbstractGame implements Game {
+
+    /** Leading byte of serialize(); bump it if the layout changes. */
+    static final byte FORMAT_VERSION = 1;
+
+    private final GameType type;
+    private final int width;
+    private final int height;
+    private final int winLength;
+    private int[] moves = new int[16];
+    private int plies;
+
+    AbstractGame(GameType type, int width, int height, int winLength) {
+        this.type = type;
+        this.width = width;
+        this.height = height;
+        this.winLength = winLength;
+    }
+
+    /** Plays 'move' on the engine; false if it is not legal. */
+    abstract boolean play(int move);
+
+    /** Takes the engine's last move back. */
+    abstract boolean takeBack();
+
+    @Override
+    public final GameType getType() {
+        return type;
+    }
+
+    @Override
+    public final int getWidth() {
+        return width;
+    }
+
+    @Override
+    public final int getHeight() {
+        return height;
+    }
+
+    @Override
+    public final int getPlyCount() {
+        return plies;
+    }
+
+    @Override
+    public final int getMove(int ply) {
+        if (ply < 1 || ply > plies) {
+            throw new IllegalArgumentException("Ply " + ply + " outside 1.." + plies);
+        }
+        return moves[ply - 1];
+    }
+
+    @Override
+    public final boolean apply(int move) {
+        if (!play(move)) {
+            return false;
+        }
+        if (plies == moves.length) {
+            moves = Arrays.copyOf(moves, plies * 2);
+        }
+        moves[plies++] = move;
+        return true;
+    }
+
+    @Override
+    public final boolean undo() {
+        if (plies == 0 || !takeBack()) {
+            return false;
+        }
+        plies--;
+        return true;
+    }
+
+    /** version, type, width, height, win length, ply count, then the moves; big-endian. */
+    @Override
+    public final byte[] serialize() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 4 * 4 + 4 * plies);
+        buffer.put(FORMAT_VERSION).put((byte) type.ordinal())
+                .putInt(width).putInt(height).putInt(winLength).putInt(plies);
+        for (int i = 0; i < plies; i++) {
+            buffer.putInt(moves[i]);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + width + "x" + height + " after " + plies + " plies, " + getOutcome();
+    }
+}
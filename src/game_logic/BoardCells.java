@@ -0,0 +1,100 @@
+package game_logic;
+
+import TicTacToe_Logic.TicTacToeBoard;
+import TicTacToe_Logic.TicTacToePlayer;
+import chess_logic.Color;
+import chess_logic.Piece;
+import chess_logic.PieceType;
+import go_logic.GoBoard;
+import go_logic.StoneColor;
+
+/**
+ * Flattens the three games' boards into int cell arrays for
+ * BoardDeltaEncoder, and maps cell codes back. Cells are row-major
+ * (index = row * width + col); 0 is always an empty cell.
+ *
+ *   Chess: 8 x 8, index = rank * 8 + file; code = 1 + 2 * (2 * type + color) + moved,
+ *          so castling and first pawn moves survive the trip (1..24)
+ *   Go:    size x size; 1 black, 2 white
+ *   TicTacToe: width x height; 1 X, 2 O
+ */
+public final class BoardCells {
+
+    public static final int CHESS_SIZE = 8;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final Color[] COLORS = Color.values();
+
+    private BoardCells() {
+    }
+
+    /** Cells of a ChessGame.getBoardSnapshot() ([file][rank]). */
+    public static int[] chess(Piece[][] squares) {
+        int[] cells = new int[CHESS_SIZE * CHESS_SIZE];
+        for (int file = 0; file < CHESS_SIZE; file++) {
+            for (int rank = 0; rank < CHESS_SIZE; rank++) {
+                Piece piece = squares[file][rank];
+                if (piece != null) {
+                    cells[rank * CHESS_SIZE + file] = chessCode(piece);
+                }
+            }
+        }
+        return cells;
+    }
+
+    public static int chessCode(Piece piece) {
+        int kind = 2 * piece.getType().ordinal() + piece.getColor().ordinal();
+        return 1 + 2 * kind + (piece.hasMoved() ? 1 : 0);
+    }
+
+    /** The piece for a chess cell code, or null for 0. */
+    public static Piece chessPiece(int code) {
+        if (code == 0) {
+            return null;
+        }
+        if (code < 0 || code > 2 * 2 * PIECE_TYPES.length) {
+            throw new IllegalArgumentException("Not a chess cell code: " + code);
+        }
+        int kind = (code - 1) / 2;
+        return new Piece(PIECE_TYPES[kind / 2], COLORS[kind % 2], (code - 1) % 2 == 1);
+    }
+
+    public static int[] go(GoBoard board) {
+        int size = board.getSize();
+        int[] cells = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                StoneColor stone = board.getStone(row, col);
+                if (stone != null) {
+                    cells[row * size + col] = stone.ordinal() + 1;
+                }
+            }
+        }
+        return cells;
+    }
+
+    /** The stone for a Go cell code, or null for 0. */
+    public static StoneColor goStone(int code) {
+        return code == 0 ? null : StoneColor.values()[code - 1];
+    }
+
+    public static int[] ticTacToe(TicTacToeBoard board) {
+        TicTacToePlayer[][] snapshot = board.getSnapshot();
+        int width = board.getWidth();
+        int[] cells = new int[width * board.getHeight()];
+        for (int row = 0; row < snapshot.length; row++) {
+            for (int col = 0; col < width; col++) {
+                TicTacToePlayer player = snapshot[row][col];
+                if (player != null) {
+                    cells[row * width + col] = player.ordinal() + 1;
+                }
+            }
+        }
+        return cells;
+    }
+
+    /** The player for a TicTacToe cell code, or null for 0. */
+    public static TicTacToePlayer ticTacToePlayer(int code) {
+        return code == 0 ? null : TicTacToePlayer.values()[code - 1];
+    }
+}
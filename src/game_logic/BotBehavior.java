@@ -0,0 +1,116 @@
+package game_logic;
+
+import TicTacToe_Logic.TicTacToeMove;
+import TicTacToe_Logic.TicTacToeSolver;
+import matchmaking.BotPlayers;
+import matchmaking.GameSession;
+import matchmaking.Match;
+import matchmaking.Player;
+import matchmaking.SessionBehavior;
+import matchmaking.SessionCommand;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Session behaviour for a backfilled match: the human's moves arrive as
+ * commands, and the bot seat answers each one on the same actor turn.
+ *
+ * Only game types with BotPlayers.hasEngine() are accepted; today that is
+ * TicTacToe, played by TicTacToeSolver. The solver is exact, so the bot's
+ * level only sets how often it blunders into a random legal move
+ * (BotPlayers.blunderProbability()).
+ * Every applied move, the human's and the bot's, goes to the MoveListener
+ * in ply order, on the actor's thread.
+ */
+public final class BotBehavior implements SessionBehavior {
+
+    /** Receives every move applied to the game; 'seat' is 0 for player1. */
+    public interface MoveListener {
+        void onMove(int ply, int seat, int move);
+    }
+
+    private final Game game;
+    private final MoveListener listener;
+    private final Random random;
+    private final int botSeat;
+    private final double blunderProbability;
+    private final TicTacToeSolver solver;
+    private final int[] legal;
+
+    /**
+     * A behaviour for 'match', one of whose players must be a bot, playing
+     * 'game' (fresh, of the match's type). If the bot moves first, it plays
+     * its opening move before this returns.
+     */
+    public BotBehavior(Match match, Game game, MoveListener listener, Random random) {
+        Objects.requireNonNull(match, "match");
+        this.game = Objects.requireNonNull(game, "game");
+        this.listener = Objects.requireNonNull(listener, "listener");
+        this.random = Objects.requireNonNull(random, "random");
+        if (!BotPlayers.hasEngine(match.getGameType()) || game.getType() != match.getGameType()) {
+            throw new IllegalArgumentException("No bot engine for " + match.getGameType());
+        }
+        if (BotPlayers.isBot(match.getPlayer1()) == BotPlayers.isBot(match.getPlayer2())) {
+            throw new IllegalArgumentException("Match needs exactly one bot: " + match);
+        }
+        this.botSeat = BotPlayers.isBot(match.getPlayer1()) ? 0 : 1;
+        Player bot = botSeat == 0 ? match.getPlayer1() : match.getPlayer2();
+        this.blunderProbability = BotPlayers.blunderProbability(BotPlayers.levelOf(bot));
+        this.solver = new TicTacToeSolver(game.getWidth(), game.getHeight(), winLength(game));
+        this.legal = new int[game.getMaxMoves()];
+        if (game.getSideToMove() == botSeat) {
+            playBotMove();
+        }
+    }
+
+    public int getBotSeat() {
+        return botSeat;
+    }
+
+    @Override
+    public boolean handle(GameSession session, SessionCommand command) {
+        switch (command.getKind()) {
+            case MOVE:
+                int seat = command.getPlayerIndex();
+                if (seat == botSeat || seat != game.getSideToMove() || !game.apply(command.getMove())) {
+                    return false; // not the human's turn, or an illegal move; the game goes on
+                }
+                listener.onMove(game.getPlyCount() - 1, seat, command.getMove());
+                if (isOver()) {
+                    return true;
+                }
+                playBotMove();
+                return isOver();
+            case RESIGN:
+            case TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // ------------- helpers -------------
+
+    private void playBotMove() {
+        int move;
+        if (random.nextDouble() < blunderProbability) {
+            move = legal[random.nextInt(game.legalMoves(legal))];
+        } else {
+            TicTacToeMove best = solver.bestMove(((TicTacToeGameAdapter) game).getGame());
+            move = MoveCodes.ticTacToe(best.getX(), best.getY(), game.getWidth());
+        }
+        if (!game.apply(move)) {
+            throw new IllegalStateException("Engine chose an illegal move " + move);
+        }
+        listener.onMove(game.getPlyCount() - 1, botSeat, move);
+    }
+
+    private boolean isOver() {
+        return game.getOutcome() != GameOutcome.IN_PROGRESS;
+    }
+
+    private static int winLength(Game game) {
+        return ((TicTacToeGameAdapter) game).getGame().getBoard().getWinLength();
+    }
+}
@@ -0,0 +1,82 @@
+package game_logic;
+
+import chess_logic.ChessGame;
+import chess_logic.ChessMove;
+import chess_logic.Color;
+import chess_logic.GameStatus;
+import matchmaking.GameType;
+
+/** A ChessGame as a Game. */
+public final class ChessGameAdapter extends AbstractGame {
+
+    /** Most legal moves any chess position has. */
+    public static final int MAX_LEGAL_MOVES = 218;
+
+    private final ChessGame game = new ChessGame();
+
+    ChessGameAdapter() {
+        super(GameType.CHESS, 8, 8, 0);
+    }
+
+    /** The wrapped engine; moves made on it directly bypass getPlyCount() and serialize(). */
+    public ChessGame getGame() {
+        return game;
+    }
+
+    @Override
+    public int getSideToMove() {
+        return game.getSideToMove() == Color.WHITE ? 0 : 1;
+    }
+
+    @Override
+    public int getMaxMoves() {
+        return MAX_LEGAL_MOVES;
+    }
+
+    @Override
+    public int legalMoves(int[] out) {
+        int n = 0;
+        for (ChessMove m : game.getLegalMoves()) {
+            out[n++] = MoveCodes.chess(m.getFromFile(), m.getFromRank(), m.getToFile(), m.getToRank());
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isLegal(int move) {
+        return inRange(move) && game.isLegalMove(MoveCodes.chessFromFile(move), MoveCodes.chessFromRank(move),
+                MoveCodes.chessToFile(move), MoveCodes.chessToRank(move));
+    }
+
+    @Override
+    boolean play(int move) {
+        return inRange(move) && game.makeMove(MoveCodes.chessFromFile(move), MoveCodes.chessFromRank(move),
+                MoveCodes.chessToFile(move), MoveCodes.chessToRank(move));
+    }
+
+    @Override
+    boolean takeBack() {
+        return game.undoMove();
+    }
+
+    @Override
+    public GameOutcome getOutcome() {
+        if (game.getStatus() == GameStatus.CHECKMATE) {
+            // the side to move is the one mated
+            return game.getSideToMove() == Color.WHITE
+                    ? GameOutcome.SECOND_PLAYER_WINS : GameOutcome.FIRST_PLAYER_WINS;
+        }
+        return game.getStatus() == GameStatus.STALEMATE ? GameOutcome.DRAW : GameOutcome.IN_PROGRESS;
+    }
+
+    @Override
+    public int[] cells() {
+        return BoardCells.chess(game.getBoardSnapshot());
+    }
+
+    // ------------- helpers -------------
+
+    private static boolean inRange(int move) {
+        return move >= 0 && move < 1 << 12;
+    }
+}
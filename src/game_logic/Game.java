@@ -0,0 +1,57 @@
+package game_logic;
+
+import matchmaking.GameType;
+
+/**
+ * One game of chess, Go or TicTacToe behind a single API, so code above the
+ * engines (server pipeline, replay, bots) needs no per-game branches.
+ *
+ * Moves are MoveCodes ints. Players are numbered by who moves first: 0 is
+ * white in chess, black in Go and X in TicTacToe. Boards come back as
+ * BoardCells codes, row-major. Implementations wrap one engine game
+ * and are not thread-safe; create them with Games.
+ */
+public interface Game {
+
+    GameType getType();
+
+    int getWidth();
+
+    int getHeight();
+
+    /** Moves applied and not undone. */
+    int getPlyCount();
+
+    /** The move that led to 'ply' (1..getPlyCount()). */
+    int getMove(int ply);
+
+    /** 0 or 1; see the class comment. */
+    int getSideToMove();
+
+    /** Upper bound on legalMoves(), for sizing its buffer. */
+    int getMaxMoves();
+
+    /**
+     * Writes the legal moves for the side to move into 'out' (at least
+     * getMaxMoves() long) and returns how many there are; 0 once the game
+     * is over.
+     */
+    int legalMoves(int[] out);
+
+    /** True if apply(move) would succeed; never changes the game. */
+    boolean isLegal(int move);
+
+    /** Plays 'move' for the side to move; false, with nothing changed, if it is not legal. */
+    boolean apply(int move);
+
+    /** Takes back the last applied move; false if there is none. */
+    boolean undo();
+
+    GameOutcome getOutcome();
+
+    /** The board as BoardCells codes, as a fresh array. */
+    int[] cells();
+
+    /** Type, board and move list; Games.deserialize() replays it into an equal game. */
+    byte[] serialize();
+}
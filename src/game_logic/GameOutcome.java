@@ -0,0 +1,9 @@
+package game_logic;
+
+/** Where a Game stands; players are numbered as in Game. */
+public enum GameOutcome {
+    IN_PROGRESS,
+    FIRST_PLAYER_WINS,
+    SECOND_PLAYER_WINS,
+    DRAW
+}
@@ -0,0 +1,84 @@
+package game_logic;
+
+import matchmaking.GameType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/** Creates and restores Games. */
+public final class Games {
+
+    private Games() {
+    }
+
+    /** A new game on the board the game panels use (see defaultDimensions). */
+    public static Game create(GameType type) {
+        int[] board = defaultDimensions(type);
+        return create(type, board[0], board[1], board[2]);
+    }
+
+    /**
+     * A new game. Chess ignores the dimensions, Go uses 'width' as its size,
+     * and 'winLength' only matters for TicTacToe.
+     */
+    public static Game create(GameType type, int width, int height, int winLength) {
+        Objects.requireNonNull(type, "type");
+        switch (type) {
+            case CHESS:
+                return new ChessGameAdapter();
+            case GO:
+                return new GoGameAdapter(width);
+            case TIC_TAC_TOE:
+                return new TicTacToeGameAdapter(width, height, winLength);
+            default:
+                throw new IllegalArgumentException("Unknown game type " + type);
+        }
+    }
+
+    /** {width, height, winLength} the game panels use: chess 8x8, Go 9x9, TicTacToe 3x3 with 3 in a row. */
+    public static int[] defaultDimensions(GameType type) {
+        switch (type) {
+            case CHESS:
+                return new int[] {8, 8, 0};
+            case GO:
+                return new int[] {9, 9, 0};
+            default:
+                return new int[] {3, 3, 3};
+        }
+    }
+
+    /**
+     * Rebuilds a game from Game.serialize() by replaying its moves. Throws
+     * IllegalArgumentException if the bytes are malformed or a move does not
+     * apply.
+     */
+    public static Game deserialize(byte[] bytes) {
+        Objects.requireNonNull(bytes, "bytes");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            byte version = buffer.get();
+            if (version != AbstractGame.FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown game format version " + version);
+            }
+            int type = buffer.get();
+            if (type < 0 || type >= GameType.values().length) {
+                throw new IllegalArgumentException("Unknown game type " + type);
+            }
+            Game game = create(GameType.values()[type], buffer.getInt(), buffer.getInt(), buffer.getInt());
+            int plies = buffer.getInt();
+            if (plies < 0 || plies > buffer.remaining() / 4) {
+                throw new IllegalArgumentException("Bad ply count " + plies);
+            }
+            for (int ply = 1; ply <= plies; ply++) {
+                int move = buffer.getInt();
+                if (!game.apply(move)) {
+                    throw new IllegalArgumentException("Move " + ply + " (" + move + ") is not legal");
+                }
+            }
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated game data", e);
+        }
+    }
+}
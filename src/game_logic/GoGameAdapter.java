@@ -0,0 +1,105 @@
+package game_logic;
+
+import go_logic.GoBoard;
+import go_logic.GoGame;
+import go_logic.IllegalMoveException;
+import go_logic.StoneColor;
+import matchmaking.GameType;
+
+/**
+ * A GoGame as a Game. Moves are points or MoveCodes.GO_PASS; the game ends
+ * after two passes in a row and getOutcome() then uses GoGame's winner.
+ */
+public final class GoGameAdapter extends AbstractGame {
+
+    private final GoGame game;
+    private final int size;
+
+    GoGameAdapter(int size) {
+        super(GameType.GO, size, size, 0);
+        this.game = new GoGame(size);
+        this.size = size;
+    }
+
+    /** The wrapped engine; moves made on it directly bypass getPlyCount() and serialize(). */
+    public GoGame getGame() {
+        return game;
+    }
+
+    @Override
+    public int getSideToMove() {
+        return game.getCurrentPlayer() == StoneColor.BLACK ? 0 : 1;
+    }
+
+    @Override
+    public int getMaxMoves() {
+        return size * size + 1;
+    }
+
+    /** Points in index order, then the pass. */
+    @Override
+    public int legalMoves(int[] out) {
+        if (game.isGameOver()) {
+            return 0;
+        }
+        GoBoard board = game.getBoard();
+        StoneColor color = game.getCurrentPlayer();
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (board.isLegal(row, col, color)) {
+                    out[n++] = row * size + col;
+                }
+            }
+        }
+        out[n++] = MoveCodes.GO_PASS;
+        return n;
+    }
+
+    @Override
+    public boolean isLegal(int move) {
+        if (move == MoveCodes.GO_PASS) {
+            return !game.isGameOver();
+        }
+        return move >= 0 && move < size * size && game.isLegalMove(move / size, move % size);
+    }
+
+    @Override
+    boolean play(int move) {
+        if (!isLegal(move)) {
+            return false;
+        }
+        if (move == MoveCodes.GO_PASS) {
+            game.pass();
+            return true;
+        }
+        try {
+            game.playMove(move / size, move % size);
+            return true;
+        } catch (IllegalMoveException e) {
+            return false; // isLegal() said otherwise; the bitmaps and the board disagree
+        }
+    }
+
+    @Override
+    boolean takeBack() {
+        return game.undoMove();
+    }
+
+    @Override
+    public GameOutcome getOutcome() {
+        if (!game.isGameOver()) {
+            return GameOutcome.IN_PROGRESS;
+        }
+        StoneColor winner = game.getWinnerColor();
+        if (winner == null) {
+            return GameOutcome.DRAW;
+        }
+        return winner == StoneColor.BLACK ? GameOutcome.FIRST_PLAYER_WINS : GameOutcome.SECOND_PLAYER_WINS;
+    }
+
+    @Override
+    public int[] cells() {
+        return BoardCells.go(game.getBoard());
+    }
+}
@@ -0,0 +1,68 @@
+package game_logic;
+
+/**
+ * The int encodings of moves that every Game takes and that
+ * journal.SessionJournal stores and replays.
+ *
+ *   Chess:       from square << 6 | to square, where a square is rank * 8 + file
+ *                (the indexing BoardCells uses); ChessGame picks the
+ *                promotion piece, so none is stored.
+ *   Go:          row * size + col, or GO_PASS.
+ *   TicTacToe:   y * width + x.
+ *
+ * Resignations and timeouts are not moves; they end the session with a
+ * result record.
+ */
+public final class MoveCodes {
+
+    public static final int GO_PASS = -1;
+
+    private MoveCodes() {
+    }
+
+    public static int chess(int fromFile, int fromRank, int toFile, int toRank) {
+        checkRange(fromFile, 8);
+        checkRange(fromRank, 8);
+        checkRange(toFile, 8);
+        checkRange(toRank, 8);
+        return (fromRank * 8 + fromFile) << 6 | (toRank * 8 + toFile);
+    }
+
+    public static int chessFromFile(int move) {
+        return (move >>> 6) & 7;
+    }
+
+    public static int chessFromRank(int move) {
+        return (move >>> 9) & 7;
+    }
+
+    public static int chessToFile(int move) {
+        return move & 7;
+    }
+
+    public static int chessToRank(int move) {
+        return (move >>> 3) & 7;
+    }
+
+    public static int go(int row, int col, int size) {
+        checkRange(row, size);
+        checkRange(col, size);
+        return row * size + col;
+    }
+
+    public static int ticTacToe(int x, int y, int width) {
+        checkRange(x, width);
+        if (y < 0) {
+            throw new IllegalArgumentException("Negative coordinate " + y);
+        }
+        return y * width + x;
+    }
+
+    // ------------- helpers -------------
+
+    private static void checkRange(int value, int size) {
+        if (value < 0 || value >= size) {
+            throw new IllegalArgumentException("Coordinate " + value + " outside 0.." + (size - 1));
+        }
+    }
+}
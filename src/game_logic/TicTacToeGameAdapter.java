@@ -0,0 +1,90 @@
+package game_logic;
+
+import TicTacToe_Logic.TicTacToeBoard;
+import TicTacToe_Logic.TicTacToeGame;
+import TicTacToe_Logic.TicTacToeGameResult;
+import TicTacToe_Logic.TicTacToePlayer;
+import matchmaking.GameType;
+
+/** A TicTacToeGame (any m,n,k board) as a Game. */
+public final class TicTacToeGameAdapter extends AbstractGame {
+
+    private final TicTacToeGame game;
+    private final int width;
+    private final int height;
+
+    TicTacToeGameAdapter(int width, int height, int winLength) {
+        super(GameType.TIC_TAC_TOE, width, height, winLength);
+        this.game = new TicTacToeGame(width, height, winLength);
+        this.width = width;
+        this.height = height;
+    }
+
+    /** The wrapped engine; moves made on it directly bypass getPlyCount() and serialize(). */
+    public TicTacToeGame getGame() {
+        return game;
+    }
+
+    @Override
+    public int getSideToMove() {
+        return game.getCurrentPlayer() == TicTacToePlayer.X ? 0 : 1;
+    }
+
+    @Override
+    public int getMaxMoves() {
+        return width * height;
+    }
+
+    @Override
+    public int legalMoves(int[] out) {
+        if (game.getResult() != TicTacToeGameResult.IN_PROGRESS) {
+            return 0;
+        }
+        TicTacToeBoard board = game.getBoard();
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (board.getPlayerAt(y, x) == null) {
+                    out[n++] = y * width + x;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isLegal(int move) {
+        return game.getResult() == TicTacToeGameResult.IN_PROGRESS
+                && move >= 0 && move < width * height
+                && game.getBoard().getPlayerAt(move / width, move % width) == null;
+    }
+
+    @Override
+    boolean play(int move) {
+        return move >= 0 && move < width * height && game.playMove(move % width, move / width);
+    }
+
+    @Override
+    boolean takeBack() {
+        return game.undoMove();
+    }
+
+    @Override
+    public GameOutcome getOutcome() {
+        switch (game.getResult()) {
+            case X_WINS:
+                return GameOutcome.FIRST_PLAYER_WINS;
+            case O_WINS:
+                return GameOutcome.SECOND_PLAYER_WINS;
+            case DRAW:
+                return GameOutcome.DRAW;
+            default:
+                return GameOutcome.IN_PROGRESS;
+        }
+    }
+
+    @Override
+    public int[] cells() {
+        return BoardCells.ticTacToe(game.getBoard());
+    }
+}
@@ -4,11 +4,21 @@ import java.util.*;
 
 /**
  * Represents the Go board and all capture logic.
+ *
+ * Also keeps one legal-move bitmap per colour (bit index = row * size + col).
+ * The bitmaps are patched after every move, only at points whose legality can
+ * have changed, so isLegal() is an O(1) lookup that never mutates the board.
  */
 public class GoBoard {
 
     private final int size;
     private final StoneColor[][] grid;
+    private final BitSet legalBlack;
+    private final BitSet legalWhite;
+
+    // Simple ko: the point 'koColor' may not play on its very next move
+    private Point koPoint = null;
+    private StoneColor koColor = null;
 
     public GoBoard(int size) {
         if (size <= 0) {
@@ -16,6 +26,11 @@ public class GoBoard {
         }
         this.size = size;
         this.grid = new StoneColor[size][size];
+        this.legalBlack = new BitSet(size * size);
+        this.legalWhite = new BitSet(size * size);
+        // every point of an empty board is legal for both colours
+        legalBlack.set(0, size * size);
+        legalWhite.set(0, size * size);
     }
 
     public int getSize() {
@@ -37,10 +52,59 @@ public class GoBoard {
         return getStone(row, col) == null;
     }
 
+    /**
+     * O(1) legality check for 'color' at (row, col): on-board, empty, not suicide
+     * and not an immediate ko recapture. Off-board points are simply not legal.
+     */
+    public boolean isLegal(int row, int col, StoneColor color) {
+        if (color == null || !isOnBoard(row, col)) {
+            return false;
+        }
+        return bitmap(color).get(row * size + col);
+    }
+
+    /** Snapshot of the legal points for 'color' (bit index = row * size + col). */
+    public BitSet getLegalMoves(StoneColor color) {
+        return (BitSet) bitmap(color).clone();
+    }
+
+    public int getLegalMoveCount(StoneColor color) {
+        return bitmap(color).cardinality();
+    }
+
+    /** Point currently forbidden by ko, or null. */
+    public Point getKoPoint() {
+        return koPoint;
+    }
+
+    StoneColor getKoColor() {
+        return koColor;
+    }
+
+    /** Lifts the ko ban, e.g. after the banned player passes. */
+    void clearKo() {
+        Point old = koPoint;
+        koPoint = null;
+        koColor = null;
+        if (old != null) {
+            refreshLegality(Collections.singleton(old), new HashMap<>());
+        }
+    }
+
+    /** Puts back a ko ban lifted by clearKo(), for GoGame.undoMove(). */
+    void restoreKo(Point point, StoneColor color) {
+        koPoint = point;
+        koColor = color;
+        if (point != null) {
+            refreshLegality(Collections.singleton(point), new HashMap<>());
+        }
+    }
+
     /**
      * Plays a stone for 'color' at (row, col).
      * - Captures adjacent opponent groups with no liberties.
      * - Forbids suicide: if the new group has no liberties and captured nothing.
+     * - Forbids retaking a ko on the very next move.
      */
     public MoveResult playStone(int row, int col, StoneColor color) throws IllegalMoveException {
         if (color == null) {
@@ -52,6 +116,9 @@ public class GoBoard {
         if (!isEmpty(row, col)) {
             throw new IllegalMoveException("Intersection is already occupied: " + row + "," + col);
         }
+        if (color == koColor && koPoint.row() == row && koPoint.col() == col) {
+            throw new IllegalMoveException("Ko: cannot retake immediately at " + row + "," + col);
+        }
 
         // Tentatively place the stone
         grid[row][col] = color;
@@ -80,9 +147,150 @@ public class GoBoard {
             throw new IllegalMoveException("Suicide move at " + row + "," + col);
         }
 
+        Point oldKo = koPoint;
+        updateKo(color, myGroup, totalCaptured);
+        updateLegalMoves(row, col, myGroup, totalCaptured, oldKo);
+
         return new MoveResult(totalCaptured);
     }
 
+    /**
+     * Takes back the stone at (row, col): the stones it captured come back for
+     * the other colour and the ko ban from before the move is restored. Used by
+     * GoGame.undoMove(), with the captures from the move's MoveResult.
+     */
+    void undoStone(int row, int col, Set<Point> captured, Point oldKoPoint, StoneColor oldKoColor) {
+        StoneColor color = grid[row][col];
+        if (color == null) {
+            throw new IllegalStateException("No stone to take back at " + row + "," + col);
+        }
+        grid[row][col] = null;
+        for (Point p : captured) {
+            grid[p.row()][p.col()] = color.opposite();
+        }
+        Point newKo = koPoint;
+        koPoint = oldKoPoint;
+        koColor = oldKoColor;
+
+        // Same reasoning as updateLegalMoves(), except that the played point's
+        // old group may now be split, so its empty neighbours are added directly.
+        Set<Point> dirty = new HashSet<>(captured);
+        dirty.add(new Point(row, col));
+        if (newKo != null) dirty.add(newKo);
+        if (koPoint != null) dirty.add(koPoint);
+
+        Set<Point> touched = new HashSet<>(captured);
+        touched.add(new Point(row, col));
+        Set<Point> seenStones = new HashSet<>();
+        for (Point t : touched) {
+            for (Point n : neighbours(t.row(), t.col())) {
+                StoneColor c = getStone(n.row(), n.col());
+                if (c == null) {
+                    dirty.add(n);
+                    continue;
+                }
+                if (seenStones.contains(n)) continue;
+                Set<Point> group = collectGroup(n.row(), n.col(), c);
+                seenStones.addAll(group);
+                addLiberties(group, dirty);
+            }
+        }
+        refreshLegality(dirty, new HashMap<>());
+    }
+
+    // ------------- legal-move bitmap maintenance -------------
+
+    private BitSet bitmap(StoneColor color) {
+        return color == StoneColor.BLACK ? legalBlack : legalWhite;
+    }
+
+    private void updateKo(StoneColor color, Set<Point> myGroup, Set<Point> captured) {
+        koPoint = null;
+        koColor = null;
+        if (captured.size() == 1 && myGroup.size() == 1 && countLiberties(myGroup) == 1) {
+            koPoint = captured.iterator().next();
+            koColor = color.opposite();
+        }
+    }
+
+    /**
+     * Legality of an empty point only depends on its neighbours and on whether the
+     * adjacent groups have one or more liberties. After a move those inputs change
+     * only at the played point, the captured points, and the liberties of groups
+     * touching either, so only those points (plus old/new ko) are recomputed.
+     */
+    private void updateLegalMoves(int row, int col, Set<Point> myGroup, Set<Point> captured, Point oldKo) {
+        Set<Point> dirty = new HashSet<>(captured);
+        dirty.add(new Point(row, col));
+        if (oldKo != null) dirty.add(oldKo);
+        if (koPoint != null) dirty.add(koPoint);
+
+        Set<Point> touched = new HashSet<>();
+        touched.add(new Point(row, col));
+        touched.addAll(captured);
+        Set<Point> seenStones = new HashSet<>(myGroup);
+        addLiberties(myGroup, dirty);
+        for (Point t : touched) {
+            for (Point n : neighbours(t.row(), t.col())) {
+                StoneColor c = getStone(n.row(), n.col());
+                if (c == null || seenStones.contains(n)) continue;
+                Set<Point> group = collectGroup(n.row(), n.col(), c);
+                seenStones.addAll(group);
+                addLiberties(group, dirty);
+            }
+        }
+        refreshLegality(dirty, new HashMap<>());
+    }
+
+    private void refreshLegality(Set<Point> dirty, Map<Point, Integer> libertyCache) {
+        for (Point p : dirty) {
+            int index = p.row() * size + p.col();
+            legalBlack.set(index, computeLegal(p, StoneColor.BLACK, libertyCache));
+            legalWhite.set(index, computeLegal(p, StoneColor.WHITE, libertyCache));
+        }
+    }
+
+    /** Non-mutating legality test used to refresh the bitmaps. */
+    private boolean computeLegal(Point p, StoneColor color, Map<Point, Integer> libertyCache) {
+        if (grid[p.row()][p.col()] != null) return false;
+        if (color == koColor && p.equals(koPoint)) return false;
+        for (Point n : neighbours(p.row(), p.col())) {
+            StoneColor c = getStone(n.row(), n.col());
+            if (c == null) return true;
+            int libs = groupLiberties(n, c, libertyCache);
+            if (c == color && libs >= 2) return true;   // connects to a group that keeps a liberty
+            if (c != color && libs == 1) return true;   // captures the neighbouring group
+        }
+        return false;
+    }
+
+    private int groupLiberties(Point stone, StoneColor color, Map<Point, Integer> cache) {
+        Integer cached = cache.get(stone);
+        if (cached != null) return cached;
+        Set<Point> group = collectGroup(stone.row(), stone.col(), color);
+        int libs = countLiberties(group);
+        for (Point g : group) {
+            cache.put(g, libs);
+        }
+        return libs;
+    }
+
+    private int countLiberties(Set<Point> group) {
+        Set<Point> libs = new HashSet<>();
+        addLiberties(group, libs);
+        return libs.size();
+    }
+
+    private void addLiberties(Set<Point> group, Set<Point> out) {
+        for (Point g : group) {
+            for (Point n : neighbours(g.row(), g.col())) {
+                if (getStone(n.row(), n.col()) == null) {
+                    out.add(n);
+                }
+            }
+        }
+    }
+
     private List<Point> neighbours(int row, int col) {
         List<Point> res = new ArrayList<>(4);
         if (isOnBoard(row - 1, col)) res.add(new Point(row - 1, col));
@@ -1,6 +1,10 @@
 package go_logic;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * High-level Go game: tracks whose turn it is, captures, and simple end-of-game.
@@ -15,6 +19,12 @@ public class GoGame {
     // NEW: track resignation loser so we can auto-pick a winner
     private StoneColor resignedLoser = null;
 
+    // Playout-based ownership estimate, filled in by estimateOwnership() after the game ends
+    private OwnershipMap ownershipEstimate = null;
+
+    // What undoMove() needs per move or pass; the board keeps no copies
+    private final Deque<Undo> history = new ArrayDeque<>();
+
     public GoGame(int size) {
         this.board = new GoBoard(size);
         capturedByPlayer.put(StoneColor.BLACK, 0);
@@ -37,22 +47,34 @@ public class GoGame {
         return capturedByPlayer.get(player);
     }
 
+    /** O(1) check whether the current player may play at (row, col) right now. */
+    public boolean isLegalMove(int row, int col) {
+        return !isGameOver() && board.isLegal(row, col, currentPlayer);
+    }
+
     public void playMove(int row, int col) throws IllegalMoveException {
         if (isGameOver()) {
             throw new IllegalMoveException("Game already over");
         }
 
+        Point oldKo = board.getKoPoint();
+        StoneColor oldKoColor = board.getKoColor();
         MoveResult result = board.playStone(row, col, currentPlayer);
+        history.push(new Undo(row, col, result.getCaptured(), oldKo, oldKoColor, consecutivePasses));
         int prev = capturedByPlayer.get(currentPlayer);
         capturedByPlayer.put(currentPlayer, prev + result.getCaptureCount());
 
         consecutivePasses = 0;
+        ownershipEstimate = null; // position changed
         currentPlayer = currentPlayer.opposite();
     }
 
     public void pass() {
         if (isGameOver()) return;
+        history.push(new Undo(-1, -1, Collections.emptySet(),
+                board.getKoPoint(), board.getKoColor(), consecutivePasses));
         consecutivePasses++;
+        board.clearKo(); // a ko ban only lasts for the banned player's next turn
         currentPlayer = currentPlayer.opposite();
     }
 
@@ -64,16 +86,97 @@ public class GoGame {
         consecutivePasses = 2;
     }
 
+    /** Moves and passes played so far. */
+    public int getMoveCount() {
+        return history.size();
+    }
+
+    /**
+     * Takes back the last move or pass. Returns false if nothing has been
+     * played, or if the game was resigned.
+     */
+    public boolean undoMove() {
+        if (history.isEmpty() || resignedLoser != null) {
+            return false;
+        }
+        Undo undo = history.pop();
+        currentPlayer = currentPlayer.opposite();
+        if (undo.row < 0) {
+            board.restoreKo(undo.koPoint, undo.koColor);
+        } else {
+            board.undoStone(undo.row, undo.col, undo.captured, undo.koPoint, undo.koColor);
+            capturedByPlayer.put(currentPlayer, capturedByPlayer.get(currentPlayer) - undo.captured.size());
+        }
+        consecutivePasses = undo.consecutivePasses;
+        ownershipEstimate = null;
+        return true;
+    }
+
+    private static final class Undo {
+        final int row; // -1 for a pass
+        final int col;
+        final Set<Point> captured;
+        final Point koPoint;
+        final StoneColor koColor;
+        final int consecutivePasses;
+
+        Undo(int row, int col, Set<Point> captured, Point koPoint, StoneColor koColor, int consecutivePasses) {
+            this.row = row;
+            this.col = col;
+            this.captured = captured;
+            this.koPoint = koPoint;
+            this.koColor = koColor;
+            this.consecutivePasses = consecutivePasses;
+        }
+    }
+
     /* ------------------------
        AUTO WINNER/SCORING API
        ------------------------ */
 
-    /** Return winner color if determinable (resign or higher captures), else null for tie/unknown. */
+    /**
+     * Runs random playouts from the current position and keeps the resulting
+     * ownership map for dead stone marking and score adjudication.
+     */
+    public OwnershipMap estimateOwnership() {
+        return estimateOwnership(new OwnershipEstimator());
+    }
+
+    public OwnershipMap estimateOwnership(OwnershipEstimator estimator) {
+        ownershipEstimate = estimator.estimate(board, currentPlayer);
+        return ownershipEstimate;
+    }
+
+    /** Last ownership estimate, or null if estimateOwnership() has not been called. */
+    public OwnershipMap getOwnershipEstimate() {
+        return ownershipEstimate;
+    }
+
+    /** Stones the ownership estimate considers dead; empty until an estimate exists. */
+    public Set<Point> getDeadStones() {
+        if (ownershipEstimate == null) {
+            return Collections.emptySet();
+        }
+        return ownershipEstimate.getDeadStones(board);
+    }
+
+    /**
+     * Return winner color if determinable (resign, estimated area score, or higher captures),
+     * else null for tie/unknown.
+     */
     public StoneColor getWinnerColor() {
         // Resignation has priority
         if (resignedLoser != null) {
             return resignedLoser.opposite();
         }
+        // After two passes prefer the playout estimate (dead stones removed) over captures
+        if (consecutivePasses >= 2 && ownershipEstimate != null) {
+            int b = ownershipEstimate.getAreaScore(StoneColor.BLACK);
+            int w = ownershipEstimate.getAreaScore(StoneColor.WHITE);
+            if (b > w) return StoneColor.BLACK;
+            if (w > b) return StoneColor.WHITE;
+            return null;
+        }
         // If ended by two passes, approximate using captures as score proxy
         if (consecutivePasses >= 2) {
             int b = getBlackScore();
@@ -0,0 +1,284 @@
+package go_logic;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates the final owner of every intersection by running random playouts
+ * from a position and averaging who ends up holding each point.
+ *
+ * Playouts are split into chunks that run on the common fork-join pool, so the
+ * work spreads across all cores. Each playout uses a flat int board instead of
+ * GoBoard to avoid allocating Point sets for every stone placed.
+ */
+public class OwnershipEstimator {
+
+    public static final int DEFAULT_PLAYOUTS = 2000;
+
+    private static final int EMPTY = 0;
+    private static final int BLACK = 1;
+    private static final int WHITE = 2;
+
+    private final int playouts;
+    private final int chunks;
+    private final long seed;
+
+    public OwnershipEstimator() {
+        this(DEFAULT_PLAYOUTS, Runtime.getRuntime().availableProcessors(), System.nanoTime());
+    }
+
+    /**
+     * @param playouts total number of random games to play
+     * @param chunks   number of independent work units (usually the core count)
+     * @param seed     base seed; each chunk derives its own random stream from it
+     */
+    public OwnershipEstimator(int playouts, int chunks, long seed) {
+        if (playouts <= 0) {
+            throw new IllegalArgumentException("playouts must be > 0");
+        }
+        if (chunks <= 0) {
+            throw new IllegalArgumentException("chunks must be > 0");
+        }
+        this.playouts = playouts;
+        this.chunks = Math.min(chunks, playouts);
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the playouts from the current position on 'board' with 'toMove' to play.
+     * The board itself is never modified.
+     */
+    public OwnershipMap estimate(GoBoard board, StoneColor toMove) {
+        int size = board.getSize();
+        int[] start = new int[size * size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                StoneColor s = board.getStone(r, c);
+                start[r * size + c] = s == null ? EMPTY : (s == StoneColor.BLACK ? BLACK : WHITE);
+            }
+        }
+        int[][] adjacency = buildAdjacency(size);
+        int firstColor = toMove == StoneColor.WHITE ? WHITE : BLACK;
+
+        int[] tally = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> runChunk(chunk, size, start, adjacency, firstColor))
+                .reduce(new int[size * size], OwnershipEstimator::sum);
+
+        double[] ownership = new double[size * size];
+        for (int i = 0; i < ownership.length; i++) {
+            ownership[i] = (double) tally[i] / playouts;
+        }
+        return new OwnershipMap(size, ownership);
+    }
+
+    // ------------- helpers -------------
+
+    private int[] runChunk(int chunk, int size, int[] start, int[][] adjacency, int firstColor) {
+        int count = playouts / chunks + (chunk < playouts % chunks ? 1 : 0);
+        SplittableRandom random = new SplittableRandom(seed + chunk * 0x9E3779B97F4A7C15L);
+        Playout playout = new Playout(size, adjacency);
+        int[] tally = new int[size * size];
+        for (int i = 0; i < count; i++) {
+            playout.reset(start);
+            playout.run(firstColor, random);
+            playout.addOwnership(tally);
+        }
+        return tally;
+    }
+
+    private static int[] sum(int[] a, int[] b) {
+        int[] out = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+        return out;
+    }
+
+    private static int[][] buildAdjacency(int size) {
+        int[][] adj = new int[size * size][];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int n = 0;
+                int[] tmp = new int[4];
+                if (r > 0) tmp[n++] = (r - 1) * size + c;
+                if (r < size - 1) tmp[n++] = (r + 1) * size + c;
+                if (c > 0) tmp[n++] = r * size + c - 1;
+                if (c < size - 1) tmp[n++] = r * size + c + 1;
+                adj[r * size + c] = Arrays.copyOf(tmp, n);
+            }
+        }
+        return adj;
+    }
+
+    /**
+     * Mutable single-threaded board used for one playout at a time.
+     * Moves are chosen uniformly among legal points that do not fill the mover's own eye.
+     */
+    private static final class Playout {
+        private final int points;
+        private final int[][] adj;
+        private final int[] cells;
+        private final int[] mark;
+        private final int[] stack;
+        private int stamp = 0;
+        private int koPoint = -1;
+
+        Playout(int size, int[][] adj) {
+            this.points = size * size;
+            this.adj = adj;
+            this.cells = new int[points];
+            this.mark = new int[points];
+            this.stack = new int[points];
+        }
+
+        void reset(int[] start) {
+            System.arraycopy(start, 0, cells, 0, points);
+            koPoint = -1;
+        }
+
+        void run(int color, SplittableRandom random) {
+            int maxMoves = points * 3;
+            int passes = 0;
+            for (int move = 0; move < maxMoves && passes < 2; move++) {
+                if (playRandom(color, random)) {
+                    passes = 0;
+                } else {
+                    passes++;
+                    koPoint = -1;
+                }
+                color = opposite(color);
+            }
+        }
+
+        /** Area ownership: stones count for their colour, empty points for the colour that surrounds them. */
+        void addOwnership(int[] tally) {
+            for (int p = 0; p < points; p++) {
+                int owner = cells[p];
+                if (owner == EMPTY) {
+                    boolean black = false;
+                    boolean white = false;
+                    for (int n : adj[p]) {
+                        if (cells[n] == BLACK) black = true;
+                        else if (cells[n] == WHITE) white = true;
+                    }
+                    owner = black == white ? EMPTY : (black ? BLACK : WHITE);
+                }
+                if (owner == BLACK) tally[p]++;
+                else if (owner == WHITE) tally[p]--;
+            }
+        }
+
+        private boolean playRandom(int color, SplittableRandom random) {
+            int offset = random.nextInt(points);
+            for (int i = 0; i < points; i++) {
+                int p = offset + i;
+                if (p >= points) p -= points;
+                if (cells[p] == EMPTY && p != koPoint && !isOwnEye(p, color) && isLegal(p, color)) {
+                    place(p, color);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isOwnEye(int p, int color) {
+            for (int n : adj[p]) {
+                if (cells[n] != color) return false;
+            }
+            return true;
+        }
+
+        private boolean isLegal(int p, int color) {
+            for (int n : adj[p]) {
+                int c = cells[n];
+                if (c == EMPTY) return true;
+                int libs = countLiberties(n, 2);
+                if (c == color && libs >= 2) return true;      // joining a group that keeps a liberty
+                if (c != color && libs == 1) return true;      // capturing the neighbour
+            }
+            return false;
+        }
+
+        private void place(int p, int color) {
+            cells[p] = color;
+            int opp = opposite(color);
+            int captured = 0;
+            int lastCaptured = -1;
+            for (int n : adj[p]) {
+                if (cells[n] == opp && countLiberties(n, 1) == 0) {
+                    captured += removeGroup(n);
+                    lastCaptured = n;
+                }
+            }
+            // Simple ko: a lone stone capturing exactly one stone cannot be retaken at once.
+            koPoint = (captured == 1 && countLiberties(p, 2) == 1 && isLoneStone(p)) ? lastCaptured : -1;
+        }
+
+        private boolean isLoneStone(int p) {
+            for (int n : adj[p]) {
+                if (cells[n] == cells[p]) return false;
+            }
+            return true;
+        }
+
+        /** Counts liberties of the group at 'p', stopping early once 'limit' is reached. */
+        private int countLiberties(int p, int limit) {
+            int color = cells[p];
+            int groupStamp = nextStamp();
+            int libStamp = nextStamp();
+            int top = 0;
+            int libs = 0;
+            stack[top++] = p;
+            mark[p] = groupStamp;
+            while (top > 0) {
+                int q = stack[--top];
+                for (int n : adj[q]) {
+                    int c = cells[n];
+                    if (c == EMPTY) {
+                        if (mark[n] != libStamp) {
+                            mark[n] = libStamp;
+                            if (++libs >= limit) return libs;
+                        }
+                    } else if (c == color && mark[n] != groupStamp) {
+                        mark[n] = groupStamp;
+                        stack[top++] = n;
+                    }
+                }
+            }
+            return libs;
+        }
+
+        private int removeGroup(int p) {
+            int color = cells[p];
+            int top = 0;
+            int removed = 0;
+            stack[top++] = p;
+            cells[p] = EMPTY;
+            while (top > 0) {
+                int q = stack[--top];
+                removed++;
+                for (int n : adj[q]) {
+                    if (cells[n] == color) {
+                        cells[n] = EMPTY;
+                        stack[top++] = n;
+                    }
+                }
+            }
+            return removed;
+        }
+
+        private int nextStamp() {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+
+        private static int opposite(int color) {
+            return color == BLACK ? WHITE : BLACK;
+        }
+    }
+}
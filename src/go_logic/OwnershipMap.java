@@ -0,0 +1,69 @@
+package go_logic;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-intersection ownership estimate produced by OwnershipEstimator.
+ * Values range from +1.0 (always BLACK at the end of a playout) to -1.0 (always WHITE).
+ */
+public class OwnershipMap {
+
+    /** Minimum |ownership| for an intersection to count as owned by one side. */
+    public static final double DEFAULT_THRESHOLD = 0.5;
+
+    private final int size;
+    private final double[] ownership; // row-major, size * size
+
+    public OwnershipMap(int size, double[] ownership) {
+        if (ownership.length != size * size) {
+            throw new IllegalArgumentException("Expected " + (size * size) + " values, got " + ownership.length);
+        }
+        this.size = size;
+        this.ownership = ownership.clone();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /** Raw estimate in [-1, 1]: positive favours BLACK, negative favours WHITE. */
+    public double getOwnership(int row, int col) {
+        return ownership[row * size + col];
+    }
+
+    /** Likely owner of (row, col), or null if neither side clears the threshold. */
+    public StoneColor getOwner(int row, int col) {
+        double v = getOwnership(row, col);
+        if (v >= DEFAULT_THRESHOLD) return StoneColor.BLACK;
+        if (v <= -DEFAULT_THRESHOLD) return StoneColor.WHITE;
+        return null;
+    }
+
+    /** Stones on 'board' that the estimate says end up owned by the opponent. */
+    public Set<Point> getDeadStones(GoBoard board) {
+        Set<Point> dead = new HashSet<>();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                StoneColor stone = board.getStone(r, c);
+                if (stone != null && getOwner(r, c) == stone.opposite()) {
+                    dead.add(new Point(r, c));
+                }
+            }
+        }
+        return dead;
+    }
+
+    /** Area score: intersections (stones and territory) estimated to belong to 'color'. */
+    public int getAreaScore(StoneColor color) {
+        int score = 0;
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                if (getOwner(r, c) == color) {
+                    score++;
+                }
+            }
+        }
+        return score;
+    }
+}
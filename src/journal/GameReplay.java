@@ -0,0 +1,209 @@
+package journal;
+
+import game_logic.Game;
+import game_logic.Games;
+import matchmaking.GameType;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A finished game prepared for review: any ply can be shown without
+ * replaying the game from move one.
+ *
+ * Building plays the move list once through the real game and keeps, per
+ * ply, the cells it changed (index, code before, code after), plus a full
+ * copy of the board every 'checkpointInterval' plies. A Cursor seeks by
+ * starting from whichever is nearest (its current ply, the checkpoint
+ * below or the checkpoint above) and stepping the recorded changes forward
+ * or back, so a seek touches at most about checkpointInterval plies and
+ * scrubbing one ply at a time costs one ply's changes. Cells use the
+ * game_logic.BoardCells codes, row-major.
+ *
+ * A GameReplay is immutable and can be shared; each viewer uses its own
+ * Cursor.
+ */
+public final class GameReplay {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+    private final GameType gameType;
+    private final int width;
+    private final int height;
+    private final int[] moves;
+    private final int checkpointInterval;
+    /** checkpoints[k] = the board after ply k * checkpointInterval. */
+    private final byte[][] checkpoints;
+    /** Ply p's changes are changes[changeStart[p - 1] .. changeStart[p]). */
+    private final int[] changeStart;
+    /** index << 16 | code before << 8 | code after. */
+    private final int[] changes;
+
+    private GameReplay(GameType gameType, int width, int height, int[] moves, int checkpointInterval,
+                       byte[][] checkpoints, int[] changeStart, int[] changes) {
+        this.gameType = gameType;
+        this.width = width;
+        this.height = height;
+        this.moves = moves;
+        this.checkpointInterval = checkpointInterval;
+        this.checkpoints = checkpoints;
+        this.changeStart = changeStart;
+        this.changes = changes;
+    }
+
+    /** A replay of 'moves' (MoveCodes ints) on the game panels' default board. */
+    public static GameReplay of(GameType gameType, int[] moves) {
+        int[] board = Games.defaultDimensions(gameType);
+        return of(gameType, board[0], board[1], board[2], moves, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * A replay of 'moves' (MoveCodes ints). Go uses 'boardWidth' as its
+     * size; 'winLength' only matters for TicTacToe. Throws
+     * IllegalArgumentException if a move is not legal where it was played.
+     */
+    public static GameReplay of(GameType gameType, int boardWidth, int boardHeight, int winLength,
+                                int[] moves, int checkpointInterval) {
+        Objects.requireNonNull(gameType, "gameType");
+        Objects.requireNonNull(moves, "moves");
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("checkpointInterval must be > 0");
+        }
+        Game board = Games.create(gameType, boardWidth, boardHeight, winLength);
+        int[] previous = board.cells();
+        byte[][] checkpoints = new byte[moves.length / checkpointInterval + 1][];
+        checkpoints[0] = toBytes(previous);
+        int[] changeStart = new int[moves.length + 1];
+        int[] changes = new int[Math.max(16, moves.length * 2)];
+        int count = 0;
+        for (int ply = 1; ply <= moves.length; ply++) {
+            if (!RecoveredSession.replayMove(board, moves[ply - 1])) {
+                throw new IllegalArgumentException("Move " + ply + " (" + moves[ply - 1] + ") is not legal");
+            }
+            int[] cells = board.cells();
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != previous[i]) {
+                    if (count == changes.length) {
+                        changes = Arrays.copyOf(changes, count * 2);
+                    }
+                    changes[count++] = i << 16 | previous[i] << 8 | cells[i];
+                }
+            }
+            changeStart[ply] = count;
+            if (ply % checkpointInterval == 0) {
+                checkpoints[ply / checkpointInterval] = toBytes(cells);
+            }
+            previous = cells;
+        }
+        return new GameReplay(gameType, board.getWidth(), board.getHeight(), moves.clone(), checkpointInterval,
+                checkpoints, changeStart, Arrays.copyOf(changes, count));
+    }
+
+    public GameType getGameType() {
+        return gameType;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Plies in the game; valid plies for seeking are 0 (the start) to this. */
+    public int getPlyCount() {
+        return moves.length;
+    }
+
+    /** The move that leads to 'ply' (1..getPlyCount()). */
+    public int getMove(int ply) {
+        checkPly(ply);
+        if (ply == 0) {
+            throw new IllegalArgumentException("Ply 0 is the start position");
+        }
+        return moves[ply - 1];
+    }
+
+    /** The board after 'ply', as a fresh array. */
+    public int[] cellsAt(int ply) {
+        return new Cursor().seek(ply).clone();
+    }
+
+    /** A new viewer, at ply 0. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** One viewer's position in the game. Not thread-safe. */
+    public final class Cursor {
+        private final int[] cells = new int[width * height];
+        private int ply;
+
+        private Cursor() {
+            restore(0);
+        }
+
+        /** Moves to 'ply' and returns the board there (do not modify; it changes with the cursor). */
+        public int[] seek(int target) {
+            checkPly(target);
+            int below = target / checkpointInterval;
+            int fromBelow = target - below * checkpointInterval;
+            int fromHere = Math.abs(target - ply);
+            int fromAbove = below + 1 < checkpoints.length
+                    ? (below + 1) * checkpointInterval - target : Integer.MAX_VALUE;
+            if (fromAbove < fromBelow && fromAbove < fromHere) {
+                restore(below + 1);
+            } else if (fromBelow < fromHere) {
+                restore(below);
+            }
+            while (ply < target) {
+                ply++;
+                for (int c = changeStart[ply - 1]; c < changeStart[ply]; c++) {
+                    cells[changes[c] >>> 16] = changes[c] & 0xFF;
+                }
+            }
+            while (ply > target) {
+                for (int c = changeStart[ply - 1]; c < changeStart[ply]; c++) {
+                    cells[changes[c] >>> 16] = (changes[c] >>> 8) & 0xFF;
+                }
+                ply--;
+            }
+            return cells;
+        }
+
+        public int getPly() {
+            return ply;
+        }
+
+        public int[] getCells() {
+            return cells;
+        }
+
+        // ------------- helpers -------------
+
+        private void restore(int checkpoint) {
+            byte[] saved = checkpoints[checkpoint];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = saved[i] & 0xFF;
+            }
+            ply = checkpoint * checkpointInterval;
+        }
+    }
+
+    // ------------- helpers -------------
+
+    private void checkPly(int ply) {
+        if (ply < 0 || ply > moves.length) {
+            throw new IllegalArgumentException("Ply " + ply + " outside 0.." + moves.length);
+        }
+    }
+
+    private static byte[] toBytes(int[] cells) {
+        byte[] bytes = new byte[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            bytes[i] = (byte) cells[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,111 @@
+package journal;
+
+import TicTacToe_Logic.TicTacToeGame;
+import chat.ChatChannel;
+import chat.ChatMessage;
+import chat.ChatService;
+import chess_logic.ChessGame;
+import game_logic.ChessGameAdapter;
+import game_logic.Game;
+import game_logic.GameOutcome;
+import game_logic.Games;
+import game_logic.GoGameAdapter;
+import game_logic.MoveCodes;
+import game_logic.TicTacToeGameAdapter;
+import go_logic.GoGame;
+import matchmaking.GameSession;
+import matchmaking.GameType;
+
+/**
+ * A session that was still running when the journal was last written,
+ * rebuilt by replaying its moves into a fresh game and its chat into the
+ * session's channel.
+ *
+ * Exactly one of getChessGame(), getGoGame() and getTicTacToeGame() is
+ * non-null, matching getGameType(). If a journaled move no longer applies
+ * (e.g. the game rules changed), replay stops there and getPlies() tells how
+ * far it got.
+ */
+public final class RecoveredSession {
+
+    private final String sessionId;
+    private final GameSession session;
+    private final int journaledPlies;
+    private Game game;
+    private int plies;
+
+    private RecoveredSession(String sessionId, GameSession session, int journaledPlies) {
+        this.sessionId = sessionId;
+        this.session = session;
+        this.journaledPlies = journaledPlies;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public GameSession getSession() {
+        return session;
+    }
+
+    public GameType getGameType() {
+        return session.getMatch().getGameType();
+    }
+
+    /** The replayed game; it keeps its moves, so play can continue and take-backs work. */
+    public Game getGame() {
+        return game;
+    }
+
+    public ChessGame getChessGame() {
+        return game instanceof ChessGameAdapter ? ((ChessGameAdapter) game).getGame() : null;
+    }
+
+    public GoGame getGoGame() {
+        return game instanceof GoGameAdapter ? ((GoGameAdapter) game).getGame() : null;
+    }
+
+    public TicTacToeGame getTicTacToeGame() {
+        return game instanceof TicTacToeGameAdapter ? ((TicTacToeGameAdapter) game).getGame() : null;
+    }
+
+    /** Moves replayed into the game. */
+    public int getPlies() {
+        return plies;
+    }
+
+    /** Moves found in the journal; more than getPlies() if replay stopped early. */
+    public int getJournaledPlies() {
+        return journaledPlies;
+    }
+
+    /** True if every journaled move replayed. */
+    public boolean isComplete() {
+        return plies == journaledPlies;
+    }
+
+    /** Rebuilds one session; the chat channel comes from 'chatService', keyed by session id. */
+    static RecoveredSession replay(SessionLog log, ChatService chatService) {
+        ChatChannel channel = chatService.openChannel(log.sessionId);
+        for (ChatMessage message : log.chat) {
+            channel.addMessage(message);
+        }
+        RecoveredSession recovered = new RecoveredSession(
+                log.sessionId, new GameSession(log.match, channel), log.getMoveCount());
+        Game game = Games.create(log.match.getGameType(), log.boardWidth, log.boardHeight, log.winLength);
+        while (recovered.plies < log.getMoveCount() && replayMove(game, log.getMove(recovered.plies))) {
+            recovered.plies++;
+        }
+        recovered.game = game;
+        return recovered;
+    }
+
+    /**
+     * Like game.apply(), but a Go pass after the game ended is a no-op that
+     * still counts, as GoGame.pass() treats it. Shared with GameReplay.
+     */
+    static boolean replayMove(Game game, int move) {
+        return game.apply(move) || (game.getType() == GameType.GO && move == MoveCodes.GO_PASS
+                && game.getOutcome() != GameOutcome.IN_PROGRESS);
+    }
+}
@@ -0,0 +1,512 @@
+package journal;
+
+import chat.ChatMessage;
+import chat.ChatService;
+import chat.DeliveryStatus;
+import game_logic.Games;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of session events (start, move, chat, result), so
+ * running games survive a crash.
+ *
+ * The journal is a directory of fixed-size segment files, each mapped into
+ * memory. A record is an int body length, the body's CRC32, then the body:
+ * a type byte, the session's journal number and the event's fields
+ * (strings are UTF-8 with an unsigned short length). A START record binds
+ * the session id to a small journal number, so a move costs 17 bytes. A
+ * record that does not fit ends the segment; the rest stays zero.
+ *
+ * Appends are a memory copy under one lock. Each record method returns a
+ * future that completes once the record is forced to disk. A committer
+ * thread forces all records appended since its last pass with one
+ * force() call (group commit), so a burst of moves from many sessions
+ * costs one flush, not one each. Because the mapping is shared with the
+ * page cache, a record is already safe against a process crash once its
+ * method returns; waiting on the future also covers an OS crash or power
+ * loss.
+ *
+ * On open, the constructor scans every segment and stops at the first
+ * zero length or bad CRC of the last one (a record torn by the crash).
+ * recoverSessions() then replays the sessions that have no result yet.
+ * Segments older than the START of the oldest live session are deleted as
+ * new ones are created. A session that is abandoned without a result
+ * (see SessionRegistry's eviction listener) should get one, or it pins
+ * its segments forever.
+ */
+public final class SessionJournal implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    static final byte START = 1;
+    static final byte MOVE = 2;
+    static final byte CHAT = 3;
+    static final byte RESULT = 4;
+
+    /** Body length and CRC. */
+    private static final int HEADER_BYTES = 8;
+
+    private static final String SEGMENT_PREFIX = "session-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final GameType[] GAME_TYPES = GameType.values();
+    private static final DeliveryStatus[] STATUSES = DeliveryStatus.values();
+
+    /** A session with no result yet. */
+    private static final class Live {
+        final int number;
+        final long firstSegment;
+
+        Live(int number, long firstSegment) {
+            this.number = number;
+            this.firstSegment = firstSegment;
+        }
+    }
+
+    /** A record method's caller waiting for 'end' to reach the disk. */
+    private static final class Waiter {
+        final long end;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Waiter(long end) {
+            this.end = end;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+
+    // ------------- guarded by 'lock' -------------
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private long oldestSegment;
+    private int position;
+    private int nextNumber = 1;
+    private final Map<String, Live> live = new HashMap<>();
+    /** Full segments whose records are not forced yet. */
+    private final List<MappedByteBuffer> unforced = new ArrayList<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private boolean closed;
+    /** What the scan found, until recoverSessions() consumes it. */
+    private Map<Integer, SessionLog> recovered;
+
+    private final Thread committer;
+
+    public SessionJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SessionJournal(Path directory, int segmentBytes) throws IOException {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("segmentBytes must be at least 1024");
+        }
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        scan();
+        this.committer = new Thread(this::commitLoop, "session-journal-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /** Journals a new session with the board the game panels use by default. */
+    public CompletableFuture<Void> recordStart(String sessionId, Match match) {
+        int[] board = Games.defaultDimensions(match.getGameType());
+        return recordStart(sessionId, match, board[0], board[1], board[2]);
+    }
+
+    /**
+     * Journals a new session. Go uses 'boardWidth' as its size; 'winLength'
+     * is only meaningful for TicTacToe.
+     */
+    public CompletableFuture<Void> recordStart(String sessionId, Match match,
+                                               int boardWidth, int boardHeight, int winLength) {
+        Objects.requireNonNull(sessionId, "sessionId");
+        Objects.requireNonNull(match, "match");
+        byte[] id = utf8(sessionId);
+        byte[][] players = {
+                utf8(match.getPlayer1().getId()), utf8(match.getPlayer1().getName()),
+                utf8(match.getPlayer2().getId()), utf8(match.getPlayer2().getName())
+        };
+        int size = 1 + 4 + 2 + id.length + 1 + 3 * 4 + 2 * 4;
+        for (byte[] s : players) {
+            size += 2 + s.length;
+        }
+        synchronized (lock) {
+            checkOpen();
+            if (live.containsKey(sessionId)) {
+                throw new IllegalStateException("Session already started: " + sessionId);
+            }
+            int number = nextNumber++;
+            ByteBuffer body = begin(size, START, number);
+            putString(body, id);
+            body.put((byte) match.getGameType().ordinal());
+            body.putInt(boardWidth).putInt(boardHeight).putInt(winLength);
+            putString(body, players[0]);
+            putString(body, players[1]);
+            body.putInt(match.getPlayer1().getRating());
+            putString(body, players[2]);
+            putString(body, players[3]);
+            body.putInt(match.getPlayer2().getRating());
+            Waiter waiter = finish(size);
+            live.put(sessionId, new Live(number, segmentIndex));
+            return waiter.future;
+        }
+    }
+
+    public CompletableFuture<Void> recordMove(String sessionId, int move) {
+        synchronized (lock) {
+            Live session = liveSession(sessionId);
+            ByteBuffer body = begin(9, MOVE, session.number);
+            body.putInt(move);
+            return finish(9).future;
+        }
+    }
+
+    public CompletableFuture<Void> recordChat(String sessionId, ChatMessage message) {
+        Objects.requireNonNull(message, "message");
+        byte[] senderId = utf8(message.getSenderId());
+        byte[] senderName = utf8(message.getSenderName());
+        byte[] content = utf8(message.getContent());
+        int size = 1 + 4 + 6 + senderId.length + senderName.length + content.length + 8 + 1;
+        synchronized (lock) {
+            Live session = liveSession(sessionId);
+            ByteBuffer body = begin(size, CHAT, session.number);
+            putString(body, senderId);
+            putString(body, senderName);
+            putString(body, content);
+            body.putLong(message.getTimestamp().toEpochMilli());
+            body.put((byte) message.getStatus().ordinal());
+            return finish(size).future;
+        }
+    }
+
+    /** Ends the session; it is not recovered after this. 'result' is free text, e.g. "1-0". */
+    public CompletableFuture<Void> recordResult(String sessionId, String result) {
+        byte[] text = utf8(Objects.requireNonNull(result, "result"));
+        int size = 1 + 4 + 2 + text.length;
+        synchronized (lock) {
+            Live session = liveSession(sessionId);
+            ByteBuffer body = begin(size, RESULT, session.number);
+            putString(body, text);
+            Waiter waiter = finish(size);
+            live.remove(sessionId);
+            return waiter.future;
+        }
+    }
+
+    /**
+     * The sessions that were live when the journal was opened, rebuilt with
+     * their games and chat. Only the first call returns them.
+     */
+    public List<RecoveredSession> recoverSessions(ChatService chatService) {
+        Objects.requireNonNull(chatService, "chatService");
+        List<SessionLog> logs;
+        synchronized (lock) {
+            if (recovered == null) {
+                return new ArrayList<>();
+            }
+            logs = new ArrayList<>(recovered.values());
+            recovered = null;
+        }
+        // sessions are independent, so replay them on all cores
+        return logs.parallelStream().map(log -> RecoveredSession.replay(log, chatService)).toList();
+    }
+
+    /** Sessions started and not yet finished. */
+    public int getLiveCount() {
+        synchronized (lock) {
+            return live.size();
+        }
+    }
+
+    /** Forces everything written and stops the committer. Later record calls throw. */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            segment.force();
+        }
+    }
+
+    // ------------- helpers -------------
+
+    private Live liveSession(String sessionId) {
+        Objects.requireNonNull(sessionId, "sessionId");
+        checkOpen();
+        Live session = live.get(sessionId);
+        if (session == null) {
+            throw new IllegalStateException("No live session " + sessionId);
+        }
+        return session;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /** Makes room for a body of 'size' bytes and returns the buffer positioned at the body. */
+    private ByteBuffer begin(int size, byte type, int number) {
+        if (HEADER_BYTES + size > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + size + " bytes exceeds the segment size");
+        }
+        if (position + HEADER_BYTES + size > segmentBytes) {
+            roll();
+        }
+        segment.position(position + HEADER_BYTES);
+        segment.put(type).putInt(number);
+        return segment;
+    }
+
+    /** Writes the header last, so a record torn by a process crash reads as the end. */
+    private Waiter finish(int size) {
+        int start = position + HEADER_BYTES;
+        crc.reset();
+        crc.update(segment.slice(start, size));
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, size);
+        position = start + size;
+        Waiter waiter = new Waiter(segmentIndex * segmentBytes + position);
+        waiters.add(waiter);
+        lock.notifyAll();
+        return waiter;
+    }
+
+    private void roll() {
+        unforced.add(segment);
+        segmentIndex++;
+        position = 0;
+        try {
+            segment = map(segmentIndex);
+            long keepFrom = segmentIndex;
+            for (Live session : live.values()) {
+                keepFrom = Math.min(keepFrom, session.firstSegment);
+            }
+            for (; oldestSegment < keepFrom; oldestSegment++) {
+                Files.deleteIfExists(segmentPath(oldestSegment));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start journal segment " + segmentIndex, e);
+        }
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private void commitLoop() {
+        while (true) {
+            long target;
+            List<MappedByteBuffer> full;
+            MappedByteBuffer current;
+            synchronized (lock) {
+                while (waiters.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (waiters.isEmpty()) {
+                    return; // closed and drained
+                }
+                target = segmentIndex * segmentBytes + position;
+                full = new ArrayList<>(unforced);
+                unforced.clear();
+                current = segment;
+            }
+            RuntimeException failure = null;
+            try {
+                for (MappedByteBuffer buffer : full) {
+                    buffer.force();
+                }
+                current.force();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            List<Waiter> done = new ArrayList<>();
+            synchronized (lock) {
+                while (!waiters.isEmpty() && waiters.peek().end <= target) {
+                    done.add(waiters.poll());
+                }
+            }
+            for (Waiter waiter : done) {
+                if (failure == null) {
+                    waiter.future.complete(null);
+                } else {
+                    waiter.future.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    // ------------- scanning -------------
+
+    private void scan() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(
+                        SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        Map<Integer, SessionLog> logs = new LinkedHashMap<>();
+        Map<Integer, String> ids = new HashMap<>();
+        if (segments.isEmpty()) {
+            segments.put(0L, segmentPath(0));
+        }
+        oldestSegment = segments.firstKey();
+        for (long index : segments.keySet()) {
+            segmentIndex = index;
+            segment = map(index);
+            position = scanSegment(segment, logs, ids);
+        }
+        recovered = logs;
+    }
+
+    /** Reads one segment's records into 'logs'; returns where its valid records end. */
+    private int scanSegment(MappedByteBuffer buffer, Map<Integer, SessionLog> logs, Map<Integer, String> ids) {
+        int at = 0;
+        while (at + HEADER_BYTES <= segmentBytes) {
+            int size = buffer.getInt(at);
+            if (size <= 0 || size > segmentBytes - at - HEADER_BYTES) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(at + HEADER_BYTES, size));
+            if ((int) crc.getValue() != buffer.getInt(at + 4)) {
+                break;
+            }
+            buffer.position(at + HEADER_BYTES);
+            readRecord(buffer, logs, ids);
+            at += HEADER_BYTES + size;
+        }
+        if (at + HEADER_BYTES <= segmentBytes && buffer.getInt(at) != 0) {
+            // a torn record: clear its header so the next append starts clean
+            buffer.putLong(at, 0L);
+        }
+        return at;
+    }
+
+    private void readRecord(ByteBuffer body, Map<Integer, SessionLog> logs, Map<Integer, String> ids) {
+        byte type = body.get();
+        int number = body.getInt();
+        nextNumber = Math.max(nextNumber, number + 1);
+        switch (type) {
+            case START: {
+                String sessionId = getString(body);
+                int ordinal = body.get();
+                int width = body.getInt();
+                int height = body.getInt();
+                int winLength = body.getInt();
+                Player player1 = new Player(getString(body), getString(body), body.getInt());
+                Player player2 = new Player(getString(body), getString(body), body.getInt());
+                if (ordinal < 0 || ordinal >= GAME_TYPES.length) {
+                    return;
+                }
+                Match match = new Match(GAME_TYPES[ordinal], player1, player2);
+                logs.put(number, new SessionLog(sessionId, match, width, height, winLength));
+                ids.put(number, sessionId);
+                live.put(sessionId, new Live(number, segmentIndex));
+                break;
+            }
+            case MOVE: {
+                SessionLog log = logs.get(number);
+                if (log != null) {
+                    log.addMove(body.getInt());
+                }
+                break;
+            }
+            case CHAT: {
+                SessionLog log = logs.get(number);
+                if (log != null) {
+                    String senderId = getString(body);
+                    String senderName = getString(body);
+                    String content = getString(body);
+                    Instant timestamp = Instant.ofEpochMilli(body.getLong());
+                    int status = body.get();
+                    log.chat.add(new ChatMessage(senderId, senderName, content, timestamp,
+                            status >= 0 && status < STATUSES.length ? STATUSES[status] : DeliveryStatus.SENT));
+                }
+                break;
+            }
+            case RESULT: {
+                logs.remove(number);
+                String sessionId = ids.remove(number);
+                if (sessionId != null) {
+                    live.remove(sessionId);
+                }
+                break;
+            }
+            default:
+                // a newer record type; skip it
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for the journal: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package journal;
+
+import chat.ChatMessage;
+import matchmaking.Match;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Everything the journal holds about one live session, collected while scanning. */
+final class SessionLog {
+
+    final String sessionId;
+    final Match match;
+    final int boardWidth;
+    final int boardHeight;
+    final int winLength;
+    final List<ChatMessage> chat = new ArrayList<>(0);
+    private int[] moves = new int[16];
+    private int moveCount;
+
+    SessionLog(String sessionId, Match match, int boardWidth, int boardHeight, int winLength) {
+        this.sessionId = sessionId;
+        this.match = match;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.winLength = winLength;
+    }
+
+    void addMove(int move) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+    }
+
+    int getMoveCount() {
+        return moveCount;
+    }
+
+    int getMove(int ply) {
+        return moves[ply];
+    }
+}
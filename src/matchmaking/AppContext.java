@@ -7,7 +7,10 @@ import chat.ChatServiceStub;
  * Application-wide context for shared services.
  *
  * For Project Iteration 3, this currently exposes a single shared ChatService
- * instance that can be used by matchmaking, game sessions, and GUI code.
+ * instance that can be used by matchmaking, game sessions, and GUI code,
+ * and the SessionRegistry of running game sessions. The registry's sweep
+ * for idle and finished sessions runs once startSessionSweep() is called,
+ * which the application's main() does; loading this class starts nothing.
  *
  * Later, other shared services (e.g., persistence or networking) could be
  * added here behind appropriate interfaces.
@@ -17,6 +20,12 @@ public final class AppContext {
     // Single shared in-memory chat service for the whole application.
     private static final ChatServiceStub CHAT_SERVICE = new ChatServiceStub();
 
+    // How often the shared session registry evicts idle and finished sessions.
+    private static final long SESSION_SWEEP_MILLIS = 60_000;
+
+    // Running game sessions, by match id and by player id.
+    private static final SessionRegistry SESSIONS = new SessionRegistry(CHAT_SERVICE);
+
     // Prevent instantiation.
     private AppContext() {
     }
@@ -29,6 +38,21 @@ public final class AppContext {
         return CHAT_SERVICE;
     }
 
+    /**
+     * Returns the shared registry of running game sessions.
+     */
+    public static SessionRegistry getSessionRegistry() {
+        return SESSIONS;
+    }
+
+    /**
+     * Starts evicting idle and finished sessions from the shared registry
+     * once a minute, on a daemon thread. Calling it again restarts the sweep.
+     */
+    public static void startSessionSweep() {
+        SESSIONS.start(SESSION_SWEEP_MILLIS);
+    }
+
     /**
      * Package-private accessor for tests or internal configuration if needed.
      * Other packages should use getChatService() instead.
@@ -0,0 +1,92 @@
+// File: src/matchmaking/BotPlayers.java
+package matchmaking;
+
+import java.util.Objects;
+
+/**
+ * Engine-backed bot opponents used by Matchmaker's backfill stage.
+ *
+ * A bot is an ordinary Player whose id starts with ID_PREFIX and whose
+ * display name contains "bot", so LeaderboardPanel already leaves it out.
+ * Its strength is a level from 1 to MAX_LEVEL chosen from the human's
+ * rating; the bot's rating is the middle of that level's rating range, so
+ * rating updates after the game stay meaningful. The engine reads the level
+ * back with levelOf() and sets how often it blunders from
+ * blunderProbability().
+ *
+ * Backfill only hands out bots for game types that hasEngine() accepts:
+ * a bot nobody moves for is worse than waiting. Today that is TicTacToe,
+ * played by game_logic.BotBehavior on top of TicTacToeSolver.
+ */
+public final class BotPlayers {
+
+    public static final String ID_PREFIX = "bot-";
+
+    public static final int MAX_LEVEL = 10;
+
+    /** Rating at which level 1 ends; each level above covers LEVEL_WIDTH more points. */
+    private static final int LEVEL_ONE_CEILING = 600;
+    private static final int LEVEL_WIDTH = 200;
+
+    private BotPlayers() {
+    }
+
+    /** True if a bot engine can play 'gameType' (see game_logic.BotBehavior). */
+    public static boolean hasEngine(GameType gameType) {
+        return gameType == GameType.TIC_TAC_TOE;
+    }
+
+    /** True for players created by create(). */
+    public static boolean isBot(Player player) {
+        return player.getId().startsWith(ID_PREFIX);
+    }
+
+    /** Bot level (1..MAX_LEVEL) that gives a player of 'rating' an even game. */
+    public static int levelFor(int rating) {
+        int level = rating < LEVEL_ONE_CEILING ? 1 : 2 + (rating - LEVEL_ONE_CEILING) / LEVEL_WIDTH;
+        return Math.min(MAX_LEVEL, level);
+    }
+
+    /** Level of a bot created by create(), from its rating. */
+    public static int levelOf(Player bot) {
+        if (!isBot(bot)) {
+            throw new IllegalArgumentException("Not a bot: " + bot.getId());
+        }
+        return levelFor(bot.getRating());
+    }
+
+    /** Nominal rating of a bot of 'level': the middle of the level's range. */
+    public static int ratingOf(int level) {
+        checkLevel(level);
+        return LEVEL_ONE_CEILING + (level - 2) * LEVEL_WIDTH + LEVEL_WIDTH / 2;
+    }
+
+    /** Chance the engine plays a random legal move instead of its best one; 0 at MAX_LEVEL. */
+    public static double blunderProbability(int level) {
+        checkLevel(level);
+        return (MAX_LEVEL - level) / (2.0 * MAX_LEVEL);
+    }
+
+    /**
+     * A fresh bot for 'gameType' matched to a human of 'rating'. 'serial'
+     * keeps bot ids unique; the Matchmaker passes a running counter.
+     * Throws IllegalArgumentException if no engine plays 'gameType'.
+     */
+    public static Player create(GameType gameType, int rating, long serial) {
+        Objects.requireNonNull(gameType, "gameType");
+        if (!hasEngine(gameType)) {
+            throw new IllegalArgumentException("No bot engine for " + gameType);
+        }
+        int level = levelFor(rating);
+        String id = ID_PREFIX + gameType.name().toLowerCase() + "-" + serial;
+        return new Player(id, "Level " + level + " bot", ratingOf(level));
+    }
+
+    // ------------- helpers -------------
+
+    private static void checkLevel(int level) {
+        if (level < 1 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("level must be in 1.." + MAX_LEVEL);
+        }
+    }
+}
@@ -6,7 +6,8 @@ import java.util.Objects;
 
 /**
  * Represents a running game session.
- * Wraps a Match together with its associated ChatChannel.
+ * Wraps a Match together with its associated ChatChannel, and the
+ * SpectatorFeed that spectators watch it through (created on first use).
  *
  * More responsibilities (game controller, timers, etc.) can be added later.
  */
@@ -14,6 +15,7 @@ public class GameSession {
 
     private final Match match;
     private final ChatChannel chatChannel;
+    private volatile SpectatorFeed spectatorFeed;
 
     public GameSession(Match match, ChatChannel chatChannel) {
         this.match = Objects.requireNonNull(match, "match must not be null");
@@ -27,4 +29,19 @@ public class GameSession {
     public ChatChannel getChatChannel() {
         return chatChannel;
     }
+
+    /** The session's spectator broadcast; most sessions never have spectators, so it is created lazily. */
+    public SpectatorFeed getSpectatorFeed() {
+        SpectatorFeed feed = spectatorFeed;
+        if (feed == null) {
+            synchronized (this) {
+                feed = spectatorFeed;
+                if (feed == null) {
+                    feed = new SpectatorFeed();
+                    spectatorFeed = feed;
+                }
+            }
+        }
+        return feed;
+    }
 }
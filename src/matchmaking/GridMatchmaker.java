@@ -0,0 +1,277 @@
+// File: src/matchmaking/GridMatchmaker.java
+package matchmaking;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Matchmaking mode that pairs on two dimensions: rating and the player's
+ * latency bucket (round trip to the hosting region, in LATENCY_BUCKET_MILLIS
+ * steps), so a pair is close in skill and will not have a laggy session.
+ *
+ * Queued players are indexed in a grid per GameType whose cells are
+ * RATING_CELL rating points wide and one latency bucket tall. A partner query
+ * visits cells in order of the smallest cost any player in them could have
+ * and stops as soon as that bound is no better than the best partner found,
+ * so it only ever looks at the neighbourhood of the player, not the queue.
+ *
+ * Pair cost is ratingGap + LATENCY_WEIGHT * bucketGap. Both acceptance limits
+ * widen with time in queue, as in Matchmaker; a pair is acceptable when it
+ * fits inside the limits of either player.
+ */
+public class GridMatchmaker {
+
+    /** Width of one latency bucket, in milliseconds of round trip. */
+    public static final int LATENCY_BUCKET_MILLIS = 25;
+
+    /** Rating points one latency bucket is worth when ranking partners. */
+    private static final int LATENCY_WEIGHT = 100;
+
+    /** Rating width of a grid cell. */
+    private static final int RATING_CELL = 100;
+
+    private static final int BASE_RATING_WINDOW = 200;
+    private static final int MAX_RATING_WINDOW = 1000;
+    private static final int RATING_STEP = 50;
+    private static final long RATING_STEP_MILLIS = 10_000;
+
+    private static final int BASE_LATENCY_WINDOW = 1;
+    private static final int MAX_LATENCY_WINDOW = 4;
+    private static final long LATENCY_STEP_MILLIS = 30_000;
+
+    /**
+     * Cell offsets (rating cells, latency buckets) within the widest possible
+     * window, sorted by the smallest cost a player in that cell could have.
+     */
+    private static final int[][] OFFSETS = buildOffsets();
+
+    /** Internal data holder for a queued player. */
+    private static final class Entry {
+        final Player player;
+        final GameType gameType;
+        final int rating;
+        final int bucket;
+        final long enqueuedAtMillis;
+        final long sequence;
+
+        Entry(Player player, GameType gameType, int bucket, long enqueuedAtMillis, long sequence) {
+            this.player = player;
+            this.gameType = gameType;
+            this.rating = player.getRating();
+            this.bucket = bucket;
+            this.enqueuedAtMillis = enqueuedAtMillis;
+            this.sequence = sequence;
+        }
+    }
+
+    /** Players in one grid cell, oldest arrival first. */
+    private static final class Cell {
+        final LinkedHashSet<Entry> entries = new LinkedHashSet<>();
+    }
+
+    private final Map<GameType, Map<Long, Cell>> grids = new EnumMap<>(GameType.class);
+    private final Map<Player, Entry> index = new HashMap<>();
+    private final LongSupplier clock;
+    private long nextSequence = 0;
+
+    public GridMatchmaker() {
+        this(System::currentTimeMillis);
+    }
+
+    GridMatchmaker(LongSupplier clock) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+        for (GameType type : GameType.values()) {
+            grids.put(type, new HashMap<>());
+        }
+    }
+
+    /** Latency bucket for a measured round trip to the hosting region. */
+    public static int latencyBucket(int roundTripMillis) {
+        if (roundTripMillis < 0) {
+            throw new IllegalArgumentException("roundTripMillis must be >= 0");
+        }
+        return roundTripMillis / LATENCY_BUCKET_MILLIS;
+    }
+
+    /**
+     * Queues 'player' for 'gameType' with the given latency bucket.
+     * A player can only wait in one queue; queueing again is ignored.
+     */
+    public synchronized void enqueue(Player player, GameType gameType, int latencyBucket) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(gameType, "gameType");
+        if (latencyBucket < 0) {
+            throw new IllegalArgumentException("latencyBucket must be >= 0");
+        }
+        if (index.containsKey(player)) {
+            return;
+        }
+        Entry e = new Entry(player, gameType, latencyBucket, clock.getAsLong(), nextSequence++);
+        index.put(player, e);
+        long key = cellKey(Math.floorDiv(e.rating, RATING_CELL), e.bucket);
+        grids.get(gameType).computeIfAbsent(key, k -> new Cell()).entries.add(e);
+    }
+
+    /** Removes 'player' from the queue, if present. */
+    public synchronized void dequeue(Player player) {
+        Objects.requireNonNull(player, "player");
+        Entry e = index.remove(player);
+        if (e != null) {
+            removeFromGrid(e);
+        }
+    }
+
+    public synchronized boolean isQueued(Player player) {
+        return index.containsKey(player);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Pairs 'player' with the cheapest acceptable partner for the same game,
+     * removing both from the queue. Returns null if the player is not queued
+     * or nobody acceptable is waiting.
+     */
+    public synchronized Match findMatchFor(Player player) {
+        Objects.requireNonNull(player, "player");
+        Entry self = index.get(player);
+        if (self == null) {
+            return null;
+        }
+        Entry partner = bestPartner(self, clock.getAsLong());
+        if (partner == null) {
+            return null;
+        }
+        return pair(self, partner);
+    }
+
+    /**
+     * Offers every queued player a match, longest-waiting first, and returns
+     * all matches made. Each query is local to the player's grid neighbourhood.
+     */
+    public synchronized List<Match> tick() {
+        long now = clock.getAsLong();
+        List<Entry> byWait = new ArrayList<>(index.values());
+        byWait.sort(Comparator.comparingLong(e -> e.sequence));
+        List<Match> matches = new ArrayList<>();
+        for (Entry e : byWait) {
+            if (index.get(e.player) != e) {
+                continue; // already paired earlier in this tick
+            }
+            Entry partner = bestPartner(e, now);
+            if (partner != null) {
+                matches.add(pair(e, partner));
+            }
+        }
+        return matches;
+    }
+
+    // ------------- helpers -------------
+
+    private Entry bestPartner(Entry self, long now) {
+        Map<Long, Cell> grid = grids.get(self.gameType);
+        int selfCell = Math.floorDiv(self.rating, RATING_CELL);
+        int selfRatingWindow = ratingWindow(self, now);
+        int selfLatencyWindow = latencyWindow(self, now);
+
+        Entry best = null;
+        long bestCost = Long.MAX_VALUE;
+        for (int[] offset : OFFSETS) {
+            if (offset[2] > bestCost) {
+                break; // every remaining cell is at least this expensive
+            }
+            int bucket = self.bucket + offset[1];
+            if (bucket < 0) {
+                continue;
+            }
+            Cell cell = grid.get(cellKey(selfCell + offset[0], bucket));
+            if (cell == null) {
+                continue;
+            }
+            // the oldest player in the cell has the widest window of anyone there
+            Entry oldest = cell.entries.iterator().next();
+            int minRatingGap = offset[2] - LATENCY_WEIGHT * Math.abs(offset[1]);
+            int latencyGap = Math.abs(offset[1]);
+            boolean reachable = (minRatingGap <= selfRatingWindow && latencyGap <= selfLatencyWindow)
+                    || (minRatingGap <= ratingWindow(oldest, now) && latencyGap <= latencyWindow(oldest, now));
+            if (!reachable) {
+                continue;
+            }
+            for (Entry other : cell.entries) {
+                if (other == self || !acceptable(self, other, now)) {
+                    continue;
+                }
+                long cost = cost(self, other);
+                if (cost < bestCost || (cost == bestCost && other.sequence < best.sequence)) {
+                    best = other;
+                    bestCost = cost;
+                }
+            }
+        }
+        return best;
+    }
+
+    private Match pair(Entry a, Entry b) {
+        index.remove(a.player);
+        index.remove(b.player);
+        removeFromGrid(a);
+        removeFromGrid(b);
+        Entry first = a.sequence < b.sequence ? a : b;
+        Entry second = first == a ? b : a;
+        return new Match(a.gameType, first.player, second.player);
+    }
+
+    private void removeFromGrid(Entry e) {
+        Map<Long, Cell> grid = grids.get(e.gameType);
+        long key = cellKey(Math.floorDiv(e.rating, RATING_CELL), e.bucket);
+        Cell cell = grid.get(key);
+        cell.entries.remove(e);
+        if (cell.entries.isEmpty()) {
+            grid.remove(key); // keep the grid as small as the queue
+        }
+    }
+
+    private static long cost(Entry a, Entry b) {
+        return Math.abs(a.rating - b.rating) + (long) LATENCY_WEIGHT * Math.abs(a.bucket - b.bucket);
+    }
+
+    private static boolean acceptable(Entry a, Entry b, long now) {
+        int ratingGap = Math.abs(a.rating - b.rating);
+        int latencyGap = Math.abs(a.bucket - b.bucket);
+        return (ratingGap <= ratingWindow(a, now) && latencyGap <= latencyWindow(a, now))
+                || (ratingGap <= ratingWindow(b, now) && latencyGap <= latencyWindow(b, now));
+    }
+
+    private static int ratingWindow(Entry e, long now) {
+        long steps = Math.max(0, now - e.enqueuedAtMillis) / RATING_STEP_MILLIS;
+        return (int) Math.min(MAX_RATING_WINDOW, BASE_RATING_WINDOW + steps * RATING_STEP);
+    }
+
+    private static int latencyWindow(Entry e, long now) {
+        long steps = Math.max(0, now - e.enqueuedAtMillis) / LATENCY_STEP_MILLIS;
+        return (int) Math.min(MAX_LATENCY_WINDOW, BASE_LATENCY_WINDOW + steps);
+    }
+
+    private static long cellKey(int ratingCell, int bucket) {
+        return ((long) ratingCell << 32) | (bucket & 0xFFFFFFFFL);
+    }
+
+    /**
+     * {ratingCellOffset, bucketOffset, minCost}. A player in a cell 'd' rating
+     * cells away is at least (|d| - 1) * RATING_CELL + 1 points apart (0 when d = 0).
+     */
+    private static int[][] buildOffsets() {
+        int ratingCells = MAX_RATING_WINDOW / RATING_CELL + 1;
+        List<int[]> offsets = new ArrayList<>();
+        for (int dr = -ratingCells; dr <= ratingCells; dr++) {
+            for (int dl = -MAX_LATENCY_WINDOW; dl <= MAX_LATENCY_WINDOW; dl++) {
+                int minRatingGap = dr == 0 ? 0 : (Math.abs(dr) - 1) * RATING_CELL + 1;
+                offsets.add(new int[] { dr, dl, minRatingGap + LATENCY_WEIGHT * Math.abs(dl) });
+            }
+        }
+        offsets.sort(Comparator.comparingInt(o -> o[2]));
+        return offsets.toArray(new int[0][]);
+    }
+}
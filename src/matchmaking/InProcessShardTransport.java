@@ -0,0 +1,65 @@
+package matchmaking;
+
+import java.util.List;
+
+/**
+ * ShardTransport over Matchmaker instances in this JVM.
+ * Each Matchmaker is already thread-safe, so calls go straight through.
+ */
+public class InProcessShardTransport implements ShardTransport {
+
+    private final Matchmaker[] shards;
+
+    public InProcessShardTransport(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be > 0");
+        }
+        this.shards = new Matchmaker[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Matchmaker();
+        }
+    }
+
+    /** Wraps existing workers, e.g. Matchmakers on a test clock. */
+    public InProcessShardTransport(Matchmaker... shards) {
+        if (shards.length == 0) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = shards.clone();
+    }
+
+    @Override
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void enqueue(int shard, Player player, GameType gameType) {
+        shards[shard].enqueue(player, gameType);
+    }
+
+    @Override
+    public void enqueue(int shard, Player player, GameType gameType, long enqueuedAtMillis) {
+        shards[shard].enqueue(player, gameType, enqueuedAtMillis);
+    }
+
+    @Override
+    public void dequeue(int shard, Player player) {
+        shards[shard].dequeue(player);
+    }
+
+    @Override
+    public long handOff(int shard, Player player) {
+        return shards[shard].handOff(player);
+    }
+
+    @Override
+    public List<Match> tick(int shard) {
+        return shards[shard].tick();
+    }
+
+    /** The worker behind 'shard', for inspection in tests. */
+    public Matchmaker getShard(int shard) {
+        return shards[shard];
+    }
+}
@@ -8,6 +8,8 @@ import java.util.Objects;
 /**
  * Represents a simple 1v1 lobby where a host can invite another player.
  * This is used by LobbyManager and is independent of the rest of the project.
+ * Methods synchronise on the lobby, which LobbyManager also uses to make
+ * join and expiry atomic.
  */
 public class Lobby {
 
@@ -41,26 +43,26 @@ public class Lobby {
         return host;
     }
 
-    public Status getStatus() {
+    public synchronized Status getStatus() {
         return status;
     }
 
-    public List<Player> getParticipants() {
+    public synchronized List<Player> getParticipants() {
         return new ArrayList<>(participants);
     }
 
-    public boolean isFull() {
+    public synchronized boolean isFull() {
         return participants.size() >= 2;
     }
 
-    public boolean canJoin(Player player) {
+    public synchronized boolean canJoin(Player player) {
         Objects.requireNonNull(player, "player");
         return status == Status.WAITING
                 && !isFull()
                 && participants.stream().noneMatch(p -> p.equals(player));
     }
 
-    public void addPlayer(Player player) {
+    public synchronized void addPlayer(Player player) {
         if (!canJoin(player)) {
             throw new IllegalStateException("Cannot join lobby " + id);
         }
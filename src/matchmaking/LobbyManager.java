@@ -1,55 +1,130 @@
 // File: src/matchmaking/LobbyManager.java
 package matchmaking;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * Manages lobbies: creating them and joining them.
  * This directly matches your tasks: createLobby() and joinLobby().
+ *
+ * Lobbies live in a concurrent registry. A lobby that is still WAITING
+ * after DEFAULT_TTL_MILLIS expires and is dropped, driven by a timing wheel
+ * that is advanced on every create, join and lookup (and by expireLobbies()),
+ * so no read returns an expired lobby and memory stays bounded under heavy
+ * lobby churn. Callers close a lobby once its game starts; a FULL lobby
+ * nobody closes (e.g. the joiner backed out) expires
+ * DEFAULT_FULL_TTL_MILLIS after it filled. Joinable lobbies are also indexed
+ * per GameType so players can browse open lobbies without a registry scan.
  */
 public class LobbyManager {
 
-    private final Map<String, Lobby> lobbies = new HashMap<>();
-    private final Random random = new Random();
+    /** How long a lobby may wait for its second player. */
+    public static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000;
+
+    /** How long a FULL lobby may stay registered without closeLobby(). */
+    public static final long DEFAULT_FULL_TTL_MILLIS = 2 * 60 * 1000;
+
+    /** Attempts at finding an unused lobby ID before giving up. */
+    private static final int MAX_ID_ATTEMPTS = 16;
+
+    private static final String ID_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int ID_LENGTH = 6;
+
+    /** Expiry wheel granularity; lobbies expire at most this late. */
+    private static final long WHEEL_TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final Map<String, Lobby> lobbies = new ConcurrentHashMap<>();
+    private final Map<GameType, Set<String>> joinable = new EnumMap<>(GameType.class);
+    private final TimingWheel<String> expiry;
+    private final Random random;
+    private final LongSupplier clock;
+    private final long ttlMillis;
+    private final long fullTtlMillis;
+
+    public LobbyManager() {
+        this(System::currentTimeMillis, DEFAULT_TTL_MILLIS, DEFAULT_FULL_TTL_MILLIS, new Random());
+    }
+
+    LobbyManager(LongSupplier clock, long ttlMillis, Random random) {
+        this(clock, ttlMillis, DEFAULT_FULL_TTL_MILLIS, random);
+    }
+
+    LobbyManager(LongSupplier clock, long ttlMillis, long fullTtlMillis, Random random) {
+        if (ttlMillis <= 0 || fullTtlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis and fullTtlMillis must be > 0");
+        }
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.random = Objects.requireNonNull(random, "random");
+        this.ttlMillis = ttlMillis;
+        this.fullTtlMillis = fullTtlMillis;
+        this.expiry = new TimingWheel<>(WHEEL_TICK_MILLIS, WHEEL_SLOTS, clock.getAsLong());
+        for (GameType type : GameType.values()) {
+            joinable.put(type, ConcurrentHashMap.newKeySet());
+        }
+    }
 
     /**
      * Create a new lobby hosted by the given player for the specified game type.
      * Returns the generated lobby ID (the host can share this with a friend).
+     * Throws IllegalStateException if no free ID was found in MAX_ID_ATTEMPTS tries.
      */
-    public synchronized String createLobby(Player host, GameType gameType) {
+    public String createLobby(Player host, GameType gameType) {
         Objects.requireNonNull(host, "host");
         Objects.requireNonNull(gameType, "gameType");
 
-        String id = generateLobbyId();
-        Lobby lobby = new Lobby(id, gameType, host);
-        lobbies.put(id, lobby);
-        return id;
+        long now = clock.getAsLong();
+        expireLobbies(now);
+        for (int attempt = 0; attempt < MAX_ID_ATTEMPTS; attempt++) {
+            String id = generateLobbyId();
+            Lobby lobby = new Lobby(id, gameType, host);
+            synchronized (lobby) { // joiners wait until the indexes are up to date
+                if (lobbies.putIfAbsent(id, lobby) == null) { // claims the ID atomically
+                    joinable.get(gameType).add(id);
+                    expiry.schedule(id, now + ttlMillis);
+                    return id;
+                }
+            }
+        }
+        throw new IllegalStateException("Could not allocate a free lobby ID");
     }
 
     /**
      * Attempt to join a lobby by ID.
      * Returns the Lobby if join succeeded, or null if:
-     * - the lobby does not exist, or
+     * - the lobby does not exist (or has expired), or
      * - the lobby is full, or
      * - the player is already in the lobby.
      */
-    public synchronized Lobby joinLobby(String lobbyId, Player player) {
+    public Lobby joinLobby(String lobbyId, Player player) {
         Objects.requireNonNull(lobbyId, "lobbyId");
         Objects.requireNonNull(player, "player");
 
+        long now = clock.getAsLong();
+        expireLobbies(now);
         Lobby lobby = lobbies.get(lobbyId);
         if (lobby == null) {
             return null; // lobby not found
         }
 
-        if (!lobby.canJoin(player)) {
-            return null; // cannot join (full or already there)
+        synchronized (lobby) {
+            if (lobbies.get(lobbyId) != lobby || !lobby.canJoin(player)) {
+                return null; // expired meanwhile, or cannot join (full or already there)
+            }
+            lobby.addPlayer(player);
+            if (lobby.isFull()) {
+                joinable.get(lobby.getGameType()).remove(lobbyId);
+                expiry.schedule(lobbyId, now + fullTtlMillis); // replaces the WAITING deadline
+            }
         }
-
-        lobby.addPlayer(player);
         return lobby;
     }
 
@@ -57,24 +132,94 @@ public class LobbyManager {
      * Get a lobby by ID (for UI or debugging).
      * Returns null if it does not exist.
      */
-    public synchronized Lobby getLobby(String lobbyId) {
+    public Lobby getLobby(String lobbyId) {
         Objects.requireNonNull(lobbyId, "lobbyId");
+        expireLobbies(clock.getAsLong());
         return lobbies.get(lobbyId);
     }
 
+    /**
+     * Removes a lobby, e.g. once its game has started or the host leaves.
+     * Returns the removed lobby or null.
+     */
+    public Lobby closeLobby(String lobbyId) {
+        Objects.requireNonNull(lobbyId, "lobbyId");
+        Lobby lobby = lobbies.remove(lobbyId);
+        if (lobby != null) {
+            joinable.get(lobby.getGameType()).remove(lobbyId);
+            expiry.cancel(lobbyId);
+        }
+        return lobby;
+    }
+
+    /** Lobbies of 'gameType' that are still waiting for a second player. */
+    public List<Lobby> getOpenLobbies(GameType gameType) {
+        Objects.requireNonNull(gameType, "gameType");
+        expireLobbies(clock.getAsLong());
+        List<Lobby> open = new ArrayList<>();
+        for (String id : joinable.get(gameType)) {
+            Lobby lobby = lobbies.get(id);
+            if (lobby != null) {
+                open.add(lobby);
+            }
+        }
+        return open;
+    }
+
+    /** Number of joinable lobbies for 'gameType'; O(1). */
+    public int countOpenLobbies(GameType gameType) {
+        Objects.requireNonNull(gameType, "gameType");
+        expireLobbies(clock.getAsLong());
+        return joinable.get(gameType).size();
+    }
+
+    /** Number of lobbies currently registered (waiting or full). */
+    public int size() {
+        return lobbies.size();
+    }
+
+    /**
+     * Drops every lobby whose TTL has passed: WAITING ones DEFAULT_TTL_MILLIS
+     * after creation, FULL ones DEFAULT_FULL_TTL_MILLIS after they filled.
+     * Only the wheel slots for the time that passed are visited. Returns the
+     * number removed.
+     */
+    public int expireLobbies() {
+        return expireLobbies(clock.getAsLong());
+    }
+
     // ------------- helpers -------------
 
+    private int expireLobbies(long now) {
+        int removed = 0;
+        for (String id : expiry.advance(now)) {
+            Lobby lobby = lobbies.get(id);
+            if (lobby == null) {
+                continue;
+            }
+            synchronized (lobby) {
+                // each lobby has one deadline in the wheel, for its current status
+                if (lobbies.remove(id, lobby)) {
+                    joinable.get(lobby.getGameType()).remove(id);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
     private String generateLobbyId() {
         // simple 6-character alphanumeric ID
-        String chars = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
-        StringBuilder sb = new StringBuilder(6);
-        for (int i = 0; i < 6; i++) {
-            sb.append(chars.charAt(random.nextInt(chars.length())));
+        StringBuilder sb = new StringBuilder(ID_LENGTH);
+        for (int i = 0; i < ID_LENGTH; i++) {
+            sb.append(ID_CHARS.charAt(nextIndex()));
         }
-        String id = sb.toString();
-        if (lobbies.containsKey(id)) {
-            return generateLobbyId(); // avoid collision
+        return sb.toString();
+    }
+
+    private int nextIndex() {
+        synchronized (random) {
+            return random.nextInt(ID_CHARS.length());
         }
-        return id;
     }
-}
\ No newline at end of file
+}
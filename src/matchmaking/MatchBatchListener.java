@@ -0,0 +1,17 @@
+package matchmaking;
+
+import java.util.List;
+
+/**
+ * Listener for the Matchmaker's scheduled tick.
+ * Implemented by session managers or UI code that start games for new matches.
+ */
+public interface MatchBatchListener {
+
+    /**
+     * Called once per tick with every match that tick produced (never empty).
+     *
+     * @param matches the matches, in GameType order
+     */
+    void onMatches(List<Match> matches);
+}
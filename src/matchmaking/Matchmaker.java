@@ -2,49 +2,227 @@
 package matchmaking;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 
 /**
  * Matchmaker is responsible for:
  * - Queueing players for a given game type
  * - Removing players from the queue
- * - Pairing players based on rating similarity
+ * - Pairing players based on rating similarity, with an acceptance window
+ *   that widens the longer a player has been waiting
  * - Estimating wait time for a player
+ * - Optionally running a scheduled batch tick that pairs whole queues at once
+ * - Notifying waiting players through a CompletableFuture instead of polling
+ * - Optionally backfilling players who wait unusually long with a bot
  *
+ * Thread safety: each GameType queue has its own lock, so a chess enqueue
+ * never waits for Go or TicTacToe pairing. estimateWait() and
+ * getQueuedPlayers() take no lock at all; they read an immutable snapshot
+ * of the queue (see RatingQueue).
  */
 public class Matchmaker {
 
-    /** Maximum rating difference allowed when pairing players. */
+    /** Rating difference every player accepts from the moment they queue. */
     private static final int MAX_RATING_DIFFERENCE = 200;
 
-    /** Base wait time (seconds) used by estimateWait(). */
+    /** A player's acceptance window grows once per bucket of time spent in the queue. */
+    private static final long WINDOW_BUCKET_MILLIS = 10_000;
+
+    /** Rating points added to the window per bucket waited. */
+    private static final int WINDOW_STEP = 50;
+
+    /** The window never grows past this, so extreme mismatches stay impossible. */
+    private static final int MAX_WINDOW = 1000;
+
+    /** Rating neighbours on each side of a player under review that tick() also considers. */
+    private static final int REVIEW_RADIUS = 8;
+
+    /** Base wait time (seconds) per pair ahead, used by estimateWait() until a band has history. */
     private static final int BASE_WAIT_SECONDS = 15;
 
     /**
-     * For each game type, we keep a queue of players waiting for a match.
+     * Batch tick cost of leaving one player unmatched. Two of these exceed any
+     * acceptable rating gap, so the tick never skips a pair it could make.
+     */
+    private static final int UNMATCHED_COST = MAX_WINDOW / 2 + 1;
+
+    /** Extra unmatched cost per second already waited, so long waiters are paired first. */
+    private static final int WAIT_BONUS_PER_SECOND = 2;
+
+    /**
+     * For each game type, we keep a rating-ordered queue of players waiting for a match.
      */
-    private final Map<GameType, List<QueuedPlayer>> queues =
+    private final Map<GameType, TypeQueue> queues =
             new EnumMap<>(GameType.class);
 
+    /** Arrival counter; breaks rating ties in favour of whoever queued first. */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /** Time source in milliseconds; replaceable so tests and simulations control time. */
+    private final LongSupplier clock;
+
+    /** Serial numbers for backfill bots, so every bot Player is distinct. */
+    private final AtomicLong nextBot = new AtomicLong();
+
+    /** Bot backfill settings; null while backfill is off. */
+    private volatile BackfillPolicy backfill;
+
+    private ScheduledExecutorService ticker;
+
     public Matchmaker() {
+        this(System::currentTimeMillis);
+    }
+
+    Matchmaker(LongSupplier clock) {
+        this.clock = Objects.requireNonNull(clock, "clock");
         for (GameType type : GameType.values()) {
-            queues.put(type, new ArrayList<>());
+            queues.put(type, new TypeQueue());
         }
     }
 
     /**
      * Internal data holder for a player in the matchmaking queue.
      */
-    private static final class QueuedPlayer {
+    static final class QueuedPlayer {
         final Player player;
         final GameType gameType;
         final int rating;
         final long enqueuedAtMillis;
+        final long sequence;
 
-        QueuedPlayer(Player player, GameType gameType) {
+        QueuedPlayer(Player player, GameType gameType, long sequence, long enqueuedAtMillis) {
             this.player = player;
             this.gameType = gameType;
             this.rating = player.getRating();
-            this.enqueuedAtMillis = System.currentTimeMillis();
+            this.enqueuedAtMillis = enqueuedAtMillis;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Queue state for one game type. Besides the rating-ordered players it
+     * tracks who needs another look: players whose window just widened,
+     * new arrivals, and the neighbours of anyone who left. Everyone else has
+     * already been checked against their current neighbours with their
+     * current window, so re-checking them could not produce a new pair.
+     *
+     * All mutation happens while holding the TypeQueue's own monitor.
+     */
+    private static final class TypeQueue {
+        final RatingQueue players = new RatingQueue();
+        /** Next window expansion time -> players whose window widens then. */
+        final TreeMap<Long, List<QueuedPlayer>> expansions = new TreeMap<>();
+        /** Players to reconsider, in the order they became due. */
+        final Set<QueuedPlayer> review = new LinkedHashSet<>();
+        /** Arrival and match rates per rating band, for estimateWait(). */
+        final WaitTimeEstimator waits = new WaitTimeEstimator();
+        /**
+         * Players by enqueue time, for backfill; entries for players who left
+         * are skipped lazily. Ordered by time rather than by insertion because
+         * players migrated in from another shard keep their original time.
+         */
+        final PriorityQueue<QueuedPlayer> arrivals = new PriorityQueue<>(
+                Comparator.comparingLong((QueuedPlayer qp) -> qp.enqueuedAtMillis).thenComparingLong(qp -> qp.sequence));
+        /** Futures handed out by enqueueAsync() for players still in this queue. */
+        final Map<Player, Waiter> waiters = new HashMap<>();
+        /**
+         * Waiters that were matched or cancelled under the lock. They are
+         * completed only after the lock is released, so callbacks can call
+         * back into the Matchmaker (any queue) without deadlocking.
+         */
+        final List<Notification> ready = new ArrayList<>();
+    }
+
+    /** When a waiting player gets a bot instead of a human; see enableBotBackfill(). */
+    private static final class BackfillPolicy {
+        final double percentile;
+        final long minWaitMillis;
+        final long maxWaitMillis;
+
+        BackfillPolicy(double percentile, long minWaitMillis, long maxWaitMillis) {
+            this.percentile = percentile;
+            this.minWaitMillis = minWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+
+    /**
+     * The future enqueueAsync() hands out. A timeout or the owner's cancel()
+     * only takes effect while the player is still queued; once they have
+     * been paired the Match wins, so one player cannot be told they timed
+     * out while their opponent starts the game.
+     */
+    private static final class Waiter extends CompletableFuture<Match> {
+        private final TypeQueue queue;
+        private final Player player;
+
+        Waiter(TypeQueue queue, Player player) {
+            this.queue = queue;
+            this.player = player;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            return leaveQueue(() -> super.completeExceptionally(ex));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return leaveQueue(() -> super.cancel(mayInterruptIfRunning));
+        }
+
+        /** Cancels on the Matchmaker's behalf, after the player was dequeued. */
+        void cancelDequeued() {
+            super.cancel(false);
+        }
+
+        private boolean leaveQueue(BooleanSupplier finish) {
+            synchronized (queue) {
+                if (queue.waiters.get(player) != this) {
+                    return false; // already paired (or dequeued); that outcome is on its way
+                }
+                queue.waiters.remove(player);
+                removeLocked(queue, player);
+            }
+            deliver(queue);
+            return finish.getAsBoolean();
+        }
+    }
+
+    /**
+     * A pairing whose waiters still have to be told, or, when 'match' is
+     * null, a dequeued waiter ('lowerFuture') to cancel. The queue entries
+     * are kept so the pairing can be undone. 'higher' is null for a bot
+     * match; a future is null for a player who used plain enqueue().
+     */
+    private static final class Notification {
+        final Match match;
+        final QueuedPlayer lower;
+        final Waiter lowerFuture;
+        final QueuedPlayer higher;
+        final Waiter higherFuture;
+        final long pairedAtMillis;
+
+        Notification(Match match, QueuedPlayer lower, Waiter lowerFuture,
+                     QueuedPlayer higher, Waiter higherFuture, long pairedAtMillis) {
+            this.match = match;
+            this.lower = lower;
+            this.lowerFuture = lowerFuture;
+            this.higher = higher;
+            this.higherFuture = higherFuture;
+            this.pairedAtMillis = pairedAtMillis;
+        }
+
+        /** True if one of the pair's futures was completed by someone else after pairing. */
+        boolean abandoned() {
+            return (lowerFuture != null && lowerFuture.isDone())
+                    || (higherFuture != null && higherFuture.isDone());
         }
     }
 
@@ -52,30 +230,108 @@ public class Matchmaker {
      * Adds a player to the queue for the given game type.
      * System adds to queue after player clicks Play.
      */
-    public synchronized void enqueue(Player player, GameType gameType) {
+    public void enqueue(Player player, GameType gameType) {
         Objects.requireNonNull(player, "player");
         Objects.requireNonNull(gameType, "gameType");
 
-        List<QueuedPlayer> queue = queues.get(gameType);
+        TypeQueue queue = queues.get(gameType);
+        synchronized (queue) {
+            addLocked(queue, player, gameType, clock.getAsLong());
+        }
+    }
 
-        // avoid duplicates in this game's queue
-        for (QueuedPlayer qp : queue) {
-            if (qp.player.equals(player)) {
-                return;
+    /**
+     * Like enqueue(), but as if the player had queued at 'enqueuedAtMillis'
+     * (on this Matchmaker's clock), so their rating window and backfill wait
+     * carry on from there. Used by ShardedMatchmaker to move a player between
+     * workers; see handOff().
+     */
+    void enqueue(Player player, GameType gameType, long enqueuedAtMillis) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(gameType, "gameType");
+
+        TypeQueue queue = queues.get(gameType);
+        synchronized (queue) {
+            addLocked(queue, player, gameType, Math.min(enqueuedAtMillis, clock.getAsLong()));
+        }
+    }
+
+    /**
+     * Removes 'player' to be queued elsewhere and returns when they
+     * originally queued, or -1 if they are not queued here. The player
+     * leaves this queue's wait estimate without counting as a match.
+     */
+    long handOff(Player player) {
+        Objects.requireNonNull(player, "player");
+        for (TypeQueue queue : queues.values()) {
+            if (!queue.players.contains(player)) {
+                continue;
+            }
+            QueuedPlayer removed;
+            synchronized (queue) {
+                removed = removeLocked(queue, player, false);
+            }
+            deliver(queue);
+            if (removed != null) {
+                return removed.enqueuedAtMillis;
             }
         }
+        return -1;
+    }
 
-        queue.add(new QueuedPlayer(player, gameType));
+    /**
+     * Like enqueue(), but returns a future that completes with the Match as
+     * soon as the player is paired, by tick(), findMatch() or findMatchFor(),
+     * whichever gets there first. Nobody has to poll.
+     *
+     * The future is cancelled when the player is dequeued. If it is not
+     * complete after 'timeoutMillis' (real time), it completes exceptionally
+     * with a TimeoutException and the player leaves the queue. Cancelling
+     * the future also removes the player from the queue. Once the player has
+     * been paired, neither the timeout nor cancel() can stop the Match from
+     * being delivered (cancel() then returns false).
+     *
+     * Calling this again for a player who is already waiting returns the
+     * existing future. Callbacks run on the thread that made the match, after
+     * all Matchmaker locks are released; chain ...Async variants to move heavy
+     * work elsewhere.
+     */
+    public CompletableFuture<Match> enqueueAsync(Player player, GameType gameType, long timeoutMillis) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(gameType, "gameType");
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeoutMillis must be > 0");
+        }
+
+        TypeQueue queue = queues.get(gameType);
+        Waiter future;
+        synchronized (queue) {
+            Waiter existing = queue.waiters.get(player);
+            if (existing != null) {
+                return existing;
+            }
+            addLocked(queue, player, gameType, clock.getAsLong());
+            future = new Waiter(queue, player);
+            queue.waiters.put(player, future);
+        }
+        // the timeout goes through completeExceptionally(), which dequeues
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
     }
 
     /**
      * Removes a player from all queues.
      * This covers the UC4 alternative: player cancels search.
      */
-    public synchronized void dequeue(Player player) {
+    public void dequeue(Player player) {
         Objects.requireNonNull(player, "player");
-        for (List<QueuedPlayer> queue : queues.values()) {
-            queue.removeIf(qp -> qp.player.equals(player));
+        for (TypeQueue queue : queues.values()) {
+            if (!queue.players.contains(player)) {
+                continue; // lock-free check; only lock queues the player is in
+            }
+            synchronized (queue) {
+                removeLocked(queue, player);
+            }
+            deliver(queue);
         }
     }
 
@@ -84,9 +340,10 @@ public class Matchmaker {
      * If a suitable pair is found, removes them from the queue and returns
      * a Match instance. Otherwise, returns null.
      */
-    public synchronized Match findMatch() {
+    public Match findMatch() {
+        long now = clock.getAsLong();
         for (GameType type : GameType.values()) {
-            Match match = findMatchForType(type);
+            Match match = findMatchForType(type, now);
             if (match != null) {
                 return match;
             }
@@ -94,74 +351,629 @@ public class Matchmaker {
         return null;
     }
 
+    /**
+     * Pairs every queue in one pass and returns all resulting matches.
+     * Only the rating neighbourhoods of players under review (new arrivals,
+     * players whose window just widened, neighbours of players who left) are
+     * taken in rating order and paired by a DP that minimises total rating
+     * gap, with a wait-time bonus that makes leaving a long-waiting player
+     * unmatched more expensive. A tick where no window crossed a bucket
+     * boundary and nobody arrived or left does no pairing work at all.
+     *
+     * With bot backfill enabled, whoever is still unpaired after that and has
+     * waited past the backfill threshold is matched with a bot.
+     */
+    public List<Match> tick() {
+        long now = clock.getAsLong();
+        List<Match> batch = new ArrayList<>();
+        for (GameType type : GameType.values()) {
+            TypeQueue queue = queues.get(type);
+            int first = batch.size();
+            synchronized (queue) {
+                tickQueue(queue, now, batch);
+                Match botMatch;
+                while ((botMatch = backfillLocked(queue, type, now)) != null) {
+                    batch.add(botMatch);
+                }
+            }
+            Set<Match> undone = deliver(queue);
+            if (!undone.isEmpty()) {
+                batch.subList(first, batch.size()).removeIf(undone::contains);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Runs tick() every 'periodMillis' on a background thread and hands each
+     * non-empty batch to 'listener' (on that thread). Calling start() again
+     * replaces the previous schedule.
+     */
+    public synchronized void start(long periodMillis, MatchBatchListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis must be > 0");
+        }
+        stop();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "matchmaker-tick");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                List<Match> batch = tick();
+                if (!batch.isEmpty()) {
+                    listener.onMatches(batch);
+                }
+            } catch (RuntimeException ex) {
+                ex.printStackTrace(); // keep the schedule alive
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops the scheduled tick, if running. */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Turns on bot backfill: tick() and findMatch() pair a player with a bot
+     * (see BotPlayers) once they have waited longer than the 'percentile'
+     * (e.g. 95) of recent waits of matched players of the same game, clamped
+     * to [minWaitMillis, maxWaitMillis]. Until a game has enough history the
+     * threshold is maxWaitMillis, which therefore caps every wait (plus one
+     * tick period). Only game types with a bot engine
+     * (BotPlayers.hasEngine()) are backfilled; the others keep waiting.
+     */
+    public void enableBotBackfill(double percentile, long minWaitMillis, long maxWaitMillis) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in (0, 100]");
+        }
+        if (minWaitMillis < 0 || maxWaitMillis < minWaitMillis) {
+            throw new IllegalArgumentException("need 0 <= minWaitMillis <= maxWaitMillis");
+        }
+        backfill = new BackfillPolicy(percentile, minWaitMillis, maxWaitMillis);
+    }
+
+    /** Turns bot backfill off again; nobody is paired with a bot afterwards. */
+    public void disableBotBackfill() {
+        backfill = null;
+    }
+
+    /**
+     * Current backfill threshold in milliseconds for 'type', or -1 while
+     * backfill is off or 'type' has no bot engine.
+     */
+    public long getBackfillThresholdMillis(GameType type) {
+        Objects.requireNonNull(type, "type");
+        BackfillPolicy policy = backfill;
+        if (policy == null || !BotPlayers.hasEngine(type)) {
+            return -1;
+        }
+        TypeQueue queue = queues.get(type);
+        synchronized (queue) {
+            return backfillThreshold(queue, policy);
+        }
+    }
+
+    /**
+     * Attempts to pair a newly arrived player with the closest-rated player
+     * already waiting for the same game type. O(log n).
+     * Returns the Match (both players removed from the queue) or null.
+     */
+    public Match findMatchFor(Player player, GameType gameType) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(gameType, "gameType");
+
+        TypeQueue queue = queues.get(gameType);
+        Match match;
+        synchronized (queue) {
+            QueuedPlayer self = queue.players.get(player);
+            if (self == null) {
+                return null;
+            }
+            long now = clock.getAsLong();
+            QueuedPlayer partner = acceptableNeighbour(queue, self, now);
+            if (partner == null) {
+                return null;
+            }
+            match = RatingQueue.compare(self, partner) < 0
+                    ? removePair(queue, self, partner, now)
+                    : removePair(queue, partner, self, now);
+        }
+        return deliver(queue).contains(match) ? null : match;
+    }
+
     /**
      * Estimate the waiting time (in seconds) for a given player.
      * If the player is not currently in any queue, returns -1.
+     *
+     * Uses the smoothed arrival and match rates of the player's game type and
+     * rating band (see WaitTimeEstimator); until that band has enough history,
+     * falls back to the player's queue position times BASE_WAIT_SECONDS.
+     * Lock-free: safe to poll from many client threads while pairing runs.
      */
-    public synchronized int estimateWait(Player player) {
+    public int estimateWait(Player player) {
         Objects.requireNonNull(player, "player");
 
-        for (List<QueuedPlayer> queue : queues.values()) {
-            for (int i = 0; i < queue.size(); i++) {
-                if (queue.get(i).player.equals(player)) {
-                    int playersAhead = i;
-                    int pairsAhead = playersAhead / 2;
-                    return (pairsAhead + 1) * BASE_WAIT_SECONDS;
-                }
+        for (TypeQueue queue : queues.values()) {
+            QueuedPlayer qp = queue.players.get(player);
+            if (qp == null) {
+                continue;
+            }
+            int seconds = queue.waits.estimateSeconds(qp.rating, clock.getAsLong());
+            if (seconds != WaitTimeEstimator.NO_ESTIMATE) {
+                return seconds;
             }
+            int playersAhead = Math.max(0, queue.players.rank(player)); // O(log n)
+            int pairsAhead = playersAhead / 2;
+            return (pairsAhead + 1) * BASE_WAIT_SECONDS;
         }
         return -1;
     }
 
     /**
-     * Returns a snapshot of the current queue for a given game type.
+     * Expected wait (in seconds) for a player of 'rating' who queued for
+     * 'type' right now, e.g. to show before they click Play or to drive
+     * capacity planning. Returns BASE_WAIT_SECONDS while the band has no history.
+     */
+    public int estimateWait(GameType type, int rating) {
+        Objects.requireNonNull(type, "type");
+        int seconds = queues.get(type).waits.estimateSeconds(rating, clock.getAsLong());
+        return seconds == WaitTimeEstimator.NO_ESTIMATE ? BASE_WAIT_SECONDS : seconds;
+    }
+
+    /**
+     * Returns a snapshot of the current queue for a given game type, in rating order.
      * Useful for debugging or for UI to show "players searching".
+     * Lock-free, like estimateWait().
      */
-    public synchronized List<Player> getQueuedPlayers(GameType type) {
+    public List<Player> getQueuedPlayers(GameType type) {
         Objects.requireNonNull(type, "type");
         List<Player> result = new ArrayList<>();
-        for (QueuedPlayer qp : queues.get(type)) {
+        for (QueuedPlayer qp : queues.get(type).players.entries()) {
             result.add(qp.player);
         }
         return result;
     }
 
+    /** Number of players the next tick() or findMatch() will reconsider for 'type'. */
+    int pendingReviewCount(GameType type) {
+        TypeQueue queue = queues.get(type);
+        synchronized (queue) {
+            refreshWindows(queue, clock.getAsLong());
+            return queue.review.size();
+        }
+    }
+
     // ------------ internal helpers ------------
 
-    private Match findMatchForType(GameType type) {
-        List<QueuedPlayer> queue = queues.get(type);
-        if (queue.size() < 2) {
-            return null;
+    private Match findMatchForType(GameType type, long now) {
+        TypeQueue queue = queues.get(type);
+        Match match;
+        synchronized (queue) {
+            match = findMatchLocked(queue, now);
+            if (match == null) {
+                match = backfillLocked(queue, type, now);
+            }
+        }
+        return deliver(queue).contains(match) ? null : match;
+    }
+
+    /** Caller holds the queue's lock. */
+    private static Match findMatchLocked(TypeQueue queue, long now) {
+        refreshWindows(queue, now);
+
+        // closest rating-adjacent pair, kept up to date inside the treap;
+        // anything within the base difference is acceptable to everyone
+        QueuedPlayer[] pair = queue.players.closestPair();
+        if (pair != null && queue.players.closestGap() <= MAX_RATING_DIFFERENCE) {
+            queue.review.remove(pair[0]);
+            queue.review.remove(pair[1]);
+            return removePair(queue, pair[0], pair[1], now);
+        }
+
+        // otherwise only players under review can have gained a partner
+        Iterator<QueuedPlayer> it = queue.review.iterator();
+        while (it.hasNext()) {
+            QueuedPlayer qp = it.next();
+            it.remove();
+            if (queue.players.get(qp.player) != qp) {
+                continue; // left (or re-queued) since it was put under review
+            }
+            QueuedPlayer partner = acceptableNeighbour(queue, qp, now);
+            if (partner != null) {
+                queue.review.remove(partner);
+                return RatingQueue.compare(qp, partner) < 0
+                        ? removePair(queue, qp, partner, now)
+                        : removePair(queue, partner, qp, now);
+            }
         }
+        return null;
+    }
 
-        // sort by rating so closest players are adjacent
-        queue.sort(Comparator.comparingInt(qp -> qp.rating));
+    /** Adds 'player' unless already queued; caller holds the queue's lock. */
+    private void addLocked(TypeQueue queue, Player player, GameType gameType, long enqueuedAtMillis) {
+        // avoid duplicates in this game's queue (O(1) index lookup)
+        if (queue.players.contains(player)) {
+            return;
+        }
 
-        QueuedPlayer bestA = null;
-        QueuedPlayer bestB = null;
-        int bestDiff = Integer.MAX_VALUE;
+        QueuedPlayer qp = new QueuedPlayer(player, gameType, nextSequence.getAndIncrement(), enqueuedAtMillis);
+        queue.players.add(qp);
+        queue.review.add(qp);
+        queue.arrivals.add(qp);
+        if (queue.arrivals.size() > 2 * queue.players.size() + 64) {
+            // mostly players who left; drop them so the deque stays as small as the queue
+            queue.arrivals.removeIf(old -> queue.players.get(old.player) != old);
+        }
+        // the estimator sees the arrival now, even for a player migrated in with
+        // an older enqueue time; that time only drives the window and backfill
+        queue.waits.onEnqueue(qp.rating, clock.getAsLong());
+        // a boundary already passed is caught up by the next refreshWindows()
+        scheduleExpansion(queue, qp, qp.enqueuedAtMillis + WINDOW_BUCKET_MILLIS);
+    }
+
+    /** Removes a cancelling player and cancels their waiter; caller holds the queue's lock. */
+    private static void removeLocked(TypeQueue queue, Player player) {
+        removeLocked(queue, player, true);
+    }
+
+    /** Returns the removed entry; 'cancelled' is false when the player moves to another worker. */
+    private static QueuedPlayer removeLocked(TypeQueue queue, Player player, boolean cancelled) {
+        QueuedPlayer removed = queue.players.remove(player);
+        if (removed != null) {
+            if (cancelled) {
+                queue.waits.onCancelled(removed.rating);
+            } else {
+                queue.waits.onHandedOff(removed.rating);
+            }
+            // its old neighbours are now adjacent to each other
+            queue.review.remove(removed);
+            reviewNeighbours(queue, removed);
+        }
+        Waiter waiter = queue.waiters.remove(player);
+        if (waiter != null) {
+            queue.ready.add(new Notification(null, removed, waiter, null, null, 0));
+        }
+        return removed;
+    }
 
-        for (int i = 0; i < queue.size() - 1; i++) {
-            QueuedPlayer a = queue.get(i);
-            QueuedPlayer b = queue.get(i + 1);
-            int diff = Math.abs(a.rating - b.rating);
-            if (diff < bestDiff && diff <= MAX_RATING_DIFFERENCE) {
-                bestDiff = diff;
-                bestA = a;
-                bestB = b;
+    /**
+     * Completes the waiters collected under the lock; must be called without
+     * holding it. Returns the matches that were undone because one of their
+     * players' futures had been completed by hand after pairing; callers
+     * must not hand those out.
+     *
+     * Both futures of a pair are checked before either is completed, so
+     * nobody is told about a game whose opponent will not play. Whoever is
+     * still live goes back in the queue with their original entry. A pair's
+     * throughput and waits are only recorded once it is delivered.
+     */
+    private static Set<Match> deliver(TypeQueue queue) {
+        List<Notification> batch;
+        synchronized (queue) {
+            if (queue.ready.isEmpty()) {
+                return Collections.emptySet();
+            }
+            batch = new ArrayList<>(queue.ready);
+            queue.ready.clear();
+        }
+        Set<Match> undone = null;
+        for (Notification n : batch) {
+            if (n.match == null) {
+                n.lowerFuture.cancelDequeued();
+                continue;
+            }
+            boolean abandoned;
+            synchronized (queue) {
+                abandoned = n.abandoned();
+                if (abandoned) {
+                    undoLocked(queue, n);
+                } else {
+                    recordMatchLocked(queue, n.lower, n.higher, n.pairedAtMillis);
+                }
             }
+            if (abandoned) {
+                if (undone == null) {
+                    undone = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+                undone.add(n.match);
+                continue;
+            }
+            // a callback of the lower player's own future could still settle
+            // the higher one in between; that is the caller's own doing
+            if (n.lowerFuture != null) {
+                n.lowerFuture.complete(n.match);
+            }
+            if (n.higherFuture != null) {
+                n.higherFuture.complete(n.match);
+            }
+        }
+        return undone == null ? Collections.<Match>emptySet() : undone;
+    }
+
+    /** Puts the live side(s) of an abandoned pairing back in the queue; caller holds the queue's lock. */
+    private static void undoLocked(TypeQueue queue, Notification n) {
+        requeueLocked(queue, n.lower, n.lowerFuture);
+        if (n.higher != null) {
+            requeueLocked(queue, n.higher, n.higherFuture);
         }
+    }
+
+    /**
+     * Puts a paired player back, keeping their place in time, unless their
+     * future was settled (then they leave, as if they had cancelled).
+     */
+    private static void requeueLocked(TypeQueue queue, QueuedPlayer qp, Waiter future) {
+        if ((future != null && future.isDone())
+                || queue.players.contains(qp.player) || queue.waiters.containsKey(qp.player)) {
+            queue.waits.onCancelled(qp.rating); // gone, or queued again meanwhile
+            return;
+        }
+        queue.players.add(qp);
+        queue.review.add(qp);
+        if (future != null) {
+            queue.waiters.put(qp.player, future);
+        }
+        queue.arrivals.add(qp);
+        scheduleExpansion(queue, qp, qp.enqueuedAtMillis + WINDOW_BUCKET_MILLIS);
+    }
 
-        if (bestA == null || bestB == null) {
-            // nobody within acceptable rating range
+    /** Counts a delivered pairing as throughput; 'higher' is null for a bot match. Caller holds the lock. */
+    private static void recordMatchLocked(TypeQueue queue, QueuedPlayer lower, QueuedPlayer higher, long now) {
+        queue.waits.onMatched(lower.rating, now);
+        if (higher != null) {
+            // bot matches say nothing about how long humans wait for each other
+            queue.waits.onMatched(higher.rating, now);
+            queue.waits.onWaited(now - lower.enqueuedAtMillis);
+            queue.waits.onWaited(now - higher.enqueuedAtMillis);
+        }
+    }
+
+    /** One type's share of tick(); caller holds the queue's lock. */
+    private static void tickQueue(TypeQueue queue, long now, List<Match> batch) {
+        refreshWindows(queue, now);
+        if (queue.review.isEmpty()) {
+            return;
+        }
+        List<QueuedPlayer> pairs = new ArrayList<>();
+        for (int[] range : reviewRanges(queue)) {
+            List<QueuedPlayer> sorted = queue.players.slice(range[0], range[1]);
+            for (int[] pair : pairOptimally(sorted, now)) {
+                pairs.add(sorted.get(pair[0]));
+                pairs.add(sorted.get(pair[1]));
+            }
+        }
+        queue.review.clear();
+        for (int i = 0; i < pairs.size(); i += 2) {
+            batch.add(removePair(queue, pairs.get(i), pairs.get(i + 1), now));
+        }
+    }
+
+    /** Current acceptance window of 'qp': the base difference plus one step per bucket waited, capped. */
+    private static int ratingWindow(QueuedPlayer qp, long now) {
+        long buckets = Math.max(0, now - qp.enqueuedAtMillis) / WINDOW_BUCKET_MILLIS;
+        return (int) Math.min(MAX_WINDOW, MAX_RATING_DIFFERENCE + buckets * WINDOW_STEP);
+    }
+
+    /** A pair is acceptable when the gap fits inside either player's window. */
+    private static boolean acceptable(QueuedPlayer a, QueuedPlayer b, long now) {
+        int gap = Math.abs(a.rating - b.rating);
+        return gap <= ratingWindow(a, now) || gap <= ratingWindow(b, now);
+    }
+
+    /** Closer of the two rating neighbours of 'qp' that it may be paired with, or null. */
+    private static QueuedPlayer acceptableNeighbour(TypeQueue queue, QueuedPlayer qp, long now) {
+        QueuedPlayer below = queue.players.predecessor(qp);
+        QueuedPlayer above = queue.players.successor(qp);
+        if (below != null && !acceptable(qp, below, now)) below = null;
+        if (above != null && !acceptable(qp, above, now)) above = null;
+        if (below == null) return above;
+        if (above == null) return below;
+        return (qp.rating - below.rating) <= (above.rating - qp.rating) ? below : above;
+    }
+
+    /**
+     * Moves every player whose window expansion is due into review and
+     * schedules their next expansion. Players who already left are dropped
+     * lazily here instead of being searched for on dequeue.
+     */
+    private static void refreshWindows(TypeQueue queue, long now) {
+        Map.Entry<Long, List<QueuedPlayer>> due;
+        while ((due = queue.expansions.firstEntry()) != null && due.getKey() <= now) {
+            queue.expansions.pollFirstEntry();
+            for (QueuedPlayer qp : due.getValue()) {
+                if (queue.players.get(qp.player) != qp) {
+                    continue;
+                }
+                queue.review.add(qp);
+                if (ratingWindow(qp, now) < MAX_WINDOW) {
+                    long waited = now - qp.enqueuedAtMillis;
+                    long next = qp.enqueuedAtMillis + (waited / WINDOW_BUCKET_MILLIS + 1) * WINDOW_BUCKET_MILLIS;
+                    scheduleExpansion(queue, qp, next);
+                }
+            }
+        }
+    }
+
+    private static void scheduleExpansion(TypeQueue queue, QueuedPlayer qp, long at) {
+        queue.expansions.computeIfAbsent(at, k -> new ArrayList<>()).add(qp);
+    }
+
+    /**
+     * Rank ranges [from, to) covering REVIEW_RADIUS neighbours either side of
+     * every player under review, with overlapping ranges merged so each
+     * player lands in at most one DP run.
+     */
+    private static List<int[]> reviewRanges(TypeQueue queue) {
+        int size = queue.players.size();
+        int[][] ranges = new int[queue.review.size()][];
+        int count = 0;
+        for (QueuedPlayer qp : queue.review) {
+            if (queue.players.get(qp.player) != qp) {
+                continue;
+            }
+            int rank = queue.players.rank(qp.player);
+            ranges[count++] = new int[] {
+                    Math.max(0, rank - REVIEW_RADIUS), Math.min(size, rank + REVIEW_RADIUS + 1) };
+        }
+        Arrays.sort(ranges, 0, count, Comparator.comparingInt(r -> r[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && ranges[i][0] <= last[1]) {
+                last[1] = Math.max(last[1], ranges[i][1]);
+            } else {
+                merged.add(ranges[i]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Removes both players, records the match, queues their waiters for
+     * completion, and puts their old outer neighbours under review.
+     */
+    private static Match removePair(TypeQueue queue, QueuedPlayer lower, QueuedPlayer higher, long now) {
+        queue.players.remove(lower.player);
+        queue.players.remove(higher.player);
+        Match match = new Match(lower.gameType, lower.player, higher.player);
+        notifyPair(queue, match, lower, higher, now);
+        reviewNeighbours(queue, lower);
+        reviewNeighbours(queue, higher);
+        return match;
+    }
+
+    /**
+     * Pairs the longest-waiting player with a bot if they are past the
+     * backfill threshold, or returns null. Caller holds the queue's lock.
+     */
+    private Match backfillLocked(TypeQueue queue, GameType type, long now) {
+        BackfillPolicy policy = backfill;
+        if (policy == null || !BotPlayers.hasEngine(type)) {
             return null;
         }
+        long threshold = backfillThreshold(queue, policy);
+        QueuedPlayer oldest;
+        while ((oldest = queue.arrivals.peek()) != null) {
+            if (queue.players.get(oldest.player) != oldest) {
+                queue.arrivals.poll(); // matched or cancelled already
+                continue;
+            }
+            if (now - oldest.enqueuedAtMillis < threshold) {
+                return null; // everyone behind arrived later still
+            }
+            queue.arrivals.poll();
+            return pairWithBot(queue, oldest, now);
+        }
+        return null;
+    }
 
-        // remove both from queue
-        queue.remove(bestA);
-        queue.remove(bestB);
+    private static long backfillThreshold(TypeQueue queue, BackfillPolicy policy) {
+        long observed = queue.waits.waitPercentileMillis(policy.percentile);
+        if (observed == WaitTimeEstimator.NO_ESTIMATE) {
+            return policy.maxWaitMillis;
+        }
+        return Math.max(policy.minWaitMillis, Math.min(policy.maxWaitMillis, observed));
+    }
+
+    /**
+     * Removes 'qp' and matches them with a bot of their strength. Bot waits
+     * are not recorded as wait history, so backfill does not feed its own
+     * threshold.
+     */
+    private Match pairWithBot(TypeQueue queue, QueuedPlayer qp, long now) {
+        queue.players.remove(qp.player);
+        queue.review.remove(qp);
+        Player bot = BotPlayers.create(qp.gameType, qp.rating, nextBot.getAndIncrement());
+        Match match = new Match(qp.gameType, qp.player, bot);
+        notifyPair(queue, match, qp, null, now);
+        reviewNeighbours(queue, qp);
+        return match;
+    }
+
+    private static void notifyPair(TypeQueue queue, Match match, QueuedPlayer lower, QueuedPlayer higher, long now) {
+        Waiter lowerFuture = queue.waiters.remove(lower.player);
+        Waiter higherFuture = higher == null ? null : queue.waiters.remove(higher.player);
+        if (lowerFuture == null && higherFuture == null) {
+            recordMatchLocked(queue, lower, higher, now); // nobody to tell, nothing to undo
+        } else {
+            queue.ready.add(new Notification(match, lower, lowerFuture, higher, higherFuture, now));
+        }
+    }
+
+    private static void reviewNeighbours(TypeQueue queue, QueuedPlayer removed) {
+        QueuedPlayer below = queue.players.predecessor(removed);
+        QueuedPlayer above = queue.players.successor(removed);
+        if (below != null) queue.review.add(below);
+        if (above != null) queue.review.add(above);
+    }
+
+    /**
+     * DP over a rating-sorted snapshot: best[i] is the cheapest way to handle the
+     * first i players, where each player is either left unmatched
+     * (UNMATCHED_COST plus the wait bonus) or paired with an earlier player
+     * (cost = rating gap, only if acceptable to one of them), and everyone
+     * rated between the two is left unmatched. Pairing only neighbours is not
+     * enough once waits differ: for ratings 0/100/200 where 0 and 200 have
+     * waited long, pairing them and leaving 100 is cheapest. Two pairs that
+     * cross or nest never need to be considered, since pairing their inner
+     * ends instead costs less by twice the inner gap; that exchange can only
+     * fail when an acceptance window forbids the new pairs. A pair encloses at
+     * most REVIEW_RADIUS players, as far as a review looks, so the DP stays
+     * linear in the snapshot.
+     *
+     * Returns the indices {lower, higher} of every chosen pair, lowest first.
+     */
+    private static List<int[]> pairOptimally(List<QueuedPlayer> sorted, long now) {
+        int n = sorted.size();
+        long[] best = new long[n + 1];
+        // unmatched[i]: cost of leaving the first i players all unmatched
+        long[] unmatched = new long[n + 1];
+        int[] partner = new int[n + 1];
+        for (int i = 1; i <= n; i++) {
+            QueuedPlayer current = sorted.get(i - 1);
+            unmatched[i] = unmatched[i - 1] + unmatchedCost(current, now);
+            best[i] = best[i - 1] + unmatchedCost(current, now);
+            partner[i] = -1;
+            for (int p = i - 2; p >= 0 && p >= i - 2 - REVIEW_RADIUS; p--) {
+                QueuedPlayer candidate = sorted.get(p);
+                int gap = current.rating - candidate.rating;
+                if (gap > MAX_WINDOW) {
+                    break;
+                }
+                if (!acceptable(candidate, current, now)) {
+                    continue;
+                }
+                long cost = best[p] + gap + unmatched[i - 1] - unmatched[p + 1];
+                // a tie goes to the rating neighbour, then to the closer pair
+                if (p == i - 2 ? cost <= best[i] : cost < best[i]) {
+                    best[i] = cost;
+                    partner[i] = p;
+                }
+            }
+        }
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = n; i >= 2; ) {
+            if (partner[i] >= 0) {
+                pairs.add(new int[] {partner[i], i - 1});
+                i = partner[i];
+            } else {
+                i--;
+            }
+        }
+        Collections.reverse(pairs);
+        return pairs;
+    }
 
-        // return self-contained Match object
-        return new Match(type, bestA.player, bestB.player);
+    private static long unmatchedCost(QueuedPlayer qp, long now) {
+        long waitedSeconds = Math.max(0, now - qp.enqueuedAtMillis) / 1000;
+        return UNMATCHED_COST + waitedSeconds * WAIT_BONUS_PER_SECOND;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,284 @@
+package matchmaking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import matchmaking.Matchmaker.QueuedPlayer;
+
+/**
+ * Rating-ordered queue of players waiting for one GameType.
+ *
+ * Backed by a treap keyed by (rating, arrival sequence) plus a player-id index:
+ * - add / remove / contains: O(log n) expected
+ * - rank (position in rating order): O(log n)
+ * - nearest-rating neighbour of a queued player: O(log n)
+ * - globally closest adjacent pair: O(log n), using a per-subtree minimum gap
+ *
+ * Nodes are immutable; every update rebuilds only the path it touches and
+ * then publishes the new root through a volatile field. Writers must be
+ * serialised (Matchmaker holds a per-GameType lock), but size(), contains(),
+ * rank() and entries() may be called from any thread without locking: they
+ * read one root and see a consistent snapshot of the queue.
+ */
+final class RatingQueue {
+
+    /** Immutable treap node; subtree aggregates are computed once in the constructor. */
+    private static final class Node {
+        final QueuedPlayer entry;
+        final int priority;
+        final Node left;
+        final Node right;
+        final int size;
+        final int minRating;
+        final int maxRating;
+        /** Smallest rating gap between two neighbours inside this subtree (MAX_VALUE if < 2 entries). */
+        final int minGap;
+
+        Node(QueuedPlayer entry, int priority, Node left, Node right) {
+            this.entry = entry;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+            this.minRating = left == null ? entry.rating : left.minRating;
+            this.maxRating = right == null ? entry.rating : right.maxRating;
+            int gap = Integer.MAX_VALUE;
+            if (left != null) {
+                gap = Math.min(left.minGap, entry.rating - left.maxRating);
+            }
+            if (right != null) {
+                gap = Math.min(gap, Math.min(right.minGap, right.minRating - entry.rating));
+            }
+            this.minGap = gap;
+        }
+
+        Node with(Node newLeft, Node newRight) {
+            return new Node(entry, priority, newLeft, newRight);
+        }
+    }
+
+    private final Map<Player, QueuedPlayer> index = new ConcurrentHashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private volatile Node root = null;
+
+    int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    boolean contains(Player player) {
+        return index.containsKey(player);
+    }
+
+    /** Queue entry for 'player', or null if not queued. */
+    QueuedPlayer get(Player player) {
+        return index.get(player);
+    }
+
+    /** Adds the entry unless its player is already queued; returns true if added. */
+    boolean add(QueuedPlayer qp) {
+        if (index.putIfAbsent(qp.player, qp) != null) {
+            return false;
+        }
+        Node[] parts = split(root, qp, false);
+        root = merge(merge(parts[0], new Node(qp, random.nextInt(), null, null)), parts[1]);
+        return true;
+    }
+
+    /** Removes 'player' if queued; returns the removed entry or null. */
+    QueuedPlayer remove(Player player) {
+        QueuedPlayer qp = index.remove(player);
+        if (qp == null) {
+            return null;
+        }
+        Node[] lower = split(root, qp, false);   // < qp | >= qp
+        Node[] upper = split(lower[1], qp, true); // == qp | > qp
+        root = merge(lower[0], upper[1]);
+        return qp;
+    }
+
+    /** 0-based position of 'player' in rating order, or -1 if not queued. */
+    int rank(Player player) {
+        QueuedPlayer qp = index.get(player);
+        if (qp == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node n = root; // single read: the walk below sees one snapshot
+        while (n != null) {
+            int cmp = compare(qp, n.entry);
+            if (cmp < 0) {
+                n = n.left;
+            } else {
+                rank += size(n.left);
+                if (cmp == 0) break;
+                rank++;
+                n = n.right;
+            }
+        }
+        return rank;
+    }
+
+    /** Closest-rated other queued player for 'player' (ties go to the lower rating), or null. */
+    QueuedPlayer nearest(Player player) {
+        QueuedPlayer qp = index.get(player);
+        if (qp == null) {
+            return null;
+        }
+        QueuedPlayer below = predecessor(qp);
+        QueuedPlayer above = successor(qp);
+        if (below == null) return above;
+        if (above == null) return below;
+        return (qp.rating - below.rating) <= (above.rating - qp.rating) ? below : above;
+    }
+
+    /** Queued entry ordered immediately before 'qp', or null. */
+    QueuedPlayer predecessor(QueuedPlayer qp) {
+        QueuedPlayer best = null;
+        Node n = root;
+        while (n != null) {
+            if (compare(n.entry, qp) < 0) {
+                best = n.entry;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return best;
+    }
+
+    /** Queued entry ordered immediately after 'qp', or null. */
+    QueuedPlayer successor(QueuedPlayer qp) {
+        QueuedPlayer best = null;
+        Node n = root;
+        while (n != null) {
+            if (compare(n.entry, qp) > 0) {
+                best = n.entry;
+                n = n.left;
+            } else {
+                n = n.right;
+            }
+        }
+        return best;
+    }
+
+    /** Smallest rating gap between rating-adjacent players, or MAX_VALUE with fewer than two. */
+    int closestGap() {
+        return root == null ? Integer.MAX_VALUE : root.minGap;
+    }
+
+    /**
+     * The rating-adjacent pair with the smallest gap, lowest ratings first on ties,
+     * as {lower, higher}; null with fewer than two players.
+     */
+    QueuedPlayer[] closestPair() {
+        if (root == null || root.minGap == Integer.MAX_VALUE) {
+            return null;
+        }
+        int target = root.minGap;
+        Node n = root;
+        while (true) {
+            if (n.left != null && n.left.minGap == target) {
+                n = n.left;
+            } else if (n.left != null && n.entry.rating - n.left.maxRating == target) {
+                return new QueuedPlayer[] { last(n.left), n.entry };
+            } else if (n.right != null && n.right.minRating - n.entry.rating == target) {
+                return new QueuedPlayer[] { n.entry, first(n.right) };
+            } else {
+                n = n.right;
+            }
+        }
+    }
+
+    /** All queued entries in rating order. */
+    List<QueuedPlayer> entries() {
+        Node snapshot = root;
+        List<QueuedPlayer> out = new ArrayList<>(size(snapshot));
+        collect(snapshot, out);
+        return out;
+    }
+
+    /** Entries with rank in [from, to), in rating order. O(log n + (to - from)). */
+    List<QueuedPlayer> slice(int from, int to) {
+        Node snapshot = root;
+        from = Math.max(0, from);
+        to = Math.min(size(snapshot), to);
+        List<QueuedPlayer> out = new ArrayList<>(Math.max(0, to - from));
+        if (from < to) {
+            collectRange(snapshot, 0, from, to, out);
+        }
+        return out;
+    }
+
+    // ------------- treap internals -------------
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    static int compare(QueuedPlayer a, QueuedPlayer b) {
+        int cmp = Integer.compare(a.rating, b.rating);
+        return cmp != 0 ? cmp : Long.compare(a.sequence, b.sequence);
+    }
+
+    /** Splits into {keys below 'key', the rest}; with 'inclusive' the key itself goes left. */
+    private static Node[] split(Node n, QueuedPlayer key, boolean inclusive) {
+        if (n == null) {
+            return new Node[] { null, null };
+        }
+        int cmp = compare(n.entry, key);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Node[] parts = split(n.right, key, inclusive);
+            return new Node[] { n.with(n.left, parts[0]), parts[1] };
+        }
+        Node[] parts = split(n.left, key, inclusive);
+        return new Node[] { parts[0], n.with(parts[1], n.right) };
+    }
+
+    /** Merges two treaps where every key in 'a' is below every key in 'b'. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            return a.with(a.left, merge(a.right, b));
+        }
+        return b.with(merge(a, b.left), b.right);
+    }
+
+    private static QueuedPlayer first(Node n) {
+        while (n.left != null) n = n.left;
+        return n.entry;
+    }
+
+    private static QueuedPlayer last(Node n) {
+        while (n.right != null) n = n.right;
+        return n.entry;
+    }
+
+    /** In-order walk of the ranks [from, to) inside subtree 'n', whose first rank is 'offset'. */
+    private static void collectRange(Node n, int offset, int from, int to, List<QueuedPlayer> out) {
+        if (n == null || offset >= to || offset + n.size <= from) {
+            return;
+        }
+        int self = offset + size(n.left);
+        collectRange(n.left, offset, from, to, out);
+        if (self >= from && self < to) {
+            out.add(n.entry);
+        }
+        collectRange(n.right, self + 1, from, to, out);
+    }
+
+    private static void collect(Node n, List<QueuedPlayer> out) {
+        while (n != null) {
+            collect(n.left, out);
+            out.add(n.entry);
+            n = n.right;
+        }
+    }
+}
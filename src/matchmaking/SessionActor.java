@@ -0,0 +1,119 @@
+package matchmaking;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A GameSession run as an actor: commands go into a bounded mailbox and are
+ * handed to the SessionBehavior one at a time, in arrival order.
+ *
+ * The actor has no thread of its own. When mail arrives it schedules itself
+ * on the runtime's shared carrier pool, handles up to BATCH commands, and
+ * gives the carrier back, so idle sessions cost no thread at all and a busy
+ * one cannot starve the others. The 'scheduled' flag guarantees at most one
+ * carrier runs the actor at a time; its atomic hand-off also makes each run
+ * see everything the previous run wrote, so behaviours need no locks.
+ */
+public final class SessionActor {
+
+    /** Commands handled per turn on a carrier before yielding it. */
+    static final int BATCH = 32;
+
+    private final GameSession session;
+    private final SessionBehavior behavior;
+    private final ArrayBlockingQueue<SessionCommand> mailbox;
+    private final Executor carriers;
+    private final Consumer<SessionActor> onStopped;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean stopped;
+
+    SessionActor(GameSession session, SessionBehavior behavior, int mailboxCapacity,
+                 Executor carriers, Consumer<SessionActor> onStopped) {
+        this.session = session;
+        this.behavior = behavior;
+        this.mailbox = new ArrayBlockingQueue<>(mailboxCapacity);
+        this.carriers = carriers;
+        this.onStopped = onStopped;
+    }
+
+    public GameSession getSession() {
+        return session;
+    }
+
+    /**
+     * Posts 'command' to the mailbox. Returns false, without blocking, if the
+     * mailbox is full or the session is over; callers should then reject the
+     * player's action rather than queue it elsewhere.
+     */
+    public boolean tell(SessionCommand command) {
+        if (stopped || !mailbox.offer(command)) {
+            return false;
+        }
+        if (stopped) {
+            // stop() ran between the check and the offer; the command will
+            // never be handled, so take it back (it may already be cleared)
+            mailbox.remove(command);
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /** Commands waiting in the mailbox. */
+    public int getPendingCount() {
+        return mailbox.size();
+    }
+
+    /** Ends the session without handling what is still queued. */
+    public void stop() {
+        if (!stopped) {
+            stopped = true;
+            mailbox.clear();
+            onStopped.accept(this);
+        }
+    }
+
+    // ------------- helpers -------------
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                carriers.execute(this::runBatch);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false); // runtime shut down
+                stop();
+            }
+        }
+    }
+
+    private void runBatch() {
+        for (int i = 0; i < BATCH && !stopped; i++) {
+            SessionCommand command = mailbox.poll();
+            if (command == null || stopped) {
+                break;
+            }
+            boolean over;
+            try {
+                over = behavior.handle(session, command);
+            } catch (RuntimeException e) {
+                behavior.onError(session, command, e);
+                continue;
+            }
+            if (over) {
+                stop();
+            }
+        }
+        scheduled.set(false);
+        // mail that arrived after the last poll, or more than one batch's worth
+        if (!stopped && !mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+}
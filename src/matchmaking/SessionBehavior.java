@@ -0,0 +1,20 @@
+package matchmaking;
+
+/**
+ * Game logic of one session, driven by its SessionActor. handle() is called
+ * for one command at a time, never concurrently, so implementations keep
+ * plain mutable game state without locks.
+ */
+public interface SessionBehavior {
+
+    /**
+     * Applies 'command' to the session's game. Returns true once the game is
+     * over; the actor then stops and drops whatever is still in its mailbox.
+     */
+    boolean handle(GameSession session, SessionCommand command);
+
+    /** Called (on the actor) when handle() throws; the actor keeps running. */
+    default void onError(GameSession session, SessionCommand command, RuntimeException error) {
+        error.printStackTrace();
+    }
+}
@@ -0,0 +1,75 @@
+package matchmaking;
+
+import java.util.Objects;
+
+/**
+ * One message for a SessionActor's mailbox. Players are identified by seat:
+ * 0 for the match's player1, 1 for player2. Moves are game-specific int
+ * encodings, as on the game server's wire.
+ */
+public final class SessionCommand {
+
+    public enum Kind {
+        MOVE,
+        CHAT,
+        RESIGN,
+        /** A player ran out of time (sent by SessionRuntime.scheduleTimeout()). */
+        TIMEOUT
+    }
+
+    private final Kind kind;
+    private final int playerIndex;
+    private final int move;
+    private final String text;
+
+    private SessionCommand(Kind kind, int playerIndex, int move, String text) {
+        if (playerIndex != 0 && playerIndex != 1) {
+            throw new IllegalArgumentException("playerIndex must be 0 or 1");
+        }
+        this.kind = kind;
+        this.playerIndex = playerIndex;
+        this.move = move;
+        this.text = text;
+    }
+
+    public static SessionCommand move(int playerIndex, int move) {
+        return new SessionCommand(Kind.MOVE, playerIndex, move, null);
+    }
+
+    public static SessionCommand chat(int playerIndex, String text) {
+        return new SessionCommand(Kind.CHAT, playerIndex, 0, Objects.requireNonNull(text, "text"));
+    }
+
+    public static SessionCommand resign(int playerIndex) {
+        return new SessionCommand(Kind.RESIGN, playerIndex, 0, null);
+    }
+
+    public static SessionCommand timeout(int playerIndex) {
+        return new SessionCommand(Kind.TIMEOUT, playerIndex, 0, null);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    /** The encoded move; only meaningful for MOVE. */
+    public int getMove() {
+        return move;
+    }
+
+    /** The chat text; null unless CHAT. */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionCommand{" + kind + ", player=" + playerIndex
+                + (kind == Kind.MOVE ? ", move=" + move : "")
+                + (kind == Kind.CHAT ? ", text='" + text + '\'' : "") + '}';
+    }
+}
@@ -0,0 +1,322 @@
+package matchmaking;
+
+import chat.ChatService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Running GameSessions, looked up by match id or by player id.
+ *
+ * All methods are thread-safe. Both indexes are concurrent maps, so lookups
+ * never block; an entry's own monitor only guards its memory estimate.
+ * Sessions leave the registry when they are removed, or when a sweep
+ * (evictIdle(), run on a schedule by start()) finds them finished or idle
+ * for longer than the idle timeout. "Activity" is whatever the owner
+ * reports through touch(), typically every move or chat message. A session
+ * that leaves has its chat channel closed in the ChatService, which frees
+ * the history counted against the memory limit.
+ *
+ * The registry keeps an approximate heap footprint per session (object
+ * overhead of the session, its match and players, plus its chat history)
+ * and refuses new sessions once the total would pass 'maxBytes', after
+ * trying a sweep first. The estimate assumes a 64-bit JVM with compressed
+ * oops and Latin-1 strings; it is for capacity limits, not exact accounting.
+ */
+public class SessionRegistry {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60_000L;
+
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    /** Registry entry, both index entries, GameSession, Match and ChatChannel with empty lists. */
+    private static final int SESSION_OVERHEAD_BYTES = 400;
+
+    /** Player object with its two strings, minus the characters. */
+    private static final int PLAYER_OVERHEAD_BYTES = 104;
+
+    /** ChatMessage with its strings and Instant, for a typical one-line message. */
+    private static final int CHAT_MESSAGE_BYTES = 200;
+
+    /** Internal data holder for a registered session. */
+    private static final class Entry {
+        final String matchId;
+        final GameSession session;
+        volatile long lastActivityMillis;
+        volatile boolean finished;
+        /** Guarded by the entry's monitor, with 'removed'. */
+        long bytes;
+        boolean removed;
+
+        Entry(String matchId, GameSession session, long now) {
+            this.matchId = matchId;
+            this.session = session;
+            this.lastActivityMillis = now;
+        }
+    }
+
+    private final Map<String, Entry> byMatchId = new ConcurrentHashMap<>();
+    /** Player id -> match ids of that player's sessions. */
+    private final Map<String, Set<String>> byPlayerId = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final LongSupplier clock;
+    private final ChatService chatService;
+    private final long idleTimeoutMillis;
+    private final long maxBytes;
+    private final List<Consumer<GameSession>> evictionListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService sweeper;
+
+    /** A registry whose sessions' chat channels live in 'chatService'. */
+    public SessionRegistry(ChatService chatService) {
+        this(chatService, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_MAX_BYTES);
+    }
+
+    public SessionRegistry(ChatService chatService, long idleTimeoutMillis, long maxBytes) {
+        this(System::currentTimeMillis, chatService, idleTimeoutMillis, maxBytes);
+    }
+
+    SessionRegistry(LongSupplier clock, ChatService chatService, long idleTimeoutMillis, long maxBytes) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.chatService = Objects.requireNonNull(chatService, "chatService");
+        if (idleTimeoutMillis <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis and maxBytes must be > 0");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Adds 'session' under 'matchId' and indexes it under both players.
+     * Throws IllegalStateException if the id is taken or the registry is
+     * at its memory limit even after evicting idle sessions.
+     */
+    public void register(String matchId, GameSession session) {
+        Objects.requireNonNull(matchId, "matchId");
+        Objects.requireNonNull(session, "session");
+
+        Entry entry = new Entry(matchId, session, clock.getAsLong());
+        entry.bytes = estimateBytes(session);
+        if (totalBytes.get() + entry.bytes > maxBytes) {
+            evictIdle();
+            if (totalBytes.get() + entry.bytes > maxBytes) {
+                throw new IllegalStateException("Session registry is full ("
+                        + totalBytes.get() + " of " + maxBytes + " bytes)");
+            }
+        }
+        synchronized (entry) { // a concurrent remove waits until the entry is fully indexed
+            if (byMatchId.putIfAbsent(matchId, entry) != null) {
+                throw new IllegalStateException("Session already registered: " + matchId);
+            }
+            totalBytes.addAndGet(entry.bytes);
+            Match match = session.getMatch();
+            index(match.getPlayer1().getId(), matchId);
+            index(match.getPlayer2().getId(), matchId);
+        }
+    }
+
+    /** The session for 'matchId', or null. Does not count as activity. */
+    public GameSession get(String matchId) {
+        Entry entry = byMatchId.get(Objects.requireNonNull(matchId, "matchId"));
+        return entry == null ? null : entry.session;
+    }
+
+    /** Sessions 'playerId' plays in, in no particular order. */
+    public List<GameSession> getSessionsForPlayer(String playerId) {
+        Set<String> matchIds = byPlayerId.get(Objects.requireNonNull(playerId, "playerId"));
+        if (matchIds == null) {
+            return Collections.emptyList();
+        }
+        List<GameSession> sessions = new ArrayList<>(matchIds.size());
+        for (String matchId : matchIds) {
+            Entry entry = byMatchId.get(matchId);
+            if (entry != null) {
+                sessions.add(entry.session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Records activity on 'matchId' (a move, a chat message) and refreshes
+     * its memory estimate. Returns false if the session is not registered.
+     */
+    public boolean touch(String matchId) {
+        Entry entry = byMatchId.get(Objects.requireNonNull(matchId, "matchId"));
+        if (entry == null) {
+            return false;
+        }
+        entry.lastActivityMillis = clock.getAsLong();
+        refreshBytes(entry);
+        return true;
+    }
+
+    /** The game is over; the next sweep evicts the session. */
+    public void markFinished(String matchId) {
+        Entry entry = byMatchId.get(Objects.requireNonNull(matchId, "matchId"));
+        if (entry != null) {
+            entry.finished = true;
+        }
+    }
+
+    /**
+     * Removes the session right away and closes its chat channel; returns
+     * it, or null if it was not registered.
+     */
+    public GameSession remove(String matchId) {
+        Entry entry = byMatchId.remove(Objects.requireNonNull(matchId, "matchId"));
+        if (entry == null) {
+            return null;
+        }
+        forget(entry);
+        return entry.session;
+    }
+
+    /**
+     * Like remove(), but only if 'matchId' is still registered to 'session',
+     * so an owner cannot remove a later session that reuses the id.
+     */
+    public boolean remove(String matchId, GameSession session) {
+        Objects.requireNonNull(matchId, "matchId");
+        Entry entry = byMatchId.get(matchId);
+        if (entry == null || entry.session != session || !byMatchId.remove(matchId, entry)) {
+            return false;
+        }
+        forget(entry);
+        return true;
+    }
+
+    /**
+     * Evicts every finished session and every session idle for longer than
+     * the idle timeout, and refreshes the memory estimates of the rest.
+     * Returns the number evicted. Each evicted session has its chat channel
+     * closed and is then passed to every eviction listener.
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (Entry entry : byMatchId.values()) {
+            if (entry.finished || now - entry.lastActivityMillis > idleTimeoutMillis) {
+                if (byMatchId.remove(entry.matchId, entry)) {
+                    forget(entry);
+                    evicted++;
+                    for (Consumer<GameSession> listener : evictionListeners) {
+                        listener.accept(entry.session);
+                    }
+                }
+            } else {
+                refreshBytes(entry);
+            }
+        }
+        return evicted;
+    }
+
+    /** Called with each session a sweep evicts, e.g. to stop its SessionActor. */
+    public void addEvictionListener(Consumer<GameSession> listener) {
+        evictionListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeEvictionListener(Consumer<GameSession> listener) {
+        evictionListeners.remove(listener);
+    }
+
+    /** Runs evictIdle() every 'periodMillis' on a daemon thread; replaces any earlier schedule. */
+    public synchronized void start(long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis must be > 0");
+        }
+        stop();
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-registry-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleAtFixedRate(() -> {
+            try {
+                evictIdle();
+            } catch (RuntimeException ex) {
+                ex.printStackTrace(); // keep the schedule alive
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops the scheduled sweep, if running. */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    public int size() {
+        return byMatchId.size();
+    }
+
+    /** Approximate heap held by all registered sessions, as of their last refresh. */
+    public long getApproxBytes() {
+        return totalBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** Approximate heap footprint of one session, including its chat history. */
+    public static long estimateBytes(GameSession session) {
+        Match match = session.getMatch();
+        return SESSION_OVERHEAD_BYTES
+                + playerBytes(match.getPlayer1())
+                + playerBytes(match.getPlayer2())
+                + 2L * session.getChatChannel().getChannelId().length()
+                + (long) CHAT_MESSAGE_BYTES * session.getChatChannel().getHistory().size();
+    }
+
+    // ------------- helpers -------------
+
+    private static long playerBytes(Player player) {
+        return PLAYER_OVERHEAD_BYTES + player.getId().length() + player.getName().length();
+    }
+
+    private void index(String playerId, String matchId) {
+        byPlayerId.computeIfAbsent(playerId, k -> ConcurrentHashMap.newKeySet()).add(matchId);
+    }
+
+    private void unindex(String playerId, String matchId) {
+        byPlayerId.computeIfPresent(playerId, (k, matchIds) -> {
+            matchIds.remove(matchId);
+            return matchIds.isEmpty() ? null : matchIds;
+        });
+    }
+
+    private void forget(Entry entry) {
+        synchronized (entry) {
+            entry.removed = true;
+            totalBytes.addAndGet(-entry.bytes);
+            Match match = entry.session.getMatch();
+            unindex(match.getPlayer1().getId(), entry.matchId);
+            unindex(match.getPlayer2().getId(), entry.matchId);
+        }
+        chatService.closeChannel(entry.session.getChatChannel().getChannelId());
+    }
+
+    private void refreshBytes(Entry entry) {
+        long bytes = estimateBytes(entry.session);
+        synchronized (entry) {
+            if (!entry.removed) {
+                totalBytes.addAndGet(bytes - entry.bytes);
+                entry.bytes = bytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package matchmaking;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs GameSessions as SessionActors on a small shared pool of carrier
+ * threads, so game logic runs serially per session without locks and off
+ * the Swing EDT. Thousands of sessions share the carriers: a session only
+ * occupies one while it has commands to handle.
+ *
+ * A single timer thread turns scheduleTimeout() deadlines into TIMEOUT
+ * commands in the session's mailbox.
+ *
+ * Given a SessionRegistry, the runtime registers every session it spawns
+ * under its chat channel's id, touches it on every command, and removes it
+ * (closing its chat) when the actor stops. A session the registry's sweep
+ * evicts as idle has its actor stopped, so no actor outlives its chat.
+ */
+public class SessionRuntime implements AutoCloseable {
+
+    public static final int DEFAULT_MAILBOX_CAPACITY = 256;
+
+    private final ExecutorService carriers;
+    private final ScheduledExecutorService timer;
+    private final int mailboxCapacity;
+    private final Set<SessionActor> actors = ConcurrentHashMap.newKeySet();
+    /** Where spawned sessions are registered; null if they are not. */
+    private final SessionRegistry registry;
+    /** Actors of registered sessions, for the registry's eviction listener. */
+    private final Map<GameSession, SessionActor> registered = new ConcurrentHashMap<>();
+    private final Consumer<GameSession> onEvicted = this::evicted;
+
+    /** One carrier per core, the default mailbox size, and the shared AppContext registry. */
+    public SessionRuntime() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAILBOX_CAPACITY,
+                AppContext.getSessionRegistry());
+    }
+
+    /** A runtime that keeps its sessions out of any registry. */
+    public SessionRuntime(int carrierThreads, int mailboxCapacity) {
+        this(carrierThreads, mailboxCapacity, null);
+    }
+
+    /** A runtime that registers its sessions in 'registry' (null for none). */
+    public SessionRuntime(int carrierThreads, int mailboxCapacity, SessionRegistry registry) {
+        if (carrierThreads <= 0 || mailboxCapacity <= 0) {
+            throw new IllegalArgumentException("carrierThreads and mailboxCapacity must be > 0");
+        }
+        this.mailboxCapacity = mailboxCapacity;
+        this.registry = registry;
+        if (registry != null) {
+            registry.addEvictionListener(onEvicted);
+        }
+        AtomicInteger carrierNumber = new AtomicInteger();
+        this.carriers = Executors.newFixedThreadPool(carrierThreads, r -> {
+            Thread t = new Thread(r, "session-carrier-" + carrierNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts an actor for 'session' driven by 'behavior'. With a registry,
+     * throws IllegalStateException if the registry refuses the session
+     * (id taken, or out of memory budget); no actor is started then.
+     */
+    public SessionActor spawn(GameSession session, SessionBehavior behavior) {
+        Objects.requireNonNull(session, "session");
+        Objects.requireNonNull(behavior, "behavior");
+        if (registry == null) {
+            SessionActor actor = new SessionActor(session, behavior, mailboxCapacity, carriers, actors::remove);
+            actors.add(actor);
+            return actor;
+        }
+        String id = session.getChatChannel().getChannelId();
+        registry.register(id, session);
+        SessionActor actor = new SessionActor(session, new Touching(behavior, registry, id), mailboxCapacity,
+                carriers, stopped -> {
+                    actors.remove(stopped);
+                    registered.remove(session);
+                    registry.remove(id, session);
+                });
+        registered.put(session, actor);
+        actors.add(actor);
+        return actor;
+    }
+
+    /**
+     * Sends TIMEOUT for 'playerIndex' to 'actor' after 'delayMillis', e.g. when
+     * a move clock runs out. Cancel the returned future when the move arrives
+     * in time. A full mailbox retries once per millisecond until the timeout
+     * is delivered or the session ends, so it is never lost.
+     */
+    public ScheduledFuture<?> scheduleTimeout(SessionActor actor, int playerIndex, long delayMillis) {
+        Objects.requireNonNull(actor, "actor");
+        SessionCommand timeout = SessionCommand.timeout(playerIndex);
+        return timer.schedule(() -> deliverTimeout(actor, timeout), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Sessions whose game is not over yet. */
+    public int getActiveCount() {
+        return actors.size();
+    }
+
+    /** Stops every session and the carrier and timer threads. */
+    @Override
+    public void close() {
+        if (registry != null) {
+            registry.removeEvictionListener(onEvicted);
+        }
+        for (SessionActor actor : actors) {
+            actor.stop();
+        }
+        timer.shutdownNow();
+        carriers.shutdownNow();
+    }
+
+    // ------------- helpers -------------
+
+    private void evicted(GameSession session) {
+        SessionActor actor = registered.get(session);
+        if (actor != null) {
+            actor.stop();
+        }
+    }
+
+    /** Reports each command to the registry as activity, then hands it on. */
+    private static final class Touching implements SessionBehavior {
+        private final SessionBehavior behavior;
+        private final SessionRegistry registry;
+        private final String id;
+
+        Touching(SessionBehavior behavior, SessionRegistry registry, String id) {
+            this.behavior = behavior;
+            this.registry = registry;
+            this.id = id;
+        }
+
+        @Override
+        public boolean handle(GameSession session, SessionCommand command) {
+            registry.touch(id);
+            return behavior.handle(session, command);
+        }
+
+        @Override
+        public void onError(GameSession session, SessionCommand command, RuntimeException error) {
+            behavior.onError(session, command, error);
+        }
+    }
+
+    private void deliverTimeout(SessionActor actor, SessionCommand timeout) {
+        if (!actor.isStopped() && !actor.tell(timeout)) {
+            timer.schedule(() -> deliverTimeout(actor, timeout), 1, TimeUnit.MILLISECONDS);
+        }
+    }
+}
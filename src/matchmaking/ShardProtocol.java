@@ -0,0 +1,80 @@
+package matchmaking;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format between SocketShardTransport and ShardServer.
+ *
+ * Every request is one opcode byte followed by its fields; every response
+ * starts with STATUS_OK or STATUS_ERROR (followed by a UTF message).
+ *   ENQUEUE  player, gameType ordinal (byte),
+ *            long enqueuedAtMillis (-1: now)  -> ok
+ *   DEQUEUE  player                           -> ok
+ *   TICK                                      -> ok, int count, count x match
+ *   HAND_OFF player                           -> ok, long enqueuedAtMillis (-1: not queued)
+ * A player is (UTF id, UTF name, int rating); a match is
+ * (gameType ordinal byte, player1, player2).
+ */
+final class ShardProtocol {
+
+    static final byte ENQUEUE = 1;
+    static final byte DEQUEUE = 2;
+    static final byte TICK = 3;
+    static final byte HAND_OFF = 4;
+
+    /** ENQUEUE's time field for a player queueing now. */
+    static final long NOW = -1;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    private static final GameType[] GAME_TYPES = GameType.values();
+
+    private ShardProtocol() {
+    }
+
+    static void writePlayer(DataOutputStream out, Player player) throws IOException {
+        out.writeUTF(player.getId());
+        out.writeUTF(player.getName());
+        out.writeInt(player.getRating());
+    }
+
+    static Player readPlayer(DataInputStream in) throws IOException {
+        return new Player(in.readUTF(), in.readUTF(), in.readInt());
+    }
+
+    static void writeGameType(DataOutputStream out, GameType type) throws IOException {
+        out.writeByte(type.ordinal());
+    }
+
+    static GameType readGameType(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= GAME_TYPES.length) {
+            throw new IOException("Unknown game type " + ordinal);
+        }
+        return GAME_TYPES[ordinal];
+    }
+
+    static void writeMatches(DataOutputStream out, List<Match> matches) throws IOException {
+        out.writeInt(matches.size());
+        for (Match m : matches) {
+            writeGameType(out, m.getGameType());
+            writePlayer(out, m.getPlayer1());
+            writePlayer(out, m.getPlayer2());
+        }
+    }
+
+    static List<Match> readMatches(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Match> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameType type = readGameType(in);
+            matches.add(new Match(type, readPlayer(in), readPlayer(in)));
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,138 @@
+package matchmaking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hosts one Matchmaker worker behind a loopback socket so shards can run in
+ * separate processes. Each connection is served by its own daemon thread,
+ * answering ShardProtocol requests in order.
+ *
+ * Start a standalone shard with:
+ *   java -cp out matchmaking.ShardServer <port>
+ */
+public class ShardServer implements AutoCloseable {
+
+    private final Matchmaker matchmaker;
+    private final ServerSocket serverSocket;
+    private volatile boolean running = true;
+
+    /** Binds to 127.0.0.1:'port' (0 picks a free port); call start() to accept connections. */
+    public ShardServer(int port, Matchmaker matchmaker) throws IOException {
+        this.matchmaker = Objects.requireNonNull(matchmaker, "matchmaker");
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public ShardServer start() {
+        Thread acceptor = new Thread(this::acceptLoop, "shard-accept-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        ShardServer server = new ShardServer(port, new Matchmaker());
+        System.out.println("Matchmaking shard listening on 127.0.0.1:" + server.getPort());
+        server.acceptLoop(); // run in the foreground
+    }
+
+    // ------------- helpers -------------
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread handler = new Thread(() -> serve(socket), "shard-conn-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (running) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return; // client hung up
+                }
+                try {
+                    handle(op, in, out);
+                } catch (RuntimeException e) {
+                    out.writeByte(ShardProtocol.STATUS_ERROR);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                }
+                out.flush();
+            }
+        } catch (SocketException e) {
+            // connection reset or server closed
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case ShardProtocol.ENQUEUE: {
+                Player player = ShardProtocol.readPlayer(in);
+                GameType type = ShardProtocol.readGameType(in);
+                long enqueuedAt = in.readLong();
+                if (enqueuedAt == ShardProtocol.NOW) {
+                    matchmaker.enqueue(player, type);
+                } else {
+                    matchmaker.enqueue(player, type, enqueuedAt);
+                }
+                out.writeByte(ShardProtocol.STATUS_OK);
+                break;
+            }
+            case ShardProtocol.DEQUEUE:
+                matchmaker.dequeue(ShardProtocol.readPlayer(in));
+                out.writeByte(ShardProtocol.STATUS_OK);
+                break;
+            case ShardProtocol.HAND_OFF: {
+                long enqueuedAt = matchmaker.handOff(ShardProtocol.readPlayer(in));
+                out.writeByte(ShardProtocol.STATUS_OK);
+                out.writeLong(enqueuedAt);
+                break;
+            }
+            case ShardProtocol.TICK: {
+                List<Match> matches = matchmaker.tick();
+                out.writeByte(ShardProtocol.STATUS_OK);
+                ShardProtocol.writeMatches(out, matches);
+                break;
+            }
+            default:
+                throw new IOException("Unknown opcode " + op);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package matchmaking;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * How a ShardedMatchmaker reaches its Matchmaker workers.
+ * Shards are numbered 0..shardCount()-1. Implementations must allow calls
+ * for different shards from different threads at the same time.
+ *
+ * InProcessShardTransport calls Matchmakers directly (tests, single JVM);
+ * SocketShardTransport talks to ShardServer processes over loopback sockets.
+ */
+public interface ShardTransport extends Closeable {
+
+    int shardCount();
+
+    void enqueue(int shard, Player player, GameType gameType);
+
+    /** Queues a migrating player as if they had queued at 'enqueuedAtMillis'; see Matchmaker.handOff(). */
+    void enqueue(int shard, Player player, GameType gameType, long enqueuedAtMillis);
+
+    void dequeue(int shard, Player player);
+
+    /**
+     * Takes 'player' off the shard to move them to another one, without
+     * counting a cancellation. Returns when they originally queued, or -1
+     * if the shard does not hold them.
+     */
+    long handOff(int shard, Player player);
+
+    /** Runs one Matchmaker.tick() on the shard and returns its matches. */
+    List<Match> tick(int shard);
+
+    /** Releases connections or threads; the default does nothing. */
+    @Override
+    default void close() {
+    }
+}
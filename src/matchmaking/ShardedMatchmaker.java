@@ -0,0 +1,216 @@
+// File: src/matchmaking/ShardedMatchmaker.java
+package matchmaking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+/**
+ * Coordinator for matchmaking split across several Matchmaker workers.
+ *
+ * Queues are partitioned by (GameType, rating band): every band of
+ * 'bandWidth' rating points of one game lives on one shard, and neighbouring
+ * bands are spread over different shards so load evens out. Each shard only
+ * ever pairs players it holds, so a player just below a band edge could
+ * never meet one just above it. To fix that the coordinator migrates players
+ * who sit within EDGE_MARGIN above an edge and have waited MIGRATE_AFTER_MILLIS
+ * down to the shard of the band below. Only moving one way means two players
+ * on either side of an edge always end up on the same shard rather than
+ * swapping places. A migrated player keeps their original enqueue time, so
+ * their rating window and backfill wait do not start over, and the old
+ * shard does not count the move as a cancellation.
+ *
+ * tick() ticks all shards in parallel, one thread per shard; enqueue and
+ * dequeue may be called from any thread. Shards are reached through a
+ * ShardTransport, in-process or over loopback sockets.
+ */
+public class ShardedMatchmaker implements AutoCloseable {
+
+    public static final int DEFAULT_BAND_WIDTH = 400;
+
+    /** Players this close to a band edge are candidates for migration. */
+    private static final int EDGE_MARGIN = 100;
+
+    /** How long an edge player waits on its home shard before moving. */
+    private static final long MIGRATE_AFTER_MILLIS = 20_000;
+
+    /** Where a queued player currently lives. */
+    private static final class Location {
+        final int shard;
+        final GameType gameType;
+        final int band;
+
+        Location(int shard, GameType gameType, int band) {
+            this.shard = shard;
+            this.gameType = gameType;
+            this.band = band;
+        }
+    }
+
+    private final ShardTransport transport;
+    private final int bandWidth;
+    private final LongSupplier clock;
+    private final Map<Player, Location> locations = new ConcurrentHashMap<>();
+    /** Due time -> edge players to migrate then; guarded by itself. */
+    private final TreeMap<Long, List<Player>> migrations = new TreeMap<>();
+    private final ExecutorService tickPool;
+    private final Object tickLock = new Object();
+
+    public ShardedMatchmaker(ShardTransport transport) {
+        this(transport, DEFAULT_BAND_WIDTH, System::currentTimeMillis);
+    }
+
+    ShardedMatchmaker(ShardTransport transport, int bandWidth, LongSupplier clock) {
+        this.transport = Objects.requireNonNull(transport, "transport");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        if (bandWidth <= 2 * EDGE_MARGIN) {
+            throw new IllegalArgumentException("bandWidth must be > " + 2 * EDGE_MARGIN);
+        }
+        this.bandWidth = bandWidth;
+        this.tickPool = Executors.newFixedThreadPool(transport.shardCount(), r -> {
+            Thread t = new Thread(r, "matchmaker-shard-tick");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getShardCount() {
+        return transport.shardCount();
+    }
+
+    /** Shard that owns the (gameType, band of 'rating') partition. */
+    public int shardFor(GameType gameType, int rating) {
+        return shardForBand(gameType, bandOf(rating));
+    }
+
+    /** Queues 'player' on the shard that owns its rating band; ignored if already queued. */
+    public void enqueue(Player player, GameType gameType) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(gameType, "gameType");
+
+        int band = bandOf(player.getRating());
+        Location home = new Location(shardForBand(gameType, band), gameType, band);
+        if (locations.putIfAbsent(player, home) != null) {
+            return;
+        }
+        transport.enqueue(home.shard, player, gameType);
+        if (edgeNeighbour(player.getRating(), band) != band) {
+            synchronized (migrations) {
+                migrations.computeIfAbsent(clock.getAsLong() + MIGRATE_AFTER_MILLIS, k -> new ArrayList<>()).add(player);
+            }
+        }
+    }
+
+    /** Removes 'player' from whichever shard holds them. */
+    public void dequeue(Player player) {
+        Objects.requireNonNull(player, "player");
+        Location location = locations.remove(player);
+        if (location != null) {
+            transport.dequeue(location.shard, player);
+        }
+    }
+
+    public boolean isQueued(Player player) {
+        return locations.containsKey(player);
+    }
+
+    /** Players queued across all shards. */
+    public int size() {
+        return locations.size();
+    }
+
+    /**
+     * Migrates edge players that are due, then ticks every shard in parallel
+     * and returns all their matches.
+     */
+    public List<Match> tick() {
+        synchronized (tickLock) {
+            migrateDue(clock.getAsLong());
+
+            List<Future<List<Match>>> results = new ArrayList<>();
+            for (int shard = 0; shard < transport.shardCount(); shard++) {
+                int s = shard;
+                results.add(tickPool.submit(() -> transport.tick(s)));
+            }
+            List<Match> matches = new ArrayList<>();
+            for (Future<List<Match>> result : results) {
+                try {
+                    matches.addAll(result.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while ticking shards", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Shard tick failed", e.getCause());
+                }
+            }
+            for (Match match : matches) {
+                locations.remove(match.getPlayer1());
+                locations.remove(match.getPlayer2());
+            }
+            return matches;
+        }
+    }
+
+    /** Stops the tick threads and closes the transport. */
+    @Override
+    public void close() {
+        tickPool.shutdownNow();
+        transport.close();
+    }
+
+    // ------------- helpers -------------
+
+    private int bandOf(int rating) {
+        return Math.floorDiv(rating, bandWidth);
+    }
+
+    /** Neighbouring bands of one game land on different shards (when there are several). */
+    private int shardForBand(GameType gameType, int band) {
+        return Math.floorMod(band * GameType.values().length + gameType.ordinal(), transport.shardCount());
+    }
+
+    /** The band a player just above its lower edge should move to, or their own band otherwise. */
+    private int edgeNeighbour(int rating, int band) {
+        return rating - band * bandWidth < EDGE_MARGIN ? band - 1 : band;
+    }
+
+    private void migrateDue(long now) {
+        List<Player> due = new ArrayList<>();
+        synchronized (migrations) {
+            Map.Entry<Long, List<Player>> entry;
+            while ((entry = migrations.firstEntry()) != null && entry.getKey() <= now) {
+                due.addAll(migrations.pollFirstEntry().getValue());
+            }
+        }
+        for (Player player : due) {
+            Location from = locations.get(player);
+            if (from == null) {
+                continue; // matched or cancelled meanwhile
+            }
+            int band = edgeNeighbour(player.getRating(), from.band);
+            Location to = new Location(shardForBand(from.gameType, band), from.gameType, band);
+            if (to.shard == from.shard || !locations.replace(player, from, to)) {
+                continue; // same worker already sees both bands, or the player just left
+            }
+            // keep the original enqueue time, so the player's window and
+            // backfill wait carry on rather than start over on the new shard
+            long enqueuedAt = transport.handOff(from.shard, player);
+            if (enqueuedAt < 0) {
+                locations.remove(player, to);
+                continue;
+            }
+            transport.enqueue(to.shard, player, to.gameType, enqueuedAt);
+            if (locations.get(player) != to) {
+                transport.dequeue(to.shard, player); // cancelled while moving
+            }
+        }
+    }
+}
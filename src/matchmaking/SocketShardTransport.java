@@ -0,0 +1,142 @@
+package matchmaking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * ShardTransport that talks to ShardServer processes over loopback sockets.
+ * One connection per shard; requests to the same shard are serialised on
+ * that connection, requests to different shards run in parallel.
+ * I/O failures surface as UncheckedIOException.
+ */
+public class SocketShardTransport implements ShardTransport {
+
+    private static final class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+
+    private final Connection[] connections;
+
+    /** Connects to one ShardServer per port on 127.0.0.1. */
+    public SocketShardTransport(int... ports) throws IOException {
+        if (ports.length == 0) {
+            throw new IllegalArgumentException("at least one shard port is required");
+        }
+        connections = new Connection[ports.length];
+        try {
+            for (int i = 0; i < ports.length; i++) {
+                connections[i] = new Connection(ports[i]);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int shardCount() {
+        return connections.length;
+    }
+
+    @Override
+    public void enqueue(int shard, Player player, GameType gameType) {
+        enqueue(shard, player, gameType, ShardProtocol.NOW);
+    }
+
+    @Override
+    public void enqueue(int shard, Player player, GameType gameType, long enqueuedAtMillis) {
+        Connection c = connections[shard];
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardProtocol.ENQUEUE);
+                ShardProtocol.writePlayer(c.out, player);
+                ShardProtocol.writeGameType(c.out, gameType);
+                c.out.writeLong(enqueuedAtMillis);
+                c.out.flush();
+                checkStatus(c);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void dequeue(int shard, Player player) {
+        Connection c = connections[shard];
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardProtocol.DEQUEUE);
+                ShardProtocol.writePlayer(c.out, player);
+                c.out.flush();
+                checkStatus(c);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public long handOff(int shard, Player player) {
+        Connection c = connections[shard];
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardProtocol.HAND_OFF);
+                ShardProtocol.writePlayer(c.out, player);
+                c.out.flush();
+                checkStatus(c);
+                return c.in.readLong();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public List<Match> tick(int shard) {
+        Connection c = connections[shard];
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardProtocol.TICK);
+                c.out.flush();
+                checkStatus(c);
+                return ShardProtocol.readMatches(c.in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Connection c : connections) {
+            if (c == null) continue;
+            try {
+                c.socket.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    private static void checkStatus(Connection c) throws IOException {
+        if (c.in.readByte() != ShardProtocol.STATUS_OK) {
+            throw new IOException("Shard error: " + c.in.readUTF());
+        }
+    }
+}
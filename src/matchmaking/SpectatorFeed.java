@@ -0,0 +1,170 @@
+package matchmaking;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Broadcast of one session's board frames to any number of spectators.
+ *
+ * The session's owner (normally its SessionBehavior, on the actor's
+ * carrier) is the single producer: it publishes each frame once into a ring
+ * of 'capacity' slots, typically the keyframe() and delta() frames of a
+ * server.BoardDeltaEncoder. Each spectator holds a Cursor and polls at its
+ * own pace; publishing never waits for, or even looks at, a spectator.
+ *
+ * A spectator that falls more than 'capacity' frames behind finds its next
+ * slot overwritten and is moved to the newest keyframe, so it sees a
+ * correct board again at the cost of the frames in between (counted by
+ * Cursor.getSkipped()). To keep that keyframe close, the producer must
+ * publish one at least every 'keyframeInterval' frames; isKeyframeDue()
+ * says when.
+ *
+ * Frames are stored as immutable slot objects, so a reader racing the
+ * producer sees either the old frame or the new one, never a mix.
+ * publish() must only be called by one thread at a time; Cursors are
+ * owned by one reader each.
+ */
+public final class SpectatorFeed {
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 128;
+
+    /** One published frame; 'seq' counts from 1. */
+    private static final class Slot {
+        final long seq;
+        final byte[] frame;
+
+        Slot(long seq, byte[] frame) {
+            this.seq = seq;
+            this.frame = frame;
+        }
+    }
+
+    private final AtomicReferenceArray<Slot> ring;
+    private final int mask;
+    private final int keyframeInterval;
+    /** Sequence number of the last published frame; written after its slot. */
+    private volatile long head;
+    private volatile Slot latestKeyframe;
+    private volatile Runnable publishListener = () -> { };
+
+    public SpectatorFeed() {
+        this(DEFAULT_CAPACITY, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /** 'capacity' must be a power of two and at least 'keyframeInterval'. */
+    public SpectatorFeed(int capacity, int keyframeInterval) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        if (keyframeInterval <= 0 || keyframeInterval > capacity) {
+            throw new IllegalArgumentException("keyframeInterval must be in 1..capacity");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /** True if the next frame published must be a keyframe. */
+    public boolean isKeyframeDue() {
+        Slot keyframe = latestKeyframe;
+        return keyframe == null || head - keyframe.seq >= keyframeInterval;
+    }
+
+    /**
+     * Appends 'frame'. A delta is refused with IllegalStateException while
+     * isKeyframeDue(). The array is shared with every spectator and must not
+     * be modified afterwards.
+     */
+    public void publish(byte[] frame, boolean keyframe) {
+        Objects.requireNonNull(frame, "frame");
+        if (!keyframe && isKeyframeDue()) {
+            throw new IllegalStateException("A keyframe is due");
+        }
+        long seq = head + 1;
+        Slot slot = new Slot(seq, frame);
+        ring.set((int) seq & mask, slot);
+        if (keyframe) {
+            latestKeyframe = slot;
+        }
+        head = seq;
+        publishListener.run();
+    }
+
+    /**
+     * Runs on the producer's thread after every publish, e.g. to wake the
+     * network thread that drains the spectators' cursors. Must be quick.
+     */
+    public void setPublishListener(Runnable listener) {
+        this.publishListener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /** A new spectator; its first frame is the newest keyframe. */
+    public Cursor subscribe() {
+        return new Cursor();
+    }
+
+    /** Sequence number of the last published frame (0 before the first). */
+    public long getHead() {
+        return head;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /** One spectator's read position. Not thread-safe. */
+    public final class Cursor {
+        /** Next sequence number to read; 0 until the first keyframe is read. */
+        private long next;
+        private long skipped;
+
+        private Cursor() {
+        }
+
+        /**
+         * The next frame, or null if the spectator has seen everything
+         * published. After falling too far behind, returns the newest
+         * keyframe instead.
+         */
+        public byte[] poll() {
+            if (next == 0) {
+                return jumpToKeyframe();
+            }
+            if (next > head) {
+                return null;
+            }
+            Slot slot = ring.get((int) next & mask);
+            if (slot.seq != next) { // overwritten: this spectator is a lap behind
+                return jumpToKeyframe();
+            }
+            next++;
+            return slot.frame;
+        }
+
+        /** Frames published but not yet read. */
+        public long getLag() {
+            return next == 0 ? 0 : Math.max(0, head - next + 1);
+        }
+
+        /** Frames this spectator missed by being moved to a keyframe. */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        // ------------- helpers -------------
+
+        private byte[] jumpToKeyframe() {
+            Slot keyframe = latestKeyframe;
+            if (keyframe == null) {
+                return null;
+            }
+            if (next != 0) {
+                skipped += keyframe.seq - next;
+            }
+            next = keyframe.seq + 1;
+            return keyframe.frame;
+        }
+    }
+}
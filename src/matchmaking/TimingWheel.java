@@ -0,0 +1,89 @@
+package matchmaking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel for expiring keys at a deadline.
+ *
+ * Time is cut into ticks of 'tickMillis'; slot (deadline / tickMillis) mod
+ * slots holds every key due in that tick, across all rotations. Scheduling
+ * and cancelling are O(1), and advancing only visits the slots for the
+ * ticks that passed, so thousands of pending timeouts cost nothing between
+ * expiries. Keys due in a later rotation stay in their slot until then.
+ *
+ * Thread-safe; all methods synchronise on the wheel.
+ */
+final class TimingWheel<K> {
+
+    private final long tickMillis;
+    /** Per slot: key -> deadline. */
+    private final List<Map<K, Long>> slots;
+    /** Key -> tick whose slot holds it, so cancel() is O(1). */
+    private final Map<K, Long> tickOf = new HashMap<>();
+    /** Last tick that is completely over and whose slot has been processed. */
+    private long processedTick;
+
+    TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMillis and slotCount must be > 0");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.processedTick = nowMillis / tickMillis - 1;
+    }
+
+    /** Schedules 'key' to come due at 'deadlineMillis', replacing any earlier schedule. */
+    synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // a deadline in an already processed tick goes into the next tick to be processed
+        long tick = Math.max(deadlineMillis / tickMillis, processedTick + 1);
+        slotFor(tick).put(key, deadlineMillis);
+        tickOf.put(key, tick);
+    }
+
+    /** Forgets 'key' if it is scheduled. */
+    synchronized void cancel(K key) {
+        Long tick = tickOf.remove(key);
+        if (tick != null) {
+            slotFor(tick).remove(key);
+        }
+    }
+
+    /**
+     * Advances the wheel to 'nowMillis' and returns every key whose deadline
+     * has passed, removing them from the wheel.
+     */
+    synchronized List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>();
+        long target = nowMillis / tickMillis;
+        // after a full rotation every slot has been visited once; more laps add nothing
+        long first = Math.max(processedTick + 1, target - slots.size() + 1);
+        for (long tick = first; tick <= target; tick++) {
+            slotFor(tick).entrySet().removeIf(e -> {
+                if (e.getValue() <= nowMillis) {
+                    due.add(e.getKey());
+                    tickOf.remove(e.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+        // the current tick is only partly over; look at its slot again next time
+        processedTick = Math.max(processedTick, target - 1);
+        return due;
+    }
+
+    synchronized int size() {
+        return tickOf.size();
+    }
+
+    private Map<K, Long> slotFor(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
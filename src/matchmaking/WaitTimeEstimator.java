@@ -0,0 +1,180 @@
+package matchmaking;
+
+import java.util.Arrays;
+
+/**
+ * Wait-time model for one GameType, split into rating bands.
+ *
+ * Each band keeps exponentially weighted arrival and match rates (players per
+ * second, decaying with a two-minute time constant) and the number of
+ * players currently waiting. All updates and estimates are O(1); nothing here
+ * ever looks at the queue itself.
+ *
+ * The estimate follows Little's law: with L players waiting in the band and
+ * players leaving it through matches at rate λ, a player waits about L / λ.
+ * Before the band has seen any matches, the wait for the next arrival in the
+ * band (1 / arrival rate) is used instead.
+ *
+ * It also keeps the waits of the last WAIT_HISTORY matched players of the
+ * game, so Matchmaker's bot backfill can ask what a "long" wait currently is.
+ *
+ * Updates must be serialised by the caller (Matchmaker's per-GameType lock);
+ * estimates may be read from any thread.
+ */
+final class WaitTimeEstimator {
+
+    /** Width of one rating band; equal to the base acceptance window. */
+    static final int BAND_WIDTH = 200;
+
+    /** Number of bands; ratings of BANDS * BAND_WIDTH and above share the top band. */
+    static final int BANDS = 20;
+
+    /** Time constant of the rate averages, in seconds. */
+    private static final double RATE_TIME_CONSTANT_SECONDS = 120.0;
+
+    /** Arrivals a band must have seen before its estimate is trusted. */
+    private static final int MIN_SAMPLES = 8;
+
+    /** Rates below this (players/sec) are treated as "no traffic". */
+    private static final double MIN_RATE = 1e-4;
+
+    /** Estimates are capped so an idle band does not report days. */
+    static final int MAX_ESTIMATE_SECONDS = 3600;
+
+    /** Returned by estimateSeconds() when the band has too little history. */
+    static final int NO_ESTIMATE = -1;
+
+    private static final class Band {
+        volatile double arrivalRate;
+        volatile long lastArrivalMillis;
+        volatile double matchRate;
+        volatile long lastMatchMillis;
+        volatile int waiting;
+        volatile long arrivals;
+    }
+
+    /** Matched players whose waits are kept for waitPercentileMillis(). */
+    static final int WAIT_HISTORY = 256;
+
+    private final Band[] bands = new Band[BANDS];
+    /** Ring buffer of recent waits in milliseconds; guarded by the caller's lock. */
+    private final long[] recentWaits = new long[WAIT_HISTORY];
+    private int recordedWaits;
+
+    WaitTimeEstimator() {
+        for (int i = 0; i < BANDS; i++) {
+            bands[i] = new Band();
+        }
+    }
+
+    static int bandOf(int rating) {
+        return Math.max(0, Math.min(BANDS - 1, rating / BAND_WIDTH));
+    }
+
+    /** A player with 'rating' joined the queue. */
+    void onEnqueue(int rating, long nowMillis) {
+        Band band = bands[bandOf(rating)];
+        band.arrivalRate = addEvent(band.arrivalRate, band.lastArrivalMillis, nowMillis);
+        band.lastArrivalMillis = nowMillis;
+        band.arrivals++;
+        band.waiting++;
+    }
+
+    /** A player with 'rating' was paired and left the queue. */
+    void onMatched(int rating, long nowMillis) {
+        Band band = bands[bandOf(rating)];
+        band.matchRate = addEvent(band.matchRate, band.lastMatchMillis, nowMillis);
+        band.lastMatchMillis = nowMillis;
+        band.waiting = Math.max(0, band.waiting - 1);
+    }
+
+    /** A matched player had waited 'waitedMillis'. */
+    void onWaited(long waitedMillis) {
+        recentWaits[recordedWaits % WAIT_HISTORY] = Math.max(0, waitedMillis);
+        recordedWaits++;
+    }
+
+    /**
+     * The 'percentile' (0..100) of recent waits of matched players, in
+     * milliseconds, or NO_ESTIMATE until MIN_SAMPLES waits were recorded.
+     */
+    long waitPercentileMillis(double percentile) {
+        int count = Math.min(recordedWaits, WAIT_HISTORY);
+        if (count < MIN_SAMPLES) {
+            return NO_ESTIMATE;
+        }
+        long[] sorted = Arrays.copyOf(recentWaits, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /** A player with 'rating' cancelled; they do not count as throughput. */
+    void onCancelled(int rating) {
+        Band band = bands[bandOf(rating)];
+        band.waiting = Math.max(0, band.waiting - 1);
+    }
+
+    /**
+     * A player with 'rating' moved to another worker's queue; like a
+     * cancellation, they leave without counting as throughput.
+     */
+    void onHandedOff(int rating) {
+        Band band = bands[bandOf(rating)];
+        band.waiting = Math.max(0, band.waiting - 1);
+    }
+
+    /**
+     * Expected wait in seconds for a player with 'rating' who is (or would be)
+     * in the queue now, or NO_ESTIMATE if the band has too little history.
+     */
+    int estimateSeconds(int rating, long nowMillis) {
+        Band band = bands[bandOf(rating)];
+        if (band.arrivals < MIN_SAMPLES) {
+            return NO_ESTIMATE;
+        }
+        double matchRate = decayed(band.matchRate, band.lastMatchMillis, nowMillis);
+        double seconds;
+        if (matchRate > MIN_RATE) {
+            int waiting = Math.max(1, band.waiting);
+            seconds = waiting / matchRate;
+        } else {
+            double arrivalRate = decayed(band.arrivalRate, band.lastArrivalMillis, nowMillis);
+            if (arrivalRate <= MIN_RATE) {
+                return NO_ESTIMATE;
+            }
+            seconds = 1.0 / arrivalRate;
+        }
+        return (int) Math.max(1, Math.min(MAX_ESTIMATE_SECONDS, Math.round(seconds)));
+    }
+
+    /** Smoothed arrival rate (players/sec) of the band containing 'rating'. */
+    double arrivalRate(int rating, long nowMillis) {
+        Band band = bands[bandOf(rating)];
+        return decayed(band.arrivalRate, band.lastArrivalMillis, nowMillis);
+    }
+
+    /** Smoothed match rate (players/sec leaving through matches) of the band containing 'rating'. */
+    double matchRate(int rating, long nowMillis) {
+        Band band = bands[bandOf(rating)];
+        return decayed(band.matchRate, band.lastMatchMillis, nowMillis);
+    }
+
+    // ------------- helpers -------------
+
+    /**
+     * Time-decayed event rate: the old rate fades by exp(-dt / tau), and each
+     * event adds 1 / tau. For a steady stream of r events/sec this converges to r.
+     */
+    private static double addEvent(double rate, long lastMillis, long nowMillis) {
+        return decayed(rate, lastMillis, nowMillis) + 1.0 / RATE_TIME_CONSTANT_SECONDS;
+    }
+
+    private static double decayed(double rate, long lastMillis, long nowMillis) {
+        if (rate == 0) {
+            return 0;
+        }
+        double elapsedSeconds = Math.max(0, nowMillis - lastMillis) / 1000.0;
+        return rate * Math.exp(-elapsedSeconds / RATE_TIME_CONSTANT_SECONDS);
+    }
+}
@@ -0,0 +1,150 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * Client side of the board stream written by BoardDeltaEncoder.
+ *
+ * A keyframe always replaces the board. A delta is applied only if it is
+ * the very next sequence number; a delta that skips ahead means frames were
+ * lost, so the decoder stops applying deltas and apply() returns RESYNC
+ * until a keyframe arrives. Deltas at or below the current sequence are
+ * duplicates and ignored.
+ *
+ * Not thread-safe.
+ */
+public final class BoardDeltaDecoder {
+
+    public enum Result {
+        /** The frame was applied; getCells() is up to date. */
+        APPLIED,
+        /** An old or repeated frame; nothing changed. */
+        IGNORED,
+        /** The board is out of date; request a keyframe from the server. */
+        RESYNC
+    }
+
+    private int width;
+    private int height;
+    private int[] cells;
+    private int sequence;
+    private boolean synced;
+
+    private byte[] frame;
+    private int position;
+
+    /** Applies one frame. Malformed frames throw IllegalArgumentException. */
+    public Result apply(byte[] frame) {
+        this.frame = frame;
+        this.position = 0;
+        if (frame.length == 0) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+        byte kind = frame[position++];
+        int seq = readVarint();
+        if (kind == BoardDeltaEncoder.KEYFRAME) {
+            readKeyframe();
+            sequence = seq;
+            synced = true;
+            return Result.APPLIED;
+        }
+        if (kind != BoardDeltaEncoder.DELTA) {
+            throw new IllegalArgumentException("Unknown frame kind " + kind);
+        }
+        if (!synced) {
+            return Result.RESYNC;
+        }
+        if (seq <= sequence) {
+            return Result.IGNORED;
+        }
+        if (seq != sequence + 1) {
+            synced = false; // a frame went missing
+            return Result.RESYNC;
+        }
+        try {
+            readDelta();
+        } catch (IllegalArgumentException e) {
+            synced = false; // partly applied; only a keyframe can fix the board now
+            throw e;
+        }
+        sequence = seq;
+        return Result.APPLIED;
+    }
+
+    /** True once a gap was seen and until the next keyframe. */
+    public boolean needsResync() {
+        return !synced;
+    }
+
+    /** Current cells, row-major (see game_logic.BoardCells); do not modify. Null before the first keyframe. */
+    public int[] getCells() {
+        return cells;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Sequence number of the last frame applied. */
+    public int getSequence() {
+        return sequence;
+    }
+
+    // ------------- helpers -------------
+
+    private void readKeyframe() {
+        int w = readVarint();
+        int h = readVarint();
+        if (w <= 0 || h <= 0 || (long) w * h > BoardDeltaEncoder.MAX_CELLS) {
+            throw new IllegalArgumentException("Bad board size " + w + "x" + h);
+        }
+        int[] next = new int[w * h];
+        int i = 0;
+        while (i < next.length) {
+            int code = readVarint();
+            int run = readVarint();
+            if (run <= 0 || run > next.length - i) {
+                throw new IllegalArgumentException("Bad run length " + run);
+            }
+            if (code != 0) {
+                Arrays.fill(next, i, i + run, code);
+            }
+            i += run;
+        }
+        width = w;
+        height = h;
+        cells = next;
+    }
+
+    private void readDelta() {
+        int changes = readVarint();
+        int index = -1;
+        for (int c = 0; c < changes; c++) {
+            index += readVarint() + 1;
+            int code = readVarint();
+            if (index < 0 || index >= cells.length) {
+                throw new IllegalArgumentException("Cell " + index + " is off the board");
+            }
+            cells[index] = code;
+        }
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position >= frame.length) {
+                throw new IllegalArgumentException("Truncated frame");
+            }
+            byte b = frame[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
@@ -0,0 +1,132 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * Server side of the compact board stream: one full keyframe, then one
+ * small delta per move listing only the cells that changed.
+ *
+ * Frame layout (all integers are unsigned LEB128 varints):
+ *   keyframe: KEYFRAME, seq, width, height, then (code, run length) pairs
+ *             covering every cell in row-major order
+ *   delta:    DELTA, seq, change count, then per changed cell in ascending
+ *             index order: (index - previous index - 1), new code
+ *
+ * A move is a delta of its own cells plus any captures (cells that became
+ * 0), so a Go move with no capture is 5 bytes instead of a 361-cell board.
+ * Every frame carries the next sequence number; BoardDeltaDecoder uses it to
+ * notice lost frames and ask for a resync, which is answered with keyframe().
+ *
+ * One encoder per board stream; not thread-safe.
+ */
+public final class BoardDeltaEncoder {
+
+    static final byte KEYFRAME = 0;
+    static final byte DELTA = 1;
+
+    /** Largest board either side accepts (a 256 x 256 TicTacToe variant). */
+    static final int MAX_CELLS = 1 << 16;
+
+    private final int width;
+    private final int height;
+    private int[] last;
+    /** Scratch: indexes that differ from 'last', collected in one pass. */
+    private final int[] changed;
+    private int sequence;
+    private byte[] buffer = new byte[64];
+    private int position;
+
+    public BoardDeltaEncoder(int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Board must have 1.." + MAX_CELLS + " cells");
+        }
+        this.width = width;
+        this.height = height;
+        this.changed = new int[width * height];
+    }
+
+    /** The whole board; sent first and whenever a client asks for a resync. */
+    public byte[] keyframe(int[] cells) {
+        checkSize(cells);
+        last = cells.clone();
+        begin(KEYFRAME);
+        putVarint(width);
+        putVarint(height);
+        int i = 0;
+        while (i < cells.length) {
+            int code = cells[i];
+            int run = 1;
+            while (i + run < cells.length && cells[i + run] == code) {
+                run++;
+            }
+            putVarint(code);
+            putVarint(run);
+            i += run;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /** Only what changed since the previous frame. */
+    public byte[] delta(int[] cells) {
+        checkSize(cells);
+        if (last == null) {
+            throw new IllegalStateException("Send a keyframe first");
+        }
+        int changes = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != last[i]) {
+                changed[changes++] = i;
+                last[i] = cells[i];
+            }
+        }
+        begin(DELTA);
+        putVarint(changes);
+        int previous = -1;
+        for (int c = 0; c < changes; c++) {
+            int i = changed[c];
+            putVarint(i - previous - 1);
+            putVarint(cells[i]);
+            previous = i;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /** Sequence number of the last frame produced (0 before the first). */
+    public int getSequence() {
+        return sequence;
+    }
+
+    // ------------- helpers -------------
+
+    private void checkSize(int[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException(
+                    "Expected " + width * height + " cells, got " + cells.length);
+        }
+    }
+
+    private void begin(byte kind) {
+        position = 0;
+        ensure(1);
+        buffer[position++] = kind;
+        putVarint(++sequence);
+    }
+
+    private void putVarint(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cell codes must be >= 0: " + value);
+        }
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensure(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
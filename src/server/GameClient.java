@@ -0,0 +1,282 @@
+package server;
+
+import matchmaking.Match;
+import matchmaking.Player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Client side of ServerProtocol, for game panels that play against a remote
+ * GameServer instead of keeping the whole game in this process.
+ *
+ * A panel opens its session once with the Match it was given and its own
+ * player, sends its moves and chat through the returned RemoteSession, and
+ * applies moves in the order SessionListener.onMove() reports them (its own
+ * included, echoed back with their ply). Listener callbacks run on the
+ * client's reader thread; Swing panels should hop to the EDT with
+ * SwingUtilities.invokeLater.
+ *
+ * Sending is thread-safe. One connection can hold several sessions.
+ */
+public class GameClient implements AutoCloseable {
+
+    /** How long open() and ping() wait for the server's reply. */
+    private static final long REPLY_TIMEOUT_MILLIS = 10_000;
+
+    /** Receives the traffic of one session. */
+    public interface SessionListener {
+        /** A move was accepted; 'ply' counts from 0, 'playerIndex' is 0 for player1 and 1 for player2. */
+        void onMove(int ply, int playerIndex, int move);
+
+        default void onChat(String senderName, String text) {
+        }
+
+        /** A player left; 'playerId' is this client's own if another connection took its seat. */
+        default void onPlayerLeft(String playerId) {
+        }
+    }
+
+    /** An open session on the server. */
+    public final class RemoteSession {
+        private final int handle;
+        private final int pliesAtJoin;
+
+        private RemoteSession(int handle, int pliesAtJoin) {
+            this.handle = handle;
+            this.pliesAtJoin = pliesAtJoin;
+        }
+
+        /** Moves played before this client joined; a rejoining panel must replay from elsewhere. */
+        public int getPliesAtJoin() {
+            return pliesAtJoin;
+        }
+
+        public void sendMove(int move) throws IOException {
+            send(new ServerProtocol.FrameWriter(ServerProtocol.MOVE).putInt(handle).putInt(move).frame());
+        }
+
+        public void sendChat(String text) throws IOException {
+            Objects.requireNonNull(text, "text");
+            send(new ServerProtocol.FrameWriter(ServerProtocol.CHAT).putInt(handle).putString(text).frame());
+        }
+
+        /** Gives up the seat; the opponent gets onPlayerLeft(). */
+        public void leave() throws IOException {
+            listeners.remove(handle);
+            send(new ServerProtocol.FrameWriter(ServerProtocol.LEAVE).putInt(handle).frame());
+        }
+    }
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final Map<Integer, SessionListener> listeners = new ConcurrentHashMap<>();
+    /** Replies to OPEN and PING arrive in request order; guarded by the output lock. */
+    private final ArrayDeque<PendingOpen> pendingOpens = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<Void>> pendingPings = new ArrayDeque<>();
+    private final Object outputLock = new Object();
+    private volatile Consumer<String> errorHandler = message -> System.err.println("Game server: " + message);
+
+    public GameClient(String host, int port) throws IOException {
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Thread reader = new Thread(this::readLoop, "game-client-" + socket.getLocalPort());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /** Where errors that no request waits for go (e.g. a rejected move); defaults to stderr. */
+    public void setErrorHandler(Consumer<String> errorHandler) {
+        this.errorHandler = Objects.requireNonNull(errorHandler, "errorHandler");
+    }
+
+    /**
+     * Joins (creating if needed) the server session 'sessionId' for 'match',
+     * seated as 'self', who must be one of the match's players.
+     */
+    public RemoteSession open(String sessionId, Match match, Player self, SessionListener listener)
+            throws IOException {
+        Objects.requireNonNull(sessionId, "sessionId");
+        Objects.requireNonNull(match, "match");
+        Objects.requireNonNull(self, "self");
+        Objects.requireNonNull(listener, "listener");
+
+        byte[] frame = new ServerProtocol.FrameWriter(ServerProtocol.OPEN)
+                .putString(sessionId).putMatch(match).putString(self.getId()).frame();
+        // the reader thread registers the listener on JOINED, before it reads
+        // the moves that may follow right behind it
+        PendingOpen open = new PendingOpen(listener);
+        request(frame, pendingOpens, open);
+        return await(open.reply);
+    }
+
+    /** Round trip to the server, in nanoseconds. */
+    public long ping() throws IOException {
+        long sent = System.nanoTime();
+        byte[] frame = new ServerProtocol.FrameWriter(ServerProtocol.PING).putLong(sent).frame();
+        CompletableFuture<Void> reply = new CompletableFuture<>();
+        request(frame, pendingPings, reply);
+        await(reply);
+        return System.nanoTime() - sent;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    // ------------- helpers -------------
+
+    /** An OPEN waiting for its reply, with the listener to register when it comes. */
+    private static final class PendingOpen {
+        final SessionListener listener;
+        final CompletableFuture<RemoteSession> reply = new CompletableFuture<>();
+
+        PendingOpen(SessionListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private <T> void request(byte[] frame, ArrayDeque<T> pending, T entry) throws IOException {
+        synchronized (outputLock) {
+            pending.add(entry);
+            out.write(frame);
+            out.flush();
+        }
+    }
+
+    private void send(byte[] frame) throws IOException {
+        synchronized (outputLock) {
+            out.write(frame);
+            out.flush();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> reply) throws IOException {
+        try {
+            return reply.get(REPLY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new IOException("No reply from game server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the game server", e);
+        }
+    }
+
+    private void readLoop() {
+        IOException failure = null;
+        try {
+            while (true) {
+                int length = in.readInt();
+                if (length <= 0 || length > ServerProtocol.MAX_FRAME) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                dispatch(new DataInputStream(new ByteArrayInputStream(payload)));
+            }
+        } catch (EOFException e) {
+            failure = new IOException("Game server closed the connection");
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            IOException cause = failure != null ? failure : new IOException("Connection closed");
+            synchronized (outputLock) {
+                pendingOpens.forEach(p -> p.reply.completeExceptionally(cause));
+                pendingPings.forEach(f -> f.completeExceptionally(cause));
+                pendingOpens.clear();
+                pendingPings.clear();
+            }
+        }
+    }
+
+    private void dispatch(DataInputStream frame) throws IOException {
+        byte op = frame.readByte();
+        switch (op) {
+            case ServerProtocol.JOINED: {
+                PendingOpen open = next(pendingOpens);
+                int handle = frame.readInt();
+                int plies = frame.readInt();
+                listeners.put(handle, open.listener);
+                open.reply.complete(new RemoteSession(handle, plies));
+                break;
+            }
+            case ServerProtocol.PONG:
+                next(pendingPings).complete(null);
+                break;
+            case ServerProtocol.MOVED: {
+                SessionListener listener = listeners.get(frame.readInt());
+                int ply = frame.readInt();
+                int playerIndex = frame.readUnsignedByte();
+                int move = frame.readInt();
+                if (listener != null) {
+                    listener.onMove(ply, playerIndex, move);
+                }
+                break;
+            }
+            case ServerProtocol.CHAT_MESSAGE: {
+                SessionListener listener = listeners.get(frame.readInt());
+                String sender = frame.readUTF();
+                String text = frame.readUTF();
+                if (listener != null) {
+                    listener.onChat(sender, text);
+                }
+                break;
+            }
+            case ServerProtocol.LEFT: {
+                SessionListener listener = listeners.get(frame.readInt());
+                String playerId = frame.readUTF();
+                if (listener != null) {
+                    listener.onPlayerLeft(playerId);
+                }
+                break;
+            }
+            case ServerProtocol.ERROR: {
+                byte failed = frame.readByte();
+                String message = frame.readUTF();
+                if (failed == ServerProtocol.OPEN) {
+                    next(pendingOpens).reply.completeExceptionally(new IOException(message));
+                } else {
+                    errorHandler.accept(message);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown opcode " + op);
+        }
+    }
+
+    private <T> T next(ArrayDeque<T> pending) throws IOException {
+        T reply;
+        synchronized (outputLock) {
+            reply = pending.poll();
+        }
+        if (reply == null) {
+            throw new IOException("Unexpected reply from game server");
+        }
+        return reply;
+    }
+}
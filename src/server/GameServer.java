@@ -0,0 +1,685 @@
+package server;
+
+import chat.ChatMessage;
+import chat.ChatService;
+import game_logic.GameOutcome;
+import game_logic.Games;
+import journal.RecoveredSession;
+import journal.SessionJournal;
+import matchmaking.AppContext;
+import matchmaking.GameSession;
+import matchmaking.Match;
+import matchmaking.Player;
+import matchmaking.SessionRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Headless server hosting GameSessions for remote players.
+ *
+ * One thread runs a non-blocking NIO selector loop over every connection, so
+ * thousands of idle players cost a socket and a few buffers each, not a
+ * thread. All session state is owned by that thread and needs no locks.
+ * Clients speak ServerProtocol: they OPEN a session by id with its Match and
+ * their own seat, then exchange moves and chat.
+ *
+ * Every hosted session has a Game of its match's type, registered as a lane
+ * of a MovePipeline. A MOVE is submitted to the pipeline; its verdict comes
+ * back to the selector thread, which sends an accepted move, with its ply
+ * number, to both seats, so both sides see one order. A move out of turn,
+ * illegal, or refused by a full pipeline gets an ERROR to its sender only.
+ *
+ * A connection that sends a malformed or oversized frame, or stops reading
+ * until MAX_PENDING_BYTES of output pile up, is closed.
+ *
+ * Hosted sessions are registered in a SessionRegistry under their session
+ * id, touched on every move and chat message, and removed (closing their
+ * chat) once both seats are empty. An OPEN the registry refuses, because
+ * the id is in use elsewhere or the memory budget is spent, gets an ERROR.
+ * A session the registry evicts is no longer hosted; its seats get LEFT.
+ *
+ * OPEN is not authenticated: whoever knows a session id and a player's id
+ * gets that seat, and a connection already holding it is told with a LEFT
+ * naming its own player. Deploy the server behind something that checks
+ * who its clients are.
+ *
+ * With a SessionJournal, every hosted session's start, accepted moves,
+ * chat and result are journaled. A game ends with its GameOutcome's name,
+ * or ABANDONED if it is dropped before that. Closing the server journals
+ * no results, so recover() can host the sessions again after a restart,
+ * waiting for their players to OPEN them.
+ *
+ * Start a standalone server with:
+ *   java -cp out server.GameServer <port> [journal directory]
+ */
+public class GameServer implements AutoCloseable {
+
+    /** Output a connection may leave unread before it is treated as dead. */
+    private static final int MAX_PENDING_BYTES = 1 << 20;
+
+    private static final int READ_BUFFER_BYTES = 4 * 1024;
+
+    /** The journaled result of a session dropped before its game ended. */
+    static final String ABANDONED = "ABANDONED";
+
+    /** One connected client. */
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        long pendingBytes;
+        /** Session handle -> seat (0 = player1, 1 = player2) this connection holds. */
+        final Map<Integer, Integer> seats = new HashMap<>();
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /** A GameSession and who is connected to it. */
+    private static final class HostedSession {
+        final int handle;
+        final String sessionId;
+        final GameSession session;
+        final MovePipeline.Lane lane;
+        final Connection[] seats = new Connection[2];
+        /** Who sent each move still in the pipeline, in submission order. */
+        final ArrayDeque<Connection> movers = new ArrayDeque<>();
+        /** Accepted moves. */
+        int plies;
+        /** True once the game's result is journaled. */
+        boolean finished;
+
+        HostedSession(int handle, String sessionId, GameSession session, MovePipeline.Lane lane) {
+            this.handle = handle;
+            this.sessionId = sessionId;
+            this.session = session;
+            this.lane = lane;
+        }
+
+        boolean isEmpty() {
+            return seats[0] == null && seats[1] == null;
+        }
+    }
+
+    private final ChatService chatService;
+    private final SessionRegistry registry;
+    /** Null if sessions are not journaled. */
+    private final SessionJournal journal;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    /** Written only by the selector thread; concurrent so other threads can look sessions up. */
+    private final Map<String, HostedSession> sessionsById = new ConcurrentHashMap<>();
+    private final Map<Integer, HostedSession> sessionsByHandle = new HashMap<>();
+    private final MovePipeline pipeline = new MovePipeline();
+    /** Judged moves on their way from the pipeline's tick thread to the selector thread. */
+    private final ConcurrentLinkedQueue<MovePipeline.Submission> verdicts = new ConcurrentLinkedQueue<>();
+    /** Sessions the registry evicted, on their way from its sweep thread to the selector thread. */
+    private final ConcurrentLinkedQueue<GameSession> evictions = new ConcurrentLinkedQueue<>();
+    private final Consumer<GameSession> onEvicted;
+    private int nextHandle = 1;
+    private volatile int connectionCount;
+    private volatile boolean running = true;
+    private volatile boolean looping;
+    private Thread loop;
+
+    /**
+     * Listens on all interfaces at 'port' (0 picks a free port), using the
+     * shared chat service and session registry.
+     */
+    public GameServer(int port) throws IOException {
+        this(new InetSocketAddress(port), AppContext.getChatService(), AppContext.getSessionRegistry());
+    }
+
+    /** A server with a registry of its own over 'chatService'. */
+    public GameServer(InetSocketAddress address, ChatService chatService) throws IOException {
+        this(address, chatService, new SessionRegistry(chatService));
+    }
+
+    /** 'registry' must close channels in 'chatService'. */
+    public GameServer(InetSocketAddress address, ChatService chatService, SessionRegistry registry)
+            throws IOException {
+        this(address, chatService, registry, null);
+    }
+
+    /**
+     * A server that journals its sessions in 'journal' (null for none). The
+     * caller keeps ownership of the journal and closes it after the server.
+     */
+    public GameServer(InetSocketAddress address, ChatService chatService, SessionRegistry registry,
+                      SessionJournal journal) throws IOException {
+        this.chatService = Objects.requireNonNull(chatService, "chatService");
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.journal = journal;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(Objects.requireNonNull(address, "address"), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        pipeline.addStage(this::onVerdicts);
+        this.onEvicted = session -> {
+            evictions.add(session);
+            selector.wakeup();
+        };
+        registry.addEvictionListener(onEvicted);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /** Runs the selector loop on a daemon thread. */
+    public synchronized GameServer start() {
+        if (loop != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        loop = new Thread(this::run, "game-server-" + getPort());
+        loop.setDaemon(true);
+        loop.start();
+        return this;
+    }
+
+    /**
+     * Hosts sessions recovered from the journal, with no one seated, so
+     * their players can OPEN them again. Sessions whose moves did not all
+     * replay, or whose game is already over, get a result instead. Call
+     * this before the selector loop runs. Returns the number hosted.
+     */
+    public int recover(List<RecoveredSession> sessions) {
+        if (looping) {
+            throw new IllegalStateException("Recover sessions before the server starts");
+        }
+        if (journal == null) {
+            throw new IllegalStateException("Server has no journal");
+        }
+        int hostedCount = 0;
+        for (RecoveredSession recovered : sessions) {
+            String sessionId = recovered.getSessionId();
+            GameOutcome outcome = recovered.getGame().getOutcome();
+            if (!recovered.isComplete() || outcome != GameOutcome.IN_PROGRESS) {
+                journal.recordResult(sessionId, recovered.isComplete() ? outcome.name() : ABANDONED);
+                chatService.closeChannel(sessionId);
+                continue;
+            }
+            try {
+                registry.register(sessionId, recovered.getSession());
+            } catch (IllegalStateException e) {
+                journal.recordResult(sessionId, ABANDONED);
+                chatService.closeChannel(sessionId);
+                continue;
+            }
+            HostedSession hosted = new HostedSession(nextHandle++, sessionId, recovered.getSession(),
+                    pipeline.register(sessionId, recovered.getGame()));
+            hosted.plies = recovered.getPlies();
+            sessionsById.put(sessionId, hosted);
+            sessionsByHandle.put(hosted.handle, hosted);
+            hostedCount++;
+        }
+        return hostedCount;
+    }
+
+    /** The hosted session with 'sessionId', or null if nobody has it open. */
+    public GameSession getSession(String sessionId) {
+        HostedSession hosted = sessionsById.get(sessionId);
+        return hosted == null ? null : hosted.session;
+    }
+
+    public int getSessionCount() {
+        return sessionsById.size();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /** Stops the loop and closes every connection. */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        Thread t;
+        synchronized (this) {
+            t = loop;
+        }
+        if (t == null) {
+            shutdown(); // never started
+        } else if (t != Thread.currentThread()) {
+            try {
+                t.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        SessionJournal journal = new SessionJournal(Paths.get(args.length > 1 ? args[1] : "session-journal"));
+        GameServer server = new GameServer(new InetSocketAddress(port), AppContext.getChatService(),
+                AppContext.getSessionRegistry(), journal);
+        int recovered = server.recover(journal.recoverSessions(AppContext.getChatService()));
+        AppContext.startSessionSweep();
+        System.out.println("Game server listening on port " + server.getPort()
+                + " (" + recovered + " sessions recovered)");
+        try {
+            server.run(); // run in the foreground
+        } finally {
+            journal.close();
+        }
+    }
+
+    // ------------- selector loop -------------
+
+    private void run() {
+        looping = true;
+        pipeline.start();
+        try {
+            while (running) {
+                selector.select();
+                drainVerdicts();
+                drainEvictions();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(c);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(c);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        disconnect(c); // one bad client must not stop the loop
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+            connectionCount++;
+        }
+    }
+
+    private void read(Connection c) throws IOException {
+        if (c.channel.read(c.in) < 0) {
+            disconnect(c);
+            return;
+        }
+        c.in.flip();
+        while (c.in.remaining() >= 4) {
+            int length = c.in.getInt(c.in.position());
+            if (length <= 0 || length > ServerProtocol.MAX_FRAME) {
+                throw new IOException("Bad frame length " + length);
+            }
+            if (c.in.remaining() < 4 + length) {
+                if (c.in.capacity() < 4 + length) {
+                    c.in = ByteBuffer.allocate(4 + ServerProtocol.MAX_FRAME).put(c.in);
+                    return; // left in write mode for the next read
+                }
+                break;
+            }
+            c.in.position(c.in.position() + 4);
+            byte[] payload = new byte[length];
+            c.in.get(payload);
+            handle(c, new DataInputStream(new ByteArrayInputStream(payload)));
+            if (!c.key.isValid()) {
+                return; // handling the frame closed the connection
+            }
+        }
+        c.in.compact();
+    }
+
+    private void handle(Connection c, DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case ServerProtocol.OPEN:
+                open(c, in.readUTF(), ServerProtocol.readMatch(in), in.readUTF());
+                break;
+            case ServerProtocol.MOVE:
+                move(c, in.readInt(), in.readInt());
+                break;
+            case ServerProtocol.CHAT:
+                chat(c, in.readInt(), in.readUTF());
+                break;
+            case ServerProtocol.LEAVE:
+                leave(c, in.readInt());
+                break;
+            case ServerProtocol.PING:
+                send(c, new ServerProtocol.FrameWriter(ServerProtocol.PONG).putLong(in.readLong()).frame());
+                break;
+            default:
+                throw new IOException("Unknown opcode " + op);
+        }
+    }
+
+    // ------------- requests -------------
+
+    private void open(Connection c, String sessionId, Match match, String selfId) {
+        int seat = match.getPlayer1().getId().equals(selfId) ? 0
+                : match.getPlayer2().getId().equals(selfId) ? 1 : -1;
+        if (seat < 0) {
+            sendError(c, ServerProtocol.OPEN, selfId + " is not a player in " + sessionId);
+            return;
+        }
+        HostedSession hosted = sessionsById.get(sessionId);
+        if (hosted == null) {
+            if (registry.get(sessionId) != null) {
+                sendError(c, ServerProtocol.OPEN, "Session " + sessionId + " is already running elsewhere");
+                return;
+            }
+            GameSession session = new GameSession(match, chatService.openChannel(sessionId));
+            try {
+                registry.register(sessionId, session);
+            } catch (IllegalStateException e) {
+                chatService.closeChannel(sessionId);
+                sendError(c, ServerProtocol.OPEN, e.getMessage());
+                return;
+            }
+            hosted = new HostedSession(nextHandle++, sessionId, session,
+                    pipeline.register(sessionId, Games.create(match.getGameType())));
+            if (journal != null) {
+                journal.recordStart(sessionId, match);
+            }
+            sessionsById.put(sessionId, hosted);
+            sessionsByHandle.put(hosted.handle, hosted);
+        } else if (!sameMatch(hosted.session.getMatch(), match)) {
+            sendError(c, ServerProtocol.OPEN, "Session " + sessionId + " is hosting a different match");
+            return;
+        }
+        Connection previous = hosted.seats[seat];
+        if (previous != null && previous != c) {
+            // the player reconnected, or someone claims their seat; either way the old connection loses it
+            previous.seats.remove(hosted.handle);
+            String playerId = (seat == 0 ? match.getPlayer1() : match.getPlayer2()).getId();
+            send(previous, new ServerProtocol.FrameWriter(ServerProtocol.LEFT)
+                    .putInt(hosted.handle).putString(playerId).frame());
+        }
+        hosted.seats[seat] = c;
+        c.seats.put(hosted.handle, seat);
+        send(c, new ServerProtocol.FrameWriter(ServerProtocol.JOINED)
+                .putInt(hosted.handle).putInt(hosted.plies).frame());
+    }
+
+    private void move(Connection c, int handle, int move) {
+        HostedSession hosted = seated(c, handle, ServerProtocol.MOVE);
+        if (hosted == null) {
+            return;
+        }
+        if (!pipeline.submit(hosted.lane, c.seats.get(handle), move)) {
+            sendError(c, ServerProtocol.MOVE, "Session " + hosted.sessionId + " is not taking moves right now");
+            return;
+        }
+        hosted.movers.add(c);
+        registry.touch(hosted.sessionId);
+    }
+
+    private void chat(Connection c, int handle, String text) {
+        HostedSession hosted = seated(c, handle, ServerProtocol.CHAT);
+        if (hosted == null) {
+            return;
+        }
+        Match match = hosted.session.getMatch();
+        Player sender = c.seats.get(handle) == 0 ? match.getPlayer1() : match.getPlayer2();
+        ChatMessage message;
+        try {
+            message = chatService.sendMessage(hosted.sessionId, sender.getId(), sender.getName(), text);
+        } catch (IllegalArgumentException e) {
+            sendError(c, ServerProtocol.CHAT, e.getMessage());
+            return;
+        }
+        if (journal != null && !hosted.finished) {
+            journal.recordChat(hosted.sessionId, message);
+        }
+        registry.touch(hosted.sessionId);
+        broadcast(hosted, new ServerProtocol.FrameWriter(ServerProtocol.CHAT_MESSAGE)
+                .putInt(handle).putString(message.getSenderName()).putString(message.getContent()).frame());
+    }
+
+    private void leave(Connection c, int handle) {
+        HostedSession hosted = seated(c, handle, ServerProtocol.LEAVE);
+        if (hosted != null) {
+            vacate(c, hosted);
+        }
+    }
+
+    // ------------- verdicts -------------
+
+    /** The pipeline's stage: runs on its tick thread, so it only hands the batch over. */
+    private void onVerdicts(List<MovePipeline.Submission> batch) {
+        verdicts.addAll(batch);
+        selector.wakeup();
+    }
+
+    /** Sends out the verdicts the pipeline has reached since the last pass. */
+    private void drainVerdicts() {
+        MovePipeline.Submission s;
+        while ((s = verdicts.poll()) != null) {
+            HostedSession hosted = sessionsById.get(s.getSessionId());
+            if (hosted == null || hosted.lane != s.getLane()) {
+                continue; // the session was dropped while the move was in flight
+            }
+            Connection mover = hosted.movers.poll();
+            if (s.isAccepted()) {
+                hosted.plies = s.getPly();
+                if (journal != null) {
+                    journal.recordMove(hosted.sessionId, s.getMove());
+                    if (s.getOutcome() != GameOutcome.IN_PROGRESS) {
+                        journal.recordResult(hosted.sessionId, s.getOutcome().name());
+                        hosted.finished = true;
+                    }
+                }
+                broadcast(hosted, new ServerProtocol.FrameWriter(ServerProtocol.MOVED)
+                        .putInt(hosted.handle).putInt(s.getPly() - 1).putByte(s.getSeat()).putInt(s.getMove())
+                        .frame());
+            } else if (mover != null) {
+                sendError(mover, ServerProtocol.MOVE, "Move " + s.getMove() + " rejected: " + s.getVerdict());
+            }
+        }
+    }
+
+    /** Stops hosting the sessions the registry has evicted since the last pass. */
+    private void drainEvictions() {
+        GameSession session;
+        while ((session = evictions.poll()) != null) {
+            for (HostedSession hosted : sessionsById.values()) {
+                if (hosted.session == session) {
+                    Match match = hosted.session.getMatch();
+                    for (int seat = 0; seat < 2; seat++) {
+                        if (hosted.seats[seat] != null) {
+                            String playerId = (seat == 0 ? match.getPlayer1() : match.getPlayer2()).getId();
+                            broadcast(hosted, new ServerProtocol.FrameWriter(ServerProtocol.LEFT)
+                                    .putInt(hosted.handle).putString(playerId).frame());
+                        }
+                    }
+                    drop(hosted);
+                    break;
+                }
+            }
+        }
+    }
+
+    // ------------- helpers -------------
+
+    /** The session 'handle' if 'c' holds a seat in it; otherwise answers with ERROR and returns null. */
+    private HostedSession seated(Connection c, int handle, byte op) {
+        HostedSession hosted = c.seats.containsKey(handle) ? sessionsByHandle.get(handle) : null;
+        if (hosted == null) {
+            sendError(c, op, "Not seated in session " + handle);
+        }
+        return hosted;
+    }
+
+    /** Frees every seat 'c' holds in 'hosted', tells the other seat, and drops the session once it is empty. */
+    private void vacate(Connection c, HostedSession hosted) {
+        c.seats.remove(hosted.handle);
+        Match match = hosted.session.getMatch();
+        for (int seat = 0; seat < 2; seat++) {
+            if (hosted.seats[seat] != c) {
+                continue;
+            }
+            hosted.seats[seat] = null;
+            String playerId = (seat == 0 ? match.getPlayer1() : match.getPlayer2()).getId();
+            broadcast(hosted, new ServerProtocol.FrameWriter(ServerProtocol.LEFT)
+                    .putInt(hosted.handle).putString(playerId).frame());
+        }
+        if (hosted.isEmpty()) {
+            drop(hosted);
+            registry.remove(hosted.sessionId);
+        }
+    }
+
+    /** Stops hosting 'hosted'; a game without a result is journaled as ABANDONED. */
+    private void drop(HostedSession hosted) {
+        sessionsById.remove(hosted.sessionId);
+        sessionsByHandle.remove(hosted.handle);
+        pipeline.close(hosted.lane);
+        for (Connection seated : hosted.seats) {
+            if (seated != null) {
+                seated.seats.remove(hosted.handle);
+            }
+        }
+        if (journal != null && !hosted.finished) {
+            journal.recordResult(hosted.sessionId, ABANDONED);
+            hosted.finished = true;
+        }
+    }
+
+    private static boolean sameMatch(Match a, Match b) {
+        return a.getGameType() == b.getGameType()
+                && a.getPlayer1().equals(b.getPlayer1())
+                && a.getPlayer2().equals(b.getPlayer2());
+    }
+
+    private void broadcast(HostedSession hosted, byte[] frame) {
+        Connection first = hosted.seats[0];
+        Connection second = hosted.seats[1];
+        if (first != null) {
+            send(first, frame);
+        }
+        if (second != null && second != first) {
+            send(second, frame);
+        }
+    }
+
+    private void sendError(Connection c, byte op, String message) {
+        send(c, new ServerProtocol.FrameWriter(ServerProtocol.ERROR)
+                .putByte(op).putString(String.valueOf(message)).frame());
+    }
+
+    /** Queues 'frame' and writes as much as the socket takes right now. */
+    private void send(Connection c, byte[] frame) {
+        if (!c.key.isValid()) {
+            return;
+        }
+        c.out.add(ByteBuffer.wrap(frame));
+        c.pendingBytes += frame.length;
+        try {
+            flush(c);
+        } catch (IOException e) {
+            disconnect(c);
+        }
+    }
+
+    private void flush(Connection c) throws IOException {
+        while (!c.out.isEmpty()) {
+            ByteBuffer head = c.out.peek();
+            c.pendingBytes -= c.channel.write(head);
+            if (head.hasRemaining()) {
+                break;
+            }
+            c.out.poll();
+        }
+        if (c.pendingBytes > MAX_PENDING_BYTES) {
+            throw new IOException("Client is not reading");
+        }
+        int ops = c.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (c.key.interestOps() != ops) {
+            c.key.interestOps(ops);
+        }
+    }
+
+    private void disconnect(Connection c) {
+        if (!c.key.isValid() && !c.channel.isOpen()) {
+            return;
+        }
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        connectionCount--;
+        for (Integer handle : c.seats.keySet().toArray(new Integer[0])) {
+            HostedSession hosted = sessionsByHandle.get(handle);
+            if (hosted != null) {
+                vacate(c, hosted);
+            }
+        }
+    }
+
+    private synchronized void shutdown() {
+        if (!selector.isOpen()) {
+            return;
+        }
+        pipeline.close();
+        registry.removeEvictionListener(onEvicted);
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        for (String sessionId : sessionsById.keySet()) {
+            registry.remove(sessionId);
+        }
+        sessionsById.clear();
+        sessionsByHandle.clear();
+        connectionCount = 0;
+    }
+}
@@ -0,0 +1,337 @@
+package server;
+
+import game_logic.Game;
+import game_logic.GameOutcome;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Validates and applies moves from many sessions in ticks instead of one
+ * thread hop per move.
+ *
+ * Each session registers its Game and gets a Lane. Producers (connection
+ * threads) submit() moves into one lock-free queue. Every tick drains the
+ * queue, groups the moves by lane in arrival order, and validates the lanes
+ * in parallel on a ForkJoinPool, LANES_PER_TASK lanes per task. One task
+ * plays all of a lane's moves in order and ticks never overlap, so
+ * per-session order is kept and a Game is never touched by two threads at
+ * once. The tick's moves, with their verdicts, then go to every stage (e.g.
+ * network fan-out, then the journal) as one batch, in lane order.
+ *
+ * Seats are numbered as in Game: seat 0 moves first. submit() refuses moves
+ * once DEFAULT_MAX_PENDING (or the configured limit) are waiting, like a
+ * full SessionActor mailbox.
+ */
+public final class MovePipeline implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MILLIS = 2;
+    public static final int DEFAULT_MAX_PENDING = 1 << 16;
+    /** Lanes per fork-join leaf task; smaller ticks are validated inline. */
+    static final int LANES_PER_TASK = 64;
+
+    public enum Verdict {
+        ACCEPTED,
+        NOT_YOUR_TURN,
+        /** Not legal in the position, including any move after the game ended. */
+        ILLEGAL,
+        /** The lane was closed before the move was validated. */
+        SESSION_CLOSED
+    }
+
+    /** One session's game inside the pipeline. */
+    public static final class Lane {
+        private final String sessionId;
+        private final Game game;
+        private volatile boolean closed;
+        /** This tick's moves; touched by the tick thread and the one task validating the lane. */
+        private final List<Submission> pending = new ArrayList<>();
+
+        private Lane(String sessionId, Game game) {
+            this.sessionId = sessionId;
+            this.game = game;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    /** A submitted move; the verdict fields are filled in by the tick that validates it. */
+    public static final class Submission {
+        private final Lane lane;
+        private final int seat;
+        private final int move;
+        private final long submittedNanos;
+        private Verdict verdict;
+        private int ply;
+        private GameOutcome outcome;
+
+        private Submission(Lane lane, int seat, int move, long submittedNanos) {
+            this.lane = lane;
+            this.seat = seat;
+            this.move = move;
+            this.submittedNanos = submittedNanos;
+        }
+
+        public String getSessionId() {
+            return lane.sessionId;
+        }
+
+        public Lane getLane() {
+            return lane;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int getMove() {
+            return move;
+        }
+
+        /** System.nanoTime() at submit(), for latency accounting. */
+        public long getSubmittedNanos() {
+            return submittedNanos;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        public boolean isAccepted() {
+            return verdict == Verdict.ACCEPTED;
+        }
+
+        /** The game's ply count after this move; -1 unless accepted. */
+        public int getPly() {
+            return ply;
+        }
+
+        /** The game's outcome after this move; null unless accepted. */
+        public GameOutcome getOutcome() {
+            return outcome;
+        }
+
+        @Override
+        public String toString() {
+            return "Submission{" + lane.sessionId + ", seat=" + seat + ", move=" + move + ", " + verdict + '}';
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final long tickMillis;
+    private final int maxPending;
+    private final ConcurrentLinkedQueue<Submission> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final List<Consumer<List<Submission>>> stages = new CopyOnWriteArrayList<>();
+    private final Object tickLock = new Object();
+    /** Lanes with moves this tick; tick thread only. */
+    private final List<Lane> active = new ArrayList<>();
+    private ScheduledExecutorService ticker;
+
+    /** The common fork-join pool, DEFAULT_TICK_MILLIS and DEFAULT_MAX_PENDING. */
+    public MovePipeline() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TICK_MILLIS, DEFAULT_MAX_PENDING);
+    }
+
+    public MovePipeline(ForkJoinPool pool, long tickMillis, int maxPending) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        if (tickMillis <= 0 || maxPending <= 0) {
+            throw new IllegalArgumentException("tickMillis and maxPending must be > 0");
+        }
+        this.tickMillis = tickMillis;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Adds a session. From now on 'game' belongs to the pipeline: read or
+     * change it only from a stage, which runs between validations.
+     */
+    public Lane register(String sessionId, Game game) {
+        return new Lane(Objects.requireNonNull(sessionId, "sessionId"), Objects.requireNonNull(game, "game"));
+    }
+
+    /** Ends a session; its moves still queued come out as SESSION_CLOSED. */
+    public void close(Lane lane) {
+        lane.closed = true;
+    }
+
+    /** Adds a stage that receives every tick's batch, after the stages added before it. */
+    public void addStage(Consumer<List<Submission>> stage) {
+        stages.add(Objects.requireNonNull(stage, "stage"));
+    }
+
+    /**
+     * Queues 'move' for 'seat' of 'lane'. Returns false, without blocking, if
+     * the lane is closed or too many moves are waiting; callers should then
+     * reject the player's action.
+     */
+    public boolean submit(Lane lane, int seat, int move) {
+        Objects.requireNonNull(lane, "lane");
+        if (seat != 0 && seat != 1) {
+            throw new IllegalArgumentException("seat must be 0 or 1");
+        }
+        if (lane.closed) {
+            return false;
+        }
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            return false;
+        }
+        queue.add(new Submission(lane, seat, move, System.nanoTime()));
+        return true;
+    }
+
+    /** Moves submitted and not yet drained by a tick. */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /** Runs tick() every tickMillis on a daemon thread. */
+    public synchronized MovePipeline start() {
+        if (ticker != null) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "move-pipeline");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Validates everything submitted so far and hands the batch to the
+     * stages. Returns the number of moves in the batch. start() calls this
+     * on a timer; tests and benchmarks may call it directly.
+     */
+    public int tick() {
+        synchronized (tickLock) {
+            // bounded, so a tick ends even while producers keep submitting
+            for (int n = pendingCount.get(); n > 0; n--) {
+                Submission s = queue.poll();
+                if (s == null) {
+                    break;
+                }
+                pendingCount.decrementAndGet();
+                if (s.lane.pending.isEmpty()) {
+                    active.add(s.lane);
+                }
+                s.lane.pending.add(s);
+            }
+            if (active.isEmpty()) {
+                return 0;
+            }
+            Lane[] lanes = active.toArray(new Lane[0]);
+            active.clear();
+            if (lanes.length <= LANES_PER_TASK) {
+                validate(lanes, 0, lanes.length);
+            } else {
+                pool.invoke(new ValidateTask(lanes, 0, lanes.length));
+            }
+
+            List<Submission> batch = new ArrayList<>();
+            for (Lane lane : lanes) {
+                batch.addAll(lane.pending);
+                lane.pending.clear();
+            }
+            batch = Collections.unmodifiableList(batch);
+            for (Consumer<List<Submission>> stage : stages) {
+                try {
+                    stage.accept(batch);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            return batch.size();
+        }
+    }
+
+    /** Stops the timer and runs a last tick for what is still queued. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (ticker != null) {
+                ticker.shutdownNow();
+                try {
+                    ticker.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        tick();
+    }
+
+    // ------------- helpers -------------
+
+    private static final class ValidateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Lane[] lanes;
+        private final int from;
+        private final int to;
+
+        ValidateTask(Lane[] lanes, int from, int to) {
+            this.lanes = lanes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LANES_PER_TASK) {
+                validate(lanes, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ValidateTask(lanes, from, mid), new ValidateTask(lanes, mid, to));
+        }
+    }
+
+    private static void validate(Lane[] lanes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Lane lane = lanes[i];
+            Game game = lane.game;
+            for (Submission s : lane.pending) {
+                s.ply = -1;
+                if (lane.closed) {
+                    s.verdict = Verdict.SESSION_CLOSED;
+                } else if (game.getOutcome() != GameOutcome.IN_PROGRESS) {
+                    s.verdict = Verdict.ILLEGAL;
+                } else if (s.seat != game.getSideToMove()) {
+                    s.verdict = Verdict.NOT_YOUR_TURN;
+                } else if (!game.apply(s.move)) {
+                    s.verdict = Verdict.ILLEGAL;
+                } else {
+                    s.verdict = Verdict.ACCEPTED;
+                    s.ply = game.getPlyCount();
+                    s.outcome = game.getOutcome();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package server;
+
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Wire format between GameClient and GameServer.
+ *
+ * Every message is a frame: an int payload length (big-endian, at most
+ * MAX_FRAME) followed by the payload, whose first byte is the opcode.
+ * Strings are DataOutput UTF; a player is (id, name, int rating).
+ *
+ * Client to server:
+ *   OPEN   sessionId, gameType byte, player1, player2, self id -> JOINED or ERROR
+ *   MOVE   int handle, int move          -> MOVED to every member, or ERROR
+ *   CHAT   int handle, text              -> CHAT_MESSAGE to every member
+ *   LEAVE  int handle                    -> LEFT to the remaining members
+ *   PING   long token                    -> PONG token
+ *
+ * Server to client:
+ *   JOINED        int handle, int plies so far
+ *   MOVED         int handle, int ply, byte player index (0 or 1), int move
+ *   CHAT_MESSAGE  int handle, sender name, text
+ *   LEFT          int handle, player id; also sent, with its own player id,
+ *                 to a connection whose seat a later OPEN took over
+ *   PONG          long token
+ *   ERROR         byte opcode of the failed request, message
+ *
+ * Moves are the game_logic.MoveCodes encodings; the server plays each one
+ * on its own copy of the game and sends ERROR for a move that is out of
+ * turn or illegal.
+ */
+final class ServerProtocol {
+
+    /** Largest payload either side accepts; a bigger length prefix closes the connection. */
+    static final int MAX_FRAME = 16 * 1024;
+
+    static final byte OPEN = 1;
+    static final byte MOVE = 2;
+    static final byte CHAT = 3;
+    static final byte LEAVE = 4;
+    static final byte PING = 5;
+
+    static final byte JOINED = 101;
+    static final byte MOVED = 102;
+    static final byte CHAT_MESSAGE = 103;
+    static final byte LEFT = 104;
+    static final byte PONG = 105;
+    static final byte ERROR = 127;
+
+    private static final GameType[] GAME_TYPES = GameType.values();
+
+    private ServerProtocol() {
+    }
+
+    /**
+     * Builds one frame. The in-memory stream cannot fail, so the put methods
+     * do not throw IOException.
+     */
+    static final class FrameWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        FrameWriter(byte opcode) {
+            putInt(0); // length, patched in frame()
+            putByte(opcode);
+        }
+
+        FrameWriter putByte(int value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return this;
+        }
+
+        FrameWriter putInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return this;
+        }
+
+        FrameWriter putLong(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return this;
+        }
+
+        FrameWriter putString(String value) {
+            try {
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return this;
+        }
+
+        FrameWriter putPlayer(Player player) {
+            return putString(player.getId()).putString(player.getName()).putInt(player.getRating());
+        }
+
+        FrameWriter putMatch(Match match) {
+            return putByte(match.getGameType().ordinal())
+                    .putPlayer(match.getPlayer1())
+                    .putPlayer(match.getPlayer2());
+        }
+
+        /** The complete frame, length prefix included. */
+        byte[] frame() {
+            byte[] frame = bytes.toByteArray();
+            int length = frame.length - 4;
+            if (length > MAX_FRAME) {
+                throw new IllegalArgumentException("Frame too large: " + length + " bytes");
+            }
+            frame[0] = (byte) (length >>> 24);
+            frame[1] = (byte) (length >>> 16);
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+            return frame;
+        }
+    }
+
+    static Player readPlayer(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String name = in.readUTF();
+        return new Player(id, name, in.readInt());
+    }
+
+    static Match readMatch(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= GAME_TYPES.length) {
+            throw new IOException("Unknown game type " + ordinal);
+        }
+        return new Match(GAME_TYPES[ordinal], readPlayer(in), readPlayer(in));
+    }
+}
@@ -88,4 +88,21 @@ public class TicTacToeBoardTest {
         }
         assertFalse(board.isFull());
     }
+
+    @Test
+    public void getSnapshot_copiesCellsRowMajor() {
+        TicTacToeBoard board = new TicTacToeBoard(4, 3, 3);
+        board.takeMove(new TicTacToeMove(TicTacToePlayer.X, 3, 0)); // x = col, y = row
+        board.takeMove(new TicTacToeMove(TicTacToePlayer.O, 0, 2));
+
+        TicTacToePlayer[][] snapshot = board.getSnapshot();
+        assertEquals(3, snapshot.length);
+        assertEquals(4, snapshot[0].length);
+        assertEquals(TicTacToePlayer.X, snapshot[0][3]);
+        assertEquals(TicTacToePlayer.O, snapshot[2][0]);
+        assertNull(snapshot[1][1]);
+
+        snapshot[1][1] = TicTacToePlayer.X; // a copy: the board is unaffected
+        assertNull(board.getPlayerAt(1, 1));
+    }
 }
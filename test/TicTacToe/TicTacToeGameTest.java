@@ -86,4 +86,50 @@ public class TicTacToeGameTest {
             }
         }
     }
+
+    @Test
+    public void gomoku_detectsFiveInARowOnDiagonal() {
+        TicTacToeGame game = new TicTacToeGame(15, 15, 5);
+
+        // X builds a diagonal from (3,3) to (7,7); O plays along the top row
+        for (int i = 0; i < 4; i++) {
+            assertTrue(game.playMove(3 + i, 3 + i)); // X
+            assertTrue(game.playMove(i, 0));         // O
+        }
+        assertEquals(TicTacToeGameResult.IN_PROGRESS, game.getResult());
+
+        assertTrue(game.playMove(7, 7)); // X completes five
+        assertEquals(TicTacToeGameResult.X_WINS, game.getResult());
+    }
+
+    @Test
+    public void connectK_winCanBeCompletedInTheMiddleOfTheLine() {
+        TicTacToeGame game = new TicTacToeGame(7, 4, 4);
+
+        game.playMove(0, 3); // X
+        game.playMove(0, 0); // O
+        game.playMove(1, 3); // X
+        game.playMove(1, 0); // O
+        game.playMove(3, 3); // X
+        game.playMove(2, 0); // O
+        assertEquals(TicTacToeGameResult.IN_PROGRESS, game.getResult());
+
+        game.playMove(2, 3); // X fills the gap: (0..3, 3)
+        assertEquals(TicTacToeGameResult.X_WINS, game.getResult());
+    }
+
+    @Test
+    public void nonSquareBoard_acceptsMovesInEveryCell() {
+        TicTacToeGame game = new TicTacToeGame(4, 2, 4);
+        assertEquals(4, game.getBoard().getWidth());
+        assertEquals(2, game.getBoard().getHeight());
+
+        // X O X O / O X O X: no four in a row anywhere
+        int[][] moves = { {0, 0}, {1, 0}, {2, 0}, {3, 0}, {1, 1}, {0, 1}, {3, 1}, {2, 1} };
+        for (int[] m : moves) {
+            assertTrue(game.playMove(m[0], m[1]));
+        }
+        assertFalse(game.playMove(4, 0));
+        assertEquals(TicTacToeGameResult.DRAW, game.getResult());
+    }
 }
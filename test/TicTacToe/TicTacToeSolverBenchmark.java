@@ -0,0 +1,84 @@
+package TicTacToe;
+
+import TicTacToe_Logic.TicTacToeSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Throughput benchmark for TicTacToeSolver (not a JUnit test).
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out TicTacToe.TicTacToeSolverBenchmark
+ */
+public class TicTacToeSolverBenchmark {
+
+    public static void main(String[] args) {
+        benchmarkClassicTable();
+        benchmarkAlphaBeta(4, 4, 4);
+        benchmarkAlphaBeta(4, 4, 3);
+    }
+
+    /** Table lookups over random reachable 3x3 positions. */
+    private static void benchmarkClassicTable() {
+        long start = System.nanoTime();
+        TicTacToeSolver.classicValue(0, 0); // forces the table to be built
+        long buildNanos = System.nanoTime() - start;
+
+        int[][] positions = randomClassicPositions(4096, new Random(1));
+        int lookups = 20_000_000;
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            int[] p = positions[i & (positions.length - 1)];
+            checksum += TicTacToeSolver.classicBestMove(p[0], p[1]);
+        }
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("3x3 table: built %d positions in %.2f ms, %.1f M lookups/sec (checksum %d)%n",
+                TicTacToeSolver.classicPositionCount(), buildNanos / 1e6,
+                lookups / (nanos / 1e9) / 1e6, checksum);
+    }
+
+    /** Full solve of the empty board, then best-move queries on the warmed transposition table. */
+    private static void benchmarkAlphaBeta(int width, int height, int k) {
+        TicTacToeSolver solver = new TicTacToeSolver(width, height, k);
+        long start = System.nanoTime();
+        int value = solver.solve(0, 0);
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%dx%d k=%d: value %d, %d nodes in %.1f ms (%.1f M nodes/sec)%n",
+                width, height, k, value, solver.getNodeCount(), nanos / 1e6,
+                solver.getNodeCount() / (nanos / 1e9) / 1e6);
+
+        int queries = 10_000;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            solver.bestMove(0, 0);
+        }
+        nanos = System.nanoTime() - start;
+        System.out.printf("%dx%d k=%d: %.0f best-move queries/sec from the empty board%n",
+                width, height, k, queries / (nanos / 1e9));
+    }
+
+    private static int[][] randomClassicPositions(int count, Random random) {
+        List<int[]> result = new ArrayList<>();
+        while (result.size() < count) {
+            int x = 0;
+            int o = 0;
+            int plies = random.nextInt(9);
+            for (int ply = 0; ply < plies; ply++) {
+                if (TicTacToeSolver.classicBestMove(x, o) == TicTacToeSolver.NO_MOVE) break;
+                int empty = ~(x | o) & 0x1FF;
+                int cell;
+                do {
+                    cell = random.nextInt(9);
+                } while ((empty & (1 << cell)) == 0);
+                if (ply % 2 == 0) x |= 1 << cell;
+                else o |= 1 << cell;
+            }
+            result.add(new int[] { x, o });
+        }
+        return result.toArray(new int[0][]);
+    }
+}
@@ -0,0 +1,97 @@
+package TicTacToe;
+
+import org.junit.Test;
+
+import TicTacToe_Logic.TicTacToeGame;
+import TicTacToe_Logic.TicTacToeMove;
+import TicTacToe_Logic.TicTacToeSolver;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TicTacToeSolverTest {
+
+    private static int bit(int row, int col) {
+        return 1 << (row * 3 + col);
+    }
+
+    @Test
+    public void classicTable_emptyBoardIsADraw() {
+        assertEquals(TicTacToeSolver.DRAW, TicTacToeSolver.classicValue(0, 0));
+        // 5478 legal positions are reachable in 3x3 tic-tac-toe
+        assertEquals(5478, TicTacToeSolver.classicPositionCount());
+    }
+
+    @Test
+    public void classicTable_takesImmediateWin() {
+        // X on (0,0),(0,1); O on (1,0),(1,1); X to move wins at (0,2)
+        int x = bit(0, 0) | bit(0, 1);
+        int o = bit(1, 0) | bit(1, 1);
+        assertEquals(TicTacToeSolver.WIN, TicTacToeSolver.classicValue(x, o));
+        assertEquals(2, TicTacToeSolver.classicBestMove(x, o));
+    }
+
+    @Test
+    public void classicTable_finishedGameHasNoMove() {
+        int x = bit(0, 0) | bit(0, 1) | bit(0, 2);
+        int o = bit(1, 0) | bit(1, 1);
+        assertEquals(TicTacToeSolver.LOSS, TicTacToeSolver.classicValue(x, o)); // O to move, X has won
+        assertEquals(TicTacToeSolver.NO_MOVE, TicTacToeSolver.classicBestMove(x, o));
+    }
+
+    @Test
+    public void alphaBeta_agreesWithTableOnEveryReachablePosition() {
+        TicTacToeSolver solver = new TicTacToeSolver(3, 3, 3);
+        Set<Integer> seen = new HashSet<>();
+        checkAll(solver, 0, 0, seen);
+        assertEquals(TicTacToeSolver.classicPositionCount(), seen.size());
+    }
+
+    private void checkAll(TicTacToeSolver solver, int x, int o, Set<Integer> seen) {
+        if (!seen.add(x << 9 | o)) return;
+        assertEquals(TicTacToeSolver.classicValue(x, o), solver.solve(x, o));
+        int full = 0x1FF;
+        boolean xToMove = Integer.bitCount(x) == Integer.bitCount(o);
+        if (solver.getLayout().isWin(x) || solver.getLayout().isWin(o) || (x | o) == full) return;
+        for (int cell = 0; cell < 9; cell++) {
+            if (((x | o) & (1 << cell)) != 0) continue;
+            if (xToMove) checkAll(solver, x | (1 << cell), o, seen);
+            else checkAll(solver, x, o | (1 << cell), seen);
+        }
+    }
+
+    @Test
+    public void alphaBeta_solves4x4AsADraw() {
+        TicTacToeSolver solver = new TicTacToeSolver(4, 4, 4);
+        assertEquals(TicTacToeSolver.DRAW, solver.solve(0, 0));
+    }
+
+    @Test
+    public void alphaBeta_4x4WithThreeInARowIsAFirstPlayerWin() {
+        TicTacToeSolver solver = new TicTacToeSolver(4, 4, 3);
+        assertEquals(TicTacToeSolver.WIN, solver.solve(0, 0));
+    }
+
+    @Test
+    public void bestMove_blocksOpponentThroughGameApi() {
+        TicTacToeGame game = new TicTacToeGame();
+        game.playMove(0, 0); // X
+        game.playMove(1, 1); // O
+        game.playMove(1, 0); // X threatens (2,0)
+
+        TicTacToeMove move = new TicTacToeSolver(3, 3, 3).bestMove(game);
+        assertEquals(2, move.getX());
+        assertEquals(0, move.getY());
+    }
+
+    @Test
+    public void bestMove_refusesAGameWithAnotherWinLength() {
+        TicTacToeGame game = new TicTacToeGame(4, 4, 4);
+        game.playMove(0, 0);
+
+        assertNull(new TicTacToeSolver(4, 4, 3).bestMove(game));
+        assertNotNull(new TicTacToeSolver(4, 4, 4).bestMove(game));
+    }
+}
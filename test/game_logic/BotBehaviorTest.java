@@ -0,0 +1,70 @@
+package game_logic;
+
+import matchmaking.BotPlayers;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+import matchmaking.SessionCommand;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BotBehaviorTest {
+
+    private static final Player HUMAN = new Player("h", "Human", 1500);
+
+    @Test
+    public void maxLevelBotNeverLosesToRandomMoves() {
+        Random random = new Random(3);
+        Player bot = BotPlayers.create(GameType.TIC_TAC_TOE, 3000, 1);
+        assertEquals(BotPlayers.MAX_LEVEL, BotPlayers.levelOf(bot));
+        for (int round = 0; round < 200; round++) {
+            Match match = round % 2 == 0
+                    ? new Match(GameType.TIC_TAC_TOE, HUMAN, bot)
+                    : new Match(GameType.TIC_TAC_TOE, bot, HUMAN);
+            Game game = Games.create(GameType.TIC_TAC_TOE);
+            List<Integer> seats = new ArrayList<>();
+            BotBehavior behavior = new BotBehavior(match, game, (ply, seat, move) -> {
+                assertEquals(seats.size(), ply);
+                seats.add(seat);
+            }, random);
+            int human = 1 - behavior.getBotSeat();
+            int[] legal = new int[game.getMaxMoves()];
+            boolean over = false;
+            while (!over) {
+                assertEquals(human, game.getSideToMove());
+                int move = legal[random.nextInt(game.legalMoves(legal))];
+                over = behavior.handle(null, SessionCommand.move(human, move));
+            }
+            GameOutcome humanWins = human == 0 ? GameOutcome.FIRST_PLAYER_WINS : GameOutcome.SECOND_PLAYER_WINS;
+            assertNotEquals(humanWins, game.getOutcome());
+            assertEquals(game.getPlyCount(), seats.size());
+        }
+    }
+
+    @Test
+    public void movesOutOfTurnOrIllegalAreIgnored() {
+        Player bot = BotPlayers.create(GameType.TIC_TAC_TOE, 3000, 1);
+        Game game = Games.create(GameType.TIC_TAC_TOE);
+        BotBehavior behavior = new BotBehavior(new Match(GameType.TIC_TAC_TOE, HUMAN, bot), game,
+                (ply, seat, move) -> { }, new Random(1));
+
+        assertFalse(behavior.handle(null, SessionCommand.move(1, 4)));
+        assertFalse(behavior.handle(null, SessionCommand.move(0, 9)));
+        assertEquals(0, game.getPlyCount());
+
+        assertFalse(behavior.handle(null, SessionCommand.move(0, 4)));
+        assertEquals(2, game.getPlyCount());
+        assertTrue(behavior.handle(null, SessionCommand.resign(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void matchesWithoutABotAreRejected() {
+        new BotBehavior(new Match(GameType.TIC_TAC_TOE, HUMAN, new Player("o", "Other", 1500)),
+                Games.create(GameType.TIC_TAC_TOE), (ply, seat, move) -> { }, new Random(1));
+    }
+}
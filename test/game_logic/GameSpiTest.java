@@ -0,0 +1,164 @@
+package game_logic;
+
+import go_logic.GoGame;
+import go_logic.StoneColor;
+import matchmaking.GameType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class GameSpiTest {
+
+    @Test
+    public void randomGamesUndoToTheSamePositionsAsAFreshReplay() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (GameType type : GameType.values()) {
+            for (int round = 0; round < 5; round++) {
+                Game game = type == GameType.TIC_TAC_TOE
+                        ? Games.create(type, 5, 5, 4) : Games.create(type);
+                int[] legal = new int[game.getMaxMoves()];
+                while (game.getOutcome() == GameOutcome.IN_PROGRESS && game.getPlyCount() < 80) {
+                    int n = game.legalMoves(legal);
+                    assertTrue(type + ": no legal move while in progress", n > 0);
+                    int move = legal[random.nextInt(n)];
+                    // keep Go going: pass only when nothing else is left
+                    if (move == MoveCodes.GO_PASS && n > 1) {
+                        move = legal[0];
+                    }
+                    assertTrue(game.isLegal(move));
+                    assertTrue(type + ": " + move, game.apply(move));
+
+                    // a probe move and its take-back must leave no trace
+                    int[] cells = game.cells();
+                    int[] before = legalSet(game, legal);
+                    int probes = game.legalMoves(legal);
+                    if (probes > 0) {
+                        assertTrue(game.apply(legal[random.nextInt(probes)]));
+                        assertTrue(game.undo());
+                        assertArrayEquals(cells, game.cells());
+                        assertArrayEquals(before, legalSet(game, legal));
+                    }
+                }
+                int[] finalCells = game.cells();
+                GameOutcome outcome = game.getOutcome();
+
+                Game replayed = Games.deserialize(game.serialize());
+                assertEquals(type, replayed.getType());
+                assertEquals(game.getPlyCount(), replayed.getPlyCount());
+                assertArrayEquals(finalCells, replayed.cells());
+                assertEquals(outcome, replayed.getOutcome());
+
+                // walk the whole game back, comparing with a fresh replay at each ply
+                while (game.getPlyCount() > 0) {
+                    assertTrue(game.undo());
+                    Game fresh = Games.create(type, game.getWidth(), game.getHeight(),
+                            type == GameType.TIC_TAC_TOE ? 4 : 0);
+                    for (int ply = 1; ply <= game.getPlyCount(); ply++) {
+                        assertTrue(fresh.apply(game.getMove(ply)));
+                    }
+                    assertArrayEquals(fresh.cells(), game.cells());
+                    assertArrayEquals(legalSet(fresh, legal), legalSet(game, legal));
+                    assertEquals(fresh.getSideToMove(), game.getSideToMove());
+                }
+                assertFalse(game.undo());
+            }
+        }
+    }
+
+    @Test
+    public void outcomesAreReportedByWhoMovedFirst() {
+        Game chess = Games.create(GameType.CHESS);
+        // fool's mate: f3 e5 g4 Qh4#
+        int[] moves = {
+                MoveCodes.chess(5, 1, 5, 2), MoveCodes.chess(4, 6, 4, 4),
+                MoveCodes.chess(6, 1, 6, 3), MoveCodes.chess(3, 7, 7, 3)};
+        for (int move : moves) {
+            assertTrue(chess.apply(move));
+        }
+        assertEquals(GameOutcome.SECOND_PLAYER_WINS, chess.getOutcome());
+        assertEquals(0, chess.legalMoves(new int[chess.getMaxMoves()]));
+        assertTrue(chess.undo());
+        assertEquals(GameOutcome.IN_PROGRESS, chess.getOutcome());
+        assertEquals(1, chess.getSideToMove());
+
+        Game ticTacToe = Games.create(GameType.TIC_TAC_TOE);
+        for (int move : new int[] {0, 3, 1, 4, 2}) {
+            assertTrue(ticTacToe.apply(move));
+        }
+        assertEquals(GameOutcome.FIRST_PLAYER_WINS, ticTacToe.getOutcome());
+        assertFalse(ticTacToe.isLegal(5));
+        assertFalse(ticTacToe.apply(5));
+
+        Game go = Games.create(GameType.GO);
+        assertTrue(go.apply(MoveCodes.GO_PASS));
+        assertTrue(go.apply(MoveCodes.GO_PASS));
+        assertEquals(GameOutcome.DRAW, go.getOutcome());
+        assertTrue(go.undo());
+        assertEquals(GameOutcome.IN_PROGRESS, go.getOutcome());
+    }
+
+    @Test
+    public void goUndoRestoresCapturesAndKo() {
+        Game go = Games.create(GameType.GO, 5, 5, 0);
+        GoGame engine = ((GoGameAdapter) go).getGame();
+        // white's stone at (1,1) is left with one liberty; black takes it from
+        // (1,2), which leaves a ko that white may not retake at once
+        int[][] stones = {{0, 1}, {0, 2}, {1, 0}, {2, 2}, {2, 1}, {1, 3}, {4, 4}, {1, 1}};
+        for (int[] s : stones) {
+            assertTrue(go.apply(MoveCodes.go(s[0], s[1], 5)));
+        }
+        int[] before = go.cells();
+        int capture = MoveCodes.go(1, 2, 5);
+        int retake = MoveCodes.go(1, 1, 5);
+        assertTrue(go.apply(capture));
+        assertEquals(1, engine.getCapturedStones(StoneColor.BLACK));
+        assertNull(engine.getBoard().getStone(1, 1));
+        assertFalse(go.isLegal(retake));
+
+        // passing lifts the ban; taking the pass back restores it
+        assertTrue(go.apply(MoveCodes.GO_PASS));
+        assertTrue(go.apply(MoveCodes.go(4, 0, 5)));
+        assertTrue(go.isLegal(retake));
+        assertTrue(go.undo());
+        assertTrue(go.undo());
+        assertFalse(go.isLegal(retake));
+
+        assertTrue(go.undo());
+        assertArrayEquals(before, go.cells());
+        assertEquals(StoneColor.WHITE, engine.getBoard().getStone(1, 1));
+        assertEquals(0, engine.getCapturedStones(StoneColor.BLACK));
+        assertEquals(StoneColor.BLACK, engine.getCurrentPlayer());
+        assertTrue(go.isLegal(capture));
+        assertFalse(go.isLegal(retake)); // occupied again
+    }
+
+    @Test
+    public void malformedSerializationIsRejected() {
+        Game game = Games.create(GameType.TIC_TAC_TOE);
+        game.apply(4);
+        byte[] bytes = game.serialize();
+        try {
+            Games.deserialize(Arrays.copyOf(bytes, bytes.length - 2));
+            fail("truncated data should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        bytes[bytes.length - 1] = 99; // off the board
+        try {
+            Games.deserialize(bytes);
+            fail("an illegal move should be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // ------------- helpers -------------
+
+    private static int[] legalSet(Game game, int[] buffer) {
+        int n = game.legalMoves(buffer);
+        int[] moves = Arrays.copyOf(buffer, n);
+        Arrays.sort(moves);
+        return moves;
+    }
+}
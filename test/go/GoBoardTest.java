@@ -0,0 +1,126 @@
+package go;
+
+import org.junit.Test;
+
+import go_logic.GoBoard;
+import go_logic.GoGame;
+import go_logic.IllegalMoveException;
+import go_logic.Point;
+import go_logic.StoneColor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GoBoardTest {
+
+    /** Sets up a ko where Black has just captured the White stone at (1,1) from (1,2). */
+    private static GoBoard koBoard() throws IllegalMoveException {
+        GoBoard b = new GoBoard(9);
+        b.playStone(1, 0, StoneColor.BLACK);
+        b.playStone(0, 1, StoneColor.BLACK);
+        b.playStone(2, 1, StoneColor.BLACK);
+        b.playStone(0, 2, StoneColor.WHITE);
+        b.playStone(2, 2, StoneColor.WHITE);
+        b.playStone(1, 3, StoneColor.WHITE);
+        b.playStone(1, 1, StoneColor.WHITE);
+        assertEquals(1, b.playStone(1, 2, StoneColor.BLACK).getCaptureCount());
+        return b;
+    }
+
+    @Test
+    public void immediateKoRecaptureIsIllegal() throws IllegalMoveException {
+        GoBoard b = koBoard();
+
+        assertEquals(new Point(1, 1), b.getKoPoint());
+        assertFalse(b.isLegal(1, 1, StoneColor.WHITE));
+        try {
+            b.playStone(1, 1, StoneColor.WHITE);
+            fail("Expected IllegalMoveException for ko recapture");
+        } catch (IllegalMoveException ex) {
+            assertTrue(ex.getMessage().contains("Ko"));
+        }
+
+        // After an exchange elsewhere White may retake
+        b.playStone(6, 6, StoneColor.WHITE);
+        b.playStone(7, 7, StoneColor.BLACK);
+        assertTrue(b.isLegal(1, 1, StoneColor.WHITE));
+        assertEquals(1, b.playStone(1, 1, StoneColor.WHITE).getCaptureCount());
+    }
+
+    @Test
+    public void passLiftsKoBan() throws IllegalMoveException {
+        GoGame game = new GoGame(9);
+        int[][] moves = { {1, 0}, {0, 2}, {0, 1}, {2, 2}, {2, 1}, {1, 3}, {8, 8}, {1, 1}, {1, 2} };
+        for (int[] m : moves) {
+            game.playMove(m[0], m[1]);
+        }
+        assertFalse(game.isLegalMove(1, 1)); // White to move, banned by ko
+        game.pass();                          // White passes
+        game.playMove(7, 7);                  // Black plays elsewhere
+        assertTrue(game.isLegalMove(1, 1));
+    }
+
+    @Test
+    public void suicidePointIsNotLegal() throws IllegalMoveException {
+        GoBoard b = new GoBoard(5);
+        b.playStone(0, 1, StoneColor.BLACK);
+        b.playStone(1, 0, StoneColor.BLACK);
+
+        assertFalse(b.isLegal(0, 0, StoneColor.WHITE));
+        assertTrue(b.isLegal(0, 0, StoneColor.BLACK));
+        assertFalse(b.isLegal(0, 1, StoneColor.BLACK)); // occupied
+        assertFalse(b.isLegal(-1, 0, StoneColor.BLACK)); // off-board
+    }
+
+    @Test
+    public void bitmapMatchesTrialPlacementThroughRandomGames() throws IllegalMoveException {
+        Random random = new Random(2024);
+        for (int game = 0; game < 10; game++) {
+            GoBoard board = new GoBoard(5);
+            List<int[]> history = new ArrayList<>();
+            StoneColor toMove = StoneColor.BLACK;
+            for (int ply = 0; ply < 40; ply++) {
+                assertBitmapMatchesTrial(board, history);
+                int r = random.nextInt(5);
+                int c = random.nextInt(5);
+                if (board.isLegal(r, c, toMove)) {
+                    board.playStone(r, c, toMove);
+                    history.add(new int[] { r, c, toMove.ordinal() });
+                    toMove = toMove.opposite();
+                }
+            }
+        }
+    }
+
+    private static void assertBitmapMatchesTrial(GoBoard board, List<int[]> history) {
+        for (StoneColor color : StoneColor.values()) {
+            for (int r = 0; r < board.getSize(); r++) {
+                for (int c = 0; c < board.getSize(); c++) {
+                    boolean expected;
+                    try {
+                        replay(board.getSize(), history).playStone(r, c, color);
+                        expected = true;
+                    } catch (IllegalMoveException ex) {
+                        expected = false;
+                    }
+                    assertEquals(color + " at " + r + "," + c, expected, board.isLegal(r, c, color));
+                }
+            }
+        }
+    }
+
+    private static GoBoard replay(int size, List<int[]> history) {
+        GoBoard b = new GoBoard(size);
+        try {
+            for (int[] m : history) {
+                b.playStone(m[0], m[1], StoneColor.values()[m[2]]);
+            }
+        } catch (IllegalMoveException ex) {
+            throw new AssertionError(ex);
+        }
+        return b;
+    }
+}
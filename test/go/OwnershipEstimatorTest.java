@@ -0,0 +1,68 @@
+package go;
+
+import org.junit.Test;
+
+import go_logic.GoBoard;
+import go_logic.GoGame;
+import go_logic.IllegalMoveException;
+import go_logic.OwnershipEstimator;
+import go_logic.OwnershipMap;
+import go_logic.Point;
+import go_logic.StoneColor;
+
+import static org.junit.Assert.*;
+
+public class OwnershipEstimatorTest {
+
+    /** Black walls off the left side, White the right side; one invader sits in each area. */
+    private static GoBoard walledBoard() throws IllegalMoveException {
+        GoBoard board = new GoBoard(9);
+        for (int r = 0; r < 9; r++) {
+            board.playStone(r, 2, StoneColor.BLACK);
+            board.playStone(r, 6, StoneColor.WHITE);
+        }
+        board.playStone(4, 0, StoneColor.WHITE); // invader in Black's area
+        board.playStone(4, 8, StoneColor.BLACK); // invader in White's area
+        return board;
+    }
+
+    @Test
+    public void invadingStonesAreMarkedDead() throws IllegalMoveException {
+        GoBoard board = walledBoard();
+        OwnershipMap map = new OwnershipEstimator(1000, 4, 42L).estimate(board, StoneColor.BLACK);
+
+        assertEquals(StoneColor.BLACK, map.getOwner(0, 0));
+        assertEquals(StoneColor.WHITE, map.getOwner(0, 8));
+        assertEquals(StoneColor.BLACK, map.getOwner(4, 0));
+        assertEquals(StoneColor.WHITE, map.getOwner(4, 8));
+
+        assertTrue(map.getDeadStones(board).contains(new Point(4, 0)));
+        assertTrue(map.getDeadStones(board).contains(new Point(4, 8)));
+        assertFalse(map.getDeadStones(board).contains(new Point(4, 2)));
+    }
+
+    @Test
+    public void estimateDoesNotModifyBoard() throws IllegalMoveException {
+        GoBoard board = walledBoard();
+        new OwnershipEstimator(200, 2, 7L).estimate(board, StoneColor.WHITE);
+
+        assertEquals(StoneColor.WHITE, board.getStone(4, 0));
+        assertTrue(board.isEmpty(0, 0));
+    }
+
+    @Test
+    public void estimateAdjudicatesWinnerAfterTwoPasses() throws IllegalMoveException {
+        GoGame game = new GoGame(7);
+        // Black claims five columns, White only the last two
+        for (int r = 0; r < 7; r++) {
+            game.playMove(r, 4);   // B
+            game.playMove(r, 5);   // W
+        }
+        game.pass();
+        game.pass();
+
+        game.estimateOwnership(new OwnershipEstimator(500, 2, 1L));
+        assertTrue(game.getDeadStones().isEmpty());
+        assertEquals(StoneColor.BLACK, game.getWinnerColor());
+    }
+}
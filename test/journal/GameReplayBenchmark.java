@@ -0,0 +1,77 @@
+package journal;
+
+import game_logic.MoveCodes;
+import go_logic.GoGame;
+import matchmaking.GameType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeking in a long Go game: replaying from move one vs. GameReplay (not a JUnit test).
+ *
+ * Plays one random PLIES-move game on a 19x19 board, then measures
+ *  - a full replay to a random ply through GoGame (what a review screen
+ *    does without checkpoints),
+ *  - GameReplay.Cursor.seek() to a random ply, and
+ *  - scrubbing: seek() one ply forward or back from the current one,
+ * for a few checkpoint intervals, plus the replay's build time and size.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out journal.GameReplayBenchmark
+ */
+public class GameReplayBenchmark {
+
+    private static final int SIZE = 19;
+    private static final int PLIES = 300;
+    private static final int SEEKS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        SplittableRandom random = new SplittableRandom(5);
+        int[] moves = new int[PLIES];
+        GoGame game = new GoGame(SIZE);
+        for (int ply = 0; ply < PLIES; ply++) {
+            int row;
+            int col;
+            do {
+                row = random.nextInt(SIZE);
+                col = random.nextInt(SIZE);
+            } while (!game.isLegalMove(row, col));
+            game.playMove(row, col);
+            moves[ply] = MoveCodes.go(row, col, SIZE);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int fullSeeks = SEEKS / 20;
+            for (int i = 0; i < fullSeeks; i++) {
+                int target = random.nextInt(PLIES + 1);
+                GoGame replay = new GoGame(SIZE);
+                for (int ply = 0; ply < target; ply++) {
+                    replay.playMove(moves[ply] / SIZE, moves[ply] % SIZE);
+                }
+            }
+            System.out.printf("replay from move one: %8.2f us/seek%n", (System.nanoTime() - start) / 1e3 / fullSeeks);
+
+            for (int interval : new int[] {8, 32, 128}) {
+                start = System.nanoTime();
+                GameReplay replay = GameReplay.of(GameType.GO, SIZE, SIZE, 0, moves, interval);
+                long built = System.nanoTime() - start;
+                GameReplay.Cursor cursor = replay.cursor();
+                start = System.nanoTime();
+                for (int i = 0; i < SEEKS; i++) {
+                    cursor.seek(random.nextInt(PLIES + 1));
+                }
+                long seek = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < SEEKS; i++) {
+                    int ply = cursor.getPly();
+                    cursor.seek(ply == PLIES || (ply > 0 && random.nextBoolean()) ? ply - 1 : ply + 1);
+                }
+                long scrub = System.nanoTime() - start;
+                int bytes = (PLIES / interval + 1) * SIZE * SIZE;
+                System.out.printf("interval %3d: build %6.2f ms, checkpoints %6d bytes, seek %6.2f us, scrub %5.3f us%n",
+                        interval, built / 1e6, bytes, seek / 1e3 / SEEKS, scrub / 1e3 / SEEKS);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package journal;
+
+import TicTacToe_Logic.TicTacToeGame;
+import chess_logic.ChessGame;
+import chess_logic.ChessMove;
+import chess_logic.GameStatus;
+import game_logic.BoardCells;
+import game_logic.MoveCodes;
+import go_logic.GoGame;
+import matchmaking.GameType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class GameReplayTest {
+
+    /** Cells after every ply of a random legal chess game, with its moves. */
+    private static List<int[]> randomChess(SplittableRandom random, int plies, List<Integer> moves) {
+        ChessGame game = new ChessGame();
+        List<int[]> boards = new ArrayList<>();
+        boards.add(BoardCells.chess(game.getBoardSnapshot()));
+        while (moves.size() < plies && game.getStatus() == GameStatus.RUNNING) {
+            List<ChessMove> legal = new ArrayList<>();
+            for (int file = 0; file < 8; file++) {
+                for (int rank = 0; rank < 8; rank++) {
+                    legal.addAll(game.getLegalMovesFrom(file, rank));
+                }
+            }
+            ChessMove m = legal.get(random.nextInt(legal.size()));
+            game.makeMove(m.getFromFile(), m.getFromRank(), m.getToFile(), m.getToRank());
+            moves.add(MoveCodes.chess(m.getFromFile(), m.getFromRank(), m.getToFile(), m.getToRank()));
+            boards.add(BoardCells.chess(game.getBoardSnapshot()));
+        }
+        return boards;
+    }
+
+    private static int[] toArray(List<Integer> moves) {
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void assertEveryPly(GameReplay replay, List<int[]> boards, SplittableRandom random) {
+        assertEquals(boards.size() - 1, replay.getPlyCount());
+        for (int ply = 0; ply < boards.size(); ply++) {
+            assertArrayEquals("ply " + ply, boards.get(ply), replay.cellsAt(ply));
+        }
+        GameReplay.Cursor cursor = replay.cursor();
+        for (int i = 0; i < 500; i++) {
+            int ply = random.nextInt(boards.size());
+            assertArrayEquals("seek to " + ply, boards.get(ply), cursor.seek(ply));
+            assertEquals(ply, cursor.getPly());
+        }
+        // scrub backwards one ply at a time
+        for (int ply = boards.size() - 1; ply >= 0; ply--) {
+            assertArrayEquals(boards.get(ply), cursor.seek(ply));
+        }
+    }
+
+    @Test
+    public void chessSeeksMatchTheGameAtEveryPly() {
+        SplittableRandom random = new SplittableRandom(1);
+        List<Integer> moves = new ArrayList<>();
+        List<int[]> boards = randomChess(random, 120, moves);
+        assertEveryPly(GameReplay.of(GameType.CHESS, toArray(moves)), boards, random);
+    }
+
+    @Test
+    public void goSeeksMatchTheGameAtEveryPly() throws Exception {
+        SplittableRandom random = new SplittableRandom(2);
+        GoGame game = new GoGame(9);
+        List<Integer> moves = new ArrayList<>();
+        List<int[]> boards = new ArrayList<>();
+        boards.add(BoardCells.go(game.getBoard()));
+        for (int ply = 0; ply < 200; ply++) {
+            // two passes in a row would end the game
+            boolean passed = !moves.isEmpty() && moves.get(moves.size() - 1) == MoveCodes.GO_PASS;
+            boolean stuck = game.getBoard().getLegalMoveCount(game.getCurrentPlayer()) == 0;
+            if (stuck && passed) {
+                break;
+            }
+            if (stuck || (!passed && random.nextInt(20) == 0)) {
+                game.pass();
+                moves.add(MoveCodes.GO_PASS);
+            } else {
+                int row;
+                int col;
+                do {
+                    row = random.nextInt(9);
+                    col = random.nextInt(9);
+                } while (!game.isLegalMove(row, col));
+                game.playMove(row, col);
+                moves.add(MoveCodes.go(row, col, 9));
+            }
+            boards.add(BoardCells.go(game.getBoard()));
+        }
+        assertEveryPly(GameReplay.of(GameType.GO, 9, 9, 0, toArray(moves), 16), boards, random);
+    }
+
+    @Test
+    public void ticTacToeWorksWithACheckpointEveryPly() {
+        TicTacToeGame game = new TicTacToeGame();
+        int[][] xy = {{1, 1}, {0, 0}, {2, 0}, {0, 2}, {0, 1}};
+        List<int[]> boards = new ArrayList<>();
+        boards.add(BoardCells.ticTacToe(game.getBoard()));
+        int[] moves = new int[xy.length];
+        for (int i = 0; i < xy.length; i++) {
+            assertTrue(game.playMove(xy[i][0], xy[i][1]));
+            moves[i] = MoveCodes.ticTacToe(xy[i][0], xy[i][1], 3);
+            boards.add(BoardCells.ticTacToe(game.getBoard()));
+        }
+        GameReplay replay = GameReplay.of(GameType.TIC_TAC_TOE, 3, 3, 3, moves, 1);
+        assertEveryPly(replay, boards, new SplittableRandom(3));
+        assertEquals(moves[4], replay.getMove(5));
+    }
+
+    @Test
+    public void illegalMovesAndPliesAreRejected() {
+        int center = MoveCodes.ticTacToe(1, 1, 3);
+        try {
+            GameReplay.of(GameType.TIC_TAC_TOE, new int[] {center, center});
+            fail("the same square twice");
+        } catch (IllegalArgumentException expected) {
+        }
+        GameReplay replay = GameReplay.of(GameType.TIC_TAC_TOE, new int[] {center});
+        try {
+            replay.cursor().seek(2);
+            fail("past the end");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
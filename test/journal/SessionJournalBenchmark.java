@@ -0,0 +1,193 @@
+package journal;
+
+import TicTacToe_Logic.TicTacToeGame;
+import TicTacToe_Logic.TicTacToeGameResult;
+import chat.ChatMessage;
+import chat.ChatServiceStub;
+import chat.DeliveryStatus;
+import chess_logic.ChessGame;
+import chess_logic.ChessMove;
+import chess_logic.GameStatus;
+import game_logic.MoveCodes;
+import go_logic.GoGame;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Journal write throughput and crash recovery time (not a JUnit test).
+ *
+ * Journals SESSIONS live sessions, a third each of chess (CHESS_PLIES
+ * random legal moves), 9x9 Go (GO_PLIES) and TicTacToe (up to 4), each
+ * with one chat message, from WRITERS threads; every record's commit future
+ * is awaited, so all of it goes through group commit. Then it reopens the
+ * directory the way a restarted server would and times the scan and the
+ * replay of every session into ChessGame, GoGame and TicTacToeGame.
+ * Games are drawn from a pool of POOL pre-generated random games per type.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out journal.SessionJournalBenchmark
+ */
+public class SessionJournalBenchmark {
+
+    private static final int SESSIONS = 100_000;
+    private static final int WRITERS = 4;
+    private static final int POOL = 300;
+    private static final int CHESS_PLIES = 40;
+    private static final int GO_PLIES = 60;
+
+    public static void main(String[] args) throws Exception {
+        SplittableRandom random = new SplittableRandom(11);
+        List<int[]> chess = new ArrayList<>();
+        List<int[]> go = new ArrayList<>();
+        List<int[]> ticTacToe = new ArrayList<>();
+        for (int i = 0; i < POOL; i++) {
+            chess.add(randomChess(random));
+            go.add(randomGo(random));
+            ticTacToe.add(randomTicTacToe(random));
+        }
+
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        try {
+            long records = write(directory, chess, go, ticTacToe);
+            long bytes;
+            try (Stream<Path> files = Files.list(directory)) {
+                bytes = files.mapToLong(p -> p.toFile().length()).sum();
+            }
+            System.out.printf("journal: %d records, %.1f MiB of segments%n", records, bytes / 1048576.0);
+
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                try (SessionJournal journal = new SessionJournal(directory)) {
+                    long scanned = System.nanoTime();
+                    List<RecoveredSession> sessions = journal.recoverSessions(new ChatServiceStub());
+                    long replayed = System.nanoTime();
+                    long plies = 0;
+                    int incomplete = 0;
+                    for (RecoveredSession s : sessions) {
+                        plies += s.getPlies();
+                        incomplete += s.isComplete() ? 0 : 1;
+                    }
+                    System.out.printf("recovery: %d sessions, %d plies: scan %d ms + replay %d ms = %d ms"
+                                    + " (%d incomplete)%n",
+                            sessions.size(), plies, (scanned - start) / 1_000_000,
+                            (replayed - scanned) / 1_000_000, (replayed - start) / 1_000_000, incomplete);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static long write(Path directory, List<int[]> chess, List<int[]> go, List<int[]> ticTacToe)
+            throws Exception {
+        long[] records = new long[WRITERS];
+        long start = System.nanoTime();
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                Thread t = new Thread(() -> {
+                    List<CompletableFuture<Void>> commits = new ArrayList<>();
+                    for (int s = writer; s < SESSIONS; s += WRITERS) {
+                        String id = "session-" + s;
+                        GameType type = GameType.values()[s % 3];
+                        List<int[]> pool = type == GameType.CHESS ? chess : type == GameType.GO ? go : ticTacToe;
+                        int[] moves = pool.get(s % POOL);
+                        Match match = new Match(type, new Player("p" + s, "Player " + s, 1200),
+                                new Player("q" + s, "Player q" + s, 1250));
+                        commits.add(journal.recordStart(id, match));
+                        for (int ply = 0; ply < moves.length; ply++) {
+                            commits.add(journal.recordMove(id, moves[ply]));
+                            if (ply == 2) {
+                                commits.add(journal.recordChat(id, new ChatMessage("p" + s, "Player " + s,
+                                        "good game", Instant.now(), DeliveryStatus.SENT)));
+                            }
+                        }
+                        // keep a bounded number of commits in flight, like real sessions waiting on them
+                        if (commits.size() > 4096) {
+                            records[writer] += commits.size();
+                            CompletableFuture.allOf(commits.toArray(new CompletableFuture<?>[0])).join();
+                            commits.clear();
+                        }
+                    }
+                    records[writer] += commits.size();
+                    CompletableFuture.allOf(commits.toArray(new CompletableFuture<?>[0])).join();
+                });
+                t.start();
+                writers.add(t);
+            }
+            for (Thread t : writers) {
+                t.join();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long total = 0;
+        for (long r : records) {
+            total += r;
+        }
+        System.out.printf("write: %d sessions in %d ms, %.0f records/s committed%n",
+                SESSIONS, elapsed / 1_000_000, total * 1e9 / elapsed);
+        return total;
+    }
+
+    // ------------- helpers -------------
+
+    private static int[] randomChess(SplittableRandom random) {
+        ChessGame game = new ChessGame();
+        List<Integer> moves = new ArrayList<>();
+        while (moves.size() < CHESS_PLIES && game.getStatus() == GameStatus.RUNNING) {
+            List<ChessMove> legal = new ArrayList<>();
+            for (int file = 0; file < 8; file++) {
+                for (int rank = 0; rank < 8; rank++) {
+                    legal.addAll(game.getLegalMovesFrom(file, rank));
+                }
+            }
+            ChessMove m = legal.get(random.nextInt(legal.size()));
+            game.makeMove(m.getFromFile(), m.getFromRank(), m.getToFile(), m.getToRank());
+            moves.add(MoveCodes.chess(m.getFromFile(), m.getFromRank(), m.getToFile(), m.getToRank()));
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] randomGo(SplittableRandom random) throws Exception {
+        GoGame game = new GoGame(9);
+        int[] moves = new int[GO_PLIES];
+        for (int ply = 0; ply < GO_PLIES; ply++) {
+            int row;
+            int col;
+            do {
+                row = random.nextInt(9);
+                col = random.nextInt(9);
+            } while (!game.isLegalMove(row, col));
+            game.playMove(row, col);
+            moves[ply] = MoveCodes.go(row, col, 9);
+        }
+        return moves;
+    }
+
+    private static int[] randomTicTacToe(SplittableRandom random) {
+        TicTacToeGame game = new TicTacToeGame();
+        List<Integer> moves = new ArrayList<>();
+        while (moves.size() < 4 && game.getResult() == TicTacToeGameResult.IN_PROGRESS) {
+            int x = random.nextInt(3);
+            int y = random.nextInt(3);
+            if (game.playMove(x, y)) {
+                moves.add(MoveCodes.ticTacToe(x, y, 3));
+            }
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
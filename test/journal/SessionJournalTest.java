@@ -0,0 +1,227 @@
+package journal;
+
+import TicTacToe_Logic.TicTacToeGame;
+import chat.ChatMessage;
+import chat.ChatServiceStub;
+import chat.DeliveryStatus;
+import chess_logic.ChessGame;
+import game_logic.BoardCells;
+import game_logic.MoveCodes;
+import go_logic.GoGame;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SessionJournalTest {
+
+    private final Path directory;
+
+    public SessionJournalTest() throws IOException {
+        directory = Files.createTempDirectory("journal-test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static Match match(GameType type, String prefix) {
+        return new Match(type, new Player(prefix + "-1", "One", 1200), new Player(prefix + "-2", "Two", 1300));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    public void liveSessionsOfAllGamesAreRebuilt() throws Exception {
+        int[] chessMoves = {
+                MoveCodes.chess(4, 1, 4, 3), MoveCodes.chess(4, 6, 4, 4),
+                MoveCodes.chess(6, 0, 5, 2), MoveCodes.chess(1, 7, 2, 5)
+        };
+        int[] goMoves = {MoveCodes.go(2, 2, 9), MoveCodes.go(6, 6, 9), MoveCodes.GO_PASS, MoveCodes.go(4, 4, 9)};
+        int[] tttMoves = {MoveCodes.ticTacToe(1, 1, 3), MoveCodes.ticTacToe(0, 0, 3)};
+
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            journal.recordStart("chess", match(GameType.CHESS, "c"));
+            journal.recordStart("go", match(GameType.GO, "g"));
+            journal.recordStart("ttt", match(GameType.TIC_TAC_TOE, "t"));
+            journal.recordStart("done", match(GameType.TIC_TAC_TOE, "d"));
+            for (int i = 0; i < 4; i++) {
+                journal.recordMove("chess", chessMoves[i]);
+                journal.recordMove("go", goMoves[i]);
+            }
+            for (int move : tttMoves) {
+                journal.recordMove("ttt", move);
+            }
+            journal.recordChat("go", new ChatMessage("g-1", "One", "good luck", Instant.ofEpochMilli(5),
+                    DeliveryStatus.DELIVERED));
+            journal.recordMove("done", 4);
+            CompletableFuture<Void> last = journal.recordResult("done", "X resigned");
+            last.get(5, TimeUnit.SECONDS);
+            assertEquals(3, journal.getLiveCount());
+        }
+
+        ChessGame chess = new ChessGame();
+        chess.makeMove(4, 1, 4, 3);
+        chess.makeMove(4, 6, 4, 4);
+        chess.makeMove(6, 0, 5, 2);
+        chess.makeMove(1, 7, 2, 5);
+        GoGame go = new GoGame(9);
+        go.playMove(2, 2);
+        go.playMove(6, 6);
+        go.pass();
+        go.playMove(4, 4);
+        TicTacToeGame ttt = new TicTacToeGame();
+        ttt.playMove(1, 1);
+        ttt.playMove(0, 0);
+
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            assertEquals(3, journal.getLiveCount());
+            List<RecoveredSession> sessions = journal.recoverSessions(new ChatServiceStub());
+            assertEquals(3, sessions.size());
+            assertTrue(journal.recoverSessions(new ChatServiceStub()).isEmpty());
+            for (RecoveredSession s : sessions) {
+                assertTrue(s.isComplete());
+                switch (s.getGameType()) {
+                    case CHESS:
+                        assertEquals("chess", s.getSessionId());
+                        assertEquals(4, s.getPlies());
+                        assertArrayEquals(BoardCells.chess(chess.getBoardSnapshot()),
+                                BoardCells.chess(s.getChessGame().getBoardSnapshot()));
+                        assertEquals(chess.getSideToMove(), s.getChessGame().getSideToMove());
+                        break;
+                    case GO:
+                        assertArrayEquals(BoardCells.go(go.getBoard()), BoardCells.go(s.getGoGame().getBoard()));
+                        assertEquals(go.getCurrentPlayer(), s.getGoGame().getCurrentPlayer());
+                        List<ChatMessage> chat = s.getSession().getChatChannel().getHistory();
+                        assertEquals(1, chat.size());
+                        assertEquals("good luck", chat.get(0).getContent());
+                        assertEquals(Instant.ofEpochMilli(5), chat.get(0).getTimestamp());
+                        assertEquals(DeliveryStatus.DELIVERED, chat.get(0).getStatus());
+                        break;
+                    default:
+                        assertEquals("ttt", s.getSessionId());
+                        assertArrayEquals(BoardCells.ticTacToe(ttt.getBoard()),
+                                BoardCells.ticTacToe(s.getTicTacToeGame().getBoard()));
+                        assertEquals(1300, s.getSession().getMatch().getPlayer2().getRating());
+                }
+            }
+            // the reopened journal keeps appending to recovered sessions
+            journal.recordMove("ttt", MoveCodes.ticTacToe(2, 2, 3)).get(5, TimeUnit.SECONDS);
+        }
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            for (RecoveredSession s : journal.recoverSessions(new ChatServiceStub())) {
+                if (s.getSessionId().equals("ttt")) {
+                    assertEquals(3, s.getPlies());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tornTailIsDroppedAndOverwritten() throws Exception {
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            journal.recordStart("g", match(GameType.GO, "g"));
+            journal.recordMove("g", MoveCodes.go(0, 0, 9));
+        }
+        // a crash in the middle of the next record: a length whose body never made it
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int at = 0;
+            while (buffer.getInt(at) != 0) {
+                at += 8 + buffer.getInt(at);
+            }
+            buffer.putInt(at, 9).putInt(at + 4, 12345).put(at + 8, (byte) 2);
+        }
+
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            List<RecoveredSession> sessions = journal.recoverSessions(new ChatServiceStub());
+            assertEquals(1, sessions.size());
+            assertEquals(1, sessions.get(0).getPlies());
+            journal.recordMove("g", MoveCodes.go(1, 1, 9));
+        }
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            assertEquals(2, journal.recoverSessions(new ChatServiceStub()).get(0).getPlies());
+        }
+    }
+
+    @Test
+    public void segmentsRollAndFinishedOnesAreDeleted() throws Exception {
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        try (SessionJournal journal = new SessionJournal(directory, 1024)) {
+            journal.recordStart("early", match(GameType.GO, "e"));
+            journal.recordStart("long", match(GameType.GO, "l"));
+            journal.recordResult("early", "B+R");
+            for (int i = 0; i < 81; i++) {
+                commits.add(journal.recordMove("long", MoveCodes.go(i / 9, i % 9, 9)));
+            }
+            journal.recordResult("long", "W+R");
+            journal.recordStart("late", match(GameType.GO, "z"));
+            for (int i = 0; i < 100; i++) {
+                commits.add(journal.recordMove("late", MoveCodes.GO_PASS));
+            }
+            for (CompletableFuture<Void> commit : commits) {
+                commit.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(1, journal.getLiveCount());
+        }
+        // 'late' needs only the segments from its START on
+        List<Path> remaining = segments();
+        assertTrue(remaining.size() >= 2);
+        assertFalse(remaining.get(0).getFileName().toString().endsWith("0000000000000000.journal"));
+
+        try (SessionJournal journal = new SessionJournal(directory, 1024)) {
+            List<RecoveredSession> sessions = journal.recoverSessions(new ChatServiceStub());
+            assertEquals(1, sessions.size());
+            assertEquals("late", sessions.get(0).getSessionId());
+            assertEquals(100, sessions.get(0).getPlies()); // passes after game over are kept as plies
+        }
+    }
+
+    @Test
+    public void eventsNeedALiveSession() throws Exception {
+        try (SessionJournal journal = new SessionJournal(directory)) {
+            try {
+                journal.recordMove("nobody", 1);
+                fail("move without a start");
+            } catch (IllegalStateException expected) {
+            }
+            journal.recordStart("s", match(GameType.CHESS, "s"));
+            try {
+                journal.recordStart("s", match(GameType.CHESS, "s"));
+                fail("started twice");
+            } catch (IllegalStateException expected) {
+            }
+            journal.recordResult("s", "draw");
+            try {
+                journal.recordMove("s", 1);
+                fail("move after the result");
+            } catch (IllegalStateException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package matchmaking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Partner-query benchmark for GridMatchmaker at 50k queued players (not a JUnit test).
+ *
+ * Keeps 50,000 chess players queued (ratings ~N(1500, 300), latency buckets
+ * 0..11) and repeatedly asks for a match for a random player, replacing every
+ * matched pair with two new arrivals so the queue size stays constant. The
+ * same queries are timed against a linear scan of the whole queue.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out matchmaking.GridMatchmakerBenchmark
+ */
+public class GridMatchmakerBenchmark {
+
+    private static final int QUEUED = 50_000;
+    private static final int QUERIES = 200_000;
+    private static final int LINEAR_QUERIES = 2_000;
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(42);
+        GridMatchmaker grid = new GridMatchmaker(() -> 0L);
+        List<Player> queued = new ArrayList<>(QUEUED);
+        List<Integer> buckets = new ArrayList<>(QUEUED);
+        Map<Player, Integer> slotOf = new HashMap<>();
+        int nextId = 0;
+        for (int i = 0; i < QUEUED; i++) {
+            Player p = newPlayer(nextId++, random);
+            int bucket = random.nextInt(12);
+            grid.enqueue(p, GameType.CHESS, bucket);
+            slotOf.put(p, queued.size());
+            queued.add(p);
+            buckets.add(bucket);
+        }
+
+        // grid: warm up, then measure
+        for (int round = 0; round < 2; round++) {
+            long matched = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                int i = random.nextInt(queued.size());
+                Match match = grid.findMatchFor(queued.get(i));
+                if (match != null) {
+                    matched++;
+                    for (Player gone : new Player[] { match.getPlayer1(), match.getPlayer2() }) {
+                        int slot = slotOf.remove(gone);
+                        Player fresh = newPlayer(nextId++, random);
+                        int bucket = random.nextInt(12);
+                        grid.enqueue(fresh, GameType.CHESS, bucket);
+                        slotOf.put(fresh, slot);
+                        queued.set(slot, fresh);
+                        buckets.set(slot, bucket);
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (round == 1) {
+                System.out.printf("grid:   %,d queued, %,.0f queries/sec (%d%% matched)%n",
+                        grid.size(), QUERIES / seconds, matched * 100 / QUERIES);
+            }
+        }
+
+        // linear scan over the same population, no removal
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int q = 0; q < LINEAR_QUERIES; q++) {
+            int i = random.nextInt(queued.size());
+            checksum += linearBestPartner(queued, buckets, i);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("linear: %,d queued, %,.0f queries/sec (checksum %d)%n",
+                queued.size(), LINEAR_QUERIES / seconds, checksum);
+    }
+
+    private static Player newPlayer(int id, SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        int rating = (int) Math.max(0, 1500 + 300 * Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v));
+        return new Player("b" + id, "b" + id, rating);
+    }
+
+    /** Base windows only (nobody has waited): rating gap <= 200, bucket gap <= 1. */
+    private static int linearBestPartner(List<Player> queued, List<Integer> buckets, int self) {
+        int rating = queued.get(self).getRating();
+        int bucket = buckets.get(self);
+        int best = -1;
+        long bestCost = Long.MAX_VALUE;
+        for (int j = 0; j < queued.size(); j++) {
+            if (j == self) continue;
+            int rg = Math.abs(rating - queued.get(j).getRating());
+            int lg = Math.abs(bucket - buckets.get(j));
+            if (rg <= 200 && lg <= 1 && rg + 100L * lg < bestCost) {
+                best = j;
+                bestCost = rg + 100L * lg;
+            }
+        }
+        return best;
+    }
+}
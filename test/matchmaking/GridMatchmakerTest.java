@@ -0,0 +1,127 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class GridMatchmakerTest {
+
+    private static Player player(String id, int rating) {
+        return new Player(id, id, rating);
+    }
+
+    @Test
+    public void prefersLowLatencyOverASlightlyCloserRating() {
+        GridMatchmaker mm = new GridMatchmaker(() -> 0L);
+        Player me = player("me", 1500);
+        mm.enqueue(me, GameType.CHESS, 2);
+        mm.enqueue(player("far", 1490), GameType.CHESS, 3);  // cost 10 + 100
+        mm.enqueue(player("near", 1540), GameType.CHESS, 2); // cost 40
+
+        Match match = mm.findMatchFor(me);
+        assertNotNull(match);
+        assertEquals("near", match.getPlayer2().getId());
+        assertTrue(mm.isQueued(player("far", 0)));
+    }
+
+    @Test
+    public void latencyGapBeyondTheWindowIsRejectedUntilPlayersHaveWaited() {
+        AtomicLong now = new AtomicLong(0);
+        GridMatchmaker mm = new GridMatchmaker(now::get);
+        Player me = player("me", 1500);
+        mm.enqueue(me, GameType.GO, 0);
+        mm.enqueue(player("overseas", 1500), GameType.GO, 3);
+        assertNull(mm.findMatchFor(me));
+
+        now.set(60_000); // latency window 1 + 2 steps = 3
+        Match match = mm.findMatchFor(me);
+        assertNotNull(match);
+        assertEquals(0, mm.size());
+    }
+
+    @Test
+    public void ratingWindowWidensWithWait() {
+        AtomicLong now = new AtomicLong(0);
+        GridMatchmaker mm = new GridMatchmaker(now::get);
+        mm.enqueue(player("a", 1000), GameType.TIC_TAC_TOE, 1);
+        mm.enqueue(player("b", 1450), GameType.TIC_TAC_TOE, 1);
+        assertTrue(mm.tick().isEmpty());
+        now.set(50_000); // 200 + 5 * 50
+        assertEquals(1, mm.tick().size());
+    }
+
+    @Test
+    public void gameTypesDoNotMix() {
+        GridMatchmaker mm = new GridMatchmaker(() -> 0L);
+        Player a = player("a", 1500);
+        mm.enqueue(a, GameType.CHESS, 1);
+        mm.enqueue(player("b", 1500), GameType.GO, 1);
+        assertNull(mm.findMatchFor(a));
+    }
+
+    @Test
+    public void gridQueryMatchesABruteForceScan() {
+        AtomicLong now = new AtomicLong(0);
+        GridMatchmaker mm = new GridMatchmaker(now::get);
+        Random random = new Random(5);
+        List<int[]> players = new ArrayList<>(); // {rating, bucket, enqueuedAt}
+        for (int i = 0; i < 3000; i++) {
+            now.set(i * 20L);
+            int rating = 800 + random.nextInt(1600);
+            int bucket = random.nextInt(8);
+            players.add(new int[] { rating, bucket, i * 20 });
+            mm.enqueue(player("p" + i, rating), GameType.CHESS, bucket);
+        }
+        now.set(60_000);
+        for (int q = 0; q < 200; q++) {
+            int i = random.nextInt(players.size());
+            if (players.get(i) == null) continue;
+            int expected = bruteForce(players, i, 60_000);
+            Match match = mm.findMatchFor(player("p" + i, 0));
+            if (expected < 0) {
+                assertNull(match);
+                continue;
+            }
+            assertNotNull(match);
+            String other = match.getPlayer1().getId().equals("p" + i)
+                    ? match.getPlayer2().getId() : match.getPlayer1().getId();
+            assertEquals("p" + expected, other);
+            players.set(i, null);
+            players.set(expected, null);
+        }
+    }
+
+    /** Reference: cheapest acceptable partner by linear scan, earliest arrival on ties. */
+    private static int bruteForce(List<int[]> players, int self, long now) {
+        int[] s = players.get(self);
+        int best = -1;
+        long bestCost = Long.MAX_VALUE;
+        for (int j = 0; j < players.size(); j++) {
+            int[] o = players.get(j);
+            if (j == self || o == null) continue;
+            int rg = Math.abs(s[0] - o[0]);
+            int lg = Math.abs(s[1] - o[1]);
+            boolean ok = (rg <= ratingWindow(s[2], now) && lg <= latencyWindow(s[2], now))
+                    || (rg <= ratingWindow(o[2], now) && lg <= latencyWindow(o[2], now));
+            long cost = rg + 100L * lg;
+            if (ok && cost < bestCost) {
+                best = j;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private static int ratingWindow(long since, long now) {
+        return (int) Math.min(1000, 200 + (now - since) / 10_000 * 50);
+    }
+
+    private static int latencyWindow(long since, long now) {
+        return (int) Math.min(4, 1 + (now - since) / 30_000);
+    }
+}
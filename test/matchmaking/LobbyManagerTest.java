@@ -0,0 +1,123 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class LobbyManagerTest {
+
+    private static final long TTL = 60_000;
+
+    private static Player player(String id) {
+        return new Player(id, id, 1200);
+    }
+
+    @Test
+    public void waitingLobbyExpiresAfterItsTtl() {
+        AtomicLong now = new AtomicLong(0);
+        LobbyManager manager = new LobbyManager(now::get, TTL, new Random(1));
+        String id = manager.createLobby(player("host"), GameType.CHESS);
+
+        now.set(TTL - 1);
+        assertEquals(0, manager.expireLobbies());
+        assertNotNull(manager.getLobby(id));
+
+        now.set(TTL + 1000);
+        assertEquals(1, manager.expireLobbies());
+        assertNull(manager.getLobby(id));
+        assertNull(manager.joinLobby(id, player("late")));
+        assertEquals(0, manager.countOpenLobbies(GameType.CHESS));
+    }
+
+    @Test
+    public void lookupsNeverReturnAnExpiredLobby() {
+        AtomicLong now = new AtomicLong(0);
+        LobbyManager manager = new LobbyManager(now::get, TTL, new Random(1));
+        String id = manager.createLobby(player("host"), GameType.GO);
+        assertEquals(1, manager.countOpenLobbies(GameType.GO));
+
+        now.set(TTL + 1000); // nobody calls expireLobbies()
+        assertEquals(0, manager.countOpenLobbies(GameType.GO));
+        assertTrue(manager.getOpenLobbies(GameType.GO).isEmpty());
+        assertNull(manager.getLobby(id));
+        assertEquals(0, manager.size());
+    }
+
+    @Test
+    public void fullLobbyLeavesTheOpenIndexAndCanBeClosed() {
+        AtomicLong now = new AtomicLong(0);
+        LobbyManager manager = new LobbyManager(now::get, TTL, new Random(2));
+        String id = manager.createLobby(player("host"), GameType.GO);
+        assertEquals(1, manager.countOpenLobbies(GameType.GO));
+
+        assertNotNull(manager.joinLobby(id, player("guest")));
+        assertEquals(0, manager.countOpenLobbies(GameType.GO));
+        assertEquals(Lobby.Status.FULL, manager.getLobby(id).getStatus());
+
+        assertNotNull(manager.closeLobby(id));
+        assertEquals(0, manager.size());
+        now.set(TTL * 5);
+        assertEquals(0, manager.expireLobbies());
+    }
+
+    @Test
+    public void fullLobbyThatIsNeverClosedExpiresOnItsOwnTtl() {
+        AtomicLong now = new AtomicLong(0);
+        long fullTtl = 5_000;
+        LobbyManager manager = new LobbyManager(now::get, TTL, fullTtl, new Random(5));
+        String id = manager.createLobby(player("host"), GameType.CHESS);
+
+        now.set(TTL - 2_000);
+        assertNotNull(manager.joinLobby(id, player("guest")));
+        // the WAITING deadline no longer applies
+        now.set(TTL + 1_000);
+        assertEquals(0, manager.expireLobbies());
+        assertNotNull(manager.getLobby(id));
+
+        now.set(TTL - 2_000 + fullTtl + 1_000);
+        assertEquals(1, manager.expireLobbies());
+        assertNull(manager.getLobby(id));
+        assertEquals(0, manager.size());
+    }
+
+    @Test
+    public void openLobbiesAreListedPerGameType() {
+        LobbyManager manager = new LobbyManager(() -> 0L, TTL, new Random(3));
+        String chess = manager.createLobby(player("a"), GameType.CHESS);
+        manager.createLobby(player("b"), GameType.TIC_TAC_TOE);
+        manager.createLobby(player("c"), GameType.TIC_TAC_TOE);
+
+        assertEquals(1, manager.getOpenLobbies(GameType.CHESS).size());
+        assertEquals(chess, manager.getOpenLobbies(GameType.CHESS).get(0).getId());
+        assertEquals(2, manager.countOpenLobbies(GameType.TIC_TAC_TOE));
+        assertTrue(manager.getOpenLobbies(GameType.GO).isEmpty());
+    }
+
+    @Test
+    public void churnKeepsTheRegistryBounded() {
+        AtomicLong now = new AtomicLong(0);
+        LobbyManager manager = new LobbyManager(now::get, TTL, new Random(4));
+        for (int i = 0; i < 20_000; i++) {
+            now.set(i * 100L); // 10 new lobbies per second, none ever joined
+            manager.createLobby(player("h" + i), GameType.CHESS);
+        }
+        // only about TTL worth of lobbies (600) can be alive at once
+        assertTrue("size " + manager.size(), manager.size() <= 620);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void idGenerationGivesUpAfterBoundedAttempts() {
+        Random constant = new Random() {
+            @Override
+            public int nextInt(int bound) {
+                return 0; // every ID is "AAAAAA"
+            }
+        };
+        LobbyManager manager = new LobbyManager(() -> 0L, TTL, constant);
+        assertEquals("AAAAAA", manager.createLobby(player("first"), GameType.CHESS));
+        manager.createLobby(player("second"), GameType.CHESS);
+    }
+}
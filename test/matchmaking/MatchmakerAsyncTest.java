@@ -0,0 +1,182 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MatchmakerAsyncTest {
+
+    private static final long LONG_TIMEOUT = 60_000;
+
+    private static Player player(String id, int rating) {
+        return new Player(id, id, rating);
+    }
+
+    @Test
+    public void futureCompletesWhenTickPairsThePlayer() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        CompletableFuture<Match> a = matchmaker.enqueueAsync(player("a", 1000), GameType.CHESS, LONG_TIMEOUT);
+        CompletableFuture<Match> b = matchmaker.enqueueAsync(player("b", 1050), GameType.CHESS, LONG_TIMEOUT);
+        assertFalse(a.isDone());
+
+        assertEquals(1, matchmaker.tick().size());
+        assertTrue(a.isDone());
+        assertSame(a.get(), b.get());
+        assertEquals("a", a.get().getPlayer1().getId());
+    }
+
+    @Test
+    public void futureCompletesWhenAPlainEnqueueFindsTheWaiter() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        CompletableFuture<Match> waiting = matchmaker.enqueueAsync(player("w", 1500), GameType.GO, LONG_TIMEOUT);
+        Player arrival = player("arrival", 1490);
+        matchmaker.enqueue(arrival, GameType.GO);
+
+        Match match = matchmaker.findMatchFor(arrival, GameType.GO);
+        assertNotNull(match);
+        assertSame(match, waiting.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void dequeueCancelsTheFuture() {
+        Matchmaker matchmaker = new Matchmaker();
+        Player p = player("p", 1200);
+        CompletableFuture<Match> future = matchmaker.enqueueAsync(p, GameType.TIC_TAC_TOE, LONG_TIMEOUT);
+        matchmaker.dequeue(p);
+        assertTrue(future.isCancelled());
+        assertTrue(matchmaker.getQueuedPlayers(GameType.TIC_TAC_TOE).isEmpty());
+    }
+
+    @Test
+    public void cancellingTheFutureLeavesTheQueue() {
+        Matchmaker matchmaker = new Matchmaker();
+        CompletableFuture<Match> future = matchmaker.enqueueAsync(player("p", 1200), GameType.CHESS, LONG_TIMEOUT);
+        future.cancel(false);
+        assertTrue(matchmaker.getQueuedPlayers(GameType.CHESS).isEmpty());
+    }
+
+    @Test
+    public void timeoutCompletesExceptionallyAndDequeues() throws InterruptedException {
+        Matchmaker matchmaker = new Matchmaker();
+        CompletableFuture<Match> future = matchmaker.enqueueAsync(player("lonely", 1200), GameType.CHESS, 50);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected a timeout");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            fail("future never timed out");
+        }
+        assertTrue(matchmaker.getQueuedPlayers(GameType.CHESS).isEmpty());
+    }
+
+    @Test
+    public void aPairedPlayerCannotBeCancelledBeforeDelivery() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        CompletableFuture<Match> a = matchmaker.enqueueAsync(player("a", 1000), GameType.CHESS, LONG_TIMEOUT);
+        CompletableFuture<Match> b = matchmaker.enqueueAsync(player("b", 1050), GameType.CHESS, LONG_TIMEOUT);
+        // a is delivered first; by then b is paired but not yet told
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        a.thenRun(() -> cancelled.set(b.cancel(false)));
+
+        assertEquals(1, matchmaker.tick().size());
+        assertFalse("b was already paired", cancelled.get());
+        assertSame(a.get(), b.get(1, TimeUnit.SECONDS));
+        assertTrue(matchmaker.getQueuedPlayers(GameType.CHESS).isEmpty());
+    }
+
+    @Test
+    public void aPairingIsUndoneIfTheFirstFutureWasCompletedElsewhere() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        Player b = player("b", 1050);
+        CompletableFuture<Match> first = matchmaker.enqueueAsync(player("a", 1000), GameType.CHESS, LONG_TIMEOUT);
+        CompletableFuture<Match> second = matchmaker.enqueueAsync(b, GameType.CHESS, LONG_TIMEOUT);
+        // x and y pair first in the same tick; x's callback settles a's future by hand
+        CompletableFuture<Match> x = matchmaker.enqueueAsync(player("x", 500), GameType.CHESS, LONG_TIMEOUT);
+        matchmaker.enqueueAsync(player("y", 510), GameType.CHESS, LONG_TIMEOUT);
+        x.thenRun(() -> first.complete(null));
+
+        // the undone a-b match is not handed out
+        List<Match> batch = matchmaker.tick();
+        assertEquals(1, batch.size());
+        assertEquals("x", batch.get(0).getPlayer1().getId());
+        assertNull(first.get());
+        assertFalse(second.isDone());
+        assertEquals(List.of(b), matchmaker.getQueuedPlayers(GameType.CHESS));
+
+        matchmaker.enqueue(player("c", 1060), GameType.CHESS);
+        assertEquals(1, matchmaker.tick().size());
+        assertEquals("b", second.get(1, TimeUnit.SECONDS).getPlayer1().getId());
+    }
+
+    @Test
+    public void aPairingIsUndoneIfTheSecondFutureWasCompletedElsewhere() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        Player a = player("a", 1000);
+        CompletableFuture<Match> first = matchmaker.enqueueAsync(a, GameType.CHESS, LONG_TIMEOUT);
+        CompletableFuture<Match> second = matchmaker.enqueueAsync(player("b", 1050), GameType.CHESS, LONG_TIMEOUT);
+        CompletableFuture<Match> x = matchmaker.enqueueAsync(player("x", 500), GameType.CHESS, LONG_TIMEOUT);
+        matchmaker.enqueueAsync(player("y", 510), GameType.CHESS, LONG_TIMEOUT);
+        x.thenRun(() -> second.complete(null));
+
+        List<Match> batch = matchmaker.tick();
+        assertEquals(1, batch.size());
+        assertEquals("x", batch.get(0).getPlayer1().getId());
+        assertNull(second.get());
+        assertFalse("a must not get a match with b", first.isDone());
+        assertEquals(List.of(a), matchmaker.getQueuedPlayers(GameType.CHESS));
+    }
+
+    @Test
+    public void anUndonePairingPutsAPlainlyQueuedPartnerBack() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        Player a = player("a", 1000);
+        Player b = player("b", 1050);
+        matchmaker.enqueue(a, GameType.GO);
+        CompletableFuture<Match> hers = matchmaker.enqueueAsync(b, GameType.GO, LONG_TIMEOUT);
+        CompletableFuture<Match> x = matchmaker.enqueueAsync(player("x", 500), GameType.GO, LONG_TIMEOUT);
+        matchmaker.enqueueAsync(player("y", 510), GameType.GO, LONG_TIMEOUT);
+        x.thenRun(() -> hers.complete(null));
+
+        assertEquals(1, matchmaker.tick().size());
+        // a used plain enqueue(); they are queued again, and only they
+        assertEquals(List.of(a), matchmaker.getQueuedPlayers(GameType.GO));
+        matchmaker.enqueue(player("c", 1010), GameType.GO);
+        Match rematch = matchmaker.findMatch();
+        assertEquals("a", rematch.getPlayer1().getId());
+        assertEquals("c", rematch.getPlayer2().getId());
+    }
+
+    @Test
+    public void secondCallReturnsTheSameFuture() {
+        Matchmaker matchmaker = new Matchmaker();
+        Player p = player("p", 1200);
+        CompletableFuture<Match> first = matchmaker.enqueueAsync(p, GameType.GO, LONG_TIMEOUT);
+        assertSame(first, matchmaker.enqueueAsync(p, GameType.GO, LONG_TIMEOUT));
+        assertEquals(1, matchmaker.getQueuedPlayers(GameType.GO).size());
+    }
+
+    @Test
+    public void callbacksMayCallBackIntoTheMatchmaker() throws Exception {
+        Matchmaker matchmaker = new Matchmaker();
+        Player a = player("a", 1000);
+        CompletableFuture<Match> requeued = new CompletableFuture<>();
+        // rematch from inside the callback: re-enters enqueueAsync on the same queue
+        matchmaker.enqueueAsync(a, GameType.CHESS, LONG_TIMEOUT)
+                .thenAccept(m -> matchmaker.enqueueAsync(a, GameType.CHESS, LONG_TIMEOUT)
+                        .thenAccept(requeued::complete));
+        matchmaker.enqueue(player("b", 1000), GameType.CHESS);
+        assertNotNull(matchmaker.findMatch());
+
+        matchmaker.enqueue(player("c", 1000), GameType.CHESS);
+        assertEquals(1, matchmaker.tick().size());
+        assertEquals("c", requeued.get(1, TimeUnit.SECONDS).getPlayer2().getId());
+    }
+}
@@ -0,0 +1,145 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MatchmakerBackfillTest {
+
+    private static Player player(String id, int rating) {
+        return new Player(id, id, rating);
+    }
+
+    @Test
+    public void noBotsUnlessBackfillIsEnabled() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enqueue(player("alone", 1500), GameType.CHESS);
+        now.set(3_600_000);
+        assertTrue(matchmaker.tick().isEmpty());
+        assertNull(matchmaker.findMatch());
+        assertEquals(-1, matchmaker.getBackfillThresholdMillis(GameType.CHESS));
+    }
+
+    @Test
+    public void maxWaitCapsTheWaitWithoutHistory() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enableBotBackfill(95, 5_000, 60_000);
+        Player alone = player("alone", 1500);
+        matchmaker.enqueue(alone, GameType.TIC_TAC_TOE);
+
+        now.set(59_999);
+        assertTrue(matchmaker.tick().isEmpty());
+        now.set(60_000);
+        List<Match> batch = matchmaker.tick();
+        assertEquals(1, batch.size());
+        assertEquals(alone, batch.get(0).getPlayer1());
+        Player bot = batch.get(0).getPlayer2();
+        assertTrue(BotPlayers.isBot(bot));
+        assertTrue(bot.getName().toLowerCase().contains("bot"));
+        assertTrue(matchmaker.getQueuedPlayers(GameType.TIC_TAC_TOE).isEmpty());
+    }
+
+    @Test
+    public void thresholdFollowsThePercentileOfRecentWaits() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enableBotBackfill(90, 1_000, 120_000);
+        // twenty human matches that each took 3 seconds
+        for (int i = 0; i < 20; i++) {
+            matchmaker.enqueue(player("a" + i, 1000), GameType.TIC_TAC_TOE);
+            matchmaker.enqueue(player("b" + i, 1010), GameType.TIC_TAC_TOE);
+            now.addAndGet(3_000);
+            assertEquals(1, matchmaker.tick().size());
+        }
+        assertEquals(3_000, matchmaker.getBackfillThresholdMillis(GameType.TIC_TAC_TOE));
+
+        Player outlier = player("outlier", 2900);
+        matchmaker.enqueue(outlier, GameType.TIC_TAC_TOE);
+        now.addAndGet(2_999);
+        assertNull(matchmaker.findMatch());
+        now.addAndGet(1);
+        Match match = matchmaker.findMatch();
+        assertEquals(outlier, match.getPlayer1());
+        assertTrue(BotPlayers.isBot(match.getPlayer2()));
+    }
+
+    @Test
+    public void humansArePairedBeforeAnyoneGetsABot() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enableBotBackfill(50, 0, 10_000);
+        matchmaker.enqueue(player("a", 1200), GameType.TIC_TAC_TOE);
+        matchmaker.enqueue(player("b", 1250), GameType.TIC_TAC_TOE);
+        matchmaker.enqueue(player("far", 2800), GameType.TIC_TAC_TOE);
+        now.set(10_000);
+
+        List<Match> batch = matchmaker.tick();
+        assertEquals(2, batch.size());
+        assertFalse(BotPlayers.isBot(batch.get(0).getPlayer2()));
+        assertEquals("far", batch.get(1).getPlayer1().getId());
+        assertTrue(BotPlayers.isBot(batch.get(1).getPlayer2()));
+    }
+
+    @Test
+    public void botMatchCompletesTheAsyncWaiter() throws Exception {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enableBotBackfill(95, 0, 1_000);
+        CompletableFuture<Match> future = matchmaker.enqueueAsync(player("w", 800), GameType.TIC_TAC_TOE, 60_000);
+        now.set(1_000);
+        matchmaker.tick();
+        assertTrue(future.isDone());
+        assertTrue(BotPlayers.isBot(future.get().getPlayer2()));
+    }
+
+    @Test
+    public void cancelledPlayersAreNeverBackfilled() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enableBotBackfill(95, 0, 1_000);
+        Player gone = player("gone", 1500);
+        matchmaker.enqueue(gone, GameType.TIC_TAC_TOE);
+        matchmaker.dequeue(gone);
+        now.set(5_000);
+        assertTrue(matchmaker.tick().isEmpty());
+    }
+
+    @Test
+    public void gamesWithoutABotEngineAreNeverBackfilled() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enableBotBackfill(95, 0, 1_000);
+        matchmaker.enqueue(player("chess", 1500), GameType.CHESS);
+        matchmaker.enqueue(player("go", 1500), GameType.GO);
+        now.set(3_600_000);
+        assertTrue(matchmaker.tick().isEmpty());
+        assertNull(matchmaker.findMatch());
+        assertEquals(-1, matchmaker.getBackfillThresholdMillis(GameType.CHESS));
+        assertEquals(1, matchmaker.getQueuedPlayers(GameType.CHESS).size());
+        assertEquals(1, matchmaker.getQueuedPlayers(GameType.GO).size());
+    }
+
+    @Test
+    public void botStrengthFollowsRating() {
+        assertEquals(1, BotPlayers.levelFor(300));
+        assertEquals(BotPlayers.MAX_LEVEL, BotPlayers.levelFor(3000));
+        assertTrue(BotPlayers.levelFor(1200) < BotPlayers.levelFor(1800));
+        for (int level = 1; level <= BotPlayers.MAX_LEVEL; level++) {
+            assertEquals(level, BotPlayers.levelFor(BotPlayers.ratingOf(level)));
+        }
+        Player bot = BotPlayers.create(GameType.TIC_TAC_TOE, 1500, 7);
+        assertEquals(BotPlayers.levelFor(1500), BotPlayers.levelOf(bot));
+        assertEquals(0.0, BotPlayers.blunderProbability(BotPlayers.MAX_LEVEL), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noBotIsCreatedForAGameWithoutAnEngine() {
+        BotPlayers.create(GameType.CHESS, 1500, 1);
+    }
+}
@@ -0,0 +1,64 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class MatchmakerConcurrencyTest {
+
+    @Test
+    public void concurrentQueueingNeverLosesOrDuplicatesAPlayer() throws InterruptedException {
+        Matchmaker matchmaker = new Matchmaker();
+        int threads = 8;
+        int perThread = 500;
+        ConcurrentLinkedQueue<Match> matches = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    int id = offset + i;
+                    Player p = new Player("p" + id, "p" + id, 1000 + (id % 50) * 10);
+                    GameType type = GameType.values()[id % GameType.values().length];
+                    matchmaker.enqueue(p, type);
+                    matchmaker.estimateWait(p);
+                    matchmaker.getQueuedPlayers(type);
+                    if (i % 3 == 0) {
+                        matches.addAll(matchmaker.tick());
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (Match m : matches) {
+            assertTrue(seen.add(m.getPlayer1().getId()));
+            assertTrue(seen.add(m.getPlayer2().getId()));
+        }
+        for (GameType type : GameType.values()) {
+            for (Player p : matchmaker.getQueuedPlayers(type)) {
+                assertTrue(seen.add(p.getId()));
+            }
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+}
@@ -0,0 +1,122 @@
+package matchmaking;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark for Matchmaker (not a JUnit test).
+ *
+ * 64 threads each loop over a random mix of enqueue, dequeue, estimateWait and
+ * getQueuedPlayers across all game types while a 65th thread keeps calling
+ * tick(). Like a JMH run, every configuration gets warm-up iterations that are
+ * discarded and then measured iterations. The "single lock" configuration
+ * wraps every call in one global monitor, which is how Matchmaker behaved
+ * before the per-GameType locks; "striped" calls it directly.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out matchmaking.MatchmakerContentionBenchmark
+ */
+public class MatchmakerContentionBenchmark {
+
+    private static final int THREADS = 64;
+    private static final int PLAYERS_PER_THREAD = 64;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%d threads, %d x %d ms measured after %d warm-up iterations, %d cores%n",
+                THREADS, MEASURED_ITERATIONS, ITERATION_MILLIS, WARMUP_ITERATIONS,
+                Runtime.getRuntime().availableProcessors());
+        run("single lock", true);
+        run("striped", false);
+    }
+
+    private static void run(String label, boolean globalLock) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(globalLock);
+        }
+        double total = 0;
+        double[] polls = new double[1];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            double[] result = iteration(globalLock);
+            total += result[0];
+            polls[0] += result[1];
+        }
+        System.out.printf("%-12s %,12.0f ops/sec  (%,.0f of them estimateWait/getQueuedPlayers polls)%n",
+                label, total / MEASURED_ITERATIONS, polls[0] / MEASURED_ITERATIONS);
+    }
+
+    /** One timed iteration on a fresh Matchmaker; returns {ops/sec, polls/sec}. */
+    private static double[] iteration(boolean globalLock) throws InterruptedException {
+        Matchmaker matchmaker = new Matchmaker();
+        Object lock = globalLock ? new Object() : null;
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder ops = new LongAdder();
+        LongAdder polls = new LongAdder();
+        CountDownLatch ready = new CountDownLatch(THREADS + 1);
+        CountDownLatch done = new CountDownLatch(THREADS + 1);
+
+        for (int t = 0; t < THREADS; t++) {
+            Player[] players = new Player[PLAYERS_PER_THREAD];
+            for (int p = 0; p < players.length; p++) {
+                String id = "t" + t + "-" + p;
+                players[p] = new Player(id, id, 800 + ThreadLocalRandom.current().nextInt(1600));
+            }
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                GameType[] types = GameType.values();
+                ready.countDown();
+                while (running.get()) {
+                    Player player = players[random.nextInt(players.length)];
+                    int op = random.nextInt(10);
+                    if (op < 3) {
+                        call(lock, () -> matchmaker.enqueue(player, types[random.nextInt(types.length)]));
+                    } else if (op < 5) {
+                        call(lock, () -> matchmaker.dequeue(player));
+                    } else if (op < 9) {
+                        call(lock, () -> matchmaker.estimateWait(player));
+                        polls.increment();
+                    } else {
+                        call(lock, () -> matchmaker.getQueuedPlayers(types[random.nextInt(types.length)]));
+                        polls.increment();
+                    }
+                    ops.increment();
+                }
+                done.countDown();
+            }, "bench-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Thread ticker = new Thread(() -> {
+            ready.countDown();
+            while (running.get()) {
+                call(lock, matchmaker::tick);
+                ops.increment();
+            }
+            done.countDown();
+        }, "bench-tick");
+        ticker.setDaemon(true);
+        ticker.start();
+
+        ready.await();
+        long start = System.nanoTime();
+        Thread.sleep(ITERATION_MILLIS);
+        running.set(false);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        done.await();
+        return new double[] { ops.sum() / seconds, polls.sum() / seconds };
+    }
+
+    private static void call(Object lock, Runnable action) {
+        if (lock == null) {
+            action.run();
+            return;
+        }
+        synchronized (lock) {
+            action.run();
+        }
+    }
+}
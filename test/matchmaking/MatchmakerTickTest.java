@@ -0,0 +1,106 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class MatchmakerTickTest {
+
+    private static Player player(String id, int rating) {
+        return new Player(id, id, rating);
+    }
+
+    @Test
+    public void tickPairsEveryQueueInOnePass() {
+        Matchmaker matchmaker = new Matchmaker();
+        matchmaker.enqueue(player("a", 1000), GameType.CHESS);
+        matchmaker.enqueue(player("b", 1010), GameType.CHESS);
+        matchmaker.enqueue(player("c", 1500), GameType.CHESS);
+        matchmaker.enqueue(player("d", 1510), GameType.CHESS);
+        matchmaker.enqueue(player("outlier", 3000), GameType.CHESS);
+        matchmaker.enqueue(player("e", 1200), GameType.GO);
+        matchmaker.enqueue(player("f", 1250), GameType.GO);
+
+        List<Match> batch = matchmaker.tick();
+
+        assertEquals(3, batch.size());
+        assertEquals(GameType.CHESS, batch.get(0).getGameType());
+        assertEquals("a", batch.get(0).getPlayer1().getId());
+        assertEquals("b", batch.get(0).getPlayer2().getId());
+        assertEquals("c", batch.get(1).getPlayer1().getId());
+        assertEquals(GameType.GO, batch.get(2).getGameType());
+        assertEquals(List.of(player("outlier", 3000)), matchmaker.getQueuedPlayers(GameType.CHESS));
+        assertTrue(matchmaker.getQueuedPlayers(GameType.GO).isEmpty());
+    }
+
+    @Test
+    public void tickFavoursTheLongestWaitingPlayer() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enqueue(player("veteran", 1000), GameType.GO);
+        now.set(60_000);
+        matchmaker.enqueue(player("mid", 1010), GameType.GO);
+        matchmaker.enqueue(player("newcomer", 1020), GameType.GO);
+
+        List<Match> batch = matchmaker.tick();
+
+        // Pairing mid with newcomer has the same gap, but would strand the veteran
+        assertEquals(1, batch.size());
+        assertEquals("veteran", batch.get(0).getPlayer1().getId());
+        assertEquals("mid", batch.get(0).getPlayer2().getId());
+    }
+
+    @Test
+    public void tickMayPairAcrossAPlayerItLeavesWaiting() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enqueue(player("low", 1000), GameType.CHESS);
+        matchmaker.enqueue(player("high", 1200), GameType.CHESS);
+        now.set(60_000);
+        matchmaker.enqueue(player("middle", 1100), GameType.CHESS);
+
+        List<Match> batch = matchmaker.tick();
+
+        // either neighbour pair strands a player with a minute of wait bonus;
+        // pairing the two veterans costs 100 more in gap but leaves only a newcomer
+        assertEquals(1, batch.size());
+        assertEquals("low", batch.get(0).getPlayer1().getId());
+        assertEquals("high", batch.get(0).getPlayer2().getId());
+        assertEquals(List.of(player("middle", 1100)), matchmaker.getQueuedPlayers(GameType.CHESS));
+    }
+
+    @Test
+    public void tickNeverPairsBeyondTheRatingLimit() {
+        Matchmaker matchmaker = new Matchmaker();
+        matchmaker.enqueue(player("a", 1000), GameType.TIC_TAC_TOE);
+        matchmaker.enqueue(player("b", 1201), GameType.TIC_TAC_TOE);
+
+        assertTrue(matchmaker.tick().isEmpty());
+        assertEquals(2, matchmaker.getQueuedPlayers(GameType.TIC_TAC_TOE).size());
+    }
+
+    @Test
+    public void scheduledTickPublishesBatches() throws InterruptedException {
+        Matchmaker matchmaker = new Matchmaker();
+        CountDownLatch published = new CountDownLatch(1);
+        AtomicReference<List<Match>> received = new AtomicReference<>();
+        matchmaker.start(10, batch -> {
+            received.set(batch);
+            published.countDown();
+        });
+        try {
+            matchmaker.enqueue(player("a", 1400), GameType.CHESS);
+            matchmaker.enqueue(player("b", 1420), GameType.CHESS);
+            assertTrue(published.await(2, TimeUnit.SECONDS));
+            assertEquals(1, received.get().size());
+        } finally {
+            matchmaker.stop();
+        }
+    }
+}
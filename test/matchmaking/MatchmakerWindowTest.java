@@ -0,0 +1,103 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MatchmakerWindowTest {
+
+    private static Player player(String id, int rating) {
+        return new Player(id, id, rating);
+    }
+
+    @Test
+    public void outliersArePairedOnceTheirWindowCoversTheGap() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enqueue(player("low", 1000), GameType.CHESS);
+        matchmaker.enqueue(player("high", 1400), GameType.CHESS);
+
+        assertTrue(matchmaker.tick().isEmpty());
+
+        // 200 base + 50 per 10s bucket: 400 is reached after 40s
+        now.set(39_999);
+        assertTrue(matchmaker.tick().isEmpty());
+        now.set(40_000);
+        List<Match> batch = matchmaker.tick();
+        assertEquals(1, batch.size());
+        assertEquals("low", batch.get(0).getPlayer1().getId());
+        assertEquals("high", batch.get(0).getPlayer2().getId());
+    }
+
+    @Test
+    public void findMatchHonoursTheWidenedWindowOfEitherPlayer() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enqueue(player("veteran", 2000), GameType.GO);
+        now.set(60_000);
+        matchmaker.enqueue(player("newcomer", 1500), GameType.GO);
+
+        // the newcomer's own window is 200, but the veteran now accepts 500
+        Match match = matchmaker.findMatch();
+        assertNotNull(match);
+        assertEquals("newcomer", match.getPlayer1().getId());
+        assertEquals("veteran", match.getPlayer2().getId());
+    }
+
+    @Test
+    public void windowStopsGrowingAtTheCap() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        matchmaker.enqueue(player("a", 1000), GameType.TIC_TAC_TOE);
+        matchmaker.enqueue(player("b", 2500), GameType.TIC_TAC_TOE);
+
+        now.set(3_600_000);
+        assertTrue(matchmaker.tick().isEmpty());
+        assertNull(matchmaker.findMatch());
+        assertEquals(2, matchmaker.getQueuedPlayers(GameType.TIC_TAC_TOE).size());
+    }
+
+    @Test
+    public void onlyPlayersWhoseWindowGrewAreReconsidered() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        for (int i = 0; i < 5; i++) {
+            matchmaker.enqueue(player("p" + i, 1000 + i * 1000), GameType.CHESS);
+        }
+        assertEquals(5, matchmaker.pendingReviewCount(GameType.CHESS));
+        assertTrue(matchmaker.tick().isEmpty());
+
+        // same bucket: nothing changed, nothing to look at
+        now.set(5_000);
+        assertEquals(0, matchmaker.pendingReviewCount(GameType.CHESS));
+
+        now.set(12_000);
+        matchmaker.enqueue(player("late", 9000), GameType.CHESS);
+        now.set(14_000);
+        // only the original five crossed the 10s boundary, plus the new arrival
+        assertEquals(6, matchmaker.pendingReviewCount(GameType.CHESS));
+        assertTrue(matchmaker.tick().isEmpty());
+
+        // at 20s the late arrival is still inside its first bucket
+        now.set(20_000);
+        assertEquals(5, matchmaker.pendingReviewCount(GameType.CHESS));
+    }
+
+    @Test
+    public void dequeuePutsTheNewlyAdjacentPlayersUnderReview() {
+        Matchmaker matchmaker = new Matchmaker(() -> 0L);
+        Player middle = player("middle", 3000);
+        matchmaker.enqueue(player("low", 1000), GameType.CHESS);
+        matchmaker.enqueue(middle, GameType.CHESS);
+        matchmaker.enqueue(player("high", 5000), GameType.CHESS);
+        assertTrue(matchmaker.tick().isEmpty());
+        assertEquals(0, matchmaker.pendingReviewCount(GameType.CHESS));
+
+        matchmaker.dequeue(middle);
+        assertEquals(2, matchmaker.pendingReviewCount(GameType.CHESS));
+        assertTrue(matchmaker.tick().isEmpty());
+    }
+}
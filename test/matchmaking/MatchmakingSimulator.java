@@ -0,0 +1,330 @@
+package matchmaking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless load simulator for Matchmaker (not a JUnit test).
+ *
+ * Drives a Matchmaker on a simulated clock with either a synthetic arrival
+ * stream (Poisson arrivals, a configurable rating distribution, impatient
+ * players who cancel through dequeue, an optional pre-filled queue of up to
+ * 100k players) or a recorded queue trace, and calls tick() at a fixed
+ * simulated period. Reports match-latency percentiles, the rating-gap
+ * distribution, and wall-clock Matchmaker ops/sec, so a change to the
+ * pairing algorithm can be judged on both quality and throughput.
+ *
+ * Trace files are CSV, one event per line, ordered by time:
+ *   timeMillis,ENQUEUE,playerId,rating,GAME_TYPE
+ *   timeMillis,DEQUEUE,playerId
+ * Lines starting with '#' are ignored. --record writes the synthetic stream
+ * in this format so a run can be replayed exactly.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out matchmaking.MatchmakingSimulator [--arrivals 50] [--seconds 600]
+ *       [--ratings normal|uniform|bimodal] [--cancel 0.1] [--patience 60]
+ *       [--prefill 100000] [--tick 1000] [--seed 1] [--record out.csv] [--trace in.csv]
+ */
+public class MatchmakingSimulator {
+
+    /** Shape of the synthetic rating distribution. */
+    enum RatingDistribution { NORMAL, UNIFORM, BIMODAL }
+
+    /** Synthetic workload settings; the defaults model a busy evening. */
+    static final class Config {
+        double arrivalsPerSecond = 50;
+        long durationSeconds = 600;
+        RatingDistribution ratings = RatingDistribution.NORMAL;
+        int ratingMean = 1500;
+        int ratingSpread = 300;
+        /** Probability that a synthetic player gives up if not matched in time. */
+        double cancelProbability = 0.1;
+        /** Mean patience (seconds, exponential) of players who may cancel. */
+        double meanPatienceSeconds = 60;
+        /** Players queued at time zero, before the arrival stream starts. */
+        int prefill = 0;
+        long tickMillis = 1000;
+        long seed = 1;
+    }
+
+    /** One queue event, synthetic or read from a trace. */
+    static final class Event {
+        final long timeMillis;
+        final boolean enqueue;
+        final Player player;
+        final GameType gameType;
+
+        Event(long timeMillis, boolean enqueue, Player player, GameType gameType) {
+            this.timeMillis = timeMillis;
+            this.enqueue = enqueue;
+            this.player = player;
+            this.gameType = gameType;
+        }
+    }
+
+    /** Outcome of one run. Latencies and gaps are kept raw so any percentile can be read. */
+    static final class Report {
+        long enqueued;
+        long cancelled;
+        long matches;
+        long stillQueued;
+        int peakQueued;
+        long operations;
+        long wallNanos;
+        long[] latencyMillis = new long[0];
+        int[] ratingGaps = new int[0];
+
+        double opsPerSecond() {
+            return wallNanos == 0 ? 0 : operations * 1e9 / wallNanos;
+        }
+
+        long latencyPercentile(double p) {
+            return latencyMillis.length == 0 ? 0 : latencyMillis[index(latencyMillis.length, p)];
+        }
+
+        int gapPercentile(double p) {
+            return ratingGaps.length == 0 ? 0 : ratingGaps[index(ratingGaps.length, p)];
+        }
+
+        private static int index(int length, double p) {
+            return (int) Math.min(length - 1, Math.max(0, Math.ceil(p / 100.0 * length) - 1));
+        }
+
+        void print(PrintWriter out) {
+            out.printf(Locale.ROOT, "players enqueued %,d, matched %,d (%d matches), cancelled %,d, still queued %,d, peak queue %,d%n",
+                    enqueued, matches * 2, matches, cancelled, stillQueued, peakQueued);
+            out.printf(Locale.ROOT, "match latency (s): p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                    latencyPercentile(50) / 1000.0, latencyPercentile(90) / 1000.0,
+                    latencyPercentile(99) / 1000.0, latencyPercentile(100) / 1000.0);
+            out.printf(Locale.ROOT, "rating gap: p50 %d  p90 %d  p99 %d  max %d%n",
+                    gapPercentile(50), gapPercentile(90), gapPercentile(99), gapPercentile(100));
+            int[] edges = { 25, 50, 100, 200, 400, 1000 };
+            int[] counts = new int[edges.length + 1];
+            for (int gap : ratingGaps) {
+                int bucket = 0;
+                while (bucket < edges.length && gap > edges[bucket]) bucket++;
+                counts[bucket]++;
+            }
+            out.print("gap histogram:");
+            for (int i = 0; i < counts.length; i++) {
+                String label = i < edges.length ? "<=" + edges[i] : ">" + edges[edges.length - 1];
+                out.printf(Locale.ROOT, "  %s: %d", label, counts[i]);
+            }
+            out.println();
+            out.printf(Locale.ROOT, "throughput: %,d Matchmaker calls in %.1f ms wall = %,.0f ops/sec%n",
+                    operations, wallNanos / 1e6, opsPerSecond());
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Config config = new Config();
+        Path trace = null;
+        Path record = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--arrivals": config.arrivalsPerSecond = Double.parseDouble(value); break;
+                case "--seconds": config.durationSeconds = Long.parseLong(value); break;
+                case "--ratings": config.ratings = RatingDistribution.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                case "--cancel": config.cancelProbability = Double.parseDouble(value); break;
+                case "--patience": config.meanPatienceSeconds = Double.parseDouble(value); break;
+                case "--prefill": config.prefill = Integer.parseInt(value); break;
+                case "--tick": config.tickMillis = Long.parseLong(value); break;
+                case "--seed": config.seed = Long.parseLong(value); break;
+                case "--trace": trace = Paths.get(value); break;
+                case "--record": record = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Event> events;
+        if (trace != null) {
+            try (Reader in = Files.newBufferedReader(trace)) {
+                events = readTrace(in);
+            }
+            System.out.println("Replaying " + events.size() + " events from " + trace);
+        } else {
+            events = generate(config);
+            System.out.printf(Locale.ROOT, "Synthetic: %.1f arrivals/sec for %ds, %s ratings, %.0f%% may cancel, prefill %d%n",
+                    config.arrivalsPerSecond, config.durationSeconds, config.ratings,
+                    config.cancelProbability * 100, config.prefill);
+        }
+        if (record != null) {
+            try (Writer out = Files.newBufferedWriter(record)) {
+                writeTrace(events, out);
+            }
+        }
+        run(events, config.tickMillis).print(new PrintWriter(System.out));
+    }
+
+    /**
+     * Synthetic event stream: exponential inter-arrival times (a Poisson
+     * process), ratings drawn from the configured distribution, game types
+     * uniform, and for impatient players a DEQUEUE after their patience runs
+     * out. The DEQUEUE is harmless if they were matched first.
+     */
+    static List<Event> generate(Config config) {
+        SplittableRandom random = new SplittableRandom(config.seed);
+        GameType[] types = GameType.values();
+        List<Event> events = new ArrayList<>();
+        long end = config.durationSeconds * 1000;
+        long id = 0;
+        double t = 0;
+        while (true) {
+            boolean prefilled = id < config.prefill;
+            if (!prefilled) {
+                t += -Math.log(1 - random.nextDouble()) / config.arrivalsPerSecond * 1000;
+                if (t >= end) break;
+            }
+            long at = prefilled ? 0 : (long) t;
+            String playerId = "sim-" + id++;
+            Player player = new Player(playerId, playerId, rating(config, random));
+            GameType type = types[random.nextInt(types.length)];
+            events.add(new Event(at, true, player, type));
+            if (random.nextDouble() < config.cancelProbability) {
+                long patience = (long) (-Math.log(1 - random.nextDouble()) * config.meanPatienceSeconds * 1000);
+                events.add(new Event(at + patience, false, player, type));
+            }
+        }
+        events.sort((a, b) -> Long.compare(a.timeMillis, b.timeMillis));
+        return events;
+    }
+
+    /**
+     * Replays 'events' (sorted by time) against a fresh Matchmaker on a simulated clock,
+     * calling tick() every 'tickMillis' of simulated time until the last
+     * event, then once more.
+     */
+    static Report run(List<Event> events, long tickMillis) {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        Map<Player, Long> queuedSince = new HashMap<>();
+        long[] latencies = new long[16];
+        int[] gaps = new int[16];
+        Report report = new Report();
+
+        long lastEvent = events.isEmpty() ? 0 : events.get(events.size() - 1).timeMillis;
+        int next = 0;
+        long start = System.nanoTime();
+        for (long tick = tickMillis; ; tick += tickMillis) {
+            while (next < events.size() && events.get(next).timeMillis <= tick) {
+                Event e = events.get(next++);
+                now.set(e.timeMillis);
+                if (e.enqueue) {
+                    matchmaker.enqueue(e.player, e.gameType);
+                    queuedSince.putIfAbsent(e.player, e.timeMillis);
+                    report.enqueued++;
+                } else if (queuedSince.remove(e.player) != null) {
+                    matchmaker.dequeue(e.player);
+                    report.cancelled++;
+                }
+                report.operations++;
+                report.peakQueued = Math.max(report.peakQueued, queuedSince.size());
+            }
+            now.set(tick);
+            for (Match match : matchmaker.tick()) {
+                int m = (int) report.matches++;
+                if (m == latencies.length / 2) {
+                    latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                    gaps = Arrays.copyOf(gaps, gaps.length * 2);
+                }
+                latencies[2 * m] = tick - queuedSince.remove(match.getPlayer1());
+                latencies[2 * m + 1] = tick - queuedSince.remove(match.getPlayer2());
+                gaps[m] = Math.abs(match.getPlayer1().getRating() - match.getPlayer2().getRating());
+            }
+            report.operations++;
+            if (tick > lastEvent) break;
+        }
+        report.wallNanos = System.nanoTime() - start;
+        report.stillQueued = queuedSince.size();
+        report.latencyMillis = Arrays.copyOf(latencies, (int) report.matches * 2);
+        report.ratingGaps = Arrays.copyOf(gaps, (int) report.matches);
+        Arrays.sort(report.latencyMillis);
+        Arrays.sort(report.ratingGaps);
+        return report;
+    }
+
+    static List<Event> readTrace(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        List<Event> events = new ArrayList<>();
+        Map<String, Player> players = new HashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split(",");
+            try {
+                long time = Long.parseLong(f[0].trim());
+                String action = f[1].trim();
+                String id = f[2].trim();
+                if (action.equals("ENQUEUE")) {
+                    Player player = new Player(id, id, Integer.parseInt(f[3].trim()));
+                    players.put(id, player);
+                    events.add(new Event(time, true, player, GameType.valueOf(f[4].trim())));
+                } else if (action.equals("DEQUEUE")) {
+                    Player player = players.getOrDefault(id, new Player(id, id, 0));
+                    events.add(new Event(time, false, player, null));
+                } else {
+                    throw new IllegalArgumentException("unknown action " + action);
+                }
+            } catch (RuntimeException ex) {
+                throw new IOException("Bad trace line " + lineNumber + ": " + line, ex);
+            }
+        }
+        events.sort((a, b) -> Long.compare(a.timeMillis, b.timeMillis));
+        return events;
+    }
+
+    static void writeTrace(List<Event> events, Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("# timeMillis,action,playerId[,rating,gameType]");
+        for (Event e : events) {
+            if (e.enqueue) {
+                out.println(e.timeMillis + ",ENQUEUE," + e.player.getId() + "," + e.player.getRating() + "," + e.gameType);
+            } else {
+                out.println(e.timeMillis + ",DEQUEUE," + e.player.getId());
+            }
+        }
+        out.flush();
+    }
+
+    private static int rating(Config config, SplittableRandom random) {
+        double r;
+        switch (config.ratings) {
+            case UNIFORM:
+                r = config.ratingMean - config.ratingSpread * 2 + random.nextDouble() * config.ratingSpread * 4;
+                break;
+            case BIMODAL:
+                int centre = random.nextBoolean() ? config.ratingMean - config.ratingSpread * 2 : config.ratingMean + config.ratingSpread * 2;
+                r = centre + gaussian(random) * config.ratingSpread / 2.0;
+                break;
+            default:
+                r = config.ratingMean + gaussian(random) * config.ratingSpread;
+        }
+        return (int) Math.max(0, Math.round(r));
+    }
+
+    /** Standard normal sample (Box-Muller); SplittableRandom has no nextGaussian() on Java 17. */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
@@ -0,0 +1,54 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MatchmakingSimulatorTest {
+
+    @Test
+    public void syntheticRunAccountsForEveryPlayer() {
+        MatchmakingSimulator.Config config = new MatchmakingSimulator.Config();
+        config.arrivalsPerSecond = 20;
+        config.durationSeconds = 120;
+        config.cancelProbability = 0.2;
+        config.seed = 7;
+        MatchmakingSimulator.Report report =
+                MatchmakingSimulator.run(MatchmakingSimulator.generate(config), config.tickMillis);
+
+        assertTrue(report.enqueued > 2000);
+        assertEquals(report.enqueued, report.matches * 2 + report.cancelled + report.stillQueued);
+        assertTrue(report.latencyPercentile(50) <= report.latencyPercentile(99));
+        assertTrue(report.gapPercentile(100) <= 1000);
+    }
+
+    @Test
+    public void recordedTraceReplaysToTheSameResult() throws IOException {
+        MatchmakingSimulator.Config config = new MatchmakingSimulator.Config();
+        config.arrivalsPerSecond = 5;
+        config.durationSeconds = 60;
+        config.ratings = MatchmakingSimulator.RatingDistribution.BIMODAL;
+        List<MatchmakingSimulator.Event> events = MatchmakingSimulator.generate(config);
+
+        StringWriter trace = new StringWriter();
+        MatchmakingSimulator.writeTrace(events, trace);
+        List<MatchmakingSimulator.Event> replayed = MatchmakingSimulator.readTrace(new StringReader(trace.toString()));
+
+        MatchmakingSimulator.Report original = MatchmakingSimulator.run(events, 1000);
+        MatchmakingSimulator.Report replay = MatchmakingSimulator.run(replayed, 1000);
+        assertEquals(events.size(), replayed.size());
+        assertEquals(original.matches, replay.matches);
+        assertArrayEquals(original.ratingGaps, replay.ratingGaps);
+        assertArrayEquals(original.latencyMillis, replay.latencyMillis);
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedTraceLineIsReported() throws IOException {
+        MatchmakingSimulator.readTrace(new StringReader("0,ENQUEUE,a,notANumber,CHESS\n"));
+    }
+}
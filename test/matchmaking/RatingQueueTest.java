@@ -0,0 +1,103 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import matchmaking.Matchmaker.QueuedPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RatingQueueTest {
+
+    private static long sequence = 0;
+
+    private static QueuedPlayer entry(String id, int rating) {
+        return new QueuedPlayer(new Player(id, id, rating), GameType.CHESS, sequence++, 0L);
+    }
+
+    @Test
+    public void closestPairPrefersLowestRatingsOnTies() {
+        RatingQueue queue = new RatingQueue();
+        queue.add(entry("a", 1000));
+        queue.add(entry("b", 1050));
+        queue.add(entry("c", 1400));
+        queue.add(entry("d", 1450));
+
+        QueuedPlayer[] pair = queue.closestPair();
+        assertEquals("a", pair[0].player.getId());
+        assertEquals("b", pair[1].player.getId());
+        assertEquals(50, queue.closestGap());
+    }
+
+    @Test
+    public void duplicatesAreIgnoredAndRemovalIsByPlayer() {
+        RatingQueue queue = new RatingQueue();
+        assertTrue(queue.add(entry("a", 1200)));
+        assertFalse(queue.add(entry("a", 1300)));
+        assertEquals(1, queue.size());
+
+        assertNotNull(queue.remove(new Player("a", "A", 0)));
+        assertNull(queue.remove(new Player("a", "A", 0)));
+        assertTrue(queue.isEmpty());
+        assertNull(queue.closestPair());
+    }
+
+    @Test
+    public void matchesNaiveSortedListUnderRandomOperations() {
+        Random random = new Random(7);
+        RatingQueue queue = new RatingQueue();
+        List<QueuedPlayer> naive = new ArrayList<>();
+
+        for (int step = 0; step < 3000; step++) {
+            if (naive.isEmpty() || random.nextInt(3) > 0) {
+                QueuedPlayer qp = entry("p" + step, 800 + random.nextInt(1200));
+                queue.add(qp);
+                naive.add(qp);
+            } else {
+                QueuedPlayer gone = naive.remove(random.nextInt(naive.size()));
+                assertSame(gone, queue.remove(gone.player));
+            }
+            naive.sort(RatingQueue::compare);
+
+            assertEquals(naive.size(), queue.size());
+            assertEquals(naiveClosestGap(naive), queue.closestGap());
+            if (!naive.isEmpty()) {
+                int i = random.nextInt(naive.size());
+                QueuedPlayer probe = naive.get(i);
+                assertEquals(i, queue.rank(probe.player));
+                assertSame(i > 0 ? naive.get(i - 1) : null, queue.predecessor(probe));
+                assertSame(i < naive.size() - 1 ? naive.get(i + 1) : null, queue.successor(probe));
+            }
+        }
+        assertEquals(naive, queue.entries());
+    }
+
+    private static int naiveClosestGap(List<QueuedPlayer> sorted) {
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i + 1 < sorted.size(); i++) {
+            best = Math.min(best, sorted.get(i + 1).rating - sorted.get(i).rating);
+        }
+        return best;
+    }
+
+    @Test
+    public void findMatchForPairsArrivalWithNearestRating() {
+        Matchmaker matchmaker = new Matchmaker();
+        Player low = new Player("low", "Low", 1000);
+        Player high = new Player("high", "High", 1300);
+        Player arrival = new Player("new", "New", 1250);
+        matchmaker.enqueue(low, GameType.GO);
+        matchmaker.enqueue(high, GameType.GO);
+        matchmaker.enqueue(arrival, GameType.GO);
+
+        Match match = matchmaker.findMatchFor(arrival, GameType.GO);
+        assertNotNull(match);
+        assertEquals(arrival, match.getPlayer1());
+        assertEquals(high, match.getPlayer2());
+        assertEquals(1, matchmaker.getQueuedPlayers(GameType.GO).size());
+        assertEquals(15, matchmaker.estimateWait(low));
+    }
+}
@@ -0,0 +1,156 @@
+package matchmaking;
+
+import chat.ChatChannel;
+import chat.ChatMessage;
+import chat.ChatServiceStub;
+import chat.DeliveryStatus;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SessionRegistryTest {
+
+    private static final long IDLE = 60_000;
+
+    private final ChatServiceStub chat = new ChatServiceStub();
+
+    private static GameSession session(String id, String p1, String p2) {
+        Match match = new Match(GameType.CHESS, new Player(p1, p1, 1200), new Player(p2, p2, 1200));
+        return new GameSession(match, new ChatChannel("chat-" + id));
+    }
+
+    @Test
+    public void looksUpByMatchIdAndPlayerId() {
+        SessionRegistry registry = new SessionRegistry(() -> 0, chat, IDLE, 1 << 20);
+        GameSession ab = session("m1", "alice", "bob");
+        GameSession ac = session("m2", "alice", "carol");
+        registry.register("m1", ab);
+        registry.register("m2", ac);
+
+        assertSame(ab, registry.get("m1"));
+        assertNull(registry.get("m3"));
+        assertEquals(2, registry.size());
+        assertEquals(2, registry.getSessionsForPlayer("alice").size());
+        assertEquals(List.of(ab), registry.getSessionsForPlayer("bob"));
+        assertTrue(registry.getSessionsForPlayer("dave").isEmpty());
+
+        assertSame(ab, registry.remove("m1"));
+        assertNull(registry.remove("m1"));
+        assertEquals(List.of(ac), registry.getSessionsForPlayer("alice"));
+        assertTrue(registry.getSessionsForPlayer("bob").isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsDuplicateMatchIds() {
+        SessionRegistry registry = new SessionRegistry(() -> 0, chat, IDLE, 1 << 20);
+        registry.register("m1", session("m1", "a", "b"));
+        registry.register("m1", session("m1", "c", "d"));
+    }
+
+    @Test
+    public void sweepEvictsIdleAndFinishedSessions() {
+        AtomicLong now = new AtomicLong(0);
+        SessionRegistry registry = new SessionRegistry(now::get, chat, IDLE, 1 << 20);
+        List<GameSession> evicted = new ArrayList<>();
+        registry.addEvictionListener(evicted::add);
+        GameSession active = session("active", "a", "b");
+        GameSession idle = session("idle", "c", "d");
+        GameSession over = session("over", "e", "f");
+        registry.register("active", active);
+        registry.register("idle", idle);
+        registry.register("over", over);
+
+        registry.markFinished("over");
+        now.set(IDLE);
+        registry.touch("active");
+        assertEquals(1, registry.evictIdle());
+        assertEquals(List.of(over), evicted);
+
+        now.set(IDLE + 1);
+        assertEquals(1, registry.evictIdle());
+        assertEquals(List.of(over, idle), evicted);
+        assertSame(active, registry.get("active"));
+        assertTrue(registry.getSessionsForPlayer("c").isEmpty());
+        assertFalse(registry.touch("idle"));
+    }
+
+    @Test
+    public void memoryEstimateFollowsChatHistory() {
+        SessionRegistry registry = new SessionRegistry(() -> 0, chat, IDLE, 1 << 20);
+        GameSession session = session("m1", "a", "b");
+        registry.register("m1", session);
+        long empty = registry.getApproxBytes();
+        assertEquals(SessionRegistry.estimateBytes(session), empty);
+
+        for (int i = 0; i < 10; i++) {
+            session.getChatChannel().addMessage(
+                    new ChatMessage("a", "a", "hello " + i, Instant.now(), DeliveryStatus.SENT));
+        }
+        assertEquals(empty, registry.getApproxBytes()); // not refreshed yet
+        registry.touch("m1");
+        assertTrue(registry.getApproxBytes() > empty);
+        assertEquals(SessionRegistry.estimateBytes(session), registry.getApproxBytes());
+
+        registry.remove("m1");
+        assertEquals(0, registry.getApproxBytes());
+    }
+
+    @Test
+    public void fullRegistryEvictsIdleSessionsBeforeRefusing() {
+        AtomicLong now = new AtomicLong(0);
+        long oneSession = SessionRegistry.estimateBytes(session("m0", "p0", "q0"));
+        SessionRegistry registry = new SessionRegistry(now::get, chat, IDLE, 2 * oneSession);
+        registry.register("m0", session("m0", "p0", "q0"));
+        registry.register("m1", session("m1", "p1", "q1"));
+        try {
+            registry.register("m2", session("m2", "p2", "q2"));
+            fail("registry should be full");
+        } catch (IllegalStateException expected) {
+            assertEquals(2, registry.size());
+        }
+
+        now.set(IDLE + 1);
+        registry.touch("m1");
+        registry.register("m2", session("m2", "p2", "q2"));
+        assertNull(registry.get("m0"));
+        assertEquals(2, registry.size());
+        assertTrue(registry.getApproxBytes() <= registry.getMaxBytes());
+    }
+
+    @Test
+    public void leavingSessionsCloseTheirChatChannels() {
+        AtomicLong now = new AtomicLong(0);
+        SessionRegistry registry = new SessionRegistry(now::get, chat, IDLE, 1 << 20);
+        Match match = new Match(GameType.GO, new Player("a", "a", 1200), new Player("b", "b", 1200));
+        GameSession removed = new GameSession(match, chat.openChannel("removed"));
+        GameSession evicted = new GameSession(match, chat.openChannel("evicted"));
+        registry.register("removed", removed);
+        registry.register("evicted", evicted);
+        chat.sendMessage("removed", "a", "a", "hello");
+        chat.sendMessage("evicted", "b", "b", "hi");
+        registry.touch("removed");
+        registry.touch("evicted");
+        long withHistory = registry.getApproxBytes();
+
+        registry.remove("removed");
+        assertTrue(removed.getChatChannel().getHistory().isEmpty());
+        assertTrue(chat.getHistory("removed").isEmpty());
+
+        now.set(IDLE + 1);
+        assertEquals(1, registry.evictIdle());
+        assertTrue(evicted.getChatChannel().getHistory().isEmpty());
+        assertTrue(chat.getHistory("evicted").isEmpty());
+        assertEquals(0, registry.getApproxBytes());
+        assertTrue(withHistory > 0);
+    }
+
+    @Test
+    public void appContextSharesOneRegistry() {
+        assertSame(AppContext.getSessionRegistry(), AppContext.getSessionRegistry());
+    }
+}
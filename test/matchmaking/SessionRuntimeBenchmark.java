@@ -0,0 +1,96 @@
+package matchmaking;
+
+import chat.ChatChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark for SessionRuntime (not a JUnit test).
+ *
+ * Spawns SESSIONS actors on one carrier per core, then has PRODUCERS threads
+ * post MOVES move commands to every session (a session's commands all come
+ * from one producer, so their order is known) and waits until every session
+ * has handled all of them. Each behaviour does a little per-move work on
+ * plain fields. Prints commands handled per second and how many threads the
+ * JVM ran for all those sessions.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out matchmaking.SessionRuntimeBenchmark
+ */
+public class SessionRuntimeBenchmark {
+
+    private static final int SESSIONS = 10_000;
+    private static final int MOVES = 200;
+    private static final int PRODUCERS = 4;
+
+    /** Tic-tac-toe-sized state updated per move, without any locking. */
+    private static final class Counting implements SessionBehavior {
+        final CountDownLatch finished;
+        final int[] cells = new int[9];
+        int handled;
+
+        Counting(CountDownLatch finished) {
+            this.finished = finished;
+        }
+
+        @Override
+        public boolean handle(GameSession session, SessionCommand command) {
+            cells[command.getMove() % 9] += command.getPlayerIndex() + 1;
+            if (++handled == MOVES) {
+                finished.countDown();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int carriers = Runtime.getRuntime().availableProcessors();
+        for (int round = 0; round < 2; round++) {
+            try (SessionRuntime runtime = new SessionRuntime(carriers, MOVES)) {
+                CountDownLatch finished = new CountDownLatch(SESSIONS);
+                List<SessionActor> actors = new ArrayList<>(SESSIONS);
+                for (int s = 0; s < SESSIONS; s++) {
+                    Match match = new Match(GameType.TIC_TAC_TOE,
+                            new Player("x" + s, "x", 1200), new Player("o" + s, "o", 1200));
+                    actors.add(runtime.spawn(new GameSession(match, new ChatChannel("bench-" + s)),
+                            new Counting(finished)));
+                }
+
+                long start = System.nanoTime();
+                List<Thread> producers = new ArrayList<>();
+                for (int p = 0; p < PRODUCERS; p++) {
+                    int producer = p;
+                    Thread t = new Thread(() -> {
+                        for (int m = 0; m < MOVES; m++) {
+                            for (int s = producer; s < SESSIONS; s += PRODUCERS) {
+                                SessionActor actor = actors.get(s);
+                                while (!actor.tell(SessionCommand.move(m % 2, m))) {
+                                    Thread.onSpinWait(); // mailbox full: back off
+                                }
+                            }
+                        }
+                    });
+                    t.start();
+                    producers.add(t);
+                }
+                int liveThreads = Thread.activeCount();
+                for (Thread t : producers) {
+                    t.join();
+                }
+                if (!finished.await(5, TimeUnit.MINUTES)) {
+                    throw new IllegalStateException("sessions did not finish");
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long commands = (long) SESSIONS * MOVES;
+                System.out.printf("%s: %,d sessions on %d carrier(s), %,d commands in %.2f s = %,.0f commands/sec,"
+                                + " %d live JVM threads%n",
+                        round == 0 ? "warm-up " : "measured", SESSIONS, carriers, commands, seconds,
+                        commands / seconds, liveThreads);
+            }
+        }
+    }
+}
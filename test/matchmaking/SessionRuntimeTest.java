@@ -0,0 +1,200 @@
+package matchmaking;
+
+import chat.ChatChannel;
+import chat.ChatServiceStub;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SessionRuntimeTest {
+
+    private final SessionRuntime runtime = new SessionRuntime(2, 8);
+
+    @After
+    public void closeRuntime() {
+        runtime.close();
+    }
+
+    private static GameSession session(String id) {
+        Match match = new Match(GameType.TIC_TAC_TOE,
+                new Player(id + "-x", "x", 1200), new Player(id + "-o", "o", 1200));
+        return new GameSession(match, new ChatChannel(id));
+    }
+
+    /** Plain, unsynchronised state: only safe if the actor really runs serially. */
+    private static final class Recording implements SessionBehavior {
+        final List<SessionCommand> seen = new ArrayList<>();
+        final CountDownLatch done;
+        int busy;
+
+        Recording(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public boolean handle(GameSession session, SessionCommand command) {
+            assertEquals("handled concurrently", 0, busy++);
+            seen.add(command);
+            busy--;
+            done.countDown();
+            return command.getKind() == SessionCommand.Kind.RESIGN
+                    || command.getKind() == SessionCommand.Kind.TIMEOUT;
+        }
+    }
+
+    @Test
+    public void commandsOfOneSessionAreHandledInOrderOneAtATime() throws Exception {
+        SessionRuntime roomy = new SessionRuntime(4, 10_000);
+        try {
+            int sessions = 200;
+            int moves = 500;
+            List<Recording> behaviors = new ArrayList<>();
+            List<SessionActor> actors = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                Recording r = new Recording(moves);
+                behaviors.add(r);
+                actors.add(roomy.spawn(session("s" + s), r));
+            }
+            for (int m = 0; m < moves; m++) {
+                for (SessionActor actor : actors) {
+                    assertTrue(actor.tell(SessionCommand.move(m % 2, m)));
+                }
+            }
+            for (Recording r : behaviors) {
+                assertTrue(r.done.await(10, TimeUnit.SECONDS));
+                for (int m = 0; m < moves; m++) {
+                    assertEquals(m, r.seen.get(m).getMove());
+                }
+            }
+        } finally {
+            roomy.close();
+        }
+    }
+
+    @Test
+    public void fullMailboxRejectsInsteadOfBlocking() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SessionActor actor = runtime.spawn(session("slow"), (session, command) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        });
+        assertTrue(actor.tell(SessionCommand.move(0, 0)));
+        assertTrue(entered.await(5, TimeUnit.SECONDS)); // the actor is now busy with move 0
+        for (int i = 0; i < 8; i++) {
+            assertTrue(actor.tell(SessionCommand.move(1, i)));
+        }
+        assertFalse(actor.tell(SessionCommand.move(0, 99)));
+        assertEquals(8, actor.getPendingCount());
+        release.countDown();
+    }
+
+    @Test
+    public void resignEndsTheSessionAndDropsLaterCommands() throws Exception {
+        Recording r = new Recording(2);
+        SessionActor actor = runtime.spawn(session("resign"), r);
+        assertEquals(1, runtime.getActiveCount());
+        actor.tell(SessionCommand.chat(0, "gg"));
+        actor.tell(SessionCommand.resign(1));
+        assertTrue(r.done.await(5, TimeUnit.SECONDS));
+        // handle() has returned true, but the carrier may not have stopped the actor yet
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (runtime.getActiveCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(actor.isStopped());
+        assertFalse(actor.tell(SessionCommand.move(0, 1)));
+        assertEquals(0, runtime.getActiveCount());
+    }
+
+    @Test
+    public void scheduledTimeoutArrivesAsACommand() throws Exception {
+        Recording r = new Recording(1);
+        SessionActor actor = runtime.spawn(session("clock"), r);
+        runtime.scheduleTimeout(actor, 1, 20);
+        assertTrue(r.done.await(5, TimeUnit.SECONDS));
+        assertEquals(SessionCommand.Kind.TIMEOUT, r.seen.get(0).getKind());
+        assertEquals(1, r.seen.get(0).getPlayerIndex());
+    }
+
+    @Test
+    public void aFailingCommandDoesNotKillTheActor() throws Exception {
+        CountDownLatch errors = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(2);
+        SessionActor actor = runtime.spawn(session("bad"), new SessionBehavior() {
+            @Override
+            public boolean handle(GameSession session, SessionCommand command) {
+                handled.countDown();
+                if (command.getMove() < 0) {
+                    throw new IllegalArgumentException("illegal move");
+                }
+                return false;
+            }
+
+            @Override
+            public void onError(GameSession session, SessionCommand command, RuntimeException error) {
+                errors.countDown();
+            }
+        });
+        actor.tell(SessionCommand.move(0, -1));
+        actor.tell(SessionCommand.move(0, 4));
+        assertTrue(errors.await(5, TimeUnit.SECONDS));
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        assertFalse(actor.isStopped());
+    }
+
+    @Test
+    public void registeredSessionsLeaveTheRegistryWhenTheirActorStops() throws Exception {
+        ChatServiceStub chat = new ChatServiceStub();
+        SessionRegistry registry = new SessionRegistry(chat);
+        try (SessionRuntime registering = new SessionRuntime(1, 8, registry)) {
+            Match match = new Match(GameType.CHESS, new Player("w", "w", 1200), new Player("b", "b", 1200));
+            GameSession session = new GameSession(match, chat.openChannel("game-1"));
+            chat.sendMessage("game-1", "w", "w", "good luck");
+            Recording r = new Recording(1);
+            SessionActor actor = registering.spawn(session, r);
+            assertSame(session, registry.get("game-1"));
+            assertEquals(1, registry.getSessionsForPlayer("b").size());
+
+            assertTrue(actor.tell(SessionCommand.move(0, 12)));
+            assertTrue(r.done.await(5, TimeUnit.SECONDS));
+            actor.stop();
+            assertNull(registry.get("game-1"));
+            assertTrue(session.getChatChannel().getHistory().isEmpty());
+        }
+    }
+
+    @Test
+    public void anActorWhoseSessionIsEvictedAsIdleIsStopped() {
+        ChatServiceStub chat = new ChatServiceStub();
+        AtomicLong now = new AtomicLong(0);
+        SessionRegistry registry = new SessionRegistry(now::get, chat, 60_000, 1 << 20);
+        try (SessionRuntime registering = new SessionRuntime(1, 8, registry)) {
+            SessionActor actor = registering.spawn(session("idle-game"), new Recording(0));
+
+            now.set(60_001);
+            assertEquals(1, registry.evictIdle());
+            assertTrue(actor.isStopped());
+            assertFalse(actor.tell(SessionCommand.move(0, 4)));
+            assertEquals(0, registering.getActiveCount());
+
+            // the id is free again, and the old actor's stop does not remove the new session
+            GameSession next = session("idle-game");
+            registering.spawn(next, new Recording(0));
+            actor.stop();
+            assertSame(next, registry.get("idle-game"));
+        }
+    }
+}
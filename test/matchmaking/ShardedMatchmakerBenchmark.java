@@ -0,0 +1,86 @@
+package matchmaking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Throughput benchmark for ShardedMatchmaker (not a JUnit test).
+ *
+ * For 1, 2, 4 and 8 in-process shards, one producer thread per shard enqueues
+ * its share of PLAYERS arrivals (ratings uniform 0..3000, all game types)
+ * while the coordinator ticks, until everyone has been matched. Prints the
+ * players matched per second. A final run puts two shards behind ShardServers
+ * on loopback sockets to show the cost of the wire.
+ *
+ * Scaling is bounded by the number of cores, which is printed first.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out matchmaking.ShardedMatchmakerBenchmark
+ */
+public class ShardedMatchmakerBenchmark {
+
+    private static final int PLAYERS = 200_000;
+    private static final int SOCKET_PLAYERS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+
+        for (int round = 0; round < 2; round++) {
+            String label = round == 0 ? "warm-up" : "measured";
+            for (int shards : new int[] { 1, 2, 4, 8 }) {
+                try (ShardedMatchmaker sharded = new ShardedMatchmaker(new InProcessShardTransport(shards))) {
+                    report(label, "in-process x" + shards, run(sharded, PLAYERS));
+                }
+            }
+        }
+
+        try (ShardServer s0 = new ShardServer(0, new Matchmaker()).start();
+             ShardServer s1 = new ShardServer(0, new Matchmaker()).start();
+             ShardedMatchmaker sharded = new ShardedMatchmaker(
+                     new SocketShardTransport(s0.getPort(), s1.getPort()))) {
+            report("measured", "socket x2", run(sharded, SOCKET_PLAYERS));
+        }
+    }
+
+    /** Returns players matched per second. */
+    private static double run(ShardedMatchmaker sharded, int players) throws Exception {
+        int producers = sharded.getShardCount();
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        long start = System.nanoTime();
+        List<Future<?>> running = new ArrayList<>();
+        for (int t = 0; t < producers; t++) {
+            int producer = t;
+            running.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(42 + producer);
+                GameType[] types = GameType.values();
+                for (int i = producer; i < players; i += producers) {
+                    Player p = new Player("p" + i, "p" + i, random.nextInt(3001));
+                    sharded.enqueue(p, types[random.nextInt(types.length)]);
+                }
+            }));
+        }
+
+        long matched = 0;
+        boolean producing;
+        int made;
+        do {
+            producing = running.stream().anyMatch(f -> !f.isDone());
+            made = sharded.tick().size();
+            matched += 2L * made;
+        } while (producing || made > 0); // stop once only unpairable leftovers remain
+        for (Future<?> f : running) {
+            f.get();
+        }
+        pool.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return matched / seconds;
+    }
+
+    private static void report(String label, String setup, double perSecond) {
+        System.out.printf("%-9s %-15s %,12.0f players matched/sec%n", label, setup, perSecond);
+    }
+}
@@ -0,0 +1,143 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ShardedMatchmakerTest {
+
+    private static Player player(String id, int rating) {
+        return new Player(id, id, rating);
+    }
+
+    @Test
+    public void partitionsByGameTypeAndBand() {
+        try (ShardedMatchmaker sharded = new ShardedMatchmaker(new InProcessShardTransport(4))) {
+            assertEquals(sharded.shardFor(GameType.CHESS, 1000), sharded.shardFor(GameType.CHESS, 1100));
+            assertNotEquals(sharded.shardFor(GameType.CHESS, 1000), sharded.shardFor(GameType.CHESS, 1200));
+            assertNotEquals(sharded.shardFor(GameType.CHESS, 1000), sharded.shardFor(GameType.GO, 1000));
+        }
+    }
+
+    @Test
+    public void pairsWithinEachShardAndForgetsMatchedPlayers() {
+        InProcessShardTransport transport = new InProcessShardTransport(3);
+        try (ShardedMatchmaker sharded = new ShardedMatchmaker(transport)) {
+            sharded.enqueue(player("a", 1000), GameType.CHESS);
+            sharded.enqueue(player("b", 1020), GameType.CHESS);
+            sharded.enqueue(player("c", 1700), GameType.GO);
+            sharded.enqueue(player("d", 1710), GameType.GO);
+            sharded.enqueue(player("alone", 2500), GameType.TIC_TAC_TOE);
+
+            List<Match> matches = sharded.tick();
+            assertEquals(2, matches.size());
+            assertEquals(1, sharded.size());
+            assertTrue(sharded.isQueued(player("alone", 0)));
+        }
+    }
+
+    @Test
+    public void edgePlayersMigrateToTheNeighbouringBand() {
+        AtomicLong now = new AtomicLong(0);
+        InProcessShardTransport transport = new InProcessShardTransport(
+                new Matchmaker(now::get), new Matchmaker(now::get));
+        try (ShardedMatchmaker sharded = new ShardedMatchmaker(transport, 400, now::get)) {
+            // 1190 and 1210 straddle the 1200 edge, so they start on different shards
+            Player below = player("below", 1190);
+            Player above = player("above", 1210);
+            sharded.enqueue(below, GameType.CHESS);
+            sharded.enqueue(above, GameType.CHESS);
+            assertNotEquals(sharded.shardFor(GameType.CHESS, 1190), sharded.shardFor(GameType.CHESS, 1210));
+            assertTrue(sharded.tick().isEmpty());
+
+            now.set(20_000); // 'above' moves down to the shard of the lower band
+            List<Match> matches = sharded.tick();
+            assertEquals(1, matches.size());
+            assertEquals(below, matches.get(0).getPlayer1());
+            assertEquals(0, sharded.size());
+        }
+    }
+
+    @Test
+    public void migratedPlayersKeepTheirTimeInQueue() {
+        AtomicLong now = new AtomicLong(0);
+        InProcessShardTransport transport = new InProcessShardTransport(
+                new Matchmaker(now::get), new Matchmaker(now::get));
+        try (ShardedMatchmaker sharded = new ShardedMatchmaker(transport, 400, now::get)) {
+            Player edge = player("edge", 1210);
+            sharded.enqueue(edge, GameType.CHESS);
+            now.set(20_000);
+            // 260 below 'edge': too far for a fresh window of 200, within the 300
+            // that 'edge' has earned by waiting 20 s
+            Player newcomer = player("newcomer", 950);
+            sharded.enqueue(newcomer, GameType.CHESS);
+
+            List<Match> matches = sharded.tick();
+            assertEquals(1, matches.size());
+            assertEquals(newcomer, matches.get(0).getPlayer1());
+            assertEquals(edge, matches.get(0).getPlayer2());
+        }
+    }
+
+    @Test
+    public void playersAwayFromAnEdgeStayOnTheirShard() {
+        AtomicLong now = new AtomicLong(0);
+        InProcessShardTransport transport = new InProcessShardTransport(
+                new Matchmaker(now::get), new Matchmaker(now::get));
+        try (ShardedMatchmaker sharded = new ShardedMatchmaker(transport, 400, now::get)) {
+            Player mid = player("mid", 1400);
+            sharded.enqueue(mid, GameType.CHESS);
+            int home = sharded.shardFor(GameType.CHESS, 1400);
+            now.set(60_000);
+            sharded.tick();
+            assertEquals(1, transport.getShard(home).getQueuedPlayers(GameType.CHESS).size());
+        }
+    }
+
+    @Test
+    public void dequeueRemovesFromTheOwningShard() {
+        InProcessShardTransport transport = new InProcessShardTransport(2);
+        try (ShardedMatchmaker sharded = new ShardedMatchmaker(transport)) {
+            Player p = player("p", 1500);
+            sharded.enqueue(p, GameType.GO);
+            int shard = sharded.shardFor(GameType.GO, 1500);
+            assertEquals(1, transport.getShard(shard).getQueuedPlayers(GameType.GO).size());
+            sharded.dequeue(p);
+            assertTrue(transport.getShard(shard).getQueuedPlayers(GameType.GO).isEmpty());
+            assertFalse(sharded.isQueued(p));
+        }
+    }
+
+    @Test
+    public void socketTransportRunsTheSameProtocol() throws Exception {
+        try (ShardServer s0 = new ShardServer(0, new Matchmaker()).start();
+             ShardServer s1 = new ShardServer(0, new Matchmaker()).start();
+             ShardedMatchmaker sharded = new ShardedMatchmaker(new SocketShardTransport(s0.getPort(), s1.getPort()))) {
+            sharded.enqueue(player("a", 1000), GameType.CHESS);
+            sharded.enqueue(player("b", 1010), GameType.CHESS);
+            sharded.enqueue(player("c", 1700), GameType.CHESS);
+            sharded.dequeue(player("c", 1700));
+
+            List<Match> matches = sharded.tick();
+            assertEquals(1, matches.size());
+            assertEquals("a", matches.get(0).getPlayer1().getId());
+            assertEquals(1010, matches.get(0).getPlayer2().getRating());
+            assertEquals(0, sharded.size());
+        }
+    }
+
+    @Test
+    public void socketTransportCarriesTheEnqueueTimeOfAMigration() throws Exception {
+        try (ShardServer s0 = new ShardServer(0, new Matchmaker()).start();
+             SocketShardTransport transport = new SocketShardTransport(s0.getPort())) {
+            Player p = player("p", 1300);
+            long queuedAt = System.currentTimeMillis() - 30_000;
+            transport.enqueue(0, p, GameType.GO, queuedAt);
+            assertEquals(queuedAt, transport.handOff(0, p));
+            assertEquals(-1, transport.handOff(0, p));
+        }
+    }
+}
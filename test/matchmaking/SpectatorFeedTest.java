@@ -0,0 +1,116 @@
+package matchmaking;
+
+import chat.ChatChannel;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SpectatorFeedTest {
+
+    private static byte[] frame(int value) {
+        return new byte[] {(byte) value};
+    }
+
+    @Test
+    public void spectatorStartsAtTheNewestKeyframeAndReadsInOrder() {
+        SpectatorFeed feed = new SpectatorFeed(8, 4);
+        SpectatorFeed.Cursor early = feed.subscribe();
+        assertNull(early.poll());
+
+        feed.publish(frame(1), true);
+        feed.publish(frame(2), false);
+        feed.publish(frame(3), false);
+        SpectatorFeed.Cursor late = feed.subscribe();
+        feed.publish(frame(4), false);
+
+        for (int i = 1; i <= 4; i++) {
+            assertArrayEquals(frame(i), early.poll());
+        }
+        assertNull(early.poll());
+        for (int i = 1; i <= 4; i++) {
+            assertArrayEquals(frame(i), late.poll()); // from the keyframe, not from 'now'
+        }
+        assertEquals(0, late.getLag());
+        assertEquals(0, late.getSkipped());
+    }
+
+    @Test
+    public void deltasAreRefusedUntilAKeyframeIsPublished() {
+        SpectatorFeed feed = new SpectatorFeed(8, 3);
+        assertTrue(feed.isKeyframeDue());
+        try {
+            feed.publish(frame(1), false);
+            fail("delta before the first keyframe");
+        } catch (IllegalStateException expected) {
+        }
+        feed.publish(frame(1), true);
+        feed.publish(frame(2), false);
+        feed.publish(frame(3), false);
+        assertFalse(feed.isKeyframeDue());
+        feed.publish(frame(4), false);
+        assertTrue(feed.isKeyframeDue());
+        try {
+            feed.publish(frame(5), false);
+            fail("keyframe interval exceeded");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void slowSpectatorIsMovedToTheNewestKeyframe() {
+        SpectatorFeed feed = new SpectatorFeed(8, 4);
+        SpectatorFeed.Cursor slow = feed.subscribe();
+        feed.publish(frame(1), true);
+        assertArrayEquals(frame(1), slow.poll());
+
+        for (int seq = 2; seq <= 30; seq++) {
+            feed.publish(frame(seq), feed.isKeyframeDue());
+        }
+        // keyframes went out at 1, 6, 11, 16, 21, 26; frame 2 is long overwritten
+        assertEquals(29, slow.getLag());
+        assertArrayEquals(frame(26), slow.poll());
+        assertEquals(24, slow.getSkipped());
+        for (int seq = 27; seq <= 30; seq++) {
+            assertArrayEquals(frame(seq), slow.poll());
+        }
+        assertNull(slow.poll());
+    }
+
+    @Test
+    public void producerNeverWaitsForSpectators() throws Exception {
+        SpectatorFeed feed = new SpectatorFeed(64, 16);
+        AtomicInteger published = new AtomicInteger();
+        feed.setPublishListener(published::incrementAndGet);
+        SpectatorFeed.Cursor idle = feed.subscribe();
+        SpectatorFeed.Cursor reader = feed.subscribe();
+        feed.publish(frame(1), true);
+        long read = reader.poll() != null ? 1 : 0;
+
+        Thread producer = new Thread(() -> {
+            for (int i = 2; i <= 100_000; i++) {
+                feed.publish(frame(i), feed.isKeyframeDue());
+            }
+        });
+        producer.start();
+        while (producer.isAlive() || reader.getLag() > 0) {
+            if (reader.poll() != null) {
+                read++;
+            }
+        }
+        producer.join();
+        assertEquals(100_000, published.get());
+        assertEquals(100_000, feed.getHead());
+        assertEquals(100_000, read + reader.getSkipped());
+        assertNotNull(idle.poll()); // the idle spectator just gets the latest keyframe
+    }
+
+    @Test
+    public void sessionCreatesItsFeedOnce() {
+        Match match = new Match(GameType.GO, new Player("a", "a", 1000), new Player("b", "b", 1000));
+        GameSession session = new GameSession(match, new ChatChannel("c"));
+        assertSame(session.getSpectatorFeed(), session.getSpectatorFeed());
+        assertEquals(SpectatorFeed.DEFAULT_CAPACITY, session.getSpectatorFeed().getCapacity());
+    }
+}
@@ -0,0 +1,42 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void keysComeDueAcrossRotations() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("later", 2_050); // more than one rotation (800 ms) away
+        wheel.schedule("cancelled", 300);
+        wheel.cancel("cancelled");
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("soon"), wheel.advance(260));
+        assertTrue(wheel.advance(2_000).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(2_050));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void deadlineLaterInTheCurrentTickIsNotDelayedARotation() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("k", 180);
+        assertTrue(wheel.advance(150).isEmpty());
+        assertEquals(List.of("k"), wheel.advance(190));
+    }
+
+    @Test
+    public void longGapVisitsEverySlotOnce() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 0);
+        for (int i = 0; i < 20; i++) {
+            wheel.schedule(i, i * 7L);
+        }
+        assertEquals(20, wheel.advance(1_000_000).size());
+    }
+}
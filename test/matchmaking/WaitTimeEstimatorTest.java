@@ -0,0 +1,121 @@
+package matchmaking;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class WaitTimeEstimatorTest {
+
+    @Test
+    public void steadyTrafficConvergesToLittlesLaw() {
+        WaitTimeEstimator waits = new WaitTimeEstimator();
+        // one arrival per second; each player is matched 10s after arriving,
+        // so about 10 players are always waiting and the wait is ~10s
+        long now = 0;
+        for (int second = 0; second < 1200; second++) {
+            now = second * 1000L;
+            waits.onEnqueue(1500, now);
+            if (second >= 10) {
+                waits.onMatched(1500, now);
+            }
+        }
+        assertEquals(1.0, waits.arrivalRate(1500, now), 0.01);
+        assertEquals(1.0, waits.matchRate(1500, now), 0.01);
+        int estimate = waits.estimateSeconds(1500, now);
+        assertTrue("estimate " + estimate, estimate >= 9 && estimate <= 12);
+    }
+
+    @Test
+    public void bandsAreIndependentAndNeedHistory() {
+        WaitTimeEstimator waits = new WaitTimeEstimator();
+        for (int i = 0; i < 20; i++) {
+            waits.onEnqueue(1000, i * 1000L);
+        }
+        assertTrue(waits.estimateSeconds(1000, 20_000) > 0);
+        assertEquals(WaitTimeEstimator.NO_ESTIMATE, waits.estimateSeconds(2400, 20_000));
+        assertEquals(WaitTimeEstimator.bandOf(1000), WaitTimeEstimator.bandOf(1199));
+        assertEquals(WaitTimeEstimator.BANDS - 1, WaitTimeEstimator.bandOf(99_999));
+    }
+
+    @Test
+    public void withoutMatchesTheEstimateIsTimeToNextArrival() {
+        WaitTimeEstimator waits = new WaitTimeEstimator();
+        for (int i = 0; i < 600; i++) {
+            waits.onEnqueue(1000, i * 5000L); // one arrival every 5s
+        }
+        int estimate = waits.estimateSeconds(1000, 600 * 5000L);
+        assertTrue("estimate " + estimate, estimate >= 4 && estimate <= 7);
+    }
+
+    @Test
+    public void matchmakerFallsBackToQueuePositionWithoutHistory() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        Player a = new Player("a", "a", 1000);
+        Player b = new Player("b", "b", 3000);
+        matchmaker.enqueue(a, GameType.CHESS);
+        matchmaker.enqueue(b, GameType.CHESS);
+        assertEquals(15, matchmaker.estimateWait(a));
+        assertEquals(15, matchmaker.estimateWait(b));
+        assertEquals(15, matchmaker.estimateWait(GameType.GO, 1000));
+        assertEquals(-1, matchmaker.estimateWait(new Player("x", "x", 1000)));
+    }
+
+    @Test
+    public void matchmakerUsesObservedTrafficOnceAvailable() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        // a pair every 4s in the 1000-1199 band: half a player matched per second
+        for (int i = 0; i < 300; i++) {
+            now.set(i * 4000L);
+            matchmaker.enqueue(new Player("p" + i + "a", "a", 1000), GameType.GO);
+            matchmaker.enqueue(new Player("p" + i + "b", "b", 1010), GameType.GO);
+            assertNotNull(matchmaker.findMatch());
+        }
+        Player waiting = new Player("waiting", "w", 1100);
+        matchmaker.enqueue(waiting, GameType.GO);
+        // one player waiting, 0.5 players/sec leaving: about 2 seconds
+        int estimate = matchmaker.estimateWait(waiting);
+        assertTrue("estimate " + estimate, estimate >= 1 && estimate <= 3);
+        assertEquals(estimate, matchmaker.estimateWait(GameType.GO, 1100));
+    }
+
+    @Test
+    public void handedOffPlayersLeaveNoPhantomWaiters() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        for (int i = 0; i < 300; i++) {
+            now.set(i * 4000L);
+            matchmaker.enqueue(new Player("p" + i + "a", "a", 1000), GameType.GO);
+            matchmaker.enqueue(new Player("p" + i + "b", "b", 1010), GameType.GO);
+            assertNotNull(matchmaker.findMatch());
+        }
+        Player waiting = new Player("waiting", "w", 1100);
+        matchmaker.enqueue(waiting, GameType.GO);
+        int before = matchmaker.estimateWait(waiting);
+
+        for (int i = 0; i < 200; i++) {
+            Player migrant = new Player("m" + i, "m", 1150);
+            matchmaker.enqueue(migrant, GameType.GO);
+            assertEquals(now.get(), matchmaker.handOff(migrant));
+        }
+        assertEquals(before, matchmaker.estimateWait(waiting));
+    }
+
+    @Test
+    public void aMigratedArrivalDoesNotMoveTheArrivalClockBack() {
+        AtomicLong now = new AtomicLong(0);
+        Matchmaker matchmaker = new Matchmaker(now::get);
+        for (int i = 0; i < 600; i++) {
+            now.set(i * 5000L); // one arrival every 5s, never matched
+            matchmaker.enqueue(new Player("p" + i, "p", 1000 + i % 100), GameType.GO);
+        }
+        int before = matchmaker.estimateWait(GameType.GO, 1000);
+        // migrated in with an enqueue time from long ago
+        matchmaker.enqueue(new Player("migrant", "m", 1050), GameType.GO, 0);
+        int after = matchmaker.estimateWait(GameType.GO, 1000);
+        assertTrue("before " + before + ", after " + after, after <= before);
+    }
+}
@@ -0,0 +1,167 @@
+package server;
+
+import TicTacToe_Logic.TicTacToeGame;
+import TicTacToe_Logic.TicTacToeGameResult;
+import chess_logic.ChessGame;
+import chess_logic.ChessMove;
+import chess_logic.GameStatus;
+import game_logic.BoardCells;
+import go_logic.GoGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Delta stream vs. full snapshots, for all three games (not a JUnit test).
+ *
+ * Plays GAMES random games each of chess, 19x19 Go and 15x15 Gomoku and
+ * records the board after every move. Each move is then shipped two ways:
+ * as a full snapshot (one byte per cell plus a 5-byte header, the
+ * cheapest possible full-board message) and as a BoardDeltaEncoder delta.
+ * Prints bytes per move and encode + decode time per move for both.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out server.BoardDeltaBenchmark
+ */
+public class BoardDeltaBenchmark {
+
+    private static final int GAMES = 40;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        SplittableRandom random = new SplittableRandom(7);
+        report("chess 8x8", 8, 8, chessGames(random));
+        report("go 19x19", 19, 19, goGames(random));
+        report("gomoku 15x15", 15, 15, gomokuGames(random));
+    }
+
+    private static void report(String label, int width, int height, List<List<int[]>> games) {
+        long moves = 0;
+        long snapshotBytes = 0;
+        long deltaBytes = 0;
+        long snapshotNanos = 0;
+        long deltaNanos = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean measured = round >= ROUNDS / 2; // first half warms up
+            for (List<int[]> boards : games) {
+                long start = System.nanoTime();
+                for (int i = 1; i < boards.size(); i++) {
+                    byte[] frame = snapshot(boards.get(i));
+                    int[] decoded = readSnapshot(frame, width * height);
+                    sink += decoded[i % decoded.length];
+                    if (measured) snapshotBytes += frame.length;
+                }
+                long mid = System.nanoTime();
+                BoardDeltaEncoder encoder = new BoardDeltaEncoder(width, height);
+                BoardDeltaDecoder decoder = new BoardDeltaDecoder();
+                decoder.apply(encoder.keyframe(boards.get(0)));
+                for (int i = 1; i < boards.size(); i++) {
+                    byte[] frame = encoder.delta(boards.get(i));
+                    decoder.apply(frame);
+                    sink += decoder.getCells()[i % decoder.getCells().length];
+                    if (measured) deltaBytes += frame.length;
+                }
+                long end = System.nanoTime();
+                if (measured) {
+                    moves += boards.size() - 1;
+                    snapshotNanos += mid - start;
+                    deltaNanos += end - mid;
+                }
+            }
+        }
+        System.out.printf("%-13s snapshot %6.1f B/move %7.0f ns/move | delta %5.1f B/move %6.0f ns/move"
+                        + "  (%.0fx smaller)  [%d]%n",
+                label, (double) snapshotBytes / moves, (double) snapshotNanos / moves,
+                (double) deltaBytes / moves, (double) deltaNanos / moves,
+                (double) snapshotBytes / deltaBytes, sink & 1);
+    }
+
+    /** Full board: opcode, int cell count, one byte per cell. */
+    private static byte[] snapshot(int[] cells) {
+        byte[] frame = new byte[5 + cells.length];
+        int n = cells.length;
+        frame[1] = (byte) (n >>> 24);
+        frame[2] = (byte) (n >>> 16);
+        frame[3] = (byte) (n >>> 8);
+        frame[4] = (byte) n;
+        for (int i = 0; i < n; i++) {
+            frame[5 + i] = (byte) cells[i];
+        }
+        return frame;
+    }
+
+    private static int[] readSnapshot(byte[] frame, int cellCount) {
+        int[] cells = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            cells[i] = frame[5 + i];
+        }
+        return cells;
+    }
+
+    // ------------- random games -------------
+
+    private static List<List<int[]>> chessGames(SplittableRandom random) {
+        List<List<int[]>> games = new ArrayList<>();
+        for (int g = 0; g < GAMES; g++) {
+            ChessGame game = new ChessGame();
+            List<int[]> boards = new ArrayList<>();
+            boards.add(BoardCells.chess(game.getBoardSnapshot()));
+            for (int ply = 0; ply < 200 && game.getStatus() == GameStatus.RUNNING; ply++) {
+                List<ChessMove> legal = new ArrayList<>();
+                for (int file = 0; file < 8; file++) {
+                    for (int rank = 0; rank < 8; rank++) {
+                        legal.addAll(game.getLegalMovesFrom(file, rank));
+                    }
+                }
+                ChessMove m = legal.get(random.nextInt(legal.size()));
+                game.makeMove(m.getFromFile(), m.getFromRank(), m.getToFile(), m.getToRank());
+                boards.add(BoardCells.chess(game.getBoardSnapshot()));
+            }
+            games.add(boards);
+        }
+        return games;
+    }
+
+    private static List<List<int[]>> goGames(SplittableRandom random) throws Exception {
+        List<List<int[]>> games = new ArrayList<>();
+        for (int g = 0; g < GAMES; g++) {
+            GoGame game = new GoGame(19);
+            List<int[]> boards = new ArrayList<>();
+            boards.add(BoardCells.go(game.getBoard()));
+            for (int ply = 0; ply < 250; ply++) {
+                int row;
+                int col;
+                int attempts = 0;
+                do {
+                    row = random.nextInt(19);
+                    col = random.nextInt(19);
+                } while (!game.isLegalMove(row, col) && ++attempts < 1000);
+                if (attempts == 1000) {
+                    break;
+                }
+                game.playMove(row, col);
+                boards.add(BoardCells.go(game.getBoard()));
+            }
+            games.add(boards);
+        }
+        return games;
+    }
+
+    private static List<List<int[]>> gomokuGames(SplittableRandom random) {
+        List<List<int[]>> games = new ArrayList<>();
+        for (int g = 0; g < GAMES; g++) {
+            TicTacToeGame game = new TicTacToeGame(15, 15, 5);
+            List<int[]> boards = new ArrayList<>();
+            boards.add(BoardCells.ticTacToe(game.getBoard()));
+            while (game.getResult() == TicTacToeGameResult.IN_PROGRESS) {
+                if (game.playMove(random.nextInt(15), random.nextInt(15))) {
+                    boards.add(BoardCells.ticTacToe(game.getBoard()));
+                }
+            }
+            games.add(boards);
+        }
+        return games;
+    }
+}
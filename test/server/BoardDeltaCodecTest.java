@@ -0,0 +1,129 @@
+package server;
+
+import TicTacToe_Logic.TicTacToeGame;
+import TicTacToe_Logic.TicTacToePlayer;
+import chess_logic.ChessGame;
+import chess_logic.Color;
+import chess_logic.Piece;
+import chess_logic.PieceType;
+import game_logic.BoardCells;
+import go_logic.GoGame;
+import go_logic.StoneColor;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoardDeltaCodecTest {
+
+    @Test
+    public void chessMovesAndCapturesRoundTrip() {
+        ChessGame game = new ChessGame();
+        BoardDeltaEncoder encoder = new BoardDeltaEncoder(8, 8);
+        BoardDeltaDecoder decoder = new BoardDeltaDecoder();
+        assertEquals(BoardDeltaDecoder.Result.APPLIED, decoder.apply(encoder.keyframe(BoardCells.chess(game.getBoardSnapshot()))));
+
+        int[][] moves = { {4, 1, 4, 3}, {3, 6, 3, 4}, {4, 3, 3, 4} }; // e4 d5 exd5
+        for (int[] m : moves) {
+            assertTrue(game.makeMove(m[0], m[1], m[2], m[3]));
+            byte[] delta = encoder.delta(BoardCells.chess(game.getBoardSnapshot()));
+            assertTrue("a move touches two squares: " + delta.length + " bytes", delta.length <= 8);
+            assertEquals(BoardDeltaDecoder.Result.APPLIED, decoder.apply(delta));
+        }
+        assertArrayEquals(BoardCells.chess(game.getBoardSnapshot()), decoder.getCells());
+        Piece capturer = BoardCells.chessPiece(decoder.getCells()[4 * 8 + 3]);
+        assertEquals(PieceType.PAWN, capturer.getType());
+        assertEquals(Color.WHITE, capturer.getColor());
+        assertTrue(capturer.hasMoved());
+    }
+
+    @Test
+    public void goCapturesRemoveStonesInTheSameDelta() throws Exception {
+        GoGame game = new GoGame(19);
+        BoardDeltaEncoder encoder = new BoardDeltaEncoder(19, 19);
+        BoardDeltaDecoder decoder = new BoardDeltaDecoder();
+        decoder.apply(encoder.keyframe(BoardCells.go(game.getBoard())));
+
+        // black surrounds the white stone at (1, 1)
+        int[][] moves = { {0, 1}, {1, 1}, {1, 0}, {18, 18}, {1, 2}, {18, 17}, {2, 1} };
+        for (int[] m : moves) {
+            game.playMove(m[0], m[1]);
+            assertEquals(BoardDeltaDecoder.Result.APPLIED, decoder.apply(encoder.delta(BoardCells.go(game.getBoard()))));
+        }
+        assertNull(BoardCells.goStone(decoder.getCells()[19 + 1]));
+        assertEquals(StoneColor.BLACK, BoardCells.goStone(decoder.getCells()[2 * 19 + 1]));
+        assertArrayEquals(BoardCells.go(game.getBoard()), decoder.getCells());
+    }
+
+    @Test
+    public void gapsRequireAResyncAndAKeyframeRecovers() {
+        TicTacToeGame game = new TicTacToeGame();
+        BoardDeltaEncoder encoder = new BoardDeltaEncoder(3, 3);
+        BoardDeltaDecoder decoder = new BoardDeltaDecoder();
+        decoder.apply(encoder.keyframe(BoardCells.ticTacToe(game.getBoard())));
+
+        game.playMove(1, 1);
+        byte[] first = encoder.delta(BoardCells.ticTacToe(game.getBoard()));
+        game.playMove(0, 0);
+        byte[] lost = encoder.delta(BoardCells.ticTacToe(game.getBoard()));
+        game.playMove(2, 2);
+        byte[] third = encoder.delta(BoardCells.ticTacToe(game.getBoard()));
+
+        assertEquals(BoardDeltaDecoder.Result.APPLIED, decoder.apply(first));
+        assertEquals(BoardDeltaDecoder.Result.IGNORED, decoder.apply(first));
+        assertEquals(BoardDeltaDecoder.Result.RESYNC, decoder.apply(third));
+        assertTrue(decoder.needsResync());
+        assertEquals(BoardDeltaDecoder.Result.RESYNC, decoder.apply(lost)); // too late now
+
+        assertEquals(BoardDeltaDecoder.Result.APPLIED, decoder.apply(encoder.keyframe(BoardCells.ticTacToe(game.getBoard()))));
+        assertFalse(decoder.needsResync());
+        assertEquals(TicTacToePlayer.X, BoardCells.ticTacToePlayer(decoder.getCells()[2 * 3 + 2]));
+        assertArrayEquals(BoardCells.ticTacToe(game.getBoard()), decoder.getCells());
+    }
+
+    @Test
+    public void deltasNeedAKeyframeFirst() {
+        BoardDeltaEncoder encoder = new BoardDeltaEncoder(3, 3);
+        try {
+            encoder.delta(new int[9]);
+            fail("no keyframe was sent yet");
+        } catch (IllegalStateException expected) {
+        }
+        encoder.keyframe(new int[9]);
+        BoardDeltaDecoder late = new BoardDeltaDecoder();
+        assertEquals(BoardDeltaDecoder.Result.RESYNC, late.apply(encoder.delta(new int[9])));
+    }
+
+    @Test
+    public void everyChessCodeMapsBackToItsPiece() {
+        for (PieceType type : PieceType.values()) {
+            for (Color color : Color.values()) {
+                for (boolean moved : new boolean[] { false, true }) {
+                    Piece piece = new Piece(type, color, moved);
+                    int code = BoardCells.chessCode(piece);
+                    assertTrue(code > 0);
+                    Piece back = BoardCells.chessPiece(code);
+                    assertEquals(type, back.getType());
+                    assertEquals(color, back.getColor());
+                    assertEquals(moved, back.hasMoved());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void malformedFramesAreRejected() {
+        BoardDeltaDecoder decoder = new BoardDeltaDecoder();
+        try {
+            decoder.apply(new byte[] { BoardDeltaEncoder.KEYFRAME, 1, 3 });
+            fail("truncated keyframe");
+        } catch (IllegalArgumentException expected) {
+        }
+        decoder.apply(new BoardDeltaEncoder(3, 3).keyframe(new int[9]));
+        try {
+            decoder.apply(new byte[] { BoardDeltaEncoder.DELTA, 2, 1, 20, 1 }); // cell 20 of 9
+            fail("cell off the board");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertTrue(decoder.needsResync());
+    }
+}
@@ -0,0 +1,130 @@
+package server;
+
+import chat.ChatServiceStub;
+import game_logic.MoveCodes;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback benchmark for GameServer (not a JUnit test).
+ *
+ * Opens CONNECTIONS client connections (default 2000, or the first
+ * argument), seats them in pairs in CONNECTIONS / 2 sessions, and has every
+ * pair play PLIES moves of Go back and forth at the same time: each side
+ * sends its move as soon as the opponent's arrives. The moves fill every
+ * other point of the 9x9 board, so no stone is ever captured and every move
+ * is legal for the server's rules check. Prints the connect time, moves
+ * relayed per second, and the round trip from sending a move to receiving
+ * its echo. The server runs one selector thread for all connections.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out server.GameServerBenchmark [connections]
+ */
+public class GameServerBenchmark {
+
+    private static final int DEFAULT_CONNECTIONS = 2_000;
+    /** Every other row and column of the 9x9 board. */
+    private static final int PLIES = 25;
+
+    /** One player's end of a benchmark game. */
+    private static final class Seat implements GameClient.SessionListener {
+        final int index;
+        final CountDownLatch finished;
+        final long[] roundTrips = new long[PLIES];
+        int recorded;
+        volatile long sentAt;
+        GameClient.RemoteSession session;
+
+        Seat(int index, CountDownLatch finished) {
+            this.index = index;
+            this.finished = finished;
+        }
+
+        void play(int ply) {
+            sentAt = System.nanoTime();
+            try {
+                session.sendMove(MoveCodes.go(2 * (ply / 5), 2 * (ply % 5), 9));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void onMove(int ply, int playerIndex, int move) {
+            if (playerIndex == index) {
+                roundTrips[recorded++] = System.nanoTime() - sentAt;
+            }
+            if (ply == PLIES - 1) {
+                finished.countDown();
+            } else if ((ply + 1) % 2 == index) {
+                play(ply + 1);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CONNECTIONS;
+        int games = connections / 2;
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors()
+                + ", connections: " + 2 * games + ", plies per game: " + PLIES);
+
+        try (GameServer server = new GameServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), new ChatServiceStub()).start()) {
+            CountDownLatch finished = new CountDownLatch(2 * games);
+            List<GameClient> clients = new ArrayList<>(2 * games);
+            List<Seat> seats = new ArrayList<>(2 * games);
+
+            long connectStart = System.nanoTime();
+            for (int g = 0; g < games; g++) {
+                Player x = new Player("x" + g, "x" + g, 1200);
+                Player o = new Player("o" + g, "o" + g, 1200);
+                Match match = new Match(GameType.GO, x, o);
+                for (int side = 0; side < 2; side++) {
+                    GameClient client = new GameClient("127.0.0.1", server.getPort());
+                    Seat seat = new Seat(side, finished);
+                    seat.session = client.open("bench-" + g, match, side == 0 ? x : o, seat);
+                    clients.add(client);
+                    seats.add(seat);
+                }
+            }
+            double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+            System.out.printf("connected and seated in %.2f s (%d sessions on the server)%n",
+                    connectSeconds, server.getSessionCount());
+
+            long start = System.nanoTime();
+            for (int i = 0; i < seats.size(); i += 2) {
+                seats.get(i).play(0);
+            }
+            if (!finished.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("games did not finish");
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long[] all = new long[games * PLIES];
+            int n = 0;
+            for (Seat seat : seats) {
+                System.arraycopy(seat.roundTrips, 0, all, n, seat.recorded);
+                n += seat.recorded;
+            }
+            Arrays.sort(all, 0, n);
+            System.out.printf("%,d moves in %.2f s = %,.0f moves/sec%n", n, seconds, n / seconds);
+            System.out.printf("move round trip: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    all[n / 2] / 1e6, all[(int) (n * 0.99)] / 1e6, all[n - 1] / 1e6);
+
+            for (GameClient client : clients) {
+                client.close();
+            }
+        }
+    }
+}
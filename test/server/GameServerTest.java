@@ -0,0 +1,326 @@
+package server;
+
+import chat.ChatMessage;
+import chat.ChatServiceStub;
+import journal.SessionJournal;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+import matchmaking.SessionRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    private static final Player ALICE = new Player("alice", "Alice", 1200);
+    private static final Player BOB = new Player("bob", "Bob", 1250);
+    private static final Match MATCH = new Match(GameType.TIC_TAC_TOE, ALICE, BOB);
+
+    private ChatServiceStub chat;
+    private SessionRegistry registry;
+    private GameServer server;
+
+    /** Records everything a session receives. */
+    private static final class Recorder implements GameClient.SessionListener {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMove(int ply, int playerIndex, int move) {
+            events.add("move " + ply + " " + playerIndex + " " + move);
+        }
+
+        @Override
+        public void onChat(String senderName, String text) {
+            events.add("chat " + senderName + ": " + text);
+        }
+
+        @Override
+        public void onPlayerLeft(String playerId) {
+            events.add("left " + playerId);
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull("timed out waiting for the server", event);
+            return event;
+        }
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        chat = new ChatServiceStub();
+        registry = new SessionRegistry(chat);
+        server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), chat, registry)
+                .start();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    private GameClient connect() throws IOException {
+        return new GameClient("127.0.0.1", server.getPort());
+    }
+
+    @Test
+    public void movesReachBothSeatsInOneOrder() throws Exception {
+        try (GameClient a = connect(); GameClient b = connect()) {
+            Recorder ra = new Recorder();
+            Recorder rb = new Recorder();
+            GameClient.RemoteSession sa = a.open("ttt-1", MATCH, ALICE, ra);
+            GameClient.RemoteSession sb = b.open("ttt-1", MATCH, BOB, rb);
+            assertEquals(0, sb.getPliesAtJoin());
+
+            sa.sendMove(4);
+            assertEquals("move 0 0 4", ra.next());
+            assertEquals("move 0 0 4", rb.next());
+            sb.sendMove(0);
+            assertEquals("move 1 1 0", ra.next());
+            assertEquals("move 1 1 0", rb.next());
+
+            assertEquals(1, server.getSessionCount());
+            assertSame(MATCH.getGameType(), server.getSession("ttt-1").getMatch().getGameType());
+        }
+    }
+
+    @Test
+    public void movesOutOfTurnOrIllegalAreRefusedToTheSenderOnly() throws Exception {
+        try (GameClient a = connect(); GameClient b = connect()) {
+            BlockingQueue<String> errors = new LinkedBlockingQueue<>();
+            a.setErrorHandler(errors::add);
+            b.setErrorHandler(errors::add);
+            Recorder ra = new Recorder();
+            Recorder rb = new Recorder();
+            GameClient.RemoteSession sa = a.open("ttt-rules", MATCH, ALICE, ra);
+            GameClient.RemoteSession sb = b.open("ttt-rules", MATCH, BOB, rb);
+
+            sb.sendMove(0); // X moves first
+            assertTrue(errors.poll(5, TimeUnit.SECONDS).contains("NOT_YOUR_TURN"));
+            sa.sendMove(4);
+            assertEquals("move 0 0 4", ra.next());
+            assertEquals("move 0 0 4", rb.next());
+            sb.sendMove(4); // taken
+            assertTrue(errors.poll(5, TimeUnit.SECONDS).contains("ILLEGAL"));
+            sb.sendMove(0);
+            assertEquals("move 1 1 0", rb.next());
+            assertEquals("move 1 1 0", ra.next());
+            assertTrue(ra.events.isEmpty());
+            assertTrue(errors.isEmpty());
+        }
+    }
+
+    @Test
+    public void chatIsStoredInTheSessionChannelAndBroadcast() throws Exception {
+        try (GameClient a = connect(); GameClient b = connect()) {
+            Recorder ra = new Recorder();
+            Recorder rb = new Recorder();
+            GameClient.RemoteSession sa = a.open("ttt-chat", MATCH, ALICE, ra);
+            b.open("ttt-chat", MATCH, BOB, rb);
+
+            sa.sendChat("good luck");
+            assertEquals("chat Alice: good luck", rb.next());
+            assertEquals("chat Alice: good luck", ra.next());
+            List<ChatMessage> history = chat.getHistory("ttt-chat");
+            assertEquals(1, history.size());
+            assertEquals("alice", history.get(0).getSenderId());
+            assertSame(server.getSession("ttt-chat"), registry.get("ttt-chat"));
+        }
+    }
+
+    @Test
+    public void leavingTellsTheOpponentAndEmptySessionsAreDropped() throws Exception {
+        try (GameClient a = connect()) {
+            Recorder rb = new Recorder();
+            GameClient.RemoteSession sa = a.open("ttt-leave", MATCH, ALICE, new Recorder());
+            GameClient b = connect();
+            try {
+                b.open("ttt-leave", MATCH, BOB, rb);
+                sa.sendChat("bye");
+                sa.leave();
+                assertEquals("chat Alice: bye", rb.next());
+                assertEquals("left alice", rb.next());
+            } finally {
+                b.close(); // disconnecting frees the last seat
+            }
+            waitFor(() -> server.getSessionCount() == 0);
+            waitFor(() -> registry.size() == 0);
+            assertTrue(chat.getHistory("ttt-leave").isEmpty());
+        }
+    }
+
+    @Test
+    public void openIsRejectedForStrangersAndMismatchedMatches() throws Exception {
+        try (GameClient a = connect()) {
+            Player mallory = new Player("mallory", "Mallory", 1000);
+            try {
+                a.open("ttt-x", MATCH, mallory, new Recorder());
+                fail("a player outside the match must not get a seat");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("not a player"));
+            }
+
+            a.open("ttt-x", MATCH, ALICE, new Recorder());
+            Match other = new Match(GameType.CHESS, ALICE, BOB);
+            try {
+                a.open("ttt-x", other, BOB, new Recorder());
+                fail("the session already hosts a different match");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("different match"));
+            }
+            assertTrue(a.ping() > 0); // connection still usable
+        }
+    }
+
+    @Test
+    public void aSeatTakenOverByAnotherConnectionTellsTheOldOne() throws Exception {
+        try (GameClient first = connect(); GameClient second = connect()) {
+            Recorder old = new Recorder();
+            first.open("ttt-takeover", MATCH, ALICE, old);
+            Recorder now = new Recorder();
+            GameClient.RemoteSession taken = second.open("ttt-takeover", MATCH, ALICE, now);
+
+            assertEquals("left alice", old.next());
+            taken.sendMove(4);
+            assertEquals("move 0 0 4", now.next());
+            assertTrue(now.events.isEmpty());
+            assertTrue(old.events.isEmpty());
+        }
+    }
+
+    @Test
+    public void journaledSessionsAreHostedAgainAfterARestart() throws Exception {
+        Path directory = Files.createTempDirectory("server-journal-test");
+        try {
+            try (SessionJournal journal = new SessionJournal(directory, 64 << 10);
+                 GameServer first = journaledServer(new ChatServiceStub(), journal).start();
+                 GameClient a = new GameClient("127.0.0.1", first.getPort());
+                 GameClient b = new GameClient("127.0.0.1", first.getPort())) {
+                Recorder ra = new Recorder();
+                Recorder rb = new Recorder();
+                GameClient.RemoteSession sa = a.open("ttt-live", MATCH, ALICE, ra);
+                GameClient.RemoteSession sb = b.open("ttt-live", MATCH, BOB, rb);
+                sa.sendMove(4);
+                assertEquals("move 0 0 4", ra.next());
+                assertEquals("move 0 0 4", rb.next());
+                sb.sendMove(0);
+                assertEquals("move 1 1 0", ra.next());
+                assertEquals("move 1 1 0", rb.next());
+                sa.sendChat("still here");
+                assertEquals("chat Alice: still here", rb.next());
+
+                // a finished game is journaled with its result and not recovered
+                Recorder rx = new Recorder();
+                GameClient.RemoteSession x = a.open("ttt-done", MATCH, ALICE, rx);
+                GameClient.RemoteSession o = b.open("ttt-done", MATCH, BOB, new Recorder());
+                int[] moves = {0, 3, 1, 4, 2}; // X takes the top row
+                for (int ply = 0; ply < moves.length; ply++) {
+                    (ply % 2 == 0 ? x : o).sendMove(moves[ply]);
+                    assertEquals("move " + ply + " " + ply % 2 + " " + moves[ply], rx.next());
+                }
+                waitFor(() -> journal.getLiveCount() == 1);
+                first.close(); // stops with its players still seated, as in a crash
+            }
+
+            // a second server picks the live game up
+            ChatServiceStub chat2 = new ChatServiceStub();
+            try (SessionJournal journal = new SessionJournal(directory, 64 << 10)) {
+                GameServer second = journaledServer(chat2, journal);
+                try {
+                    assertEquals(1, second.recover(journal.recoverSessions(chat2)));
+                    second.start();
+                    try (GameClient c = new GameClient("127.0.0.1", second.getPort())) {
+                        Recorder rc = new Recorder();
+                        GameClient.RemoteSession sc = c.open("ttt-live", MATCH, ALICE, rc);
+                        assertEquals(2, sc.getPliesAtJoin());
+                        assertEquals(1, chat2.getHistory("ttt-live").size());
+                        sc.sendMove(8);
+                        assertEquals("move 2 0 8", rc.next());
+                    }
+                } finally {
+                    second.close();
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static GameServer journaledServer(ChatServiceStub chat, SessionJournal journal) throws IOException {
+        return new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), chat,
+                new SessionRegistry(chat), journal);
+    }
+
+    @Test
+    public void aMoveRightBehindTheJoinedReplyIsNotLost() throws Exception {
+        // a stand-in server that answers OPEN with JOINED and the opponent's
+        // move in the same write, before open() has returned
+        try (ServerSocket fake = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread peer = new Thread(() -> {
+                try (Socket s = fake.accept()) {
+                    DataInputStream in = new DataInputStream(s.getInputStream());
+                    in.readFully(new byte[in.readInt()]);
+                    byte[] joined = new ServerProtocol.FrameWriter(ServerProtocol.JOINED).putInt(7).putInt(0).frame();
+                    byte[] moved = new ServerProtocol.FrameWriter(ServerProtocol.MOVED)
+                            .putInt(7).putInt(0).putByte(1).putInt(4).frame();
+                    byte[] both = new byte[joined.length + moved.length];
+                    System.arraycopy(joined, 0, both, 0, joined.length);
+                    System.arraycopy(moved, 0, both, joined.length, moved.length);
+                    s.getOutputStream().write(both);
+                    s.getOutputStream().flush();
+                    in.read(); // hold the connection until the client closes it
+                } catch (IOException ignored) {
+                }
+            });
+            peer.start();
+            try (GameClient a = new GameClient("127.0.0.1", fake.getLocalPort())) {
+                Recorder ra = new Recorder();
+                a.open("ttt-fast", MATCH, ALICE, ra);
+                assertEquals("move 0 1 4", ra.next());
+            }
+            peer.join(5_000);
+        }
+    }
+
+    @Test
+    public void oversizedFramesCloseTheConnection() throws Exception {
+        try (Socket raw = new Socket("127.0.0.1", server.getPort())) {
+            waitFor(() -> server.getConnectionCount() == 1);
+            OutputStream out = raw.getOutputStream();
+            out.write(new byte[] { 0x7f, 0, 0, 0 }); // ~2 GB length prefix
+            out.flush();
+            assertEquals(-1, raw.getInputStream().read());
+            waitFor(() -> server.getConnectionCount() == 0);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("condition not reached in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
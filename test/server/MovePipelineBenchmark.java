@@ -0,0 +1,216 @@
+package server;
+
+import chat.ChatServiceStub;
+import game_logic.Game;
+import game_logic.GameOutcome;
+import game_logic.Games;
+import matchmaking.GameSession;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Player;
+import matchmaking.SessionActor;
+import matchmaking.SessionCommand;
+import matchmaking.SessionRuntime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Move validation throughput: one actor hop per move vs. MovePipeline ticks
+ * (not a JUnit test).
+ *
+ * SESSIONS games, a third each of chess (CHESS_PLIES random legal moves),
+ * 9x9 Go (GO_PLIES) and TicTacToe (to the end), drawn from POOL
+ * pre-generated games per type. PRODUCERS threads submit every session's
+ * moves, interleaved a ply at a time, as fast as they are taken:
+ *  - actors: each session is a SessionActor whose behaviour applies the
+ *    move to its Game, so every move is its own mailbox hand-off;
+ *  - pipeline: each session is a MovePipeline lane, validated in ticks on
+ *    a ForkJoinPool with one worker per core.
+ * Both validate through the same Game SPI. Prints moves/s from the first
+ * submit to the last validation. Flat out, everything is queued at once, so
+ * the pipeline is then run again with the producers paced to TARGET_RATE
+ * moves/s in total, which is where its submit-to-verdict latency
+ * percentiles mean something.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out server.MovePipelineBenchmark
+ */
+public class MovePipelineBenchmark {
+
+    private static final int SESSIONS = 6_000;
+    private static final int PRODUCERS = 4;
+    private static final int POOL = 200;
+    private static final int CHESS_PLIES = 40;
+    private static final int GO_PLIES = 60;
+    private static final int TARGET_RATE = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        SplittableRandom random = new SplittableRandom(17);
+        List<List<int[]>> pools = new ArrayList<>();
+        for (GameType type : GameType.values()) {
+            List<int[]> pool = new ArrayList<>();
+            for (int i = 0; i < POOL; i++) {
+                pool.add(randomGame(type, random));
+            }
+            pools.add(pool);
+        }
+        int[][] games = new int[SESSIONS][];
+        long moves = 0;
+        for (int s = 0; s < SESSIONS; s++) {
+            games[s] = pools.get(s % 3).get(s % POOL);
+            moves += games[s].length;
+        }
+        System.out.printf("%d sessions, %d moves, %d cores%n",
+                SESSIONS, moves, Runtime.getRuntime().availableProcessors());
+
+        for (int round = 0; round < 3; round++) {
+            actors(games, moves);
+            pipeline(games, moves, 0);
+        }
+        pipeline(games, moves, TARGET_RATE);
+    }
+
+    private static void actors(int[][] games, long moves) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicLong validated = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        try (SessionRuntime runtime = new SessionRuntime()) {
+            SessionActor[] actors = new SessionActor[games.length];
+            for (int s = 0; s < games.length; s++) {
+                Game game = Games.create(GameType.values()[s % 3]);
+                actors[s] = runtime.spawn(session(s), (session, command) -> {
+                    if (!game.apply(command.getMove())) {
+                        rejected.incrementAndGet();
+                    }
+                    if (validated.incrementAndGet() == moves) {
+                        done.countDown();
+                    }
+                    return false;
+                });
+            }
+            long start = System.nanoTime();
+            produce(games, 0, (s, seat, move) -> {
+                while (!actors[s].tell(SessionCommand.move(seat, move))) {
+                    Thread.onSpinWait();
+                }
+            });
+            done.await(5, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("actors:   %,.0f moves/s (%d rejected)%n", moves * 1e9 / elapsed, rejected.get());
+        }
+    }
+
+    /** 'rate' moves/s in total, or 0 for flat out. */
+    private static void pipeline(int[][] games, long moves, int rate) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        long[] latencies = new long[(int) moves];
+        int[] counts = new int[2]; // validated, rejected; the stage runs on the tick thread only
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try (MovePipeline pipeline = new MovePipeline(pool, 1, 1 << 20)) {
+            pipeline.addStage(batch -> {
+                long now = System.nanoTime();
+                for (MovePipeline.Submission s : batch) {
+                    latencies[counts[0]++] = now - s.getSubmittedNanos();
+                    counts[1] += s.isAccepted() ? 0 : 1;
+                }
+                if (counts[0] == moves) {
+                    done.countDown();
+                }
+            });
+            MovePipeline.Lane[] lanes = new MovePipeline.Lane[games.length];
+            for (int s = 0; s < games.length; s++) {
+                lanes[s] = pipeline.register("s" + s, Games.create(GameType.values()[s % 3]));
+            }
+            pipeline.start();
+            long start = System.nanoTime();
+            produce(games, rate, (s, seat, move) -> {
+                while (!pipeline.submit(lanes[s], seat, move)) {
+                    Thread.onSpinWait();
+                }
+            });
+            done.await(5, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            System.out.printf("pipeline%s: %,.0f moves/s (%d rejected), verdict latency p50 %.1f ms,"
+                            + " p99 %.1f ms, max %.1f ms%n",
+                    rate == 0 ? "" : String.format(" paced to %,d/s", rate), moves * 1e9 / elapsed, counts[1],
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ------------- helpers -------------
+
+    private interface MoveSink {
+        void submit(int session, int seat, int move);
+    }
+
+    /**
+     * PRODUCERS threads, each owning every PRODUCERS-th session, submitting a
+     * ply at a time; each paced to rate / PRODUCERS moves/s unless 'rate' is 0.
+     */
+    private static void produce(int[][] games, int rate, MoveSink sink) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        long interval = rate == 0 ? 0 : 1_000_000_000L * PRODUCERS / rate;
+        long start = System.nanoTime();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            Thread t = new Thread(() -> {
+                long due = start;
+                for (int ply = 0; ply < GO_PLIES; ply++) {
+                    for (int s = producer; s < games.length; s += PRODUCERS) {
+                        if (ply < games[s].length) {
+                            due += interval;
+                            long wait = due - System.nanoTime();
+                            if (wait > 0) {
+                                LockSupport.parkNanos(wait);
+                            }
+                            sink.submit(s, ply % 2, games[s][ply]);
+                        }
+                    }
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    private static GameSession session(int s) {
+        Match match = new Match(GameType.values()[s % 3],
+                new Player("p" + s, "Player " + s, 1200), new Player("q" + s, "Player q" + s, 1200));
+        return new GameSession(match, new ChatServiceStub().openChannel("s" + s));
+    }
+
+    private static int[] randomGame(GameType type, SplittableRandom random) {
+        Game game = Games.create(type);
+        int limit = type == GameType.CHESS ? CHESS_PLIES : GO_PLIES;
+        int[] legal = new int[game.getMaxMoves()];
+        List<Integer> moves = new ArrayList<>();
+        while (moves.size() < limit && game.getOutcome() == GameOutcome.IN_PROGRESS) {
+            int n = game.legalMoves(legal);
+            if (type == GameType.GO) {
+                n--; // no passes
+            }
+            int move = legal[random.nextInt(n)];
+            game.apply(move);
+            moves.add(move);
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
@@ -0,0 +1,142 @@
+package server;
+
+import game_logic.Game;
+import game_logic.GameOutcome;
+import game_logic.Games;
+import matchmaking.GameType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MovePipelineTest {
+
+    @Test
+    public void movesAreJudgedInOrderAndEveryStageSeesTheBatch() {
+        MovePipeline pipeline = new MovePipeline();
+        List<List<MovePipeline.Submission>> first = new ArrayList<>();
+        List<List<MovePipeline.Submission>> second = new ArrayList<>();
+        pipeline.addStage(first::add);
+        pipeline.addStage(second::add);
+        MovePipeline.Lane lane = pipeline.register("t", Games.create(GameType.TIC_TAC_TOE));
+
+        assertTrue(pipeline.submit(lane, 0, 4));
+        assertTrue(pipeline.submit(lane, 0, 0)); // X again
+        assertTrue(pipeline.submit(lane, 1, 4)); // taken
+        assertTrue(pipeline.submit(lane, 1, 0));
+        assertEquals(4, pipeline.tick());
+        assertEquals(0, pipeline.tick());
+
+        assertEquals(1, first.size());
+        assertSame(first.get(0), second.get(0));
+        List<MovePipeline.Submission> batch = first.get(0);
+        assertEquals(MovePipeline.Verdict.ACCEPTED, batch.get(0).getVerdict());
+        assertEquals(1, batch.get(0).getPly());
+        assertEquals(MovePipeline.Verdict.NOT_YOUR_TURN, batch.get(1).getVerdict());
+        assertEquals(MovePipeline.Verdict.ILLEGAL, batch.get(2).getVerdict());
+        assertEquals(-1, batch.get(2).getPly());
+        assertEquals(MovePipeline.Verdict.ACCEPTED, batch.get(3).getVerdict());
+        assertEquals(2, batch.get(3).getPly());
+        assertEquals(GameOutcome.IN_PROGRESS, batch.get(3).getOutcome());
+    }
+
+    @Test
+    public void closedLanesAndAFullQueueRefuseMoves() {
+        MovePipeline pipeline = new MovePipeline(ForkJoinPool.commonPool(), 1000, 2);
+        List<MovePipeline.Submission> seen = new ArrayList<>();
+        pipeline.addStage(seen::addAll);
+        MovePipeline.Lane lane = pipeline.register("t", Games.create(GameType.TIC_TAC_TOE));
+        assertTrue(pipeline.submit(lane, 0, 0));
+        assertTrue(pipeline.submit(lane, 1, 1));
+        assertFalse(pipeline.submit(lane, 0, 2));
+
+        pipeline.close(lane);
+        assertFalse(pipeline.submit(lane, 0, 2));
+        assertEquals(2, pipeline.tick());
+        for (MovePipeline.Submission s : seen) {
+            assertEquals(MovePipeline.Verdict.SESSION_CLOSED, s.getVerdict());
+        }
+    }
+
+    @Test
+    public void manySessionsValidatedInParallelKeepEachSessionsOrder() throws Exception {
+        int sessions = 600;
+        int producers = 4;
+        SplittableRandom random = new SplittableRandom(9);
+        List<int[]> games = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            games.add(randomGo(random, 30));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<String, List<Integer>> accepted = new ConcurrentHashMap<>();
+        Map<String, Integer> rejected = new ConcurrentHashMap<>();
+        try (MovePipeline pipeline = new MovePipeline(pool, 1, 1 << 20)) {
+            // stages run on the tick thread, one batch at a time
+            pipeline.addStage(batch -> {
+                for (MovePipeline.Submission s : batch) {
+                    if (s.isAccepted()) {
+                        accepted.computeIfAbsent(s.getSessionId(), k -> new ArrayList<>()).add(s.getMove());
+                    } else {
+                        rejected.merge(s.getSessionId(), 1, Integer::sum);
+                    }
+                }
+            });
+            Map<Integer, MovePipeline.Lane> lanes = new HashMap<>();
+            for (int s = 0; s < sessions; s++) {
+                lanes.put(s, pipeline.register("g" + s, Games.create(GameType.GO)));
+            }
+            pipeline.start();
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                Thread t = new Thread(() -> {
+                    // interleave this producer's sessions, one ply at a time
+                    for (int ply = 0; ply < 30; ply++) {
+                        for (int s = producer; s < sessions; s += producers) {
+                            assertTrue(pipeline.submit(lanes.get(s), ply % 2, games.get(s)[ply]));
+                        }
+                    }
+                });
+                t.start();
+                threads.add(t);
+            }
+            for (Thread t : threads) {
+                t.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(rejected.toString(), rejected.isEmpty());
+        for (int s = 0; s < sessions; s++) {
+            List<Integer> moves = accepted.get("g" + s);
+            assertNotNull(moves);
+            assertEquals(30, moves.size());
+            for (int ply = 0; ply < 30; ply++) {
+                assertEquals(games.get(s)[ply], (int) moves.get(ply));
+            }
+        }
+    }
+
+    // ------------- helpers -------------
+
+    /** 'plies' random legal stones (no passes) on the default Go board. */
+    private static int[] randomGo(SplittableRandom random, int plies) {
+        Game game = Games.create(GameType.GO);
+        int[] legal = new int[game.getMaxMoves()];
+        int[] moves = new int[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            int n = game.legalMoves(legal) - 1; // the pass is last
+            moves[ply] = legal[random.nextInt(n)];
+            assertTrue(game.apply(moves[ply]));
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,408 @@
+package server;
+
+import chat.ChatService;
+import chat.ChatServiceStub;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import game_logic.Game;
+import game_logic.GameOutcome;
+import game_logic.Games;
+import leaderboard_logic.RankingAlgorithm;
+import matchmaking.GameSession;
+import matchmaking.GameType;
+import matchmaking.Match;
+import matchmaking.Matchmaker;
+import matchmaking.Player;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Whole-platform capacity with bots on both sides (not a JUnit test).
+ *
+ * PLAYERS simulated players (default 2000, or the first argument) queue
+ * through a Matchmaker running its batch tick, each for a random game type.
+ * Every match becomes a GameSession whose chat goes through a ChatService
+ * (its channel is closed when the game ends, as SessionRegistry does),
+ * and whose moves go through a MovePipeline: a bot picks a random legal
+ * move for the side to move, submits it, and the pipeline's stage hands the
+ * verdict to the next bot turn. Chess and Go games still running after
+ * MAX_PLIES are adjudicated as draws. Decisive results are recorded through
+ * RankingAlgorithm, and both players queue again with their new rating.
+ * No Swing is involved.
+ *
+ * After WARMUP_SECONDS it measures for the given number of seconds (default
+ * 30, or the second argument) and prints sustained games/s and moves/s,
+ * move latency (submit to verdict) and matchmaking wait percentiles, heap
+ * use sampled every 100 ms, and GC pauses. Heap is reported above a baseline
+ * taken after a GC before any player queues, and latencies go into
+ * fixed-size histograms, so the harness's own bookkeeping does not show up
+ * as platform memory. Bots choose their moves in the pipeline's stage,
+ * the only place MovePipeline lets anyone read a registered Game, and a bot
+ * thread then submits the move. RankingAlgorithm logs every
+ * result to System.out; that is muted during the run so the console does
+ * not become the thing being measured.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out server.PlatformLoadBenchmark [players] [seconds]
+ */
+public class PlatformLoadBenchmark {
+
+    private static final int DEFAULT_PLAYERS = 2_000;
+    private static final int DEFAULT_SECONDS = 30;
+    private static final int WARMUP_SECONDS = 10;
+    private static final long MATCHMAKER_TICK_MILLIS = 20;
+    private static final long PIPELINE_TICK_MILLIS = 1;
+    private static final int MAX_PLIES = 200;
+
+    /** One game in progress; 'game' and 'legal' are only used before register() and in the stage. */
+    private static final class Table {
+        final String sessionId;
+        final GameSession session;
+        final Game game;
+        final MovePipeline.Lane lane;
+        final int[] legal;
+
+        Table(String sessionId, GameSession session, Game game, int[] legal, MovePipeline.Lane lane) {
+            this.sessionId = sessionId;
+            this.session = session;
+            this.game = game;
+            this.legal = legal;
+            this.lane = lane;
+        }
+    }
+
+    private final Matchmaker matchmaker = new Matchmaker();
+    private final ChatService chat = new ChatServiceStub();
+    private final ForkJoinPool validators = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private final MovePipeline pipeline = new MovePipeline(validators, PIPELINE_TICK_MILLIS, 1 << 20);
+    private final ExecutorService bots = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "load-bot");
+                t.setDaemon(true);
+                return t;
+            });
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final Map<String, auth_logic.Player> accounts = new ConcurrentHashMap<>();
+    /** When each player last queued, for the matchmaking wait. */
+    private final Map<String, Long> queuedAt = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSession = new AtomicInteger();
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong decisive = new AtomicLong();
+    private final AtomicLong adjudicated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong moves = new AtomicLong();
+    private final Histogram moveLatencies = new Histogram();
+    private final Histogram queueWaits = new Histogram();
+    private final List<Long> gcPauses = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PLAYERS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        new PlatformLoadBenchmark().run(players, seconds);
+    }
+
+    private void run(int players, int seconds) throws Exception {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        listenForGcPauses();
+        System.gc();
+        long baseHeap = memory.getHeapMemoryUsage().getUsed();
+
+        pipeline.addStage(this::onVerdicts);
+        pipeline.start();
+        matchmaker.start(MATCHMAKER_TICK_MILLIS, matches -> {
+            for (Match match : matches) {
+                bots.execute(() -> startGame(match));
+            }
+        });
+        for (int i = 0; i < players; i++) {
+            String id = "load-" + i;
+            accounts.put(id, new auth_logic.Player(id));
+            enqueue(id, 1000 + ThreadLocalRandom.current().nextInt(600));
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+        long[] before = counters();
+        measuring = true;
+        long start = System.nanoTime();
+        long heapSum = 0;
+        long heapMax = 0;
+        int heapSamples = 0;
+        while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(seconds)) {
+            Thread.sleep(100);
+            long used = memory.getHeapMemoryUsage().getUsed();
+            heapSum += used;
+            heapMax = Math.max(heapMax, used);
+            heapSamples++;
+        }
+        measuring = false;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long[] during = counters();
+        for (int i = 0; i < during.length; i++) {
+            during[i] -= before[i];
+        }
+        long gamesDone = during[0];
+        long movesDone = during[1];
+
+        running = false;
+        matchmaker.stop();
+        bots.shutdown();
+        bots.awaitTermination(5, TimeUnit.SECONDS);
+        pipeline.close();
+        validators.shutdown();
+        System.gc();
+        long liveHeap = memory.getHeapMemoryUsage().getUsed();
+        System.setOut(console);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d players, %d cores, %.0f s measured after %d s warm-up%n",
+                players, cores, elapsed, WARMUP_SECONDS);
+        System.out.printf("games:   %,.1f games/s (%d finished: %d decisive, %d adjudicated at %d plies;"
+                        + " %d moves rejected)%n", gamesDone / elapsed, gamesDone, during[2],
+                during[3], MAX_PLIES, during[4]);
+        System.out.printf("moves:   %,.0f moves/s; submit-to-verdict %s%n",
+                movesDone / elapsed, moveLatencies.percentiles());
+        System.out.printf("queue:   matchmaking wait %s%n", queueWaits.percentiles());
+        System.out.printf("heap:    above a %.0f MiB baseline: avg %.0f MiB, max %.0f MiB while running;"
+                        + " %.0f MiB live after GC%n",
+                baseHeap / 1048576.0, (heapSum / (double) heapSamples - baseHeap) / 1048576,
+                (heapMax - baseHeap) / 1048576.0, (liveHeap - baseHeap) / 1048576.0);
+        synchronized (gcPauses) {
+            long total = 0;
+            long max = 0;
+            for (long pause : gcPauses) {
+                total += pause;
+                max = Math.max(max, pause);
+            }
+            System.out.printf("gc:      %d pauses, %d ms total (%.2f%% of the run), max %d ms%n",
+                    gcPauses.size(), total, total / 10.0 / elapsed, max);
+        }
+        System.out.printf("capacity: %,.0f games/s with %d concurrent players on %d cores%n",
+                gamesDone / elapsed, players, cores);
+    }
+
+    // ------------- players -------------
+
+    private void enqueue(String id, int rating) {
+        if (!running) {
+            return;
+        }
+        GameType type = GameType.values()[ThreadLocalRandom.current().nextInt(GameType.values().length)];
+        queuedAt.put(id, System.nanoTime());
+        matchmaker.enqueue(new Player(id, id, rating), type);
+    }
+
+    private void startGame(Match match) {
+        long now = System.nanoTime();
+        for (Player p : new Player[] {match.getPlayer1(), match.getPlayer2()}) {
+            Long since = queuedAt.remove(p.getId());
+            if (measuring && since != null) {
+                queueWaits.record(now - since);
+            }
+        }
+        String sessionId = "load-session-" + nextSession.incrementAndGet();
+        GameSession session = new GameSession(match, chat.openChannel(sessionId));
+        Game game = Games.create(match.getGameType());
+        int[] legal = new int[game.getMaxMoves()];
+        int first = chooseMove(game, legal); // the game is not the pipeline's yet
+        Table table = new Table(sessionId, session, game, legal, pipeline.register(sessionId, game));
+        tables.put(sessionId, table);
+        say(table, match.getPlayer1(), "glhf");
+        submit(table, 0, first);
+    }
+
+    /** A random legal move for the side to move; Go passes only when nothing else is left. */
+    private static int chooseMove(Game game, int[] legal) {
+        int n = game.legalMoves(legal);
+        if (n > 1 && game.getType() == GameType.GO) {
+            n--; // the pass is listed last
+        }
+        return legal[ThreadLocalRandom.current().nextInt(n)];
+    }
+
+    private void submit(Table table, int seat, int move) {
+        while (!pipeline.submit(table.lane, seat, move)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * The pipeline's stage: runs on its tick thread, between validations,
+     * so it may read every game. Chooses each game's next move here and
+     * hands only the submit to a bot thread.
+     */
+    private void onVerdicts(List<MovePipeline.Submission> batch) {
+        long now = System.nanoTime();
+        for (MovePipeline.Submission s : batch) {
+            if (measuring) {
+                moveLatencies.record(now - s.getSubmittedNanos());
+            }
+            Table table = running ? tables.get(s.getSessionId()) : null;
+            if (table == null) {
+                continue; // finished, or the run is shutting down and the bots are gone
+            }
+            if (!s.isAccepted()) {
+                rejected.incrementAndGet();
+                bots.execute(() -> finish(table, GameOutcome.DRAW));
+                continue;
+            }
+            moves.incrementAndGet();
+            GameOutcome outcome = s.getOutcome();
+            if (outcome != GameOutcome.IN_PROGRESS) {
+                bots.execute(() -> finish(table, outcome));
+            } else if (s.getPly() >= MAX_PLIES && table.game.getType() != GameType.TIC_TAC_TOE) {
+                adjudicated.incrementAndGet();
+                bots.execute(() -> finish(table, GameOutcome.DRAW));
+            } else {
+                int seat = table.game.getSideToMove();
+                int move = chooseMove(table.game, table.legal);
+                bots.execute(() -> submit(table, seat, move));
+            }
+        }
+    }
+
+    private void finish(Table table, GameOutcome outcome) {
+        pipeline.close(table.lane);
+        tables.remove(table.sessionId);
+        Match match = table.session.getMatch();
+        say(table, match.getPlayer2(), "gg");
+        chat.closeChannel(table.sessionId);
+        if (outcome == GameOutcome.FIRST_PLAYER_WINS || outcome == GameOutcome.SECOND_PLAYER_WINS) {
+            boolean firstWon = outcome == GameOutcome.FIRST_PLAYER_WINS;
+            auth_logic.Player winner = accounts.get((firstWon ? match.getPlayer1() : match.getPlayer2()).getId());
+            auth_logic.Player loser = accounts.get((firstWon ? match.getPlayer2() : match.getPlayer1()).getId());
+            switch (match.getGameType()) {
+                case CHESS:
+                    RankingAlgorithm.recordChessResult(winner, loser);
+                    break;
+                case GO:
+                    RankingAlgorithm.recordGoResult(winner, loser);
+                    break;
+                default:
+                    RankingAlgorithm.recordTicTacToeResult(winner, loser);
+            }
+            decisive.incrementAndGet();
+        }
+        games.incrementAndGet();
+        for (Player p : new Player[] {match.getPlayer1(), match.getPlayer2()}) {
+            enqueue(p.getId(), RankingAlgorithm.getPlayerRating(accounts.get(p.getId()), label(match.getGameType())));
+        }
+    }
+
+    // ------------- helpers -------------
+
+    /** games, moves, decisive, adjudicated, rejected */
+    private long[] counters() {
+        return new long[] {games.get(), moves.get(), decisive.get(), adjudicated.get(), rejected.get()};
+    }
+
+    private void say(Table table, Player sender, String text) {
+        chat.sendMessage(table.sessionId, sender.getId(), sender.getName(), text);
+    }
+
+    private static String label(GameType type) {
+        return type == GameType.CHESS ? "chess" : type == GameType.GO ? "go" : "tictactoe";
+    }
+
+    private void listenForGcPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (!measuring || !notification.getType()
+                        .equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                        (CompositeData) notification.getUserData());
+                // concurrent cycles run beside the application; only count stop-the-world pauses
+                if (info.getGcAction().toLowerCase().contains("concurrent")
+                        || info.getGcName().toLowerCase().contains("concurrent")) {
+                    return;
+                }
+                synchronized (gcPauses) {
+                    gcPauses.add(info.getGcInfo().getDuration());
+                }
+            }, null, null);
+        }
+    }
+
+    /**
+     * Nanosecond durations in log-linear buckets: SUB_BUCKETS per power of
+     * two, so a few KiB for any run length and within 12.5% of the true value.
+     */
+    private static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long v = Math.max(0, nanos);
+            counts.incrementAndGet(index(v));
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        String percentiles() {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            if (total == 0) {
+                return "(no samples)";
+            }
+            return String.format("p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    at(total, 0.50) / 1e6, at(total, 0.90) / 1e6, at(total, 0.99) / 1e6, max.get() / 1e6);
+        }
+
+        /** Upper edge of the bucket holding the p-th sample. */
+        private long at(long total, double p) {
+            long rank = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperEdge(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        private static int index(long v) {
+            if (v < SUB_BUCKETS) {
+                return (int) v;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperEdge(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = index % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+}
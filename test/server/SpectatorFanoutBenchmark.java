@@ -0,0 +1,140 @@
+package server;
+
+import matchmaking.SpectatorFeed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spectator fan-out: synchronous listeners vs. SpectatorFeed (not a JUnit test).
+ *
+ * A producer plays MOVES random stones on a 19x19 board and encodes each
+ * as a BoardDeltaEncoder frame. SPECTATORS decoders watch it two ways:
+ *  - listeners: the producer hands every frame to every spectator itself,
+ *    the way ChatChannel notifies its listeners;
+ *  - feed: the producer publishes once into a SpectatorFeed and READERS
+ *    threads drain the spectators' cursors. Every tenth spectator is slow
+ *    (it reads one frame in SLOW_STRIDE passes), so some get skipped to a
+ *    keyframe instead of holding the producer back.
+ * The producer runs flat out, far faster than real games, so readers get
+ * lapped often; that exercises the skip path on purpose.
+ * Prints how long the producer spends per move, and for the feed, how many
+ * frames spectators decoded or skipped and whether their boards ended right.
+ *
+ * Run this with (from project root, after compiling src and test into out/):
+ *   java -cp out server.SpectatorFanoutBenchmark
+ */
+public class SpectatorFanoutBenchmark {
+
+    private static final int SIZE = 19;
+    private static final int MOVES = 20_000;
+    private static final int SPECTATORS = 2_000;
+    private static final int READERS = 4;
+    private static final int SLOW_STRIDE = 8;
+
+    public static void main(String[] args) throws Exception {
+        List<int[]> boards = randomGame(new SplittableRandom(3));
+        for (int round = 0; round < 3; round++) {
+            listeners(boards);
+            feed(boards);
+        }
+    }
+
+    private static void listeners(List<int[]> boards) {
+        BoardDeltaEncoder encoder = new BoardDeltaEncoder(SIZE, SIZE);
+        List<BoardDeltaDecoder> spectators = new ArrayList<>();
+        for (int i = 0; i < SPECTATORS; i++) {
+            spectators.add(new BoardDeltaDecoder());
+        }
+        long start = System.nanoTime();
+        for (int m = 0; m < boards.size(); m++) {
+            byte[] frame = m == 0 ? encoder.keyframe(boards.get(m)) : encoder.delta(boards.get(m));
+            for (BoardDeltaDecoder spectator : spectators) {
+                spectator.apply(frame);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("listeners: producer %8.1f us/move%n", elapsed / 1e3 / boards.size());
+    }
+
+    private static void feed(List<int[]> boards) throws InterruptedException {
+        SpectatorFeed feed = new SpectatorFeed();
+        List<SpectatorFeed.Cursor> cursors = new ArrayList<>();
+        List<BoardDeltaDecoder> decoders = new ArrayList<>();
+        for (int i = 0; i < SPECTATORS; i++) {
+            cursors.add(feed.subscribe());
+            decoders.add(new BoardDeltaDecoder());
+        }
+        AtomicBoolean producing = new AtomicBoolean(true);
+        long[] decoded = new long[READERS];
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            Thread t = new Thread(() -> {
+                long pass = 0;
+                boolean more = true;
+                while (producing.get() || more) {
+                    more = false;
+                    pass++;
+                    for (int i = reader; i < SPECTATORS; i += READERS) {
+                        if (i % 10 == 0 && pass % SLOW_STRIDE != 0 && producing.get()) {
+                            continue; // slow spectator
+                        }
+                        byte[] frame = cursors.get(i).poll();
+                        if (frame != null) {
+                            decoders.get(i).apply(frame);
+                            decoded[reader]++;
+                            more = true;
+                        }
+                    }
+                }
+            });
+            t.start();
+            readers.add(t);
+        }
+
+        BoardDeltaEncoder encoder = new BoardDeltaEncoder(SIZE, SIZE);
+        long start = System.nanoTime();
+        for (int[] board : boards) {
+            boolean keyframe = feed.isKeyframeDue();
+            feed.publish(keyframe ? encoder.keyframe(board) : encoder.delta(board), keyframe);
+        }
+        long elapsed = System.nanoTime() - start;
+        producing.set(false);
+        for (Thread t : readers) {
+            t.join();
+        }
+
+        long total = 0;
+        for (long d : decoded) {
+            total += d;
+        }
+        long skipped = 0;
+        int correct = 0;
+        int[] last = boards.get(boards.size() - 1);
+        for (int i = 0; i < SPECTATORS; i++) {
+            skipped += cursors.get(i).getSkipped();
+            if (Arrays.equals(last, decoders.get(i).getCells())) {
+                correct++;
+            }
+        }
+        System.out.printf("feed:      producer %8.1f us/move, %d frames decoded, %d skipped, %d/%d boards correct%n",
+                elapsed / 1e3 / boards.size(), total, skipped, correct, SPECTATORS);
+    }
+
+    /** MOVES boards of a game where each move places or lifts one random stone. */
+    private static List<int[]> randomGame(SplittableRandom random) {
+        List<int[]> boards = new ArrayList<>();
+        int[] cells = new int[SIZE * SIZE];
+        boards.add(cells.clone());
+        for (int m = 1; m < MOVES; m++) {
+            int i = random.nextInt(cells.length);
+            cells[i] = cells[i] == 0 ? 1 + (m & 1) : 0;
+            boards.add(cells.clone());
+        }
+        return boards;
+    }
+}